@@ -0,0 +1,96 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.execution.engine.collect.stats;
+
+import io.crate.breaker.SizeEstimator;
+import io.crate.common.collections.BlockingEvictingQueue;
+import org.apache.logging.log4j.LogManager;
+import org.elasticsearch.common.breaker.MemoryCircuitBreaker;
+import org.elasticsearch.common.unit.ByteSizeValue;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.annotation.Nullable;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the throughput of concurrent adds to the size based jobs_log/operations_log sinks.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(value = 1)
+@Warmup(iterations = 2)
+@Measurement(iterations = 4)
+@Threads(8)
+@State(Scope.Benchmark)
+public class LogSinkBenchmark {
+
+    private static final int SIZE = 10_000;
+
+    private static final SizeEstimator<Object> ESTIMATOR = new SizeEstimator<>() {
+        @Override
+        public long estimateSize(@Nullable Object value) {
+            return 64L;
+        }
+    };
+
+    private final Object item = new Object();
+    private LogSink<Object> queueSink;
+    private LogSink<Object> ringBufferSink;
+
+    @Setup
+    public void setup() {
+        MemoryCircuitBreaker breaker = new MemoryCircuitBreaker(
+            new ByteSizeValue(Long.MAX_VALUE), 1.0, LogManager.getLogger(LogSinkBenchmark.class));
+        RamAccountingQueue<Object> queue = new RamAccountingQueue<>(
+            new BlockingEvictingQueue<>(SIZE), breaker, ESTIMATOR);
+        queueSink = new QueueSink<>(queue, queue::release);
+        ringBufferSink = new RingBufferSink<>(SIZE, breaker, ESTIMATOR);
+    }
+
+    @TearDown
+    public void tearDown() {
+        queueSink.close();
+        ringBufferSink.close();
+    }
+
+    @Benchmark
+    public void measureQueueSinkAdd() {
+        queueSink.add(item);
+    }
+
+    @Benchmark
+    public void measureRingBufferSinkAdd() {
+        ringBufferSink.add(item);
+    }
+}
@@ -0,0 +1,183 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.expression.compile;
+
+import io.crate.data.Input;
+import io.crate.data.Row;
+import io.crate.data.RowN;
+import io.crate.execution.engine.collect.CollectExpression;
+import io.crate.execution.engine.collect.InputCollectExpression;
+import io.crate.expression.FunctionExpression;
+import io.crate.expression.InputFactory;
+import io.crate.expression.operator.AndOperator;
+import io.crate.expression.operator.GtOperator;
+import io.crate.expression.operator.LtOperator;
+import io.crate.expression.predicate.NotPredicate;
+import io.crate.expression.scalar.arithmetic.ArithmeticFunctions;
+import io.crate.expression.symbol.Function;
+import io.crate.expression.symbol.InputColumn;
+import io.crate.expression.symbol.Literal;
+import io.crate.expression.symbol.Symbol;
+import io.crate.metadata.CoordinatorTxnCtx;
+import io.crate.metadata.NodeContext;
+import io.crate.metadata.Scalar;
+import io.crate.metadata.TransactionContext;
+import io.crate.metadata.functions.Signature;
+import io.crate.types.DataType;
+import io.crate.types.DataTypes;
+import io.crate.types.TypeSignature;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static io.crate.testing.TestingHelpers.createNodeContext;
+
+/**
+ * Compares the interpreted {@link FunctionExpression} tree with the compiled expression, evaluated row by row
+ * and a batch at a time, for {@code (x * 3 + y > 100) AND NOT (d < 0.5)}
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class ExpressionCompilerBenchmark {
+
+    private final TransactionContext txnCtx = CoordinatorTxnCtx.systemTransactionContext();
+    private final List<Row> rows = new ArrayList<>();
+
+    private List<CollectExpression<Row, ?>> compiledExpressions;
+    private Input<?> compiled;
+    private final List<InputCollectExpression> interpretedExpressions = new ArrayList<>();
+    private Input<?> interpreted;
+    private VectorizedInputs vectorized;
+    private final int[] selection = new int[VectorizedInputs.BATCH_SIZE];
+
+    @Setup
+    public void setup() {
+        for (int i = 0; i < 10_000; i++) {
+            rows.add(new RowN((long) i, (long) (i % 100), (i % 10) / 10.0));
+        }
+        NodeContext nodeCtx = createNodeContext();
+        Function multiply = function(
+            ArithmeticFunctions.Names.MULTIPLY,
+            DataTypes.LONG,
+            new InputColumn(0, DataTypes.LONG),
+            Literal.of(3L));
+        Function add = function(ArithmeticFunctions.Names.ADD, DataTypes.LONG, multiply, new InputColumn(1, DataTypes.LONG));
+        Function gt = function(GtOperator.NAME, DataTypes.BOOLEAN, add, Literal.of(100L));
+        Function lt = function(LtOperator.NAME, DataTypes.BOOLEAN, new InputColumn(2, DataTypes.DOUBLE), Literal.of(0.5));
+        Function not = function(NotPredicate.NAME, DataTypes.BOOLEAN, lt);
+        Function and = function(AndOperator.NAME, DataTypes.BOOLEAN, gt, not);
+
+        InputFactory.Context<CollectExpression<Row, ?>> ctx = new InputFactory(nodeCtx).ctxForInputColumns(txnCtx);
+        compiled = ctx.add(and);
+        compiledExpressions = ctx.expressions();
+        interpreted = interpret(nodeCtx, and);
+        vectorized = VectorizedInputs.of(List.of(compiled));
+    }
+
+    private static Function function(String name, DataType<?> returnType, Symbol... args) {
+        TypeSignature[] types = new TypeSignature[args.length + 1];
+        for (int i = 0; i < args.length; i++) {
+            types[i] = args[i].valueType().getTypeSignature();
+        }
+        types[args.length] = returnType.getTypeSignature();
+        return new Function(Signature.scalar(name, types), List.of(args), returnType);
+    }
+
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    private Input<?> interpret(NodeContext nodeCtx, Symbol symbol) {
+        if (symbol instanceof InputColumn) {
+            InputCollectExpression expression = new InputCollectExpression(((InputColumn) symbol).index());
+            interpretedExpressions.add(expression);
+            return expression;
+        }
+        if (symbol instanceof Literal) {
+            return (Literal<?>) symbol;
+        }
+        Function function = (Function) symbol;
+        Scalar scalar = (Scalar) nodeCtx.functions().getQualified(function, txnCtx.sessionSettings().searchPath());
+        Input[] args = new Input[function.arguments().size()];
+        for (int i = 0; i < args.length; i++) {
+            args[i] = interpret(nodeCtx, function.arguments().get(i));
+        }
+        return new FunctionExpression<>(txnCtx, nodeCtx, scalar.compile(function.arguments()), args);
+    }
+
+    @Benchmark
+    public int measureInterpreted() {
+        int matches = 0;
+        for (int i = 0; i < rows.size(); i++) {
+            Row row = rows.get(i);
+            for (int j = 0; j < interpretedExpressions.size(); j++) {
+                interpretedExpressions.get(j).setNextRow(row);
+            }
+            if (interpreted.value() == Boolean.TRUE) {
+                matches++;
+            }
+        }
+        return matches;
+    }
+
+    @Benchmark
+    public int measureCompiled() {
+        int matches = 0;
+        for (int i = 0; i < rows.size(); i++) {
+            Row row = rows.get(i);
+            for (int j = 0; j < compiledExpressions.size(); j++) {
+                compiledExpressions.get(j).setNextRow(row);
+            }
+            if (compiled.value() == Boolean.TRUE) {
+                matches++;
+            }
+        }
+        return matches;
+    }
+
+    @Benchmark
+    public int measureVectorized() {
+        int matches = 0;
+        int position = 0;
+        for (int i = 0; i < rows.size(); i++) {
+            Row row = rows.get(i);
+            for (int j = 0; j < compiledExpressions.size(); j++) {
+                compiledExpressions.get(j).setNextRow(row);
+            }
+            vectorized.load(position);
+            position++;
+            if (position == VectorizedInputs.BATCH_SIZE || i == rows.size() - 1) {
+                vectorized.evaluate(position);
+                matches += vectorized.select(0, position, selection);
+                position = 0;
+            }
+        }
+        return matches;
+    }
+}
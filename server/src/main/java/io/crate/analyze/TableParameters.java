@@ -105,6 +105,7 @@ public class TableParameters {
             MergeSchedulerConfig.MAX_THREAD_COUNT_SETTING,
             IndexSettings.INDEX_SOFT_DELETES_SETTING,
             IndexSettings.INDEX_SOFT_DELETES_RETENTION_LEASE_SETTING,
+            IndexSettings.INDEX_SORT_BY_SETTING,
 
             // this setting is needed for tests and is not documented. see ClusterDisruptionIT for usages.
             IndexService.GLOBAL_CHECKPOINT_SYNC_INTERVAL_SETTING,
@@ -122,6 +123,7 @@ public class TableParameters {
         MergeSchedulerConfig.MAX_THREAD_COUNT_SETTING,
         IndexSettings.INDEX_SOFT_DELETES_SETTING,
         IndexSettings.INDEX_SOFT_DELETES_RETENTION_LEASE_SETTING,
+        IndexSettings.INDEX_SORT_BY_SETTING,
         IndexService.RETENTION_LEASE_SYNC_INTERVAL_SETTING,
 
         // We want IndexSettings#isExplicitRefresh and it's usages to work
@@ -135,8 +137,18 @@ public class TableParameters {
 
     private static final Set<Setting<?>> EXCLUDED_SETTING_FOR_METADATA_IMPORT = Set.of(NUMBER_OF_REPLICAS);
 
+    /**
+     * Settings which can only be set when a table is created, ALTER TABLE rejects them.
+     * They are validated against the columns of the table when the index or the template is created.
+     */
+    private static final Set<Setting<?>> SETTINGS_ONLY_SUPPORTED_ON_CREATE = Set.of(IndexSettings.INDEX_SORT_BY_SETTING);
+
     private static final Map<String, Setting<?>> SUPPORTED_SETTINGS_INCL_SHARDS
-        = MapBuilder.newMapBuilder(SUPPORTED_SETTINGS_DEFAULT)
+        = MapBuilder.newMapBuilder(SUPPORTED_SETTINGS_DEFAULT
+                .entrySet()
+                .stream()
+                .filter(e -> SETTINGS_ONLY_SUPPORTED_ON_CREATE.contains(e.getValue()) == false)
+                .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue)))
             .put(
                 stripIndexPrefix(IndexMetadata.INDEX_NUMBER_OF_SHARDS_SETTING.getKey()),
                 IndexMetadata.INDEX_NUMBER_OF_SHARDS_SETTING
@@ -118,6 +118,7 @@ import io.crate.sql.tree.ComparisonExpression;
 import io.crate.sql.tree.CurrentTime;
 import io.crate.sql.tree.DoubleLiteral;
 import io.crate.sql.tree.EscapedCharStringLiteral;
+import io.crate.sql.tree.ExistsPredicate;
 import io.crate.sql.tree.Expression;
 import io.crate.sql.tree.Extract;
 import io.crate.sql.tree.FrameBound;
@@ -1063,8 +1064,8 @@ public class ExpressionAnalyzer {
             if (subQueryAnalyzer == null) {
                 throw new UnsupportedOperationException("Subquery not supported in this statement");
             }
-            /* note: This does not support analysis columns in the subquery which belong to the parent relation
-             * this would require {@link StatementAnalysisContext#startRelation} to somehow inherit the parent context
+            /* note: The subquery can refer to columns of the parent relation, the parent relation must then
+             * rewrite the correlated subquery into a join, see {@link io.crate.analyze.relations.SubqueryDecorrelator}
              */
             AnalyzedRelation relation = subQueryAnalyzer.analyze(node.getQuery());
             List<Symbol> fields = relation.outputs();
@@ -1087,7 +1088,23 @@ public class ExpressionAnalyzer {
             } else {
                 resultType = SelectSymbol.ResultType.SINGLE_COLUMN_SINGLE_VALUE;
             }
-            return new SelectSymbol(relation, dataType, resultType);
+            return new SelectSymbol(relation, dataType, resultType, subQueryAnalyzer.isCorrelated(relation));
+        }
+
+        @Override
+        protected Symbol visitExists(ExistsPredicate node, ExpressionAnalysisContext context) {
+            if (subQueryAnalyzer == null) {
+                throw new UnsupportedOperationException("Subquery not supported in this statement");
+            }
+            AnalyzedRelation relation = subQueryAnalyzer.analyze(node.getSubquery());
+            // The outputs of the subquery don't matter, only whether it returns any row
+            ArrayType<?> dataType = new ArrayType<>(relation.outputs().get(0).valueType());
+            return new SelectSymbol(
+                relation,
+                dataType,
+                SelectSymbol.ResultType.EXISTS,
+                subQueryAnalyzer.isCorrelated(relation)
+            );
         }
     }
 
@@ -27,10 +27,15 @@ import io.crate.analyze.relations.RelationAnalyzer;
 import io.crate.analyze.relations.StatementAnalysisContext;
 import io.crate.sql.tree.Query;
 
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+
 public class SubqueryAnalyzer {
 
     private final RelationAnalyzer relationAnalyzer;
     private final StatementAnalysisContext statementAnalysisContext;
+    private final Set<AnalyzedRelation> correlatedRelations = Collections.newSetFromMap(new IdentityHashMap<>());
 
     public SubqueryAnalyzer(RelationAnalyzer relationAnalyzer, StatementAnalysisContext statementAnalysisContext) {
         this.relationAnalyzer = relationAnalyzer;
@@ -38,7 +43,24 @@ public class SubqueryAnalyzer {
     }
 
     public AnalyzedRelation analyze(Query query) {
-        // The only non-queried relations are base tables - which cannot occur as part of a subquery. so this cast is safe.
-        return relationAnalyzer.analyze(query, statementAnalysisContext);
+        statementAnalysisContext.startSubquery();
+        AnalyzedRelation relation = null;
+        try {
+            // The only non-queried relations are base tables - which cannot occur as part of a subquery. so this cast is safe.
+            relation = relationAnalyzer.analyze(query, statementAnalysisContext);
+        } finally {
+            boolean correlated = statementAnalysisContext.endSubquery();
+            if (correlated && relation != null) {
+                correlatedRelations.add(relation);
+            }
+        }
+        return relation;
+    }
+
+    /**
+     * @return true if the relation was analyzed by this analyzer and refers to columns of the parent relation
+     */
+    public boolean isCorrelated(AnalyzedRelation relation) {
+        return correlatedRelations.contains(relation);
     }
 }
@@ -106,6 +106,12 @@ public class FullQualifiedNameFieldProvider implements FieldProvider<Symbol> {
             }
         }
         if (lastField == null) {
+            if (columnTableName == null || !tableNameMatched) {
+                Symbol correlatedField = resolveCorrelatedField(columnSchema, columnTableName, columnIdent, operation);
+                if (correlatedField != null) {
+                    return correlatedField;
+                }
+            }
             if (!schemaMatched || !tableNameMatched) {
                 String schema = columnSchema == null ? defaultSchema : columnSchema;
                 raiseUnsupportedFeatureIfInParentScope(columnSchema, columnTableName, schema);
@@ -118,6 +124,37 @@ public class FullQualifiedNameFieldProvider implements FieldProvider<Symbol> {
         return lastField;
     }
 
+    /**
+     * Resolves a column of the direct parent relation of a correlated subquery.
+     * Parent relations which are shadowed by a relation of the same name in the subquery are skipped.
+     */
+    @Nullable
+    private Symbol resolveCorrelatedField(@Nullable String columnSchema,
+                                          @Nullable String columnTableName,
+                                          ColumnIdent columnIdent,
+                                          Operation operation) {
+        Symbol lastField = null;
+        for (var entry : parents.correlatedSources().entrySet()) {
+            RelationName relName = entry.getKey();
+            if (sources.containsKey(relName)
+                || (columnSchema != null && !columnSchema.equals(relName.schema()))
+                || (columnTableName != null && !relName.name().equals(columnTableName))) {
+                continue;
+            }
+            Symbol newField = entry.getValue().getField(columnIdent, operation);
+            if (newField != null) {
+                if (lastField != null) {
+                    throw new AmbiguousColumnException(columnIdent, newField);
+                }
+                lastField = newField;
+            }
+        }
+        if (lastField != null) {
+            parents.markCorrelated();
+        }
+        return lastField;
+    }
+
     private void raiseUnsupportedFeatureIfInParentScope(String columnSchema, String columnTableName, String schema) {
         RelationName name = new RelationName(schema, columnTableName);
         if (parents.containsRelation(name)) {
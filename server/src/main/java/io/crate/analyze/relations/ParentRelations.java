@@ -34,19 +34,53 @@ public class ParentRelations {
     public static final ParentRelations NO_PARENTS = new ParentRelations();
 
     private final List<Map<RelationName, AnalyzedRelation>> sourcesTree;
+    private final boolean allowCorrelation;
+    private boolean correlated = false;
 
     private ParentRelations() {
         sourcesTree = Collections.emptyList();
+        allowCorrelation = false;
     }
 
-    private ParentRelations(ArrayList<Map<RelationName, AnalyzedRelation>> sourcesTree) {
+    private ParentRelations(ArrayList<Map<RelationName, AnalyzedRelation>> sourcesTree, boolean allowCorrelation) {
         this.sourcesTree = sourcesTree;
+        this.allowCorrelation = allowCorrelation;
     }
 
     public ParentRelations newLevel(Map<RelationName, AnalyzedRelation> sources) {
+        return newLevel(sources, false);
+    }
+
+    /**
+     * @param allowCorrelation if true, the relation using the new level is a subquery expression
+     *                         which may refer to the columns of {@code sources}, see {@link #correlatedSources()}
+     */
+    public ParentRelations newLevel(Map<RelationName, AnalyzedRelation> sources, boolean allowCorrelation) {
         ArrayList<Map<RelationName, AnalyzedRelation>> newSourcesTree = new ArrayList<>(sourcesTree);
         newSourcesTree.add(sources);
-        return new ParentRelations(newSourcesTree);
+        return new ParentRelations(newSourcesTree, allowCorrelation);
+    }
+
+    /**
+     * @return the relations of the direct parent whose columns can be referenced, empty if correlation isn't allowed
+     */
+    public Map<RelationName, AnalyzedRelation> correlatedSources() {
+        if (allowCorrelation) {
+            return sourcesTree.get(sourcesTree.size() - 1);
+        }
+        return Map.of();
+    }
+
+    /**
+     * Marks that a column of the {@link #correlatedSources()} has been referenced
+     */
+    void markCorrelated() {
+        assert allowCorrelation : "Only a level which allows correlation can become correlated";
+        correlated = true;
+    }
+
+    public boolean isCorrelated() {
+        return correlated;
     }
 
     public boolean containsRelation(RelationName qualifiedName) {
@@ -40,6 +40,7 @@ public class RelationAnalysisContext {
     private final ExpressionAnalysisContext expressionAnalysisContext;
     private final boolean aliasedRelation;
     private final ParentRelations parents;
+    private boolean allowCorrelatedSubqueries = false;
     // keep order of sources.
     //  e.g. something like:  select * from t1, t2 must not become select t2.*, t1.*
     private final Map<RelationName, AnalyzedRelation> sources = new LinkedHashMap<>();
@@ -110,4 +111,16 @@ public class RelationAnalysisContext {
     public ParentRelations parentSources() {
         return parents;
     }
+
+    /**
+     * Allows subquery expressions to refer to the {@link #sources()} of this relation.
+     * The relation must rewrite such correlated subqueries into joins, see {@link SubqueryDecorrelator}.
+     */
+    void allowCorrelatedSubqueries() {
+        allowCorrelatedSubqueries = true;
+    }
+
+    boolean allowsCorrelatedSubqueries() {
+        return allowCorrelatedSubqueries;
+    }
 }
@@ -330,6 +330,7 @@ public class RelationAnalyzer extends DefaultTraversalVisitor<AnalyzedRelation,
 
         ExpressionAnalysisContext expressionAnalysisContext = context.expressionAnalysisContext();
         expressionAnalysisContext.windows(node.getWindows());
+        context.allowCorrelatedSubqueries();
 
         SelectAnalysis selectAnalysis = SelectAnalyzer.analyzeSelectItems(
             node.getSelect().getSelectItems(),
@@ -392,7 +393,11 @@ public class RelationAnalyzer extends DefaultTraversalVisitor<AnalyzedRelation,
             )
         );
         statementContext.endRelation();
-        return relation;
+        return SubqueryDecorrelator.decorrelate(
+            relation,
+            (name, args) -> ExpressionAnalyzer.allocateFunction(
+                name, args, null, expressionAnalysisContext, coordinatorTxnCtx, nodeCtx)
+        );
     }
 
     @Nullable
@@ -37,6 +37,9 @@ public class StatementAnalysisContext {
     private final CoordinatorTxnCtx coordinatorTxnCtx;
     private final List<? extends Symbol> parentOutputColumns;
     private final List<RelationAnalysisContext> lastRelationContextQueue = new ArrayList<>();
+    // parents of the subquery expressions under analysis; null until the relation of the subquery has been started
+    private final List<ParentRelations> subqueryParents = new ArrayList<>();
+    private boolean startingSubquery = false;
 
     public StatementAnalysisContext(ParamTypeHints paramTypeHints,
                                     Operation currentOperation,
@@ -72,8 +75,14 @@ public class StatementAnalysisContext {
             parentRelations = ParentRelations.NO_PARENTS;
         } else {
             RelationAnalysisContext parentCtx = lastRelationContextQueue.get(lastRelationContextQueue.size() - 1);
-            parentRelations = parentCtx.parentSources().newLevel(parentCtx.sources());
+            if (startingSubquery && parentCtx.allowsCorrelatedSubqueries()) {
+                parentRelations = parentCtx.parentSources().newLevel(parentCtx.sources(), true);
+                subqueryParents.set(subqueryParents.size() - 1, parentRelations);
+            } else {
+                parentRelations = parentCtx.parentSources().newLevel(parentCtx.sources());
+            }
         }
+        startingSubquery = false;
         RelationAnalysisContext currentRelationContext =
             new RelationAnalysisContext(aliasedRelation, parentRelations);
         lastRelationContextQueue.add(currentRelationContext);
@@ -86,6 +95,24 @@ public class StatementAnalysisContext {
         }
     }
 
+    /**
+     * Must be called before analyzing the query of a subquery expression.
+     * The first relation started afterwards may refer to the columns of the current relation.
+     */
+    public void startSubquery() {
+        subqueryParents.add(null);
+        startingSubquery = true;
+    }
+
+    /**
+     * @return true if the subquery started with {@link #startSubquery()} referred to columns of its parent relation.
+     */
+    public boolean endSubquery() {
+        startingSubquery = false;
+        ParentRelations parents = subqueryParents.remove(subqueryParents.size() - 1);
+        return parents != null && parents.isCorrelated();
+    }
+
     RelationAnalysisContext currentRelationContext() {
         assert lastRelationContextQueue.size() > 0 : "relation context must be created using startRelation() first";
         return lastRelationContextQueue.get(lastRelationContextQueue.size() - 1);
@@ -0,0 +1,513 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.analyze.relations;
+
+import io.crate.analyze.OrderBy;
+import io.crate.analyze.QueriedSelectRelation;
+import io.crate.execution.engine.aggregation.impl.CountAggregation;
+import io.crate.expression.operator.AndOperator;
+import io.crate.expression.operator.EqOperator;
+import io.crate.expression.operator.any.AnyOperators;
+import io.crate.expression.predicate.IsNullPredicate;
+import io.crate.expression.predicate.NotPredicate;
+import io.crate.expression.scalar.conditional.CoalesceFunction;
+import io.crate.expression.symbol.AliasSymbol;
+import io.crate.expression.symbol.DefaultTraversalSymbolVisitor;
+import io.crate.expression.symbol.Function;
+import io.crate.expression.symbol.Literal;
+import io.crate.expression.symbol.SelectSymbol;
+import io.crate.expression.symbol.Symbol;
+import io.crate.expression.symbol.SymbolVisitors;
+import io.crate.expression.symbol.format.Style;
+import io.crate.metadata.FunctionType;
+import io.crate.metadata.RelationName;
+import io.crate.planner.consumer.RelationNameCollector;
+import io.crate.planner.node.dql.join.JoinType;
+import io.crate.planner.operators.MapBackedSymbolReplacer;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiFunction;
+
+/**
+ * Rewrites the correlated subqueries of a {@link QueriedSelectRelation} into joins with derived tables,
+ * so that they are executed once for all rows instead of once per row of the parent relation.
+ *
+ * <pre>
+ *     SELECT * FROM t1 WHERE EXISTS (SELECT 1 FROM t2 WHERE t2.x = t1.x AND t2.y > 10)
+ *
+ *     SELECT * FROM t1
+ *          INNER JOIN (SELECT DISTINCT t2.x AS _key0, true AS _exists FROM t2 WHERE t2.y > 10) _sq0
+ *          ON _sq0._key0 = t1.x
+ * </pre>
+ *
+ * Supported are subqueries on a single parent relation whose correlated conditions are equality conditions:
+ * <ul>
+ *     <li>{@code EXISTS} as part of the WHERE clause becomes a semi join (INNER JOIN on DISTINCT keys)</li>
+ *     <li>{@code NOT EXISTS} as part of the WHERE clause becomes an anti join (LEFT JOIN + IS NULL)</li>
+ *     <li>{@code x IN (subquery)} as part of the WHERE clause becomes a semi join which also matches the value</li>
+ *     <li>Scalar subqueries returning an aggregate become a LEFT JOIN on the aggregate grouped by the keys</li>
+ * </ul>
+ *
+ * Other correlated subqueries are rejected.
+ */
+public final class SubqueryDecorrelator {
+
+    private static final String KEY_PREFIX = "_key";
+    private static final String VALUE = "_value";
+    private static final String EXISTS = "_exists";
+
+    private final QueriedSelectRelation relation;
+    private final BiFunction<String, List<Symbol>, Symbol> allocateFunction;
+    private final Set<RelationName> parentNames = new HashSet<>();
+    private final List<AnalyzedRelation> from;
+    private final List<JoinPair> joinPairs;
+    private final Map<Symbol, Symbol> replacements = new IdentityHashMap<>();
+
+    /**
+     * @param allocateFunction used to create the join conditions and replacement expressions
+     * @return the relation with the correlated subqueries replaced by joins or the relation itself if it has none
+     * @throws UnsupportedOperationException if a correlated subquery can't be rewritten into a join
+     */
+    public static QueriedSelectRelation decorrelate(QueriedSelectRelation relation,
+                                                    BiFunction<String, List<Symbol>, Symbol> allocateFunction) {
+        boolean[] hasCorrelatedSubquery = new boolean[1];
+        relation.visitSymbols(symbol -> {
+            if (hasCorrelatedSubquery[0] == false) {
+                hasCorrelatedSubquery[0] = SymbolVisitors.any(SubqueryDecorrelator::isCorrelatedSubquery, symbol);
+            }
+        });
+        if (hasCorrelatedSubquery[0] == false) {
+            return relation;
+        }
+        return new SubqueryDecorrelator(relation, allocateFunction).decorrelate();
+    }
+
+    private SubqueryDecorrelator(QueriedSelectRelation relation,
+                                 BiFunction<String, List<Symbol>, Symbol> allocateFunction) {
+        this.relation = relation;
+        this.allocateFunction = allocateFunction;
+        this.from = new ArrayList<>(relation.from());
+        this.joinPairs = new ArrayList<>(relation.joinPairs());
+        for (AnalyzedRelation source : relation.from()) {
+            parentNames.add(source.relationName());
+        }
+    }
+
+    private QueriedSelectRelation decorrelate() {
+        ArrayList<Symbol> conjuncts = new ArrayList<>();
+        for (Symbol conjunct : AndOperator.split(relation.where())) {
+            Symbol newConjunct = decorrelateConjunct(conjunct);
+            if (newConjunct != null) {
+                conjuncts.add(replaceCorrelatedSubqueries(newConjunct));
+            }
+        }
+
+        List<Symbol> outputs = relation.outputs();
+        OrderBy orderBy = relation.orderBy();
+        boolean isAggregated = !relation.groupBy().isEmpty()
+                               || SymbolVisitors.any(SubqueryDecorrelator::isAggregate, outputs);
+        if (!isAggregated) {
+            // With aggregations the joined columns would have to be grouped as well
+            ArrayList<Symbol> newOutputs = new ArrayList<>(outputs.size());
+            for (Symbol output : outputs) {
+                Symbol newOutput = replaceCorrelatedSubqueries(output);
+                if (newOutput != output && !(output instanceof AliasSymbol)) {
+                    // Keep the name of the output so that the parent relations still can refer to it
+                    newOutput = new AliasSymbol(output.toString(Style.UNQUALIFIED), newOutput);
+                }
+                newOutputs.add(newOutput);
+            }
+            outputs = newOutputs;
+            if (orderBy != null) {
+                orderBy = orderBy.map(this::replaceCorrelatedSubqueries);
+            }
+        }
+
+        QueriedSelectRelation newRelation = new QueriedSelectRelation(
+            relation.isDistinct(),
+            from,
+            joinPairs,
+            outputs,
+            AndOperator.join(conjuncts),
+            relation.groupBy(),
+            relation.having(),
+            orderBy,
+            relation.limit(),
+            relation.offset()
+        );
+        newRelation.visitSymbols(symbol -> {
+            List<SelectSymbol> remaining = CorrelatedSubqueries.collect(symbol);
+            if (!remaining.isEmpty()) {
+                throw unsupported(remaining.get(0));
+            }
+        });
+        return newRelation;
+    }
+
+    /**
+     * Rewrites subqueries which can become a semi or anti join because the predicate is part of the top level conjunction
+     *
+     * @return the new conjunct or null if it can be dropped
+     */
+    @Nullable
+    private Symbol decorrelateConjunct(Symbol conjunct) {
+        if (isCorrelatedSubquery(conjunct, SelectSymbol.ResultType.EXISTS)) {
+            // WHERE EXISTS (...)
+            Correlation correlation = Correlation.of((SelectSymbol) conjunct, parentNames);
+            join(correlation, correlation.existsRelation(), JoinType.INNER, List.of());
+            return null;
+        }
+        if (conjunct instanceof Function) {
+            Function function = (Function) conjunct;
+            List<Symbol> args = function.arguments();
+            if (function.name().equals(NotPredicate.NAME)
+                && isCorrelatedSubquery(args.get(0), SelectSymbol.ResultType.EXISTS)) {
+                // WHERE NOT EXISTS (...)
+                Correlation correlation = Correlation.of((SelectSymbol) args.get(0), parentNames);
+                AliasedAnalyzedRelation joined =
+                    join(correlation, correlation.existsRelation(), JoinType.LEFT, List.of());
+                Symbol exists = joined.outputs().get(correlation.numKeys());
+                return allocateFunction.apply(IsNullPredicate.NAME, List.of(exists));
+            }
+            if (function.name().equals(AnyOperators.Type.EQ.opName())
+                && isCorrelatedSubquery(args.get(1), SelectSymbol.ResultType.SINGLE_COLUMN_MULTIPLE_VALUES)) {
+                // WHERE x IN (...)
+                SelectSymbol selectSymbol = (SelectSymbol) args.get(1);
+                Correlation correlation = Correlation.of(selectSymbol, parentNames);
+                Symbol value = args.get(0);
+                for (RelationName name : RelationNameCollector.collect(value)) {
+                    if (!name.equals(correlation.parent)) {
+                        throw unsupported(selectSymbol);
+                    }
+                }
+                join(correlation, correlation.inRelation(selectSymbol), JoinType.INNER, List.of(value));
+                return null;
+            }
+        }
+        return conjunct;
+    }
+
+    /**
+     * Replaces the correlated subqueries within the symbol by expressions on the columns of a LEFT JOIN
+     */
+    private Symbol replaceCorrelatedSubqueries(Symbol symbol) {
+        for (SelectSymbol selectSymbol : CorrelatedSubqueries.collect(symbol)) {
+            if (replacements.containsKey(selectSymbol)) {
+                continue;
+            }
+            Correlation correlation = Correlation.of(selectSymbol, parentNames);
+            switch (selectSymbol.getResultType()) {
+                case EXISTS: {
+                    AliasedAnalyzedRelation joined =
+                        join(correlation, correlation.existsRelation(), JoinType.LEFT, List.of());
+                    Symbol exists = joined.outputs().get(correlation.numKeys());
+                    replacements.put(selectSymbol, allocateFunction.apply(
+                        NotPredicate.NAME,
+                        List.of(allocateFunction.apply(IsNullPredicate.NAME, List.of(exists)))
+                    ));
+                    break;
+                }
+
+                case SINGLE_COLUMN_SINGLE_VALUE: {
+                    Function aggregate = correlation.aggregate(selectSymbol);
+                    AliasedAnalyzedRelation joined =
+                        join(correlation, correlation.aggregateRelation(aggregate), JoinType.LEFT, List.of());
+                    Symbol value = joined.outputs().get(correlation.numKeys());
+                    if (aggregate.name().equals(CountAggregation.NAME)) {
+                        // The count of a key without any rows is 0, not null
+                        value = allocateFunction.apply(CoalesceFunction.NAME, List.of(value, Literal.of(0L)));
+                    }
+                    replacements.put(selectSymbol, value);
+                    break;
+                }
+
+                default:
+                    throw unsupported(selectSymbol);
+            }
+        }
+        if (replacements.isEmpty()) {
+            return symbol;
+        }
+        return MapBackedSymbolReplacer.convert(symbol, replacements);
+    }
+
+    /**
+     * Adds the derived relation to the sources and joins it on the correlated keys.
+     *
+     * @param values symbols of the parent relation which must be equal to the outputs of the derived relation
+     *               following the keys.
+     */
+    private AliasedAnalyzedRelation join(Correlation correlation,
+                                         QueriedSelectRelation derived,
+                                         JoinType joinType,
+                                         List<Symbol> values) {
+        RelationName alias = newAlias();
+        AliasedAnalyzedRelation aliased = new AliasedAnalyzedRelation(derived, alias);
+        List<Symbol> derivedOutputs = aliased.outputs();
+        ArrayList<Symbol> conditions = new ArrayList<>(correlation.numKeys() + values.size());
+        for (int i = 0; i < correlation.numKeys(); i++) {
+            conditions.add(allocateFunction.apply(
+                EqOperator.NAME, List.of(correlation.parentKeys.get(i), derivedOutputs.get(i))));
+        }
+        for (int i = 0; i < values.size(); i++) {
+            conditions.add(allocateFunction.apply(
+                EqOperator.NAME, List.of(values.get(i), derivedOutputs.get(correlation.numKeys() + i))));
+        }
+        from.add(aliased);
+        parentNames.add(alias);
+        joinPairs.add(JoinPair.of(correlation.parent, alias, joinType, AndOperator.join(conditions)));
+        return aliased;
+    }
+
+    private RelationName newAlias() {
+        for (int i = 0; ; i++) {
+            RelationName alias = new RelationName(null, "_sq" + i);
+            if (!parentNames.contains(alias)) {
+                return alias;
+            }
+        }
+    }
+
+    private static boolean isAggregate(Symbol symbol) {
+        return symbol instanceof Function && ((Function) symbol).type() == FunctionType.AGGREGATE;
+    }
+
+    private static boolean isCorrelatedSubquery(Symbol symbol) {
+        return symbol instanceof SelectSymbol && ((SelectSymbol) symbol).isCorrelated();
+    }
+
+    private static boolean isCorrelatedSubquery(Symbol symbol, SelectSymbol.ResultType resultType) {
+        return isCorrelatedSubquery(symbol) && ((SelectSymbol) symbol).getResultType() == resultType;
+    }
+
+    private static UnsupportedOperationException unsupported(SelectSymbol selectSymbol) {
+        return new UnsupportedOperationException(String.format(Locale.ENGLISH,
+            "Cannot use correlated subquery %s in this context. Only EXISTS, NOT EXISTS and IN in the WHERE clause " +
+            "and subqueries returning an aggregate are supported, " +
+            "and they must refer to a single parent relation using equality conditions",
+            selectSymbol.toString(Style.UNQUALIFIED)));
+    }
+
+    /**
+     * The equality conditions between the parent relation and a correlated subquery
+     */
+    private static class Correlation {
+
+        private final QueriedSelectRelation subquery;
+        private final RelationName parent;
+        private final List<Symbol> parentKeys = new ArrayList<>();
+        private final List<Symbol> subqueryKeys = new ArrayList<>();
+        private final List<Symbol> remainingConditions = new ArrayList<>();
+
+        private Correlation(QueriedSelectRelation subquery, RelationName parent) {
+            this.subquery = subquery;
+            this.parent = parent;
+        }
+
+        static Correlation of(SelectSymbol selectSymbol, Set<RelationName> parentNames) {
+            if (!(selectSymbol.relation() instanceof QueriedSelectRelation)) {
+                throw unsupported(selectSymbol);
+            }
+            QueriedSelectRelation subquery = (QueriedSelectRelation) selectSymbol.relation();
+            if (!subquery.groupBy().isEmpty()
+                || subquery.having() != null
+                || subquery.limit() != null
+                || subquery.offset() != null) {
+                throw unsupported(selectSymbol);
+            }
+            Set<RelationName> correlatedNames = new HashSet<>(parentNames);
+            for (AnalyzedRelation source : subquery.from()) {
+                correlatedNames.remove(source.relationName());
+            }
+            ArrayList<Symbol> outputsAndOrderBy = new ArrayList<>(subquery.outputs());
+            if (subquery.orderBy() != null) {
+                outputsAndOrderBy.addAll(subquery.orderBy().orderBySymbols());
+            }
+            for (Symbol symbol : outputsAndOrderBy) {
+                if (refersTo(symbol, correlatedNames)) {
+                    throw unsupported(selectSymbol);
+                }
+            }
+            for (JoinPair joinPair : subquery.joinPairs()) {
+                // The join conditions are kept as they are by the derived relation
+                Symbol condition = joinPair.condition();
+                if (condition != null && refersTo(condition, correlatedNames)) {
+                    throw unsupported(selectSymbol);
+                }
+            }
+
+            RelationName parent = null;
+            ArrayList<Symbol> parentKeys = new ArrayList<>();
+            ArrayList<Symbol> subqueryKeys = new ArrayList<>();
+            ArrayList<Symbol> remainingConditions = new ArrayList<>();
+            for (Symbol conjunct : AndOperator.split(subquery.where())) {
+                if (!refersTo(conjunct, correlatedNames)) {
+                    remainingConditions.add(conjunct);
+                    continue;
+                }
+                if (!(conjunct instanceof Function) || !((Function) conjunct).name().equals(EqOperator.NAME)) {
+                    throw unsupported(selectSymbol);
+                }
+                List<Symbol> args = ((Function) conjunct).arguments();
+                Set<RelationName> left = RelationNameCollector.collect(args.get(0));
+                Set<RelationName> right = RelationNameCollector.collect(args.get(1));
+                Set<RelationName> parentSide;
+                if (correlatedNames.containsAll(left) && !refersTo(args.get(1), correlatedNames)) {
+                    parentKeys.add(args.get(0));
+                    subqueryKeys.add(args.get(1));
+                    parentSide = left;
+                } else if (correlatedNames.containsAll(right) && !refersTo(args.get(0), correlatedNames)) {
+                    parentKeys.add(args.get(1));
+                    subqueryKeys.add(args.get(0));
+                    parentSide = right;
+                } else {
+                    throw unsupported(selectSymbol);
+                }
+                for (RelationName name : parentSide) {
+                    if (parent == null) {
+                        parent = name;
+                    } else if (!parent.equals(name)) {
+                        throw unsupported(selectSymbol);
+                    }
+                }
+            }
+            if (parent == null) {
+                throw unsupported(selectSymbol);
+            }
+            Correlation correlation = new Correlation(subquery, parent);
+            correlation.parentKeys.addAll(parentKeys);
+            correlation.subqueryKeys.addAll(subqueryKeys);
+            correlation.remainingConditions.addAll(remainingConditions);
+            return correlation;
+        }
+
+        int numKeys() {
+            return subqueryKeys.size();
+        }
+
+        /**
+         * <pre>
+         *     SELECT DISTINCT key0 AS _key0, ..., true AS _exists FROM subquery.from WHERE remainingConditions
+         * </pre>
+         */
+        QueriedSelectRelation existsRelation() {
+            if (SymbolVisitors.any(SubqueryDecorrelator::isAggregate, subquery.outputs())) {
+                // A global aggregation always returns a row
+                throw new UnsupportedOperationException(
+                    "Cannot use a correlated subquery with aggregations in EXISTS");
+            }
+            return derivedRelation(true, new AliasSymbol(EXISTS, Literal.BOOLEAN_TRUE), List.of());
+        }
+
+        /**
+         * <pre>
+         *     SELECT DISTINCT key0 AS _key0, ..., output AS _value FROM subquery.from WHERE remainingConditions
+         * </pre>
+         */
+        QueriedSelectRelation inRelation(SelectSymbol selectSymbol) {
+            Symbol output = subquery.outputs().get(0);
+            if (SymbolVisitors.any(SubqueryDecorrelator::isAggregate, output)) {
+                throw unsupported(selectSymbol);
+            }
+            return derivedRelation(true, new AliasSymbol(VALUE, output), List.of());
+        }
+
+        Function aggregate(SelectSymbol selectSymbol) {
+            Symbol output = subquery.outputs().get(0);
+            if (output instanceof AliasSymbol) {
+                output = ((AliasSymbol) output).symbol();
+            }
+            if (!isAggregate(output)) {
+                throw unsupported(selectSymbol);
+            }
+            return (Function) output;
+        }
+
+        /**
+         * <pre>
+         *     SELECT key0 AS _key0, ..., aggregate AS _value FROM subquery.from WHERE remainingConditions GROUP BY key0, ...
+         * </pre>
+         */
+        QueriedSelectRelation aggregateRelation(Function aggregate) {
+            return derivedRelation(false, new AliasSymbol(VALUE, aggregate), subqueryKeys);
+        }
+
+        private QueriedSelectRelation derivedRelation(boolean isDistinct, Symbol value, List<Symbol> groupBy) {
+            ArrayList<Symbol> outputs = new ArrayList<>(subqueryKeys.size() + 1);
+            for (int i = 0; i < subqueryKeys.size(); i++) {
+                outputs.add(new AliasSymbol(KEY_PREFIX + i, subqueryKeys.get(i)));
+            }
+            outputs.add(value);
+            return new QueriedSelectRelation(
+                isDistinct,
+                subquery.from(),
+                subquery.joinPairs(),
+                outputs,
+                AndOperator.join(remainingConditions),
+                groupBy,
+                null,
+                null,
+                null,
+                null
+            );
+        }
+
+        private static boolean refersTo(Symbol symbol, Set<RelationName> names) {
+            for (RelationName name : RelationNameCollector.collect(symbol)) {
+                if (names.contains(name)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Collects the correlated subqueries of a symbol. Doesn't descend into subqueries.
+     */
+    private static class CorrelatedSubqueries extends DefaultTraversalSymbolVisitor<List<SelectSymbol>, Void> {
+
+        private static final CorrelatedSubqueries INSTANCE = new CorrelatedSubqueries();
+
+        static List<SelectSymbol> collect(Symbol symbol) {
+            ArrayList<SelectSymbol> subqueries = new ArrayList<>();
+            symbol.accept(INSTANCE, subqueries);
+            return subqueries;
+        }
+
+        @Override
+        public Void visitSelectSymbol(SelectSymbol selectSymbol, List<SelectSymbol> context) {
+            if (selectSymbol.isCorrelated()) {
+                context.add(selectSymbol);
+            }
+            return null;
+        }
+    }
+}
@@ -26,6 +26,7 @@ import io.crate.sql.tree.GenericProperties;
 import org.elasticsearch.common.settings.Setting;
 import org.elasticsearch.common.unit.ByteSizeUnit;
 import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.repositories.blobstore.BlobStoreRepository;
 
 import java.util.HashMap;
 import java.util.List;
@@ -39,7 +40,8 @@ public class TypeSettings {
         "max_restore_bytes_per_sec", Setting.byteSizeSetting(
             "max_restore_bytes_per_sec", new ByteSizeValue(40, ByteSizeUnit.MB), Setting.Property.NodeScope),
         "max_snapshot_bytes_per_sec", Setting.byteSizeSetting(
-            "max_snapshot_bytes_per_sec", new ByteSizeValue(40, ByteSizeUnit.MB), Setting.Property.NodeScope)
+            "max_snapshot_bytes_per_sec", new ByteSizeValue(40, ByteSizeUnit.MB), Setting.Property.NodeScope),
+        BlobStoreRepository.MAX_RESTORE_CONCURRENT_FILES_SETTING.getKey(), BlobStoreRepository.MAX_RESTORE_CONCURRENT_FILES_SETTING
     );
 
     private final Map<String, Setting<?>> required;
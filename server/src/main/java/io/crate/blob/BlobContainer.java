@@ -33,7 +33,10 @@ import java.io.RandomAccessFile;
 import java.nio.file.FileVisitor;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Locale;
@@ -126,6 +129,28 @@ public class BlobContainer {
         return digests;
     }
 
+    /**
+     * Compute a fingerprint of a set of digests, independent of their order.
+     * Two containers holding the same blobs within a prefix have the same fingerprint; this is used by the
+     * BlobRecovery to skip exchanging the digests of prefixes which are already in sync.
+     *
+     * @param digests the digests as returned by {@link #cleanAndReturnDigests(byte)}; they are sorted in place
+     * @return the SHA-256 hash of the sorted digests
+     */
+    public static byte[] digestsFingerprint(byte[][] digests) {
+        Arrays.sort(digests, Arrays::compareUnsigned);
+        MessageDigest md;
+        try {
+            md = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        for (byte[] digest : digests) {
+            md.update(digest);
+        }
+        return md.digest();
+    }
+
     /**
      * delete all digests that have a .X suffix.
      * they are leftover files from a previous recovery that was interrupted
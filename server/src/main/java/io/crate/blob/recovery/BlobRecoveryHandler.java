@@ -30,6 +30,7 @@ import io.crate.common.Hex;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.elasticsearch.ElasticsearchException;
+import org.elasticsearch.Version;
 import org.elasticsearch.common.StopWatch;
 import org.elasticsearch.common.bytes.BytesArray;
 import org.elasticsearch.common.bytes.BytesReference;
@@ -39,6 +40,8 @@ import org.elasticsearch.index.shard.IndexShard;
 import org.elasticsearch.index.shard.IndexShardClosedException;
 import org.elasticsearch.index.shard.IndexShardState;
 import org.elasticsearch.indices.recovery.BlobFinalizeRecoveryRequest;
+import org.elasticsearch.indices.recovery.BlobPrefixFingerprintsRequest;
+import org.elasticsearch.indices.recovery.BlobPrefixFingerprintsResponse;
 import org.elasticsearch.indices.recovery.BlobRecoveryChunkRequest;
 import org.elasticsearch.indices.recovery.BlobRecoveryDeleteRequest;
 import org.elasticsearch.indices.recovery.BlobRecoveryStartTransferRequest;
@@ -55,9 +58,11 @@ import org.elasticsearch.transport.TransportRequestOptions;
 import org.elasticsearch.transport.TransportResponse;
 import org.elasticsearch.transport.TransportService;
 
+import javax.annotation.Nullable;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.HashSet;
 import java.util.Set;
 import java.util.concurrent.CountDownLatch;
@@ -121,6 +126,31 @@ public class BlobRecoveryHandler extends RecoverySourceHandler {
         return result;
     }
 
+    /**
+     * @return the fingerprints of the digests the target holds per prefix or null if the target doesn't support them
+     */
+    @Nullable
+    private byte[][] getDigestFingerprintsFromTarget() {
+        if (request.targetNode().getVersion().before(Version.V_4_3_0)) {
+            return null;
+        }
+        BlobPrefixFingerprintsResponse response =
+            (BlobPrefixFingerprintsResponse) transportService.submitRequest(
+                request.targetNode(),
+                BlobRecoveryTarget.Actions.PREFIX_FINGERPRINTS,
+                new BlobPrefixFingerprintsRequest(request.recoveryId(), request.shardId()),
+                TransportRequestOptions.EMPTY,
+                new FutureTransportResponseHandler<TransportResponse>() {
+
+                    @Override
+                    public TransportResponse read(StreamInput in) throws IOException {
+                        return new BlobPrefixFingerprintsResponse(in);
+                    }
+                }
+            ).txGet();
+        return response.fingerprints;
+    }
+
     @Override
     protected void blobRecoveryHook() throws Exception {
         LOGGER.debug("[{}][{}] recovery [phase1] to {}: start",
@@ -173,12 +203,22 @@ public class BlobRecoveryHandler extends RecoverySourceHandler {
     }
 
     private void syncVarFiles(AtomicReference<Exception> lastException) throws InterruptedException, IOException {
+        // A target which already holds most of the blobs (e.g. after a node restart) would otherwise have to send
+        // all its digests; compare a fingerprint per prefix first and only exchange the digests of prefixes which differ
+        byte[][] remoteFingerprints = getDigestFingerprintsFromTarget();
+        int skippedPrefixes = 0;
         for (byte prefix : BlobContainer.PREFIXES) {
+            byte[][] currentDigests = blobShard.currentDigests(prefix);
+            if (remoteFingerprints != null
+                && Arrays.equals(remoteFingerprints[prefix & 0xFF], BlobContainer.digestsFingerprint(currentDigests))) {
+                skippedPrefixes++;
+                continue;
+            }
             // byte[1] and byte[1] have different hashCodes
             // so setA.removeAll(setB) wouldn't work with byte[], that's why BytesArray is used here
             Set<BytesArray> remoteDigests = getExistingDigestsFromTarget(prefix);
             Set<BytesArray> localDigests = new HashSet<>();
-            for (byte[] digest : blobShard.currentDigests(prefix)) {
+            for (byte[] digest : currentDigests) {
                 localDigests.add(new BytesArray(digest));
             }
 
@@ -203,6 +243,9 @@ public class BlobRecoveryHandler extends RecoverySourceHandler {
                 deleteFilesRequest(remoteDigests.toArray(new BytesArray[remoteDigests.size()]));
             }
         }
+        LOGGER.debug("[{}][{}] recovery [phase1] to {}: {} of {} prefixes were already in sync",
+                     request.shardId().getIndexName(), request.shardId().id(), request.targetNode().getName(),
+                     skippedPrefixes, BlobContainer.PREFIXES.length);
     }
 
     private void deleteFilesRequest(BytesArray[] digests) {
@@ -89,6 +89,17 @@ public class BlobShard {
         return blobContainer.cleanAndReturnDigests(prefix);
     }
 
+    /**
+     * @return the {@link BlobContainer#digestsFingerprint(byte[][])} of each prefix, indexed by the prefix
+     */
+    public byte[][] currentFingerprints() {
+        byte[][] fingerprints = new byte[BlobContainer.PREFIXES.length][];
+        for (byte prefix : BlobContainer.PREFIXES) {
+            fingerprints[prefix & 0xFF] = BlobContainer.digestsFingerprint(currentDigests(prefix));
+        }
+        return fingerprints;
+    }
+
     public boolean delete(String digest) {
         try {
             Path blobPath = blobContainer.getFile(digest).toPath();
@@ -46,6 +46,7 @@ import org.elasticsearch.action.support.replication.TransportReplicationAction;
 import org.elasticsearch.cluster.action.shard.ShardStateAction;
 import org.elasticsearch.cluster.metadata.IndexNameExpressionResolver;
 import org.elasticsearch.cluster.service.ClusterService;
+import org.elasticsearch.common.Strings;
 import org.elasticsearch.common.bytes.BytesReference;
 import org.elasticsearch.common.inject.Inject;
 import org.elasticsearch.common.inject.Singleton;
@@ -70,10 +71,14 @@ import org.elasticsearch.transport.TransportService;
 
 import javax.annotation.Nullable;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -148,8 +153,10 @@ public class TransportShardUpsertAction extends TransportShardAction<ShardUpsert
             : new ReturnValueGen(txnCtx, nodeCtx, tableInfo, request.returnValues());
 
         Translog.Location translogLocation = null;
+        Map<String, MergedDoc> mergedDocs = canMergeItems(request, updateSourceGen)
+            ? fetchDocs(indexShard, request.items())
+            : null;
         for (ShardUpsertRequest.Item item : request.items()) {
-            int location = item.location();
             if (killed.get()) {
                 // set failure on response and skip all next items.
                 // this way replica operation will be executed, but only items with a valid source (= was processed on primary)
@@ -158,50 +165,291 @@ public class TransportShardUpsertAction extends TransportShardAction<ShardUpsert
                 break;
             }
             try {
-                IndexItemResponse indexItemResponse = indexItem(
-                    request,
-                    item,
+                if (mergedDocs == null) {
+                    IndexItemResponse indexItemResponse = indexItem(
+                        request,
+                        item,
+                        indexShard,
+                        updateSourceGen,
+                        insertSourceGen,
+                        returnValueGen
+                    );
+                    translogLocation = addResponse(shardResponse, item, indexItemResponse, translogLocation);
+                } else {
+                    mergeItem(indexShard, item, mergedDocs.get(item.id()), insertSourceGen, updateSourceGen);
+                }
+            } catch (Exception e) {
+                if (!onItemFailure(request, item, shardResponse, e)) {
+                    break;
+                }
+            }
+        }
+        if (mergedDocs != null && !killed.get()) {
+            translogLocation = indexMergedDocs(
+                request,
+                indexShard,
+                mergedDocs.values(),
+                shardResponse,
+                updateSourceGen,
+                insertSourceGen,
+                translogLocation
+            );
+        }
+        return new WritePrimaryResult<>(request, shardResponse, translogLocation, null, indexShard);
+    }
+
+    @Nullable
+    private static Translog.Location addResponse(ShardResponse shardResponse,
+                                                 ShardUpsertRequest.Item item,
+                                                 @Nullable IndexItemResponse indexItemResponse,
+                                                 @Nullable Translog.Location translogLocation) {
+        if (indexItemResponse != null) {
+            if (indexItemResponse.translog != null) {
+                shardResponse.add(item.location());
+                translogLocation = indexItemResponse.translog;
+            }
+            if (indexItemResponse.returnValues != null) {
+                shardResponse.addResultRows(indexItemResponse.returnValues);
+            }
+        }
+        return translogLocation;
+    }
+
+    /**
+     * @return false if the remaining items must not be processed
+     */
+    private boolean onItemFailure(ShardUpsertRequest request,
+                                  ShardUpsertRequest.Item item,
+                                  ShardResponse shardResponse,
+                                  Exception e) {
+        if (retryPrimaryException(e)) {
+            if (e instanceof RuntimeException) {
+                throw (RuntimeException) e;
+            }
+            throw new RuntimeException(e);
+        }
+        if (logger.isDebugEnabled()) {
+            logger.debug("Failed to execute upsert shardId={} id={} error={}", request.shardId(), item.id(), e);
+        }
+
+        // *mark* the item as failed by setting the source to null
+        // to prevent the replica operation from processing this concrete item
+        item.source(null);
+
+        if (!request.continueOnError()) {
+            shardResponse.failure(e);
+            return false;
+        }
+        shardResponse.add(item.location(),
+            new ShardResponse.Failure(
+                item.id(),
+                userFriendlyCrateExceptionTopOnly(e),
+                (e instanceof VersionConflictEngineException)));
+        return true;
+    }
+
+    /**
+     * Items can be merged if every item updates a document it doesn't hold a version or sequence number for,
+     * so that all items of the same id can be applied in memory one after another and be indexed once.
+     * Items which are bound to a specific version, or which need the version of their own write for return values,
+     * are processed one by one.
+     */
+    private static boolean canMergeItems(ShardUpsertRequest request, @Nullable UpdateSourceGen updateSourceGen) {
+        if (updateSourceGen == null
+            || request.returnValues() != null
+            || request.duplicateKeyAction() != DuplicateKeyAction.UPDATE_OR_FAIL
+            || request.items().size() < 2) {
+            return false;
+        }
+        for (ShardUpsertRequest.Item item : request.items()) {
+            Symbol[] updateAssignments = item.updateAssignments();
+            if (!item.retryOnConflict() || updateAssignments == null || updateAssignments.length == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Looks up the documents of all distinct ids of the items at once
+     */
+    private static Map<String, MergedDoc> fetchDocs(IndexShard indexShard, List<ShardUpsertRequest.Item> items) {
+        LinkedHashMap<String, MergedDoc> mergedDocs = new LinkedHashMap<>();
+        ArrayList<Engine.Get> gets = new ArrayList<>();
+        for (ShardUpsertRequest.Item item : items) {
+            if (!mergedDocs.containsKey(item.id())) {
+                mergedDocs.put(item.id(), null);
+                gets.add(PKLookupOperation.get(
+                    item.id(),
+                    Versions.MATCH_ANY,
+                    VersionType.INTERNAL,
+                    SequenceNumbers.UNASSIGNED_SEQ_NO,
+                    SequenceNumbers.UNASSIGNED_PRIMARY_TERM
+                ));
+            }
+        }
+        List<Doc> docs = PKLookupOperation.lookupDocs(indexShard, gets);
+        for (int i = 0; i < gets.size(); i++) {
+            mergedDocs.put(gets.get(i).id(), new MergedDoc(docs.get(i)));
+        }
+        return mergedDocs;
+    }
+
+    /**
+     * Applies the item to the current state of its document without indexing it.
+     * If the item fails, the state of the document is left as it was before.
+     */
+    private static void mergeItem(IndexShard indexShard,
+                                  ShardUpsertRequest.Item item,
+                                  MergedDoc mergedDoc,
+                                  @Nullable InsertSourceGen insertSourceGen,
+                                  UpdateSourceGen updateSourceGen) throws IOException {
+        Object[] insertValues = item.insertValues();
+        Map<String, Object> insertSource = null;
+        if (insertValues != null) {
+            assert insertSourceGen != null : "InsertSourceGen must not be null if there are insertValues";
+            // Like a single insert, the values must be valid even if the document exists already
+            insertSource = insertSourceGen.generateSourceAndCheckConstraints(insertValues);
+        }
+        Doc current = mergedDoc.current;
+        if (current == null) {
+            if (insertSource == null) {
+                throw new DocumentMissingException(indexShard.shardId(), Constants.DEFAULT_MAPPING_TYPE, item.id());
+            }
+            mergedDoc.current = newDoc(indexShard.shardId().getIndexName(), item.id(), insertSource);
+        } else {
+            if (current.getSource() == null) {
+                throw new DocumentSourceMissingException(indexShard.shardId(), Constants.DEFAULT_MAPPING_TYPE, item.id());
+            }
+            // generateSource only copies the top level of the source, the assignments would change the objects of the
+            // current state in place even if the item fails
+            Map<String, Object> source = updateSourceGen.generateSource(
+                current.withUpdatedSource(copyObjects(current.getSource())),
+                item.updateAssignments(),
+                insertValues
+            );
+            mergedDoc.current = current.withUpdatedSource(source);
+        }
+        mergedDoc.items.add(item);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> copyObjects(Map<String, Object> source) {
+        HashMap<String, Object> copy = new HashMap<>(source);
+        for (Map.Entry<String, Object> entry : copy.entrySet()) {
+            if (entry.getValue() instanceof Map) {
+                entry.setValue(copyObjects((Map<String, Object>) entry.getValue()));
+            }
+        }
+        return copy;
+    }
+
+    private static Doc newDoc(String indexName, String id, Map<String, Object> source) {
+        return new Doc(
+            -1,
+            indexName,
+            id,
+            Versions.NOT_FOUND,
+            SequenceNumbers.UNASSIGNED_SEQ_NO,
+            SequenceNumbers.UNASSIGNED_PRIMARY_TERM,
+            source,
+            () -> {
+                try {
+                    return Strings.toString(XContentFactory.jsonBuilder().map(source));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        );
+    }
+
+    /**
+     * Indexes the final state of each merged document with a single operation.
+     * The last item of a document carries the source to the replicas, the sources of the other items are cleared.
+     *
+     * The operation is conditional on the document being unchanged since it was fetched.
+     * If that is not the case, the items of the document are processed one by one.
+     */
+    @Nullable
+    private Translog.Location indexMergedDocs(ShardUpsertRequest request,
+                                              IndexShard indexShard,
+                                              Collection<MergedDoc> mergedDocs,
+                                              ShardResponse shardResponse,
+                                              UpdateSourceGen updateSourceGen,
+                                              @Nullable InsertSourceGen insertSourceGen,
+                                              @Nullable Translog.Location translogLocation) throws Exception {
+        for (MergedDoc mergedDoc : mergedDocs) {
+            List<ShardUpsertRequest.Item> items = mergedDoc.items;
+            if (items.isEmpty()) {
+                continue;
+            }
+            ShardUpsertRequest.Item lastItem = items.get(items.size() - 1);
+            try {
+                BytesReference rawSource = BytesReference.bytes(XContentFactory.jsonBuilder().map(mergedDoc.current.getSource()));
+                for (ShardUpsertRequest.Item item : items) {
+                    item.source(null);
+                }
+                lastItem.source(rawSource);
+                Doc fetched = mergedDoc.fetched;
+                Engine.IndexResult indexResult = index(
+                    lastItem,
                     indexShard,
-                    updateSourceGen,
-                    insertSourceGen,
-                    returnValueGen
+                    false,
+                    fetched == null ? SequenceNumbers.UNASSIGNED_SEQ_NO : fetched.getSeqNo(),
+                    fetched == null ? SequenceNumbers.UNASSIGNED_PRIMARY_TERM : fetched.getPrimaryTerm(),
+                    fetched == null ? Versions.MATCH_DELETED : Versions.MATCH_ANY
                 );
-                if (indexItemResponse != null) {
-                    if (indexItemResponse.translog != null) {
-                        shardResponse.add(location);
-                        translogLocation = indexItemResponse.translog;
-                    }
-                    if (indexItemResponse.returnValues != null) {
-                        shardResponse.addResultRows(indexItemResponse.returnValues);
-                    }
+                for (ShardUpsertRequest.Item item : items) {
+                    shardResponse.add(item.location());
                 }
+                translogLocation = indexResult.getTranslogLocation();
             } catch (Exception e) {
                 if (retryPrimaryException(e)) {
-                    if (e instanceof RuntimeException) {
-                        throw (RuntimeException) e;
-                    }
-                    throw new RuntimeException(e);
+                    throw e;
                 }
-                if (logger.isDebugEnabled()) {
-                    logger.debug("Failed to execute upsert shardId={} id={} error={}", request.shardId(), item.id(), e);
+                if (logger.isTraceEnabled()) {
+                    logger.trace("[{}] Failed to index merged document id={}, processing its {} items one by one",
+                        indexShard.shardId(), lastItem.id(), items.size());
                 }
-
-                // *mark* the item as failed by setting the source to null
-                // to prevent the replica operation from processing this concrete item
-                item.source(null);
-
-                if (!request.continueOnError()) {
-                    shardResponse.failure(e);
-                    break;
+                for (ShardUpsertRequest.Item item : items) {
+                    try {
+                        IndexItemResponse indexItemResponse = indexItem(
+                            request,
+                            item,
+                            indexShard,
+                            updateSourceGen,
+                            insertSourceGen,
+                            null
+                        );
+                        translogLocation = addResponse(shardResponse, item, indexItemResponse, translogLocation);
+                    } catch (Exception itemFailure) {
+                        if (!onItemFailure(request, item, shardResponse, itemFailure)) {
+                            return translogLocation;
+                        }
+                    }
                 }
-                shardResponse.add(location,
-                    new ShardResponse.Failure(
-                        item.id(),
-                        userFriendlyCrateExceptionTopOnly(e),
-                        (e instanceof VersionConflictEngineException)));
             }
         }
-        return new WritePrimaryResult<>(request, shardResponse, translogLocation, null, indexShard);
+        return translogLocation;
+    }
+
+    private static class MergedDoc {
+
+        /**
+         * The document as it was before the items were applied; null if it didn't exist
+         */
+        @Nullable
+        final Doc fetched;
+
+        @Nullable
+        Doc current;
+
+        final List<ShardUpsertRequest.Item> items = new ArrayList<>();
+
+        MergedDoc(@Nullable Doc fetched) {
+            this.fetched = fetched;
+            this.current = fetched;
+        }
     }
 
     @Override
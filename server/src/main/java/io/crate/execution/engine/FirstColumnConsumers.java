@@ -36,7 +36,8 @@ import java.util.function.Supplier;
 import java.util.stream.Collector;
 
 /**
- * Collectors to retrieve either {@link AllValues} or a {@link SingleValue} of the first column of each row.
+ * Collectors to retrieve either {@link AllValues} or a {@link SingleValue} of the first column of each row,
+ * or whether there is {@link AnyRow} at all.
  */
 public class FirstColumnConsumers {
 
@@ -123,6 +124,39 @@ public class FirstColumnConsumers {
 
     }
 
+    private static class AnyRow implements Collector<Row, boolean[], Object> {
+
+        private static final AnyRow INSTANCE = new AnyRow();
+
+        private AnyRow() {
+        }
+
+        @Override
+        public Supplier<boolean[]> supplier() {
+            return () -> new boolean[1];
+        }
+
+        @Override
+        public BiConsumer<boolean[], Row> accumulator() {
+            return (agg, row) -> agg[0] = true;
+        }
+
+        @Override
+        public BinaryOperator<boolean[]> combiner() {
+            throw new IllegalStateException("Combine is not implemented on this collector");
+        }
+
+        @Override
+        public Function<boolean[], Object> finisher() {
+            return agg -> agg[0];
+        }
+
+        @Override
+        public Set<Characteristics> characteristics() {
+            return Collections.emptySet();
+        }
+    }
+
     public static CollectingRowConsumer<Object[], Object> createSingleRowConsumer() {
         return new CollectingRowConsumer<>(SingleValue.INSTANCE);
     }
@@ -130,4 +164,8 @@ public class FirstColumnConsumers {
     public static CollectingRowConsumer<Collection<Object>, Object[]> createAllRowsConsumer() {
         return new CollectingRowConsumer<>(AllValues.INSTANCE);
     }
+
+    public static CollectingRowConsumer<boolean[], Object> createAnyRowConsumer() {
+        return new CollectingRowConsumer<>(AnyRow.INSTANCE);
+    }
 }
@@ -0,0 +1,186 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.execution.engine.aggregation;
+
+import io.crate.breaker.RamAccounting;
+import io.crate.data.BatchIterator;
+import io.crate.data.Row;
+import io.crate.expression.symbol.AggregateMode;
+
+import javax.annotation.Nonnull;
+import java.util.Iterator;
+import java.util.concurrent.CompletionStage;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * BatchIterator for {@link AggregateMode#ITER_PARTIAL} grouping.
+ *
+ * <p>
+ * The partial states are merged by a downstream {@link AggregateMode#PARTIAL_FINAL} grouping, so a key may be emitted
+ * more than once. Instead of grouping all rows before emitting anything, the groups are flushed once there are
+ * {@link #MAX_GROUPS} of them. This bounds the memory used for the groups and lets the downstream start earlier.
+ * </p>
+ *
+ * <p>
+ * If a flush shows that the rows aren't reduced by at least {@link #MIN_ROWS_PER_GROUP} on average,
+ * the keys are close to unique and grouping only costs memory and CPU.
+ * All following rows are then passed through, converted to a partial state of a single row each.
+ * </p>
+ *
+ * <p>
+ * The collector must account the memory of its groups to a {@link RamAccounting} of its own, which is released
+ * once the flushed rows are consumed and on {@link #close()}. Memory accounted by other operators isn't affected.
+ * </p>
+ */
+final class AdaptivePartialGroupingBatchIterator<S> implements BatchIterator<Row> {
+
+    static final int MAX_GROUPS = 64 * 1024;
+    static final int MIN_ROWS_PER_GROUP = 2;
+
+    private final BatchIterator<Row> source;
+    private final FlushableGroupingCollector<S> collector;
+    private final BiConsumer<S, Row> accumulator;
+    private final Function<S, Iterable<Row>> finisher;
+    private final RamAccounting groupsRamAccounting;
+    private final int maxGroups;
+
+    private S state;
+    private Iterator<Row> flushedRows = null;
+    private long numRowsSinceFlush = 0;
+    private boolean passThrough = false;
+    private boolean sourceConsumed = false;
+    private Row current = null;
+
+    AdaptivePartialGroupingBatchIterator(BatchIterator<Row> source,
+                                         FlushableGroupingCollector<S> collector,
+                                         RamAccounting groupsRamAccounting) {
+        this(source, collector, groupsRamAccounting, MAX_GROUPS);
+    }
+
+    /**
+     * @param groupsRamAccounting the accounting used by the collector for its groups
+     */
+    AdaptivePartialGroupingBatchIterator(BatchIterator<Row> source,
+                                         FlushableGroupingCollector<S> collector,
+                                         RamAccounting groupsRamAccounting,
+                                         int maxGroups) {
+        this.source = source;
+        this.collector = collector;
+        this.accumulator = collector.accumulator();
+        this.finisher = collector.finisher();
+        this.groupsRamAccounting = groupsRamAccounting;
+        this.maxGroups = maxGroups;
+        this.state = collector.supplier().get();
+    }
+
+    @Override
+    public Row currentElement() {
+        return current;
+    }
+
+    @Override
+    public void moveToStart() {
+        source.moveToStart();
+        groupsRamAccounting.release();
+        state = collector.supplier().get();
+        flushedRows = null;
+        numRowsSinceFlush = 0;
+        passThrough = false;
+        sourceConsumed = false;
+        current = null;
+    }
+
+    @Override
+    public boolean moveNext() {
+        while (true) {
+            if (flushedRows != null) {
+                if (flushedRows.hasNext()) {
+                    current = flushedRows.next();
+                    return true;
+                }
+                flushedRows = null;
+                clearGroups();
+            }
+            if (sourceConsumed) {
+                current = null;
+                return false;
+            }
+            if (source.moveNext()) {
+                accumulator.accept(state, source.currentElement());
+                numRowsSinceFlush++;
+                if (passThrough) {
+                    flush();
+                } else {
+                    int numGroups = collector.numGroups(state);
+                    if (numGroups >= maxGroups) {
+                        passThrough = numRowsSinceFlush < (long) numGroups * MIN_ROWS_PER_GROUP;
+                        flush();
+                    }
+                }
+            } else if (source.allLoaded()) {
+                sourceConsumed = true;
+                flush();
+            } else {
+                current = null;
+                return false;
+            }
+        }
+    }
+
+    private void flush() {
+        flushedRows = finisher.apply(state).iterator();
+        numRowsSinceFlush = 0;
+    }
+
+    private void clearGroups() {
+        collector.clear(state);
+        groupsRamAccounting.release();
+    }
+
+    @Override
+    public void close() {
+        source.close();
+        groupsRamAccounting.release();
+    }
+
+    @Override
+    public CompletionStage<?> loadNextBatch() throws Exception {
+        return source.loadNextBatch();
+    }
+
+    @Override
+    public boolean allLoaded() {
+        return source.allLoaded();
+    }
+
+    @Override
+    public void kill(@Nonnull Throwable throwable) {
+        source.kill(throwable);
+    }
+
+    @Override
+    public boolean hasLazyResultSet() {
+        return source.hasLazyResultSet();
+    }
+}
@@ -0,0 +1,239 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.execution.engine.aggregation;
+
+import io.crate.breaker.RamAccounting;
+import io.crate.data.Input;
+import io.crate.data.Row;
+import io.crate.data.RowN;
+import io.crate.execution.engine.collect.CollectExpression;
+import io.crate.execution.engine.hash.CompositeKeyHashTable;
+import io.crate.expression.InputCondition;
+import io.crate.expression.symbol.AggregateMode;
+import io.crate.memory.MemoryManager;
+import io.crate.types.DataType;
+import org.apache.lucene.util.RamUsageEstimator;
+import org.elasticsearch.Version;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.BinaryOperator;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Variant of {@link GroupingCollector} for multiple keys which stores the keys in a {@link CompositeKeyHashTable}
+ * instead of creating a {@code List<Object>} key per row.
+ * Can only be used if {@link CompositeKeyHashTable#supports(List)} is true for the key types.
+ */
+final class CompositeKeyGroupingCollector
+    implements FlushableGroupingCollector<CompositeKeyGroupingCollector.Groups> {
+
+    private final CollectExpression<Row, ?>[] expressions;
+    private final AggregationFunction[] aggregations;
+    private final AggregateMode mode;
+    private final Input[][] inputs;
+    private final Input<Boolean>[] filters;
+    private final RamAccounting ramAccounting;
+    private final MemoryManager memoryManager;
+    private final Version minNodeVersion;
+    private final List<Input<?>> keyInputs;
+    private final List<? extends DataType<?>> keyTypes;
+    private final Version indexVersionCreated;
+    private final BiConsumer<Groups, Row> accumulator;
+
+    static final class Groups {
+
+        private final CompositeKeyHashTable keys;
+        private final ArrayList<Object[]> statesByKeyId = new ArrayList<>();
+        private long accountedBytes = 0;
+
+        private Groups(List<? extends DataType<?>> keyTypes) {
+            this.keys = new CompositeKeyHashTable(keyTypes);
+        }
+    }
+
+    CompositeKeyGroupingCollector(CollectExpression<Row, ?>[] expressions,
+                                  AggregateMode mode,
+                                  AggregationFunction[] aggregations,
+                                  Input[][] inputs,
+                                  Input<Boolean>[] filters,
+                                  RamAccounting ramAccounting,
+                                  MemoryManager memoryManager,
+                                  Version minNodeVersion,
+                                  List<Input<?>> keyInputs,
+                                  List<? extends DataType<?>> keyTypes,
+                                  Version indexVersionCreated) {
+        assert CompositeKeyHashTable.supports(keyTypes) : "Key types must be supported by CompositeKeyHashTable";
+        this.expressions = expressions;
+        this.aggregations = aggregations;
+        this.mode = mode;
+        this.inputs = inputs;
+        this.filters = filters;
+        this.ramAccounting = ramAccounting;
+        this.memoryManager = memoryManager;
+        this.minNodeVersion = minNodeVersion;
+        this.keyInputs = keyInputs;
+        this.keyTypes = keyTypes;
+        this.indexVersionCreated = indexVersionCreated;
+        this.accumulator = mode == AggregateMode.PARTIAL_FINAL ? this::reduce : this::iter;
+    }
+
+    @Override
+    public Supplier<Groups> supplier() {
+        return () -> new Groups(keyTypes);
+    }
+
+    @Override
+    public BiConsumer<Groups, Row> accumulator() {
+        return accumulator;
+    }
+
+    @Override
+    public BinaryOperator<Groups> combiner() {
+        return (state1, state2) -> {
+            throw new UnsupportedOperationException("combine not supported");
+        };
+    }
+
+    @Override
+    public Function<Groups, Iterable<Row>> finisher() {
+        return this::groupsToRows;
+    }
+
+    @Override
+    public Set<Characteristics> characteristics() {
+        return Collections.emptySet();
+    }
+
+    @Override
+    public int numGroups(Groups groups) {
+        return groups.keys.size();
+    }
+
+    @Override
+    public void clear(Groups groups) {
+        groups.keys.clear();
+        groups.statesByKeyId.clear();
+        // the table keeps its capacity; it is accounted for again on the next add
+        groups.accountedBytes = 0;
+    }
+
+    private void reduce(Groups groups, Row row) {
+        for (CollectExpression<Row, ?> expression : expressions) {
+            expression.setNextRow(row);
+        }
+        groups.keys.setProbe(keyInputs);
+        int keyId = groups.keys.add();
+        if (keyId >= 0) {
+            Object[] states = new Object[aggregations.length];
+            for (int i = 0; i < aggregations.length; i++) {
+                states[i] = inputs[i][0].value();
+            }
+            addWithAccounting(groups, states);
+        } else {
+            Object[] states = groups.statesByKeyId.get(-keyId - 1);
+            for (int i = 0; i < aggregations.length; i++) {
+                states[i] = aggregations[i].reduce(ramAccounting, states[i], inputs[i][0].value());
+            }
+        }
+    }
+
+    private void iter(Groups groups, Row row) {
+        for (CollectExpression<Row, ?> expression : expressions) {
+            expression.setNextRow(row);
+        }
+        groups.keys.setProbe(keyInputs);
+        int keyId = groups.keys.add();
+        if (keyId >= 0) {
+            Object[] states = new Object[aggregations.length];
+            for (int i = 0; i < aggregations.length; i++) {
+                AggregationFunction aggregation = aggregations[i];
+
+                var newState = aggregation.newState(ramAccounting, indexVersionCreated, minNodeVersion, memoryManager);
+                if (InputCondition.matches(filters[i])) {
+                    //noinspection unchecked
+                    states[i] = aggregation.iterate(ramAccounting, memoryManager, newState, inputs[i]);
+                } else {
+                    states[i] = newState;
+                }
+            }
+            addWithAccounting(groups, states);
+        } else {
+            Object[] states = groups.statesByKeyId.get(-keyId - 1);
+            for (int i = 0; i < aggregations.length; i++) {
+                if (InputCondition.matches(filters[i])) {
+                    //noinspection unchecked
+                    states[i] = aggregations[i].iterate(ramAccounting, memoryManager, states[i], inputs[i]);
+                }
+            }
+        }
+    }
+
+    private void addWithAccounting(Groups groups, Object[] states) {
+        groups.statesByKeyId.add(states);
+        long usedBytes = groups.keys.ramBytesUsed();
+        ramAccounting.addBytes(usedBytes - groups.accountedBytes + RamUsageEstimator.NUM_BYTES_OBJECT_REF);
+        groups.accountedBytes = usedBytes;
+    }
+
+    private Iterable<Row> groupsToRows(Groups groups) {
+        int numKeyColumns = keyTypes.size();
+        return () -> new Iterator<>() {
+
+            final RowN row = new RowN(numKeyColumns + aggregations.length);
+            final Object[] cells = new Object[row.numColumns()];
+            int keyId = 0;
+
+            {
+                row.cells(cells);
+            }
+
+            @Override
+            public boolean hasNext() {
+                return keyId < groups.keys.size();
+            }
+
+            @Override
+            public Row next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException("Iterator is exhausted");
+                }
+                groups.keys.getKey(keyId, cells, 0);
+                Object[] states = groups.statesByKeyId.get(keyId);
+                int c = numKeyColumns;
+                for (int i = 0; i < states.length; i++) {
+                    cells[c] = mode.finishCollect(ramAccounting, aggregations[i], states[i]);
+                    c++;
+                }
+                keyId++;
+                return row;
+            }
+        };
+    }
+}
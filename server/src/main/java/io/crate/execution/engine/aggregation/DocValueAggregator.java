@@ -37,6 +37,19 @@ public interface DocValueAggregator<T> {
 
     public void apply(RamAccounting ramAccounting, int doc, T state) throws IOException;
 
+    /**
+     * Aggregates all documents of a segment using only the metadata of the segment, like the bounds or the
+     * document count of the points index, without visiting the documents.
+     *
+     * Only called for segments without deleted documents if all documents of the segment match.
+     *
+     * @return false if the metadata isn't sufficient; the state must then be left untouched and
+     *         {@link #apply(RamAccounting, int, Object)} is called for each document instead.
+     */
+    public default boolean applyFromMetadata(LeafReader reader, T state) throws IOException {
+        return false;
+    }
+
     // Aggregations are executed on shard level,
     // that means there is always a final reduce step necessary
     // → never return final value, but always partial result
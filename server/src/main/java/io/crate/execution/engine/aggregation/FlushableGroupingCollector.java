@@ -0,0 +1,43 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.execution.engine.aggregation;
+
+import io.crate.data.Row;
+
+import java.util.stream.Collector;
+
+/**
+ * A {@link Collector} which groups rows and whose state can be flushed:
+ * The groups are emitted using the {@link #finisher()} and then cleared, so that the state can be re-used.
+ *
+ * @param <S> type of the state containing the groups
+ */
+interface FlushableGroupingCollector<S> extends Collector<Row, S, Iterable<Row>> {
+
+    int numGroups(S state);
+
+    /**
+     * Removes all groups. Must only be called once the rows returned by the {@link #finisher()} are consumed.
+     */
+    void clear(S state);
+}
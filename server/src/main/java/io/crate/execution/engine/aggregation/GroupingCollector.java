@@ -47,7 +47,6 @@ import java.util.function.BiConsumer;
 import java.util.function.BinaryOperator;
 import java.util.function.Function;
 import java.util.function.Supplier;
-import java.util.stream.Collector;
 
 /**
  * Collector implementation which uses {@link AggregateMode}s and {@code keyInputs}
@@ -55,7 +54,7 @@ import java.util.stream.Collector;
  *
  * @param <K> type of the key
  */
-public class GroupingCollector<K> implements Collector<Row, Map<K, Object[]>, Iterable<Row>> {
+public class GroupingCollector<K> implements FlushableGroupingCollector<Map<K, Object[]>> {
 
     private final CollectExpression<Row, ?>[] expressions;
     private final AggregationFunction[] aggregations;
@@ -211,6 +210,16 @@ public class GroupingCollector<K> implements Collector<Row, Map<K, Object[]>, It
         return Collections.emptySet();
     }
 
+    @Override
+    public int numGroups(Map<K, Object[]> statesByKey) {
+        return statesByKey.size();
+    }
+
+    @Override
+    public void clear(Map<K, Object[]> statesByKey) {
+        statesByKey.clear();
+    }
+
     private void reduce(Map<K, Object[]> statesByKey, Row row) {
         for (CollectExpression<Row, ?> expression : expressions) {
             expression.setNextRow(row);
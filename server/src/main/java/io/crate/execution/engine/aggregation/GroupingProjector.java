@@ -22,6 +22,7 @@
 
 package io.crate.execution.engine.aggregation;
 
+import io.crate.breaker.ConcurrentRamAccounting;
 import io.crate.breaker.RamAccounting;
 import io.crate.data.BatchIterator;
 import io.crate.data.CollectingBatchIterator;
@@ -29,6 +30,7 @@ import io.crate.data.Input;
 import io.crate.data.Projector;
 import io.crate.data.Row;
 import io.crate.execution.engine.collect.CollectExpression;
+import io.crate.execution.engine.hash.CompositeKeyHashTable;
 import io.crate.expression.symbol.AggregateMode;
 import io.crate.expression.symbol.Symbol;
 import io.crate.memory.MemoryManager;
@@ -44,8 +46,9 @@ import static io.crate.expression.symbol.Symbols.typeView;
 
 public class GroupingProjector implements Projector {
 
-    private final Collector<Row, ?, Iterable<Row>> collector;
-
+    private final FlushableGroupingCollector<?> collector;
+    private final AggregateMode mode;
+    private final RamAccounting groupsRamAccounting;
 
     public GroupingProjector(List<? extends Symbol> keys,
                              List<Input<?>> keyInputs,
@@ -58,6 +61,11 @@ public class GroupingProjector implements Projector {
                              Version indexVersionCreated) {
         assert keys.size() == keyInputs.size() : "number of key types must match with number of key inputs";
         ensureAllTypesSupported(keys);
+        this.mode = mode;
+        // Partial grouping releases the memory of its groups on every flush, so it is accounted separately
+        this.groupsRamAccounting = mode == AggregateMode.ITER_PARTIAL
+            ? new ConcurrentRamAccounting(ramAccounting::addBytes, bytes -> ramAccounting.addBytes(-bytes))
+            : ramAccounting;
 
         AggregationFunction[] functions = new AggregationFunction[aggregations.length];
         Input[][] inputs = new Input[aggregations.length][];
@@ -76,22 +84,35 @@ public class GroupingProjector implements Projector {
                 functions,
                 inputs,
                 filters,
-                ramAccounting,
+                groupsRamAccounting,
                 memoryManager,
                 minNodeVersion,
                 keyInputs.get(0),
                 key.valueType(),
                 indexVersionCreated
             );
+        } else if (CompositeKeyHashTable.supports(typeView(keys))) {
+            collector = new CompositeKeyGroupingCollector(
+                collectExpressions,
+                mode,
+                functions,
+                inputs,
+                filters,
+                groupsRamAccounting,
+                memoryManager,
+                minNodeVersion,
+                keyInputs,
+                typeView(keys),
+                indexVersionCreated
+            );
         } else {
-            //noinspection unchecked
-            collector = (GroupingCollector<Object>) (GroupingCollector) GroupingCollector.manyKeys(
+            collector = GroupingCollector.manyKeys(
                 collectExpressions,
                 mode,
                 functions,
                 inputs,
                 filters,
-                ramAccounting,
+                groupsRamAccounting,
                 memoryManager,
                 minNodeVersion,
                 keyInputs,
@@ -112,6 +133,9 @@ public class GroupingProjector implements Projector {
 
     @Override
     public BatchIterator<Row> apply(BatchIterator<Row> batchIterator) {
+        if (mode == AggregateMode.ITER_PARTIAL) {
+            return new AdaptivePartialGroupingBatchIterator<>(batchIterator, collector, groupsRamAccounting);
+        }
         return CollectingBatchIterator.newInstance(batchIterator, collector);
     }
 
@@ -121,6 +145,7 @@ public class GroupingProjector implements Projector {
 
     @Override
     public boolean providesIndependentScroll() {
-        return true;
+        // partial grouping streams through the source instead of collecting it
+        return mode != AggregateMode.ITER_PARTIAL;
     }
 }
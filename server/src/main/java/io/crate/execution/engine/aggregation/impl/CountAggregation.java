@@ -47,6 +47,9 @@ import io.crate.types.LongType;
 import io.crate.types.ShortType;
 import io.crate.types.StringType;
 import io.crate.types.TimestampType;
+import org.apache.lucene.index.LeafReader;
+import org.apache.lucene.index.PointValues;
+import org.apache.lucene.index.Terms;
 import org.elasticsearch.Version;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
@@ -239,6 +242,7 @@ public class CountAggregation extends AggregationFunction<MutableLong, Long> {
     public DocValueAggregator<?> getDocValueAggregator(List<DataType<?>> argumentTypes,
                                                        List<MappedFieldType> fieldTypes) {
         if (argumentTypes.size() == 1) {
+            String columnName = fieldTypes.get(0).name();
             switch (argumentTypes.get(0).id()) {
                 case ByteType.ID:
                 case ShortType.ID:
@@ -249,28 +253,65 @@ public class CountAggregation extends AggregationFunction<MutableLong, Long> {
                 case FloatType.ID:
                 case DoubleType.ID:
                 case GeoPointType.ID:
-                    return new SortedNumericDocValueAggregator<>(
-                        fieldTypes.get(0).name(),
+                    return new SortedNumericDocValueAggregator<MutableLong>(
+                        columnName,
                         (ramAccounting) -> {
                             ramAccounting.addBytes(LongStateType.INSTANCE.fixedSize());
                             return new MutableLong(0L);
                         },
                         (values, state) -> state.add(1L)
-                    );
+                    ) {
+                        @Override
+                        public boolean applyFromMetadata(LeafReader reader, MutableLong state) throws IOException {
+                            return addPointsDocCount(reader, columnName, state);
+                        }
+                    };
                 case IpType.ID:
                 case StringType.ID:
-                    return new BinaryDocValueAggregator<>(
-                        fieldTypes.get(0).name(),
+                    boolean isIp = argumentTypes.get(0).id() == IpType.ID;
+                    return new BinaryDocValueAggregator<MutableLong>(
+                        columnName,
                         (ramAccounting) -> {
                             ramAccounting.addBytes(LongStateType.INSTANCE.fixedSize());
                             return new MutableLong(0L);
                         },
                         (values, state) -> state.add(1L)
-                    );
+                    ) {
+                        @Override
+                        public boolean applyFromMetadata(LeafReader reader, MutableLong state) throws IOException {
+                            return isIp
+                                ? addPointsDocCount(reader, columnName, state)
+                                : addTermsDocCount(reader, columnName, state);
+                        }
+                    };
                 default:
                     return null;
             }
         }
         return null;
     }
+
+    /**
+     * Adds the number of documents of the segment which have a value in the points index of the column.
+     */
+    private static boolean addPointsDocCount(LeafReader reader, String columnName, MutableLong state) throws IOException {
+        PointValues pointValues = reader.getPointValues(columnName);
+        if (pointValues == null) {
+            return false;
+        }
+        state.add(pointValues.getDocCount());
+        return true;
+    }
+
+    /**
+     * Adds the number of documents of the segment which have a term in the inverted index of the column.
+     */
+    private static boolean addTermsDocCount(LeafReader reader, String columnName, MutableLong state) throws IOException {
+        Terms terms = reader.terms(columnName);
+        if (terms == null) {
+            return false;
+        }
+        state.add(terms.getDocCount());
+        return true;
+    }
 }
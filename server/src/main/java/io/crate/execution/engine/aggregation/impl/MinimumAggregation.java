@@ -30,6 +30,7 @@ import io.crate.common.MutableFloat;
 import io.crate.types.ByteType;
 import org.apache.lucene.index.DocValues;
 import org.apache.lucene.index.LeafReader;
+import org.apache.lucene.index.PointValues;
 import org.apache.lucene.index.SortedNumericDocValues;
 import org.apache.lucene.util.NumericUtils;
 import org.elasticsearch.Version;
@@ -108,6 +109,19 @@ public abstract class MinimumAggregation extends AggregationFunction<Comparable,
             }
         }
 
+        @Override
+        public boolean applyFromMetadata(LeafReader reader, MutableLong state) throws IOException {
+            PointValues pointValues = PointValuesBounds.integralPointValues(reader, columnName);
+            if (pointValues == null) {
+                return false;
+            }
+            long value = PointValuesBounds.decodeLong(pointValues, pointValues.getMinPackedValue());
+            if (value < state.value()) {
+                state.setValue(value);
+            }
+            return true;
+        }
+
         @Override
         public Object partialResult(RamAccounting ramAccounting, MutableLong state) {
             if (state.hasValue()) {
@@ -149,6 +163,23 @@ public abstract class MinimumAggregation extends AggregationFunction<Comparable,
             }
         }
 
+        @Override
+        public boolean applyFromMetadata(LeafReader reader, MutableDouble state) throws IOException {
+            PointValues pointValues = PointValuesBounds.pointValues(reader, columnName, Long.BYTES);
+            if (pointValues == null) {
+                return false;
+            }
+            double value = PointValuesBounds.decodeDouble(pointValues.getMinPackedValue());
+            if (Double.isNaN(value)) {
+                // NaN sorts above all other values, so the minimum is only NaN if all values are; apply skips them
+                return false;
+            }
+            if (value < state.value()) {
+                state.setValue(value);
+            }
+            return true;
+        }
+
         @Override
         public Object partialResult(RamAccounting ramAccounting, MutableDouble state) {
             if (state.hasValue()) {
@@ -189,6 +220,23 @@ public abstract class MinimumAggregation extends AggregationFunction<Comparable,
             }
         }
 
+        @Override
+        public boolean applyFromMetadata(LeafReader reader, MutableFloat state) throws IOException {
+            PointValues pointValues = PointValuesBounds.pointValues(reader, columnName, Integer.BYTES);
+            if (pointValues == null) {
+                return false;
+            }
+            float value = PointValuesBounds.decodeFloat(pointValues.getMinPackedValue());
+            if (Float.isNaN(value)) {
+                // NaN sorts above all other values, so the minimum is only NaN if all values are; apply skips them
+                return false;
+            }
+            if (value < state.value()) {
+                state.setValue(value);
+            }
+            return true;
+        }
+
         @Override
         public Object partialResult(RamAccounting ramAccounting, MutableFloat state) {
             if (state.hasValue()) {
@@ -0,0 +1,80 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.execution.engine.aggregation.impl;
+
+import org.apache.lucene.index.LeafReader;
+import org.apache.lucene.index.PointValues;
+import org.apache.lucene.util.NumericUtils;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+
+/**
+ * Access to the min and max values of a numeric column within a segment, as recorded in the points index.
+ *
+ * Byte, short and integer columns are indexed as 4 byte points, long and timestamp columns as 8 byte points.
+ */
+final class PointValuesBounds {
+
+    private PointValuesBounds() {
+    }
+
+    /**
+     * @return the points of the column if they are one dimensional with {@code bytesPerDim} bytes, otherwise null.
+     */
+    @Nullable
+    static PointValues pointValues(LeafReader reader, String columnName, int bytesPerDim) throws IOException {
+        PointValues values = reader.getPointValues(columnName);
+        if (values == null
+            || values.getNumIndexDimensions() != 1
+            || values.getBytesPerDimension() != bytesPerDim
+            || values.getDocCount() == 0) {
+            return null;
+        }
+        return values;
+    }
+
+    /**
+     * @return the points of an integral column, either indexed as int or as long points
+     */
+    @Nullable
+    static PointValues integralPointValues(LeafReader reader, String columnName) throws IOException {
+        PointValues values = pointValues(reader, columnName, Long.BYTES);
+        return values == null ? pointValues(reader, columnName, Integer.BYTES) : values;
+    }
+
+    static long decodeLong(PointValues values, byte[] packedValue) {
+        if (values.getBytesPerDimension() == Integer.BYTES) {
+            return NumericUtils.sortableBytesToInt(packedValue, 0);
+        }
+        return NumericUtils.sortableBytesToLong(packedValue, 0);
+    }
+
+    static double decodeDouble(byte[] packedValue) {
+        return NumericUtils.sortableLongToDouble(NumericUtils.sortableBytesToLong(packedValue, 0));
+    }
+
+    static float decodeFloat(byte[] packedValue) {
+        return NumericUtils.sortableIntToFloat(NumericUtils.sortableBytesToInt(packedValue, 0));
+    }
+}
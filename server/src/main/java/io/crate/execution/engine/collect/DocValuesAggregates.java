@@ -43,14 +43,17 @@ import io.crate.expression.symbol.Symbol;
 import io.crate.expression.symbol.Symbols;
 import io.crate.lucene.FieldTypeLookup;
 import io.crate.lucene.LuceneQueryBuilder;
+import io.crate.lucene.PointRangePruning;
 import io.crate.metadata.FunctionImplementation;
 import io.crate.metadata.NodeContext;
 import io.crate.metadata.Reference;
 import io.crate.metadata.SearchPath;
 import io.crate.metadata.doc.DocTableInfo;
+import org.apache.lucene.index.LeafReader;
 import org.apache.lucene.index.LeafReaderContext;
 import org.apache.lucene.search.DocIdSetIterator;
 import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.MatchAllDocsQuery;
 import org.apache.lucene.search.Query;
 import org.apache.lucene.search.ScoreMode;
 import org.apache.lucene.search.Scorer;
@@ -112,6 +115,7 @@ public class DocValuesAggregates {
                 table,
                 shardContext.indexService().cache()
             );
+            Query query = PointRangePruning.prune(searcher.getIndexReader(), queryContext.query());
 
             AtomicReference<Throwable> killed = new AtomicReference<>();
             return CollectingBatchIterator.newInstance(
@@ -123,7 +127,7 @@ public class DocValuesAggregates {
                             collectTask.getRamAccounting(),
                             killed,
                             searcher,
-                            queryContext.query(),
+                            query,
                             aggregators
                         ));
                     } catch (Throwable t) {
@@ -205,22 +209,39 @@ public class DocValuesAggregates {
                                         Query query,
                                         List<DocValueAggregator> aggregators) throws IOException {
         IndexSearcher indexSearcher = searcher;
-        Weight weight = indexSearcher.createWeight(indexSearcher.rewrite(query), ScoreMode.COMPLETE_NO_SCORES, 1f);
+        Query rewrittenQuery = indexSearcher.rewrite(query);
+        Weight weight = indexSearcher.createWeight(rewrittenQuery, ScoreMode.COMPLETE_NO_SCORES, 1f);
+        boolean matchAll = rewrittenQuery instanceof MatchAllDocsQuery;
         List<LeafReaderContext> leaves = indexSearcher.getTopReaderContext().leaves();
         Object[] cells = new Object[aggregators.size()];
         for (int i = 0; i < aggregators.size(); i++) {
             cells[i] = aggregators.get(i).initialState(ramAccounting);
         }
+        List<DocValueAggregator> docAggregators = new ArrayList<>(aggregators.size());
+        List<Object> docCells = new ArrayList<>(aggregators.size());
         for (var leaf : leaves) {
             Scorer scorer = weight.scorer(leaf);
             if (scorer == null) {
                 continue;
             }
+            LeafReader reader = leaf.reader();
+            docAggregators.clear();
+            docCells.clear();
             for (int i = 0; i < aggregators.size(); i++) {
-                aggregators.get(i).loadDocValues(leaf.reader());
+                DocValueAggregator aggregator = aggregators.get(i);
+                // If all live documents match, the result may be available from the metadata of the segment
+                if (matchAll && reader.getLiveDocs() == null && aggregator.applyFromMetadata(reader, cells[i])) {
+                    continue;
+                }
+                aggregator.loadDocValues(reader);
+                docAggregators.add(aggregator);
+                docCells.add(cells[i]);
+            }
+            if (docAggregators.isEmpty()) {
+                continue;
             }
             DocIdSetIterator docs = scorer.iterator();
-            Bits liveDocs = leaf.reader().getLiveDocs();
+            Bits liveDocs = reader.getLiveDocs();
             for (int doc = docs.nextDoc(); doc != DocIdSetIterator.NO_MORE_DOCS; doc = docs.nextDoc()) {
                 if (liveDocs != null && !liveDocs.get(doc)) {
                     continue;
@@ -229,8 +250,8 @@ public class DocValuesAggregates {
                 if (killCause != null) {
                     Exceptions.rethrowUnchecked(killCause);
                 }
-                for (int i = 0; i < aggregators.size(); i++) {
-                    aggregators.get(i).apply(ramAccounting, doc, cells[i]);
+                for (int i = 0; i < docAggregators.size(); i++) {
+                    docAggregators.get(i).apply(ramAccounting, doc, docCells.get(i));
                 }
             }
         }
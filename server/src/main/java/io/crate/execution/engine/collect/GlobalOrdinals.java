@@ -0,0 +1,152 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.execution.engine.collect;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.annotation.Nullable;
+
+import org.apache.lucene.index.DocValues;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.OrdinalMap;
+import org.apache.lucene.index.SortedSetDocValues;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.LongValues;
+import org.apache.lucene.util.packed.PackedInts;
+import org.elasticsearch.common.breaker.CircuitBreaker;
+
+import io.crate.breaker.RamAccounting;
+
+/**
+ * Maps the per segment ordinals of string columns to ordinals which are unique across all segments of a reader,
+ * so that rows can be grouped by the ordinals of all segments without resolving the strings.
+ *
+ * The mapping of a column is built on first use and cached per reader. A refresh opens a new reader which gets its
+ * own mapping; the mapping of the old reader is removed once that reader is closed.
+ * The cached mappings are accounted in the node wide {@link CircuitBreaker#FIELDDATA} breaker.
+ */
+final class GlobalOrdinals {
+
+    private final CircuitBreaker breaker;
+    private final Map<IndexReader.CacheKey, Map<String, OrdinalMap>> ordinalMapsByReader = new ConcurrentHashMap<>();
+
+    GlobalOrdinals(CircuitBreaker breaker) {
+        this.breaker = breaker;
+    }
+
+    /**
+     * @param reader top-level reader; the leaves of the reader must be used with the returned {@link ColumnOrdinals}
+     * @param ramAccounting accounting of the query, used for the mapping of a reader which can't be cached
+     */
+    ColumnOrdinals get(IndexReader reader, String columnName, RamAccounting ramAccounting) throws IOException {
+        List<LeafReaderContext> leaves = reader.leaves();
+        SortedSetDocValues[] values = new SortedSetDocValues[leaves.size()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = DocValues.getSortedSet(leaves.get(i).reader(), columnName);
+        }
+        if (values.length <= 1) {
+            // segment ordinals are global ordinals
+            return new ColumnOrdinals(values, null);
+        }
+        IndexReader.CacheHelper cacheHelper = reader.getReaderCacheHelper();
+        if (cacheHelper == null) {
+            OrdinalMap ordinalMap = buildOrdinalMap(null, leaves, columnName);
+            ramAccounting.addBytes(ordinalMap.ramBytesUsed());
+            return new ColumnOrdinals(values, ordinalMap);
+        }
+        IndexReader.CacheKey cacheKey = cacheHelper.getKey();
+        Map<String, OrdinalMap> ordinalMaps = ordinalMapsByReader.computeIfAbsent(cacheKey, key -> {
+            cacheHelper.addClosedListener(this::onClose);
+            return new ConcurrentHashMap<>();
+        });
+        OrdinalMap ordinalMap = ordinalMaps.computeIfAbsent(columnName, column -> {
+            try {
+                OrdinalMap newOrdinalMap = buildOrdinalMap(cacheKey, leaves, column);
+                breaker.addEstimateBytesAndMaybeBreak(newOrdinalMap.ramBytesUsed(), "global-ordinals:" + column);
+                return newOrdinalMap;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        return new ColumnOrdinals(values, ordinalMap);
+    }
+
+    private void onClose(IndexReader.CacheKey cacheKey) {
+        Map<String, OrdinalMap> ordinalMaps = ordinalMapsByReader.remove(cacheKey);
+        if (ordinalMaps != null) {
+            for (OrdinalMap ordinalMap : ordinalMaps.values()) {
+                breaker.addWithoutBreaking(- ordinalMap.ramBytesUsed());
+            }
+        }
+    }
+
+    int numCachedReaders() {
+        return ordinalMapsByReader.size();
+    }
+
+    private static OrdinalMap buildOrdinalMap(@Nullable IndexReader.CacheKey cacheKey,
+                                              List<LeafReaderContext> leaves,
+                                              String columnName) throws IOException {
+        // OrdinalMap.build consumes the terms of the doc values, so it must not share them with the caller
+        SortedSetDocValues[] values = new SortedSetDocValues[leaves.size()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = DocValues.getSortedSet(leaves.get(i).reader(), columnName);
+        }
+        return OrdinalMap.build(cacheKey, values, PackedInts.DEFAULT);
+    }
+
+    /**
+     * Global ordinals of one column of a reader
+     */
+    static final class ColumnOrdinals {
+
+        private final SortedSetDocValues[] values;
+        @Nullable
+        private final OrdinalMap ordinalMap;
+
+        private ColumnOrdinals(SortedSetDocValues[] values, @Nullable OrdinalMap ordinalMap) {
+            this.values = values;
+            this.ordinalMap = ordinalMap;
+        }
+
+        /**
+         * @return mapping from the ordinals of the segment with the given index to global ordinals
+         */
+        LongValues globalOrds(int segmentIndex) {
+            return ordinalMap == null ? LongValues.IDENTITY : ordinalMap.getGlobalOrds(segmentIndex);
+        }
+
+        BytesRef lookupGlobalOrd(long globalOrd) throws IOException {
+            if (ordinalMap == null) {
+                return values[0].lookupOrd(globalOrd);
+            }
+            int segmentIndex = ordinalMap.getFirstSegmentNumber(globalOrd);
+            return values[segmentIndex].lookupOrd(ordinalMap.getFirstSegmentOrd(globalOrd));
+        }
+    }
+}
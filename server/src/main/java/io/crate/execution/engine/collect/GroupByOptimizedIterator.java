@@ -26,10 +26,16 @@ import static io.crate.execution.dsl.projection.Projections.shardProjections;
 import static io.crate.execution.engine.collect.LuceneShardCollectorProvider.formatSource;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Function;
@@ -37,8 +43,12 @@ import java.util.function.Supplier;
 
 import javax.annotation.Nullable;
 
+import com.carrotsearch.hppc.LongIntHashMap;
+import com.carrotsearch.hppc.cursors.LongIntCursor;
+
 import org.apache.lucene.index.DocValues;
 import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.SortedNumericDocValues;
 import org.apache.lucene.index.SortedSetDocValues;
 import org.apache.lucene.index.Terms;
 import org.apache.lucene.search.DocIdSetIterator;
@@ -49,6 +59,8 @@ import org.apache.lucene.search.Scorer;
 import org.apache.lucene.search.Weight;
 import org.apache.lucene.util.Bits;
 import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.LongValues;
+import org.apache.lucene.util.RamUsageEstimator;
 import org.elasticsearch.Version;
 import org.elasticsearch.common.lucene.BytesRefs;
 import org.elasticsearch.common.util.BigArrays;
@@ -72,6 +84,7 @@ import io.crate.execution.dsl.projection.GroupProjection;
 import io.crate.execution.dsl.projection.Projection;
 import io.crate.execution.engine.aggregation.AggregationContext;
 import io.crate.execution.engine.aggregation.AggregationFunction;
+import io.crate.execution.engine.hash.CompositeKeyHashTable;
 import io.crate.execution.jobs.SharedShardContext;
 import io.crate.expression.InputCondition;
 import io.crate.expression.InputFactory;
@@ -84,12 +97,20 @@ import io.crate.expression.symbol.Symbol;
 import io.crate.expression.symbol.Symbols;
 import io.crate.lucene.FieldTypeLookup;
 import io.crate.lucene.LuceneQueryBuilder;
+import io.crate.lucene.PointRangePruning;
 import io.crate.memory.MemoryManager;
 import io.crate.metadata.DocReferences;
 import io.crate.metadata.Reference;
 import io.crate.metadata.doc.DocSysColumns;
 import io.crate.metadata.doc.DocTableInfo;
+import io.crate.types.ByteType;
+import io.crate.types.DataType;
 import io.crate.types.DataTypes;
+import io.crate.types.IntegerType;
+import io.crate.types.LongType;
+import io.crate.types.ShortType;
+import io.crate.types.StringType;
+import io.crate.types.TimestampType;
 
 final class GroupByOptimizedIterator {
 
@@ -110,39 +131,73 @@ final class GroupByOptimizedIterator {
     private static final double CARDINALITY_RATIO_THRESHOLD = 0.5;
     private static final long HASH_MAP_ENTRY_OVERHEAD = 32; // see private RamUsageEstimator.shallowSizeOfInstance(HashMap.Node.class)
 
+    /**
+     * Types which are stored as {@link SortedNumericDocValues} and can be grouped by their raw value
+     */
+    private static final Set<Integer> INTEGRAL_KEY_TYPES = Set.of(
+        ByteType.ID,
+        ShortType.ID,
+        IntegerType.ID,
+        LongType.ID,
+        TimestampType.ID_WITH_TZ,
+        TimestampType.ID_WITHOUT_TZ
+    );
+
+    /**
+     * Optimizes a GROUP BY on a single string column, or on several string and integral columns,
+     * if all key columns have doc values. Rows are grouped by the global ordinals of the string columns and
+     * the raw doc values of the numeric columns; strings are only resolved for the result rows.
+     */
     @Nullable
-    static BatchIterator<Row> tryOptimizeSingleStringKey(IndexShard indexShard,
-                                                         DocTableInfo table,
-                                                         LuceneQueryBuilder luceneQueryBuilder,
-                                                         FieldTypeLookup fieldTypeLookup,
-                                                         BigArrays bigArrays,
-                                                         InputFactory inputFactory,
-                                                         DocInputFactory docInputFactory,
-                                                         RoutedCollectPhase collectPhase,
-                                                         CollectTask collectTask) {
+    static BatchIterator<Row> tryOptimize(IndexShard indexShard,
+                                          DocTableInfo table,
+                                          LuceneQueryBuilder luceneQueryBuilder,
+                                          FieldTypeLookup fieldTypeLookup,
+                                          BigArrays bigArrays,
+                                          GlobalOrdinals globalOrdinals,
+                                          InputFactory inputFactory,
+                                          DocInputFactory docInputFactory,
+                                          RoutedCollectPhase collectPhase,
+                                          CollectTask collectTask) {
         Collection<? extends Projection> shardProjections = shardProjections(collectPhase.projections());
-        GroupProjection groupProjection = getSingleStringKeyGroupProjection(shardProjections);
+        GroupProjection groupProjection = getGroupProjection(shardProjections);
         if (groupProjection == null) {
             return null;
         }
-        assert groupProjection.keys().size() == 1 : "Must have 1 key if getSingleStringKeyGroupProjection returned a projection";
-        Reference keyRef = getKeyRef(collectPhase.toCollect(), groupProjection.keys().get(0));
-        if (keyRef == null) {
-            return null; // group by on non-reference
-        }
-        keyRef = (Reference) DocReferences.inverseSourceLookup(keyRef);
-        MappedFieldType keyFieldType = fieldTypeLookup.get(keyRef.column().fqn());
-        if (keyFieldType == null || !keyFieldType.hasDocValues()) {
+        List<Symbol> keys = groupProjection.keys();
+        boolean singleStringKey = keys.size() == 1 && keys.get(0).valueType().id() == StringType.ID;
+        if (keys.size() == 1 && !singleStringKey) {
+            // a single numeric key is grouped in a primitive map by the generic group-by already
             return null;
         }
+        List<String> keyColumnNames = new ArrayList<>(keys.size());
+        for (Symbol key : keys) {
+            int keyTypeId = key.valueType().id();
+            if (keyTypeId != StringType.ID && !INTEGRAL_KEY_TYPES.contains(keyTypeId)) {
+                return null;
+            }
+            Reference keyRef = getKeyRef(collectPhase.toCollect(), key);
+            if (keyRef == null) {
+                return null; // group by on non-reference
+            }
+            keyRef = (Reference) DocReferences.inverseSourceLookup(keyRef);
+            MappedFieldType keyFieldType = fieldTypeLookup.get(keyRef.column().fqn());
+            if (keyFieldType == null || !keyFieldType.hasDocValues()) {
+                return null;
+            }
+            keyColumnNames.add(keyRef.column().fqn());
+        }
         if (Symbols.containsColumn(collectPhase.toCollect(), DocSysColumns.SCORE)
             || Symbols.containsColumn(collectPhase.where(), DocSysColumns.SCORE)) {
             // We could optimize this, but since it's assumed to be an uncommon case we fallback to generic group-by
             // to keep the optimized implementation a bit simpler
             return null;
         }
-        if (hasHighCardinalityRatio(() -> indexShard.acquireSearcher("group-by-cardinality-check"), keyFieldType.name())) {
-            return null;
+        for (int i = 0; i < keys.size(); i++) {
+            if (keys.get(i).valueType().id() == StringType.ID
+                && hasHighCardinalityRatio(() -> indexShard.acquireSearcher("group-by-cardinality-check"), keyColumnNames.get(i))) {
+                return null;
+            }
         }
 
         ShardId shardId = indexShard.shardId();
@@ -177,11 +232,30 @@ final class GroupByOptimizedIterator {
                 table,
                 sharedShardContext.indexService().cache()
             );
-
+            Query query = PointRangePruning.prune(searcher.getIndexReader(), queryContext.query());
+
+            if (!singleStringKey) {
+                return getMultiKeyIterator(
+                    globalOrdinals,
+                    searcher,
+                    keyColumnNames,
+                    Symbols.typeView(keys),
+                    aggregations,
+                    expressions,
+                    aggExpressions,
+                    ramAccounting,
+                    collectTask.memoryManager(),
+                    collectTask.minNodeVersion(),
+                    inputRow,
+                    query,
+                    collectorContext,
+                    groupProjection.mode());
+            }
             return getIterator(
                 bigArrays,
+                globalOrdinals,
                 searcher,
-                keyRef.column().fqn(),
+                keyColumnNames.get(0),
                 aggregations,
                 expressions,
                 aggExpressions,
@@ -189,7 +263,7 @@ final class GroupByOptimizedIterator {
                 collectTask.memoryManager(),
                 collectTask.minNodeVersion(),
                 inputRow,
-                queryContext.query(),
+                query,
                 collectorContext,
                 groupProjection.mode());
         } catch (Throwable t) {
@@ -199,6 +273,7 @@ final class GroupByOptimizedIterator {
     }
 
     static BatchIterator<Row> getIterator(BigArrays bigArrays,
+                                          GlobalOrdinals globalOrdinals,
                                           IndexSearcher indexSearcher,
                                           String keyColumnName,
                                           List<AggregationContext> aggregations,
@@ -225,6 +300,7 @@ final class GroupByOptimizedIterator {
                         getRows(
                             applyAggregatesGroupedByKey(
                                 bigArrays,
+                                globalOrdinals,
                                 indexSearcher,
                                 keyColumnName,
                                 aggregations,
@@ -276,6 +352,7 @@ final class GroupByOptimizedIterator {
     }
 
     private static Map<BytesRef, Object[]> applyAggregatesGroupedByKey(BigArrays bigArrays,
+                                                                       GlobalOrdinals globalOrdinals,
                                                                        IndexSearcher indexSearcher,
                                                                        String keyColumnName,
                                                                        List<AggregationContext> aggregations,
@@ -290,19 +367,26 @@ final class GroupByOptimizedIterator {
         final HashMap<BytesRef, Object[]> statesByKey = new HashMap<>();
         final Weight weight = indexSearcher.createWeight(indexSearcher.rewrite(query), ScoreMode.COMPLETE_NO_SCORES, 1f);
         final List<LeafReaderContext> leaves = indexSearcher.getTopReaderContext().leaves();
+        final GlobalOrdinals.ColumnOrdinals ordinals = globalOrdinals.get(indexSearcher.getIndexReader(), keyColumnName, ramAccounting);
+        // The query may only match a few of the terms, so the states are indexed by the number of groups instead of
+        // the global ordinals
+        final LongIntHashMap groupIdByOrd = new LongIntHashMap();
+        long accountedBytes = 0;
         Object[] nullStates = null;
 
-        for (LeafReaderContext leaf: leaves) {
-            raiseIfClosedOrKilled(killed);
-            Scorer scorer = weight.scorer(leaf);
-            if (scorer == null) {
-                continue;
-            }
-            for (int i = 0, expressionsSize = expressions.size(); i < expressionsSize; i++) {
-                expressions.get(i).setNextReader(leaf);
-            }
-            SortedSetDocValues values = DocValues.getSortedSet(leaf.reader(), keyColumnName);
-            try (ObjectArray<Object[]> statesByOrd = bigArrays.newObjectArray(values.getValueCount())) {
+        ObjectArray<Object[]> statesByGroupId = bigArrays.newObjectArray(16);
+        try {
+            for (LeafReaderContext leaf: leaves) {
+                raiseIfClosedOrKilled(killed);
+                Scorer scorer = weight.scorer(leaf);
+                if (scorer == null) {
+                    continue;
+                }
+                for (int i = 0, expressionsSize = expressions.size(); i < expressionsSize; i++) {
+                    expressions.get(i).setNextReader(leaf);
+                }
+                SortedSetDocValues values = DocValues.getSortedSet(leaf.reader(), keyColumnName);
+                LongValues globalOrds = ordinals.globalOrds(leaf.ord);
                 DocIdSetIterator docs = scorer.iterator();
                 Bits liveDocs = leaf.reader().getLiveDocs();
                 for (int doc = docs.nextDoc(); doc != DocIdSetIterator.NO_MORE_DOCS; doc = docs.nextDoc()) {
@@ -317,12 +401,18 @@ final class GroupByOptimizedIterator {
                         aggExpressions.get(i).setNextRow(inputRow);
                     }
                     if (values.advanceExact(doc)) {
-                        long ord = values.nextOrd();
-                        Object[] states = statesByOrd.get(ord);
-                        if (states == null) {
-                            statesByOrd.set(ord, initStates(aggregations, ramAccounting, memoryManager, minNodeVersion));
+                        long ord = globalOrds.get(values.nextOrd());
+                        int groupId = groupIdByOrd.getOrDefault(ord, -1);
+                        if (groupId == -1) {
+                            groupId = groupIdByOrd.size();
+                            groupIdByOrd.put(ord, groupId);
+                            long usedBytes = RamUsageEstimator.sizeOf(groupIdByOrd.keys) + RamUsageEstimator.sizeOf(groupIdByOrd.values);
+                            ramAccounting.addBytes(usedBytes - accountedBytes);
+                            accountedBytes = usedBytes;
+                            statesByGroupId = bigArrays.grow(statesByGroupId, groupId + 1);
+                            statesByGroupId.set(groupId, initStates(aggregations, ramAccounting, memoryManager, minNodeVersion));
                         } else {
-                            aggregateValues(aggregations, ramAccounting, memoryManager, states);
+                            aggregateValues(aggregations, ramAccounting, memoryManager, statesByGroupId.get(groupId));
                         }
                         if (values.nextOrd() != SortedSetDocValues.NO_MORE_ORDS) {
                             throw new GroupByOnArrayUnsupportedException(keyColumnName);
@@ -335,35 +425,243 @@ final class GroupByOptimizedIterator {
                         }
                     }
                 }
-                for (long ord = 0; ord < statesByOrd.size(); ord++) {
-                    raiseIfClosedOrKilled(killed);
-                    Object[] states = statesByOrd.get(ord);
-                    if (states == null) {
-                        continue;
-                    }
-                    BytesRef sharedKey = values.lookupOrd(ord);
-                    Object[] prevStates = statesByKey.get(sharedKey);
-                    if (prevStates == null) {
-                        ramAccounting.addBytes(StringSizeEstimator.estimateSize(sharedKey) + HASH_MAP_ENTRY_OVERHEAD);
-                        statesByKey.put(BytesRef.deepCopyOf(sharedKey), states);
+            }
+            // The ordinals are unique across segments, so the strings are only resolved once per group
+            for (LongIntCursor cursor : groupIdByOrd) {
+                raiseIfClosedOrKilled(killed);
+                BytesRef sharedKey = ordinals.lookupGlobalOrd(cursor.key);
+                ramAccounting.addBytes(StringSizeEstimator.estimateSize(sharedKey) + HASH_MAP_ENTRY_OVERHEAD);
+                statesByKey.put(BytesRef.deepCopyOf(sharedKey), statesByGroupId.get(cursor.value));
+            }
+        } finally {
+            statesByGroupId.close();
+        }
+        if (nullStates != null) {
+            statesByKey.put(null, nullStates);
+        }
+        return statesByKey;
+    }
+
+    static BatchIterator<Row> getMultiKeyIterator(GlobalOrdinals globalOrdinals,
+                                                  IndexSearcher indexSearcher,
+                                                  List<String> keyColumnNames,
+                                                  List<DataType<?>> keyTypes,
+                                                  List<AggregationContext> aggregations,
+                                                  List<? extends LuceneCollectorExpression<?>> expressions,
+                                                  List<CollectExpression<Row, ?>> aggExpressions,
+                                                  RamAccounting ramAccounting,
+                                                  MemoryManager memoryManager,
+                                                  Version minNodeVersion,
+                                                  InputRow inputRow,
+                                                  Query query,
+                                                  CollectorContext collectorContext,
+                                                  AggregateMode aggregateMode) {
+        for (int i = 0, expressionsSize = expressions.size(); i < expressionsSize; i++) {
+            expressions.get(i).startCollect(collectorContext);
+        }
+
+        AtomicReference<Throwable> killed = new AtomicReference<>();
+        return CollectingBatchIterator.newInstance(
+            () -> killed.set(BatchIterator.CLOSED),
+            killed::set,
+            () -> {
+                try {
+                    return CompletableFuture.completedFuture(
+                        applyAggregatesGroupedByKeys(
+                            globalOrdinals,
+                            indexSearcher,
+                            keyColumnNames,
+                            keyTypes,
+                            aggregations,
+                            expressions,
+                            aggExpressions,
+                            ramAccounting,
+                            memoryManager,
+                            minNodeVersion,
+                            inputRow,
+                            query,
+                            killed
+                        ).getRows(ramAccounting, aggregations, aggregateMode)
+                    );
+                } catch (Throwable t) {
+                    return CompletableFuture.failedFuture(t);
+                }
+            },
+            true
+        );
+    }
+
+    private static MultiKeyGroups applyAggregatesGroupedByKeys(GlobalOrdinals globalOrdinals,
+                                                               IndexSearcher indexSearcher,
+                                                               List<String> keyColumnNames,
+                                                               List<DataType<?>> keyTypes,
+                                                               List<AggregationContext> aggregations,
+                                                               List<? extends LuceneCollectorExpression<?>> expressions,
+                                                               List<CollectExpression<Row, ?>> aggExpressions,
+                                                               RamAccounting ramAccounting,
+                                                               MemoryManager memoryManager,
+                                                               Version minNodeVersion,
+                                                               InputRow inputRow,
+                                                               Query query,
+                                                               AtomicReference<Throwable> killed) throws IOException {
+        final int numKeys = keyColumnNames.size();
+        final Weight weight = indexSearcher.createWeight(indexSearcher.rewrite(query), ScoreMode.COMPLETE_NO_SCORES, 1f);
+        final List<LeafReaderContext> leaves = indexSearcher.getTopReaderContext().leaves();
+
+        // String keys are represented by their global ordinal, all other keys by their numeric doc value
+        final GlobalOrdinals.ColumnOrdinals[] ordinals = new GlobalOrdinals.ColumnOrdinals[numKeys];
+        for (int i = 0; i < numKeys; i++) {
+            if (keyTypes.get(i).id() == StringType.ID) {
+                ordinals[i] = globalOrdinals.get(indexSearcher.getIndexReader(), keyColumnNames.get(i), ramAccounting);
+            }
+        }
+        final MultiKeyGroups groups = new MultiKeyGroups(keyTypes, ordinals);
+        final SortedSetDocValues[] stringValues = new SortedSetDocValues[numKeys];
+        final LongValues[] globalOrds = new LongValues[numKeys];
+        final SortedNumericDocValues[] numericValues = new SortedNumericDocValues[numKeys];
+        final long[] keyValues = new long[numKeys];
+        final boolean[] keyNulls = new boolean[numKeys];
+
+        for (LeafReaderContext leaf: leaves) {
+            raiseIfClosedOrKilled(killed);
+            Scorer scorer = weight.scorer(leaf);
+            if (scorer == null) {
+                continue;
+            }
+            for (int i = 0, expressionsSize = expressions.size(); i < expressionsSize; i++) {
+                expressions.get(i).setNextReader(leaf);
+            }
+            for (int i = 0; i < numKeys; i++) {
+                if (ordinals[i] == null) {
+                    numericValues[i] = DocValues.getSortedNumeric(leaf.reader(), keyColumnNames.get(i));
+                } else {
+                    stringValues[i] = DocValues.getSortedSet(leaf.reader(), keyColumnNames.get(i));
+                    globalOrds[i] = ordinals[i].globalOrds(leaf.ord);
+                }
+            }
+            DocIdSetIterator docs = scorer.iterator();
+            Bits liveDocs = leaf.reader().getLiveDocs();
+            for (int doc = docs.nextDoc(); doc != DocIdSetIterator.NO_MORE_DOCS; doc = docs.nextDoc()) {
+                raiseIfClosedOrKilled(killed);
+                if (docDeleted(liveDocs, doc)) {
+                    continue;
+                }
+                for (int i = 0, expressionsSize = expressions.size(); i < expressionsSize; i++) {
+                    expressions.get(i).setNextDocId(doc);
+                }
+                for (int i = 0, expressionsSize = aggExpressions.size(); i < expressionsSize; i++) {
+                    aggExpressions.get(i).setNextRow(inputRow);
+                }
+                for (int i = 0; i < numKeys; i++) {
+                    if (ordinals[i] == null) {
+                        SortedNumericDocValues values = numericValues[i];
+                        keyNulls[i] = !values.advanceExact(doc);
+                        if (!keyNulls[i]) {
+                            if (values.docValueCount() != 1) {
+                                throw new GroupByOnArrayUnsupportedException(keyColumnNames.get(i));
+                            }
+                            keyValues[i] = values.nextValue();
+                        }
                     } else {
-                        for (int i = 0; i < aggregations.size(); i++) {
-                            AggregationContext aggregation = aggregations.get(i);
-                            //noinspection unchecked
-                            prevStates[i] = aggregation.function().reduce(
-                                ramAccounting,
-                                prevStates[i],
-                                states[i]
-                            );
+                        SortedSetDocValues values = stringValues[i];
+                        keyNulls[i] = !values.advanceExact(doc);
+                        if (!keyNulls[i]) {
+                            keyValues[i] = globalOrds[i].get(values.nextOrd());
+                            if (values.nextOrd() != SortedSetDocValues.NO_MORE_ORDS) {
+                                throw new GroupByOnArrayUnsupportedException(keyColumnNames.get(i));
+                            }
                         }
                     }
                 }
+                groups.keys.setProbe(keyValues, keyNulls);
+                int keyId = groups.keys.find();
+                if (keyId == -1) {
+                    long bytesBefore = groups.keys.ramBytesUsed();
+                    groups.keys.add();
+                    ramAccounting.addBytes(groups.keys.ramBytesUsed() - bytesBefore + RamUsageEstimator.NUM_BYTES_OBJECT_REF);
+                    groups.statesByKeyId.add(initStates(aggregations, ramAccounting, memoryManager, minNodeVersion));
+                } else {
+                    aggregateValues(aggregations, ramAccounting, memoryManager, groups.statesByKeyId.get(keyId));
+                }
             }
         }
-        if (nullStates != null) {
-            statesByKey.put(null, nullStates);
+        return groups;
+    }
+
+    /**
+     * Groups of a GROUP BY on multiple keys; the keys are stored as global ordinals or numeric doc values
+     * and are only converted to their column type for the result rows.
+     */
+    private static final class MultiKeyGroups {
+
+        private final List<DataType<?>> keyTypes;
+        private final GlobalOrdinals.ColumnOrdinals[] ordinals;
+        private final CompositeKeyHashTable keys;
+        private final ArrayList<Object[]> statesByKeyId = new ArrayList<>();
+
+        MultiKeyGroups(List<DataType<?>> keyTypes, GlobalOrdinals.ColumnOrdinals[] ordinals) {
+            this.keyTypes = keyTypes;
+            this.ordinals = ordinals;
+            this.keys = new CompositeKeyHashTable(Collections.nCopies(keyTypes.size(), DataTypes.LONG));
+        }
+
+        Iterable<Row> getRows(RamAccounting ramAccounting, List<AggregationContext> aggregations, AggregateMode mode) {
+            return () -> new Iterator<>() {
+
+                final int numKeys = keyTypes.size();
+                final Object[] cells = new Object[numKeys + aggregations.size()];
+                final RowN row = new RowN(cells);
+                int keyId = 0;
+
+                @Override
+                public boolean hasNext() {
+                    return keyId < statesByKeyId.size();
+                }
+
+                @Override
+                public Row next() {
+                    if (!hasNext()) {
+                        throw new NoSuchElementException("Iterator exhausted");
+                    }
+                    keys.getKey(keyId, cells, 0);
+                    for (int i = 0; i < numKeys; i++) {
+                        if (cells[i] != null) {
+                            cells[i] = toKeyValue(i, (long) cells[i]);
+                        }
+                    }
+                    Object[] states = statesByKeyId.get(keyId);
+                    for (int i = 0, c = numKeys; i < states.length; i++, c++) {
+                        //noinspection unchecked
+                        cells[c] = mode.finishCollect(ramAccounting, aggregations.get(i).function(), states[i]);
+                    }
+                    keyId++;
+                    return row;
+                }
+            };
+        }
+
+        private Object toKeyValue(int keyIdx, long value) {
+            switch (keyTypes.get(keyIdx).id()) {
+                case StringType.ID:
+                    try {
+                        return ordinals[keyIdx].lookupGlobalOrd(value).utf8ToString();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+
+                case ByteType.ID:
+                    return (byte) value;
+
+                case ShortType.ID:
+                    return (short) value;
+
+                case IntegerType.ID:
+                    return (int) value;
+
+                default:
+                    return value;
+            }
         }
-        return statesByKey;
     }
 
     static boolean hasHighCardinalityRatio(Supplier<Engine.Searcher> acquireSearcher, String fieldName) {
@@ -444,7 +742,8 @@ final class GroupByOptimizedIterator {
         return null;
     }
 
-    private static GroupProjection getSingleStringKeyGroupProjection(Collection<? extends Projection> shardProjections) {
+    @Nullable
+    private static GroupProjection getGroupProjection(Collection<? extends Projection> shardProjections) {
         if (shardProjections.size() != 1) {
             return null;
         }
@@ -452,11 +751,7 @@ final class GroupByOptimizedIterator {
         if (!(shardProjection instanceof GroupProjection)) {
             return null;
         }
-        GroupProjection groupProjection = (GroupProjection) shardProjection;
-        if (groupProjection.keys().size() != 1 || groupProjection.keys().get(0).valueType() != DataTypes.STRING) {
-            return null;
-        }
-        return groupProjection;
+        return (GroupProjection) shardProjection;
     }
 
     private static void raiseIfClosedOrKilled(AtomicReference<Throwable> killed) {
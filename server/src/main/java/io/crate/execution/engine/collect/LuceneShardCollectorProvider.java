@@ -29,6 +29,7 @@ import io.crate.metadata.NodeContext;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.elasticsearch.cluster.service.ClusterService;
+import org.elasticsearch.common.breaker.CircuitBreaker;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.util.BigArrays;
 import org.elasticsearch.index.IndexService;
@@ -57,6 +58,7 @@ import io.crate.expression.reference.sys.shard.ShardRowContext;
 import io.crate.expression.symbol.Symbols;
 import io.crate.lucene.FieldTypeLookup;
 import io.crate.lucene.LuceneQueryBuilder;
+import io.crate.lucene.PointRangePruning;
 import io.crate.metadata.RelationName;
 import io.crate.metadata.Schemas;
 import io.crate.metadata.doc.DocSysColumns;
@@ -75,6 +77,7 @@ public class LuceneShardCollectorProvider extends ShardCollectorProvider {
     private final BigArrays bigArrays;
     private final FieldTypeLookup fieldTypeLookup;
     private final DocTableInfo table;
+    private final GlobalOrdinals globalOrdinals;
 
     public LuceneShardCollectorProvider(Schemas schemas,
                                         LuceneQueryBuilder luceneQueryBuilder,
@@ -85,7 +88,8 @@ public class LuceneShardCollectorProvider extends ShardCollectorProvider {
                                         Settings settings,
                                         TransportActionProvider transportActionProvider,
                                         IndexShard indexShard,
-                                        BigArrays bigArrays) {
+                                        BigArrays bigArrays,
+                                        CircuitBreaker fieldDataBreaker) {
         super(
             clusterService,
             schemas,
@@ -118,6 +122,7 @@ public class LuceneShardCollectorProvider extends ShardCollectorProvider {
             )
         );
         this.bigArrays = bigArrays;
+        this.globalOrdinals = new GlobalOrdinals(fieldDataBreaker);
     }
 
     @Override
@@ -145,7 +150,7 @@ public class LuceneShardCollectorProvider extends ShardCollectorProvider {
 
             return new LuceneBatchIterator(
                 searcher,
-                queryContext.query(),
+                PointRangePruning.prune(searcher.getIndexReader(), queryContext.query()),
                 queryContext.minScore(),
                 Symbols.containsColumn(collectPhase.toCollect(), DocSysColumns.SCORE),
                 new CollectorContext(sharedShardContext.readerId()),
@@ -161,12 +166,13 @@ public class LuceneShardCollectorProvider extends ShardCollectorProvider {
     @Nullable
     @Override
     protected BatchIterator<Row> getProjectionFusedIterator(RoutedCollectPhase normalizedPhase, CollectTask collectTask) {
-        var it = GroupByOptimizedIterator.tryOptimizeSingleStringKey(
+        var it = GroupByOptimizedIterator.tryOptimize(
             indexShard,
             table,
             luceneQueryBuilder,
             fieldTypeLookup,
             bigArrays,
+            globalOrdinals,
             new InputFactory(nodeCtx),
             docInputFactory,
             normalizedPhase,
@@ -234,7 +240,7 @@ public class LuceneShardCollectorProvider extends ShardCollectorProvider {
         return new LuceneOrderedDocCollector(
             indexShard.shardId(),
             searcher,
-            queryContext.query(),
+            PointRangePruning.prune(searcher.getIndexReader(), queryContext.query()),
             queryContext.minScore(),
             Symbols.containsColumn(collectPhase.toCollect(), DocSysColumns.SCORE),
             batchSize,
@@ -23,6 +23,7 @@
 package io.crate.execution.engine.collect;
 
 import io.crate.breaker.RamAccounting;
+import io.crate.common.collections.Lists2;
 import io.crate.data.BatchIterator;
 import io.crate.data.CompositeBatchIterator;
 import io.crate.data.InMemoryBatchIterator;
@@ -39,6 +40,7 @@ import io.crate.memory.MemoryManager;
 import io.crate.metadata.TransactionContext;
 import io.crate.planner.operators.PKAndVersion;
 import org.apache.lucene.index.Term;
+import org.elasticsearch.common.lucene.uid.VersionsAndSeqNoResolver.DocIdAndVersion;
 import org.elasticsearch.common.xcontent.XContentHelper;
 import org.elasticsearch.common.xcontent.XContentType;
 import org.elasticsearch.index.IndexNotFoundException;
@@ -64,10 +66,16 @@ import java.util.UUID;
 import java.util.function.Function;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 import java.util.stream.Stream;
 
 public final class PKLookupOperation {
 
+    /**
+     * Number of ids of a shard which are looked up at once using {@link #lookupDocs(IndexShard, List)}
+     */
+    static final int LOOKUP_BATCH_SIZE = 1024;
+
     private final IndicesService indicesService;
     private final ShardCollectSource shardCollectSource;
 
@@ -76,37 +84,60 @@ public final class PKLookupOperation {
         this.shardCollectSource = shardCollectSource;
     }
 
-    @Nullable
-    public static Doc lookupDoc(IndexShard shard, String id, long version, VersionType versionType, long seqNo, long primaryTerm) {
+    public static Engine.Get get(String id, long version, VersionType versionType, long seqNo, long primaryTerm) {
         Term uidTerm = new Term(IdFieldMapper.NAME, Uid.encodeId(id));
-        Engine.Get get = new Engine.Get(id, uidTerm)
+        return new Engine.Get(id, uidTerm)
             .version(version)
             .versionType(versionType)
             .setIfSeqNo(seqNo)
             .setIfPrimaryTerm(primaryTerm);
+    }
 
+    @Nullable
+    public static Doc lookupDoc(IndexShard shard, String id, long version, VersionType versionType, long seqNo, long primaryTerm) {
+        Engine.Get get = get(id, version, versionType, seqNo, primaryTerm);
         try (Engine.GetResult getResult = shard.get(get)) {
-            var docIdAndVersion = getResult.docIdAndVersion();
-            if (docIdAndVersion == null) {
-                return null;
-            }
-            SourceFieldVisitor visitor = new SourceFieldVisitor();
-            try {
-                docIdAndVersion.reader.document(docIdAndVersion.docId, visitor);
-            } catch (IOException e) {
-                throw new UncheckedIOException(e);
+            return toDoc(shard, id, getResult.docIdAndVersion());
+        }
+    }
+
+    /**
+     * Looks up the documents of multiple gets at once, see {@link IndexShard#multiGet(List)}.
+     * Other than individual {@link #lookupDoc} calls, the ids are looked up in sorted order using a single searcher.
+     *
+     * @return the documents at the same positions as the gets; null for documents which don't exist
+     */
+    public static List<Doc> lookupDocs(IndexShard shard, List<Engine.Get> gets) {
+        try (Engine.MultiGetResult multiGetResult = shard.multiGet(gets)) {
+            ArrayList<Doc> docs = new ArrayList<>(gets.size());
+            for (int i = 0; i < gets.size(); i++) {
+                docs.add(toDoc(shard, gets.get(i).id(), multiGetResult.docIdAndVersion(i)));
             }
-            return new Doc(
-                docIdAndVersion.docId,
-                shard.shardId().getIndexName(),
-                id,
-                docIdAndVersion.version,
-                docIdAndVersion.seqNo,
-                docIdAndVersion.primaryTerm,
-                XContentHelper.toMap(visitor.source(), XContentType.JSON),
-                () -> visitor.source().utf8ToString()
-            );
+            return docs;
+        }
+    }
+
+    @Nullable
+    private static Doc toDoc(IndexShard shard, String id, @Nullable DocIdAndVersion docIdAndVersion) {
+        if (docIdAndVersion == null) {
+            return null;
+        }
+        SourceFieldVisitor visitor = new SourceFieldVisitor();
+        try {
+            docIdAndVersion.reader.document(docIdAndVersion.docId, visitor);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
         }
+        return new Doc(
+            docIdAndVersion.docId,
+            shard.shardId().getIndexName(),
+            id,
+            docIdAndVersion.version,
+            docIdAndVersion.seqNo,
+            docIdAndVersion.primaryTerm,
+            XContentHelper.toMap(visitor.source(), XContentType.JSON),
+            () -> visitor.source().utf8ToString()
+        );
     }
 
     public BatchIterator<Row> lookup(UUID jobId,
@@ -135,14 +166,18 @@ public final class PKLookupOperation {
                 }
                 throw new ShardNotFoundException(shardId);
             }
-            Stream<Row> rowStream = idsByShardEntry.getValue().stream()
-                .map(pkAndVersion -> lookupDoc(
-                    shard,
+            List<PKAndVersion> pkAndVersions = idsByShardEntry.getValue();
+            // The docs are looked up lazily a batch at a time, to not hold the sources of all docs in memory
+            Stream<Row> rowStream = IntStream.range(0, (pkAndVersions.size() + LOOKUP_BATCH_SIZE - 1) / LOOKUP_BATCH_SIZE)
+                .mapToObj(batch -> pkAndVersions.subList(
+                    batch * LOOKUP_BATCH_SIZE,
+                    Math.min(pkAndVersions.size(), (batch + 1) * LOOKUP_BATCH_SIZE)))
+                .flatMap(batch -> lookupDocs(shard, Lists2.map(batch, pkAndVersion -> get(
                     pkAndVersion.id(),
                     pkAndVersion.version(),
                     VersionType.EXTERNAL,
                     pkAndVersion.seqNo(),
-                    pkAndVersion.primaryTerm()))
+                    pkAndVersion.primaryTerm()))).stream())
                 .filter(Objects::nonNull)
                 .map(resultToRow);
 
@@ -0,0 +1,421 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.execution.engine.collect;
+
+import io.crate.Streamer;
+import io.crate.breaker.ConcurrentRamAccounting;
+import io.crate.breaker.RamAccounting;
+import io.crate.common.CheckedSupplier;
+import io.crate.data.BatchIterator;
+import io.crate.data.ForwardingBatchIterator;
+import io.crate.data.InMemoryBatchIterator;
+import io.crate.data.Row;
+import io.crate.data.SentinelRow;
+import io.crate.execution.dsl.phases.RoutedCollectPhase;
+import io.crate.execution.dsl.projection.AggregationProjection;
+import io.crate.execution.dsl.projection.EvalProjection;
+import io.crate.execution.dsl.projection.FilterProjection;
+import io.crate.execution.dsl.projection.GroupProjection;
+import io.crate.execution.dsl.projection.Projection;
+import io.crate.execution.dsl.projection.Projections;
+import io.crate.execution.engine.distribution.StreamBucket;
+import io.crate.expression.symbol.Aggregation;
+import io.crate.expression.symbol.Function;
+import io.crate.expression.symbol.Symbol;
+import io.crate.expression.symbol.SymbolVisitors;
+import io.crate.expression.symbol.Symbols;
+import org.apache.lucene.index.IndexReader;
+import org.elasticsearch.common.breaker.CircuitBreaker;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.settings.ClusterSettings;
+import org.elasticsearch.common.settings.Setting;
+import org.elasticsearch.index.engine.Engine;
+import org.elasticsearch.index.shard.IndexShard;
+import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.indices.breaker.CircuitBreakerService;
+import org.elasticsearch.indices.breaker.HierarchyCircuitBreakerService;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Caches the (partial) results of the shard level aggregations of a collect phase.
+ *
+ * Dashboards tend to run the same aggregations over and over again on tables which change rarely.
+ * If a shard didn't change in between - that is, it is still served by the same {@link IndexReader} - the rows
+ * computed by the shard projections of a previous execution can be served again without touching the documents.
+ *
+ * An entry is keyed by the shard, the reader and the serialized collect phase (where clause, collected symbols
+ * and shard projections). The rows are stored serialized as {@link StreamBucket} so that each hit deserializes
+ * fresh aggregation states which downstream projections can modify. Only the serialized rows are cached, each hit
+ * decodes its own copy which is accounted to the query.
+ *
+ * The memory used by the entries is accounted in the {@link HierarchyCircuitBreakerService#AGGREGATION_CACHE}
+ * breaker. Once its limit is exceeded the least recently used entries are evicted.
+ * Entries of a reader are dropped once the reader is closed.
+ *
+ * While rows are recorded they are accounted to the query. Recording stops once the rows exceed the limit of
+ * the breaker, as such an entry couldn't be cached anyway.
+ */
+public final class ShardAggregationCache {
+
+    public static final Setting<Boolean> AGGREGATION_CACHE_ENABLED_SETTING = Setting.boolSetting(
+        "indices.aggregation_cache.enabled", false, Setting.Property.Dynamic, Setting.Property.NodeScope);
+
+    /**
+     * Rough estimation of the memory used by an entry besides the rows and the fingerprint
+     */
+    private static final long ENTRY_OVERHEAD = 128L;
+
+    private final CircuitBreaker breaker;
+    private final Map<Key, StreamBucket> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final Set<Object> readersWithListener = ConcurrentHashMap.newKeySet();
+    private volatile boolean enabled;
+
+    public ShardAggregationCache(ClusterSettings clusterSettings, CircuitBreakerService breakerService) {
+        this(breakerService.getBreaker(HierarchyCircuitBreakerService.AGGREGATION_CACHE));
+        enabled = AGGREGATION_CACHE_ENABLED_SETTING.get(clusterSettings.getSettings());
+        clusterSettings.addSettingsUpdateConsumer(AGGREGATION_CACHE_ENABLED_SETTING, this::setEnabled);
+    }
+
+    ShardAggregationCache(CircuitBreaker breaker) {
+        this.breaker = breaker;
+        this.enabled = true;
+    }
+
+    private void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+        if (enabled == false) {
+            clear();
+        }
+    }
+
+    /**
+     * Returns the rows of the shard projections of the given phase.
+     *
+     * If the phase is eligible for caching and an entry exists for the current reader of the shard the rows are
+     * served from the cache, otherwise the iterator created by {@code loader} is used and its rows are recorded.
+     *
+     * @param ramAccounting accounting of the query, used for the rows while they are recorded
+     */
+    public CompletableFuture<BatchIterator<Row>> getFutureIterator(
+            IndexShard indexShard,
+            RoutedCollectPhase phase,
+            RamAccounting ramAccounting,
+            CheckedSupplier<CompletableFuture<BatchIterator<Row>>, Exception> loader) throws Exception {
+
+        if (enabled == false || isCacheable(phase) == false) {
+            return loader.get();
+        }
+        IndexReader.CacheHelper cacheHelper = currentReaderCacheHelper(indexShard);
+        if (cacheHelper == null) {
+            return loader.get();
+        }
+        IndexReader.CacheKey readerKey = cacheHelper.getKey();
+        List<Projection> shardProjections = new ArrayList<>(Projections.shardProjections(phase.projections()));
+        Key key = new Key(indexShard.shardId(), readerKey, fingerprint(phase, shardProjections));
+        StreamBucket rows = get(key);
+        if (rows != null) {
+            // the decoded rows take roughly as much memory as the serialized ones
+            ramAccounting.addBytes(rows.bytesLength());
+            return CompletableFuture.completedFuture(InMemoryBatchIterator.of(rows.copy(), SentinelRow.SENTINEL, true));
+        }
+        Projection lastProjection = shardProjections.get(shardProjections.size() - 1);
+        Streamer<?>[] streamers = Symbols.streamerArray(lastProjection.outputs());
+        long maxBytes = breaker.getLimit() - key.ramBytesUsed();
+        return loader.get().thenApply(it -> new RecordingBatchIterator(it, streamers, ramAccounting, maxBytes, recorded -> {
+            // Only results of an unchanged reader are valid for the key
+            IndexReader.CacheHelper currentCacheHelper = currentReaderCacheHelper(indexShard);
+            if (currentCacheHelper != null && readerKey.equals(currentCacheHelper.getKey())) {
+                put(key, recorded, currentCacheHelper);
+            }
+        }));
+    }
+
+    @Nullable
+    synchronized StreamBucket get(Key key) {
+        return entries.get(key);
+    }
+
+    synchronized void put(Key key, StreamBucket rows, @Nullable IndexReader.CacheHelper readerCacheHelper) {
+        long bytes = key.ramBytesUsed() + rows.bytesLength();
+        long limit = breaker.getLimit();
+        if (bytes > limit) {
+            return;
+        }
+        StreamBucket previous = entries.put(key, rows);
+        if (previous != null) {
+            breaker.addWithoutBreaking(- (key.ramBytesUsed() + previous.bytesLength()));
+        }
+        breaker.addWithoutBreaking(bytes);
+        Iterator<Map.Entry<Key, StreamBucket>> it = entries.entrySet().iterator();
+        while (breaker.getUsed() > limit && it.hasNext()) {
+            Map.Entry<Key, StreamBucket> eldest = it.next();
+            it.remove();
+            breaker.addWithoutBreaking(- (eldest.getKey().ramBytesUsed() + eldest.getValue().bytesLength()));
+        }
+        if (readerCacheHelper != null && readersWithListener.add(readerCacheHelper.getKey())) {
+            readerCacheHelper.addClosedListener(this::invalidate);
+        }
+    }
+
+    synchronized int size() {
+        return entries.size();
+    }
+
+    synchronized void invalidate(Object readerKey) {
+        readersWithListener.remove(readerKey);
+        entries.entrySet().removeIf(e -> {
+            if (e.getKey().readerKey.equals(readerKey)) {
+                breaker.addWithoutBreaking(- (e.getKey().ramBytesUsed() + e.getValue().bytesLength()));
+                return true;
+            }
+            return false;
+        });
+    }
+
+    /**
+     * Removes all entries of the given shard.
+     */
+    public synchronized void clear(ShardId shardId) {
+        entries.entrySet().removeIf(e -> {
+            if (e.getKey().shardId.equals(shardId)) {
+                breaker.addWithoutBreaking(- (e.getKey().ramBytesUsed() + e.getValue().bytesLength()));
+                return true;
+            }
+            return false;
+        });
+    }
+
+    private synchronized void clear() {
+        for (Map.Entry<Key, StreamBucket> e : entries.entrySet()) {
+            breaker.addWithoutBreaking(- (e.getKey().ramBytesUsed() + e.getValue().bytesLength()));
+        }
+        entries.clear();
+    }
+
+    @Nullable
+    private static IndexReader.CacheHelper currentReaderCacheHelper(IndexShard indexShard) {
+        try (Engine.Searcher searcher = indexShard.acquireSearcher("aggregation_cache")) {
+            return searcher.getDirectoryReader().getReaderCacheHelper();
+        }
+    }
+
+    /**
+     * A phase is cacheable if its shard projections end in an aggregation and if none of its expressions is
+     * non-deterministic.
+     */
+    static boolean isCacheable(RoutedCollectPhase phase) {
+        if (phase.orderBy() != null) {
+            return false;
+        }
+        List<Projection> shardProjections = new ArrayList<>(Projections.shardProjections(phase.projections()));
+        if (shardProjections.isEmpty()) {
+            return false;
+        }
+        Projection lastProjection = shardProjections.get(shardProjections.size() - 1);
+        if (!(lastProjection instanceof GroupProjection || lastProjection instanceof AggregationProjection)) {
+            return false;
+        }
+        if (hasNonDeterministicFunction(phase.where()) || hasNonDeterministicFunction(phase.toCollect())) {
+            return false;
+        }
+        for (Projection projection : shardProjections) {
+            if (projection instanceof GroupProjection) {
+                GroupProjection groupProjection = (GroupProjection) projection;
+                if (hasNonDeterministicFunction(groupProjection.keys())
+                    || hasNonDeterministicAggregation(groupProjection.values())) {
+                    return false;
+                }
+            } else if (projection instanceof AggregationProjection) {
+                if (hasNonDeterministicAggregation(((AggregationProjection) projection).aggregations())) {
+                    return false;
+                }
+            } else if (projection instanceof FilterProjection) {
+                FilterProjection filterProjection = (FilterProjection) projection;
+                if (hasNonDeterministicFunction(filterProjection.query())
+                    || hasNonDeterministicFunction(filterProjection.outputs())) {
+                    return false;
+                }
+            } else if (projection instanceof EvalProjection) {
+                if (hasNonDeterministicFunction(projection.outputs())) {
+                    return false;
+                }
+            } else {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isNonDeterministicFunction(Symbol symbol) {
+        return symbol instanceof Function && ((Function) symbol).isDeterministic() == false;
+    }
+
+    private static boolean hasNonDeterministicFunction(Symbol symbol) {
+        return SymbolVisitors.any(ShardAggregationCache::isNonDeterministicFunction, symbol);
+    }
+
+    private static boolean hasNonDeterministicFunction(List<? extends Symbol> symbols) {
+        return SymbolVisitors.any(ShardAggregationCache::isNonDeterministicFunction, symbols);
+    }
+
+    private static boolean hasNonDeterministicAggregation(List<Aggregation> aggregations) {
+        for (Aggregation aggregation : aggregations) {
+            if (hasNonDeterministicFunction(aggregation.inputs()) || hasNonDeterministicFunction(aggregation.filter())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static BytesReference fingerprint(RoutedCollectPhase phase, List<Projection> shardProjections) throws IOException {
+        BytesStreamOutput out = new BytesStreamOutput();
+        Symbols.toStream(phase.where(), out);
+        Symbols.toStream(phase.toCollect(), out);
+        out.writeVInt(shardProjections.size());
+        for (Projection projection : shardProjections) {
+            Projection.toStream(projection, out);
+        }
+        return out.bytes();
+    }
+
+    static final class Key {
+
+        private final ShardId shardId;
+        private final Object readerKey;
+        private final BytesReference fingerprint;
+
+        /**
+         * @param readerKey the {@link IndexReader.CacheKey} of the reader the rows were computed from
+         */
+        Key(ShardId shardId, Object readerKey, BytesReference fingerprint) {
+            this.shardId = shardId;
+            this.readerKey = readerKey;
+            this.fingerprint = fingerprint;
+        }
+
+        long ramBytesUsed() {
+            return ENTRY_OVERHEAD + fingerprint.length();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            Key key = (Key) o;
+            return shardId.equals(key.shardId)
+                   && readerKey.equals(key.readerKey)
+                   && fingerprint.equals(key.fingerprint);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(shardId, readerKey, fingerprint);
+        }
+    }
+
+    /**
+     * Records the rows of the delegate while they are consumed and passes them to {@code onCompletion} once the
+     * delegate is exhausted. Recording is abandoned if the recorded rows use more than {@code maxBytes}.
+     */
+    static final class RecordingBatchIterator extends ForwardingBatchIterator<Row> {
+
+        private final BatchIterator<Row> delegate;
+        private final RamAccounting recordedBytes;
+        private final long maxBytes;
+        private final Consumer<StreamBucket> onCompletion;
+
+        @Nullable
+        private StreamBucket.Builder builder;
+
+        RecordingBatchIterator(BatchIterator<Row> delegate,
+                               Streamer<?>[] streamers,
+                               RamAccounting ramAccounting,
+                               long maxBytes,
+                               Consumer<StreamBucket> onCompletion) {
+            this.delegate = delegate;
+            // The recorded rows are accounted to the query and released together with its other memory,
+            // the separate counter only tracks the size of the entry.
+            this.recordedBytes = new ConcurrentRamAccounting(ramAccounting::addBytes, bytes -> { });
+            this.maxBytes = maxBytes;
+            this.onCompletion = onCompletion;
+            this.builder = new StreamBucket.Builder(streamers, recordedBytes);
+        }
+
+        @Override
+        protected BatchIterator<Row> delegate() {
+            return delegate;
+        }
+
+        @Override
+        public void moveToStart() {
+            super.moveToStart();
+            if (builder != null) {
+                builder.reset();
+                recordedBytes.release();
+            }
+        }
+
+        @Override
+        public boolean moveNext() {
+            StreamBucket.Builder recording = builder;
+            if (delegate.moveNext()) {
+                if (recording != null) {
+                    recording.add(delegate.currentElement());
+                    if (recordedBytes.totalBytes() > maxBytes) {
+                        builder = null;
+                    }
+                }
+                return true;
+            }
+            if (recording != null && delegate.allLoaded()) {
+                builder = null;
+                onCompletion.accept(recording.build());
+            }
+            return false;
+        }
+
+        @Override
+        public void kill(@Nonnull Throwable throwable) {
+            builder = null;
+            super.kill(throwable);
+        }
+    }
+}
@@ -44,6 +44,7 @@ import org.apache.lucene.search.Scorable;
 import org.apache.lucene.search.ScoreDoc;
 import org.apache.lucene.search.ScoreMode;
 import org.apache.lucene.search.Sort;
+import org.apache.lucene.search.SortField;
 import org.apache.lucene.search.TopFieldCollector;
 import org.apache.lucene.util.RamUsageEstimator;
 import org.elasticsearch.common.lucene.MinimumScoreCollector;
@@ -152,8 +153,15 @@ public class LuceneOrderedDocCollector extends OrderedDocCollector {
     private KeyIterable<ShardId, Row> initialSearch() throws IOException {
         if (batchSize > OPTIMIZE_BATCH_SIZE_THRESHOLD && !batchSizeReduced) {
             batchSizeReduced = true;
-            // + 1 because TopFieldCollector doesn't work with size=0 and we need to set the `exhausted` flag properly.
-            batchSize = Math.min(batchSize, searcher.count(query) + 1);
+            if (canEarlyTerminate(sort, searcher)) {
+                // Counting visits all matches, that is what the early termination on sorted segments avoids.
+                // Without the count the batch size isn't bound by the number of matches, so page through
+                // them instead of allocating a queue sized by the shard.
+                batchSize = OPTIMIZE_BATCH_SIZE_THRESHOLD;
+            } else {
+                // + 1 because TopFieldCollector doesn't work with size=0 and we need to set the `exhausted` flag properly.
+                batchSize = Math.min(batchSize, searcher.count(query) + 1);
+            }
         }
         for (LuceneCollectorExpression<?> expression : expressions) {
             expression.startCollect(collectorContext);
@@ -210,6 +218,33 @@ public class LuceneOrderedDocCollector extends OrderedDocCollector {
         return new KeyIterable<>(shardId(), Iterables.transform(Arrays.asList(scoreDocs), rowFunction));
     }
 
+    /**
+     * The {@link TopFieldCollector} stops collecting a segment once its queue is full if the sort of the query
+     * is a prefix of the index sort (See the `sort_by` table parameter). This is the case if all segments are sorted.
+     */
+    static boolean canEarlyTerminate(Sort sort, IndexSearcher searcher) {
+        List<LeafReaderContext> leaves = searcher.getIndexReader().leaves();
+        if (leaves.isEmpty()) {
+            return false;
+        }
+        for (LeafReaderContext leaf : leaves) {
+            Sort indexSort = leaf.reader().getMetaData().getSort();
+            if (indexSort == null || isPrefixOf(sort, indexSort) == false) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    static boolean isPrefixOf(Sort sort, Sort indexSort) {
+        SortField[] sortFields = sort.getSort();
+        SortField[] indexSortFields = indexSort.getSort();
+        if (sortFields.length > indexSortFields.length) {
+            return false;
+        }
+        return Arrays.asList(sortFields).equals(Arrays.asList(indexSortFields).subList(0, sortFields.length));
+    }
+
     private Query query(FieldDoc lastDoc) {
         Query optimizedQuery = searchAfterQueryOptimize.apply(lastDoc);
         if (optimizedQuery == null) {
@@ -0,0 +1,152 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.execution.engine.collect.collectors;
+
+import io.crate.breaker.RowAccounting;
+import io.crate.data.BatchIterator;
+import io.crate.data.Row;
+import io.crate.data.RowN;
+import io.crate.exceptions.Exceptions;
+
+import javax.annotation.Nonnull;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+
+/**
+ * A BatchIterator which consumes up to {@code batchSize} rows of a (synchronous) source in {@link #loadNextBatch()}
+ * and buffers them.
+ *
+ * This moves the actual work of a source like the {@link LuceneBatchIterator} - which does all the work in
+ * {@link BatchIterator#moveNext()} - into {@link #loadNextBatch()}. Combined with
+ * {@link io.crate.data.CompositeBatchIterator#asyncComposite} this allows to collect multiple shards concurrently.
+ *
+ * The buffered rows are accounted for using {@code rowAccounting}; the memory is released once the next batch is loaded.
+ */
+public final class PrefetchingBatchIterator implements BatchIterator<Row> {
+
+    private final BatchIterator<Row> source;
+    private final RowAccounting<Row> rowAccounting;
+    private final int batchSize;
+    private final RowN row;
+    private final List<Object[]> buffer;
+
+    private int pos = 0;
+    private boolean sourceExhausted = false;
+    private volatile Throwable killed = null;
+
+    public PrefetchingBatchIterator(BatchIterator<Row> source,
+                                    RowAccounting<Row> rowAccounting,
+                                    int numColumns,
+                                    int batchSize) {
+        assert batchSize > 0 : "batchSize must be greater than 0";
+        this.source = source;
+        this.rowAccounting = rowAccounting;
+        this.batchSize = batchSize;
+        this.row = new RowN(numColumns);
+        this.buffer = new ArrayList<>(Math.min(batchSize, 1024));
+    }
+
+    @Override
+    public Row currentElement() {
+        return row;
+    }
+
+    @Override
+    public void moveToStart() {
+        raiseIfKilled();
+        source.moveToStart();
+        buffer.clear();
+        pos = 0;
+        sourceExhausted = false;
+        rowAccounting.release();
+    }
+
+    @Override
+    public boolean moveNext() {
+        raiseIfKilled();
+        if (pos < buffer.size()) {
+            row.cells(buffer.get(pos));
+            pos++;
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public CompletionStage<?> loadNextBatch() throws Exception {
+        if (sourceExhausted) {
+            throw new IllegalStateException("BatchIterator already fully loaded");
+        }
+        raiseIfKilled();
+        buffer.clear();
+        pos = 0;
+        rowAccounting.release();
+        while (buffer.size() < batchSize) {
+            if (source.moveNext()) {
+                Row sourceRow = source.currentElement();
+                rowAccounting.accountForAndMaybeBreak(sourceRow);
+                buffer.add(sourceRow.materialize());
+            } else if (source.allLoaded()) {
+                sourceExhausted = true;
+                break;
+            } else if (buffer.isEmpty()) {
+                return source.loadNextBatch();
+            } else {
+                break;
+            }
+        }
+        return CompletableFuture.completedFuture(null);
+    }
+
+    @Override
+    public boolean allLoaded() {
+        return sourceExhausted;
+    }
+
+    @Override
+    public void close() {
+        buffer.clear();
+        rowAccounting.release();
+        source.close();
+        killed = BatchIterator.CLOSED;
+    }
+
+    @Override
+    public void kill(@Nonnull Throwable throwable) {
+        killed = throwable;
+        source.kill(throwable);
+    }
+
+    @Override
+    public boolean hasLazyResultSet() {
+        return true;
+    }
+
+    private void raiseIfKilled() {
+        if (killed != null) {
+            Exceptions.rethrowUnchecked(killed);
+        }
+    }
+}
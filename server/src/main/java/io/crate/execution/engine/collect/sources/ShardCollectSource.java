@@ -32,6 +32,7 @@ import io.crate.concurrent.CompletableFutures;
 import io.crate.data.BatchIterator;
 import io.crate.data.CompositeBatchIterator;
 import io.crate.data.InMemoryBatchIterator;
+import io.crate.data.Paging;
 import io.crate.data.Row;
 import io.crate.data.SentinelRow;
 import io.crate.exceptions.Exceptions;
@@ -42,9 +43,11 @@ import io.crate.execution.dsl.projection.Projections;
 import io.crate.execution.engine.collect.CollectTask;
 import io.crate.execution.engine.collect.RemoteCollectorFactory;
 import io.crate.execution.engine.collect.RowsTransformer;
+import io.crate.execution.engine.collect.ShardAggregationCache;
 import io.crate.execution.engine.collect.ShardCollectorProvider;
 import io.crate.execution.engine.collect.collectors.OrderedDocCollector;
 import io.crate.execution.engine.collect.collectors.OrderedLuceneBatchIteratorFactory;
+import io.crate.execution.engine.collect.collectors.PrefetchingBatchIterator;
 import io.crate.execution.engine.pipeline.ProjectionToProjectorVisitor;
 import io.crate.execution.engine.pipeline.ProjectorFactory;
 import io.crate.execution.engine.pipeline.Projectors;
@@ -76,6 +79,7 @@ import org.elasticsearch.cluster.metadata.IndexMetadata;
 import org.elasticsearch.cluster.metadata.Metadata;
 import org.elasticsearch.cluster.routing.ShardRoutingState;
 import org.elasticsearch.cluster.service.ClusterService;
+import org.elasticsearch.common.breaker.CircuitBreaker;
 import org.elasticsearch.common.inject.Inject;
 import org.elasticsearch.common.inject.Singleton;
 import org.elasticsearch.common.settings.Settings;
@@ -139,6 +143,9 @@ import static io.crate.execution.support.ThreadPools.numIdleThreads;
  *                     (with concurrent/ loadNextBatch of sources)
  * </pre>
  *
+ * If all rows of a collect are consumed (no ORDER BY, no LIMIT), the shard iterators are wrapped in a
+ * {@link PrefetchingBatchIterator} so that the AsyncCompositeBatchIterator can collect batches of them concurrently.
+ *
  * In other cases multiple shards are simply processed sequentially by concatenating the BatchIterators
  */
 @Singleton
@@ -158,6 +165,7 @@ public class ShardCollectSource implements CollectSource {
     private final StaticTableReferenceResolver<UnassignedShard> unassignedShardReferenceResolver;
     private final StaticTableReferenceResolver<ShardRowContext> shardReferenceResolver;
     private final IntSupplier availableThreads;
+    private final ShardAggregationCache aggregationCache;
 
     @Inject
     public ShardCollectSource(Settings settings,
@@ -185,6 +193,7 @@ public class ShardCollectSource implements CollectSource {
         this.availableThreads = numIdleThreads(executor, EsExecutors.numberOfProcessors(settings));
         this.executor = executor;
         this.inputFactory = new InputFactory(nodeCtx);
+        this.aggregationCache = new ShardAggregationCache(clusterService.getClusterSettings(), circuitBreakerService);
         BigArrays bigArrays = new BigArrays(pageCacheRecycler, circuitBreakerService, HierarchyCircuitBreakerService.QUERY, true);
         this.shardCollectorProviderFactory = new ShardCollectorProviderFactory(
             clusterService,
@@ -196,7 +205,8 @@ public class ShardCollectSource implements CollectSource {
             nodeCtx,
             luceneQueryBuilder,
             nodeJobsCounter,
-            bigArrays);
+            bigArrays,
+            circuitBreakerService.getBreaker(CircuitBreaker.FIELDDATA));
         EvaluatingNormalizer nodeNormalizer = new EvaluatingNormalizer(
             nodeCtx,
             RowGranularity.DOC,
@@ -252,6 +262,7 @@ public class ShardCollectSource implements CollectSource {
         public void beforeIndexShardClosed(ShardId shardId, @Nullable IndexShard indexShard, Settings indexSettings) {
             LOGGER.debug("removing shard upon close in {} shard={} numShards={}", ShardCollectSource.this, shardId, shards.size());
             shards.remove(shardId);
+            aggregationCache.clear(shardId);
         }
 
         @Override
@@ -325,6 +336,17 @@ public class ShardCollectSource implements CollectSource {
                             availableThreads,
                             its.toArray(new BatchIterator[0])
                         ));
+                } else if (collectPhase.nodePageSizeHint() == null) {
+                    // All rows are consumed; prefetch batches of all shards concurrently
+                    // instead of collecting one shard after the other
+
+                    //noinspection unchecked
+                    result = CompletableFutures.allAsList(prefetching(collectTask, collectPhase, iterators))
+                        .thenApply(its -> CompositeBatchIterator.asyncComposite(
+                            executor,
+                            availableThreads,
+                            its.toArray(new BatchIterator[0])
+                        ));
                 } else {
                     //noinspection unchecked
                     result = CompletableFutures.allAsList(iterators)
@@ -334,6 +356,24 @@ public class ShardCollectSource implements CollectSource {
         return result.thenApply(it -> projectors.wrap(it));
     }
 
+    private static List<CompletableFuture<BatchIterator<Row>>> prefetching(CollectTask collectTask,
+                                                                          RoutedCollectPhase collectPhase,
+                                                                          List<CompletableFuture<BatchIterator<Row>>> iterators) {
+        List<DataType<?>> columnTypes = Symbols.typeView(collectPhase.toCollect());
+        int batchSize = Paging.getWeightedPageSize(null, 1.0d / iterators.size());
+        ArrayList<CompletableFuture<BatchIterator<Row>>> result = new ArrayList<>(iterators.size());
+        for (CompletableFuture<BatchIterator<Row>> iterator : iterators) {
+            result.add(iterator.thenApply(it -> new PrefetchingBatchIterator(
+                it,
+                // getRamAccounting creates a new instance, so each iterator can release its batch independently
+                new RowAccountingWithEstimators(columnTypes, collectTask.getRamAccounting()),
+                columnTypes.size(),
+                batchSize
+            )));
+        }
+        return result;
+    }
+
     private CompletableFuture<BatchIterator<Row>> createMultiShardScoreDocCollector(RoutedCollectPhase collectPhase,
                                                                                     boolean supportMoveToStart,
                                                                                     CollectTask collectTask,
@@ -430,10 +470,11 @@ public class ShardCollectSource implements CollectSource {
                 ShardId shardId = new ShardId(index, shardCursor.value);
                 try {
                     ShardCollectorProvider shardCollectorProvider = getCollectorProviderSafe(shardId);
-                    CompletableFuture<BatchIterator<Row>> iterator = shardCollectorProvider.getFutureIterator(
+                    CompletableFuture<BatchIterator<Row>> iterator = aggregationCache.getFutureIterator(
+                        shardCollectorProvider.shardRowContext().indexShard(),
                         collectPhase,
-                        requiresScroll,
-                        collectTask
+                        collectTask.getRamAccounting(),
+                        () -> shardCollectorProvider.getFutureIterator(collectPhase, requiresScroll, collectTask)
                     );
                     iterators.add(iterator);
                 } catch (ShardNotFoundException | IllegalIndexShardStateException e) {
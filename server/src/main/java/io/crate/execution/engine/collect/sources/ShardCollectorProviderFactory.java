@@ -33,6 +33,7 @@ import io.crate.lucene.LuceneQueryBuilder;
 import io.crate.metadata.NodeContext;
 import io.crate.metadata.Schemas;
 import org.elasticsearch.cluster.service.ClusterService;
+import org.elasticsearch.common.breaker.CircuitBreaker;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.util.BigArrays;
 import org.elasticsearch.index.shard.IndexShard;
@@ -52,6 +53,7 @@ public class ShardCollectorProviderFactory {
     private final LuceneQueryBuilder luceneQueryBuilder;
     private final NodeJobsCounter nodeJobsCounter;
     private final BigArrays bigArrays;
+    private final CircuitBreaker fieldDataBreaker;
     private final Settings settings;
 
     ShardCollectorProviderFactory(ClusterService clusterService,
@@ -63,7 +65,8 @@ public class ShardCollectorProviderFactory {
                                   NodeContext nodeCtx,
                                   LuceneQueryBuilder luceneQueryBuilder,
                                   NodeJobsCounter nodeJobsCounter,
-                                  BigArrays bigArrays) {
+                                  BigArrays bigArrays,
+                                  CircuitBreaker fieldDataBreaker) {
         this.settings = settings;
         this.schemas = schemas;
         this.clusterService = clusterService;
@@ -74,6 +77,7 @@ public class ShardCollectorProviderFactory {
         this.luceneQueryBuilder = luceneQueryBuilder;
         this.nodeJobsCounter = nodeJobsCounter;
         this.bigArrays = bigArrays;
+        this.fieldDataBreaker = fieldDataBreaker;
     }
 
     public ShardCollectorProvider create(IndexShard indexShard) {
@@ -100,7 +104,8 @@ public class ShardCollectorProviderFactory {
                 settings,
                 transportActionProvider,
                 indexShard,
-                bigArrays);
+                bigArrays,
+                fieldDataBreaker);
         }
     }
 }
@@ -31,7 +31,6 @@ import io.crate.breaker.JobContextLogSizeEstimator;
 import io.crate.breaker.OperationContextLogSizeEstimator;
 import io.crate.breaker.SizeEstimator;
 import io.crate.common.annotations.VisibleForTesting;
-import io.crate.common.collections.BlockingEvictingQueue;
 import io.crate.common.unit.TimeValue;
 import io.crate.data.Input;
 import io.crate.execution.engine.collect.NestableCollectExpression;
@@ -296,9 +295,7 @@ public class JobsLogService extends AbstractLifecycleComponent implements Provid
             );
             onClose = () -> scheduledFuture.cancel(false);
         } else {
-            q = new BlockingEvictingQueue<>(size);
-            onClose = () -> {
-            };
+            return new RingBufferSink<>(size, breakerService.getBreaker(breaker), sizeEstimator);
         }
 
         RamAccountingQueue<E> accountingQueue = new RamAccountingQueue<>(q, breakerService.getBreaker(breaker), sizeEstimator);
@@ -0,0 +1,116 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.execution.engine.collect.stats;
+
+import io.crate.breaker.SizeEstimator;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.elasticsearch.common.breaker.CircuitBreaker;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A {@link LogSink} which retains the last {@code capacity} items in a lock-free ring buffer.
+ *
+ * Adding an item is an atomic increment of the write position followed by an atomic swap of the slot,
+ * there are no locks involved, unlike with {@link QueueSink} over a
+ * {@link io.crate.common.collections.BlockingEvictingQueue}.
+ *
+ * The memory of the retained items is accounted on the given breaker, including the release of items
+ * once they're overwritten. If the breaker limit is exceeded, all items are dropped.
+ */
+public final class RingBufferSink<T> implements LogSink<T> {
+
+    private static final Logger LOGGER = LogManager.getLogger(RingBufferSink.class);
+
+    private final AtomicReferenceArray<T> slots;
+    private final AtomicLong writePosition = new AtomicLong(0);
+    private final CircuitBreaker breaker;
+    private final SizeEstimator<T> sizeEstimator;
+
+    public RingBufferSink(int capacity, CircuitBreaker breaker, SizeEstimator<T> sizeEstimator) {
+        assert capacity > 0 : "capacity must be > 0";
+        this.slots = new AtomicReferenceArray<>(capacity);
+        this.breaker = breaker;
+        this.sizeEstimator = sizeEstimator;
+    }
+
+    @Override
+    public void add(T item) {
+        int idx = (int) (writePosition.getAndIncrement() % slots.length());
+        T replaced = slots.getAndSet(idx, item);
+        long bytes = sizeEstimator.estimateSize(item);
+        if (replaced != null) {
+            bytes -= sizeEstimator.estimateSize(replaced);
+        }
+        breaker.addWithoutBreaking(bytes);
+        if (bytes > 0 && breaker.getUsed() >= breaker.getLimit()) {
+            LOGGER.warn("Memory limit for breaker [{}] was exceeded. Log entries are cleared.", breaker.getName());
+            clear();
+        }
+    }
+
+    @Override
+    public void addAll(Iterable<T> iterable) {
+        for (T t : iterable) {
+            add(t);
+        }
+    }
+
+    /**
+     * Returns a snapshot of the retained items, from the oldest to the most recent one.
+     */
+    @Override
+    public Iterator<T> iterator() {
+        int capacity = slots.length();
+        long position = writePosition.get();
+        List<T> items = new ArrayList<>((int) Math.min(position, capacity));
+        for (int i = 0; i < capacity; i++) {
+            T item = slots.get((int) ((position + i) % capacity));
+            if (item != null) {
+                items.add(item);
+            }
+        }
+        return items.iterator();
+    }
+
+    private void clear() {
+        long bytes = 0;
+        for (int i = 0; i < slots.length(); i++) {
+            T removed = slots.getAndSet(i, null);
+            if (removed != null) {
+                bytes += sizeEstimator.estimateSize(removed);
+            }
+        }
+        breaker.addWithoutBreaking(-bytes);
+    }
+
+    @Override
+    public void close() {
+        clear();
+    }
+}
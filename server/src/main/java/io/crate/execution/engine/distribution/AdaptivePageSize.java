@@ -0,0 +1,93 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.execution.engine.distribution;
+
+import io.crate.data.Paging;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decides when a {@link DistributingConsumer} has buffered enough rows to send a page.
+ *
+ * The number of rows of a page is bounded by the (weighted) page size, the number of bytes by a budget which
+ * adapts to the round trip time of the pages: It is doubled while full pages are acknowledged by all downstreams
+ * within {@link #TARGET_ROUND_TRIP_NANOS} and halved if a round trip takes more than twice as long.
+ *
+ * Because the budget is in bytes, the resulting number of rows per page follows the width of the rows.
+ * Small pages keep slow downstreams from stalling the producer for long; on fast links the budget grows
+ * up to {@link Paging#MAX_PAGE_BYTES} to amortize the per request overhead.
+ */
+final class AdaptivePageSize {
+
+    static final long MIN_PAGE_BYTES = 256 * 1024;
+    static final long INITIAL_PAGE_BYTES = 4 * 1024 * 1024;
+    static final long TARGET_ROUND_TRIP_NANOS = TimeUnit.MILLISECONDS.toNanos(250);
+
+    private final int maxRows;
+    private final long maxBytes;
+    private final long minBytes;
+    private long pageBytes;
+
+    AdaptivePageSize(int maxRows) {
+        this(maxRows, Paging.MAX_PAGE_BYTES);
+    }
+
+    AdaptivePageSize(int maxRows, long maxBytes) {
+        this.maxRows = maxRows;
+        this.maxBytes = maxBytes;
+        this.minBytes = Math.min(MIN_PAGE_BYTES, maxBytes);
+        this.pageBytes = Math.min(INITIAL_PAGE_BYTES, maxBytes);
+    }
+
+    /**
+     * @return true if a page with the given number of rows and bytes should be sent
+     */
+    boolean isFull(int rows, long bytes) {
+        return rows >= maxRows || bytes >= pageBytes;
+    }
+
+    /**
+     * Must be called once all downstreams acknowledged a page.
+     *
+     * @param bytes size of the page in bytes
+     * @param roundTripNanos time between sending the page and receiving the last response
+     */
+    void onPageAcknowledged(long bytes, long roundTripNanos) {
+        if (roundTripNanos > 2 * TARGET_ROUND_TRIP_NANOS) {
+            pageBytes = Math.max(minBytes, pageBytes / 2);
+        } else if (roundTripNanos < TARGET_ROUND_TRIP_NANOS && bytes >= pageBytes) {
+            // Only grow if the budget was the limiting factor, otherwise the round trip time doesn't tell
+            // anything about how a larger page would behave.
+            pageBytes = Math.min(maxBytes, pageBytes * 2);
+        }
+    }
+
+    long pageBytes() {
+        return pageBytes;
+    }
+
+    @Override
+    public String toString() {
+        return "AdaptivePageSize{maxRows=" + maxRows + ", pageBytes=" + pageBytes + '}';
+    }
+}
@@ -0,0 +1,635 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.execution.engine.distribution;
+
+import io.crate.Streamer;
+import io.crate.breaker.RamAccounting;
+import io.crate.breaker.StringSizeEstimator;
+import io.crate.data.Row;
+import io.crate.types.BooleanType;
+import io.crate.types.ByteType;
+import io.crate.types.DataType;
+import io.crate.types.DoubleType;
+import io.crate.types.FloatType;
+import io.crate.types.IntegerType;
+import io.crate.types.LongType;
+import io.crate.types.ShortType;
+import io.crate.types.StringType;
+import io.crate.types.TimestampType;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Column oriented serialization format for the rows of a {@link StreamBucket}.
+ *
+ * Each column is written as a whole: A type tag, an optional null bitmap and then either the values as
+ * contiguous fixed width primitives or, for strings, a dictionary followed by the dictionary codes.
+ * Compared to the row format this groups similar values together, which compresses better, and allows
+ * to decode a column into a primitive array; a value is only boxed once it's accessed via {@link Column#get(int)}.
+ *
+ * Only fixed width numeric, boolean and string columns are supported, see {@link #supports(Streamer[])}
+ */
+final class ColumnarPage {
+
+    private static final byte TYPE_BOOLEAN = 0;
+    private static final byte TYPE_BYTE = 1;
+    private static final byte TYPE_SHORT = 2;
+    private static final byte TYPE_INTEGER = 3;
+    private static final byte TYPE_LONG = 4;
+    private static final byte TYPE_FLOAT = 5;
+    private static final byte TYPE_DOUBLE = 6;
+    private static final byte TYPE_STRING = 7;
+
+    private static final int INITIAL_CAPACITY = 64;
+    private static final long HASH_MAP_ENTRY_OVERHEAD = 32; // see private RamUsageEstimator.shallowSizeOfInstance(HashMap.Node.class)
+
+    private ColumnarPage() {
+    }
+
+    /**
+     * @return true if all columns can be encoded in the columnar format
+     */
+    static boolean supports(@Nullable Streamer<?>[] streamers) {
+        if (streamers == null || streamers.length == 0) {
+            return false;
+        }
+        for (Streamer<?> streamer : streamers) {
+            if (columnType(streamer) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static byte columnType(Streamer<?> streamer) {
+        if (!(streamer instanceof DataType)) {
+            return -1;
+        }
+        switch (((DataType<?>) streamer).id()) {
+            case BooleanType.ID:
+                return TYPE_BOOLEAN;
+            case ByteType.ID:
+                return TYPE_BYTE;
+            case ShortType.ID:
+                return TYPE_SHORT;
+            case IntegerType.ID:
+                return TYPE_INTEGER;
+            case LongType.ID:
+            case TimestampType.ID_WITH_TZ:
+            case TimestampType.ID_WITHOUT_TZ:
+                return TYPE_LONG;
+            case FloatType.ID:
+                return TYPE_FLOAT;
+            case DoubleType.ID:
+                return TYPE_DOUBLE;
+            case StringType.ID:
+                return TYPE_STRING;
+            default:
+                return -1;
+        }
+    }
+
+    /**
+     * Buffers rows column-wise until they're written using {@link #writeTo(StreamOutput)}
+     */
+    static final class Writer {
+
+        private final byte[] types;
+        private final long[][] integrals;
+        private final double[][] decimals;
+        private final long[][] nulls;
+        private final List<HashMap<String, Integer>> dictionaries;
+        private final List<List<String>> dictionaryValues;
+        private final RamAccounting ramAccounting;
+        private int capacity = INITIAL_CAPACITY;
+        private int size = 0;
+
+        /**
+         * Capacity of the column arrays that has been accounted.
+         * The arrays are re-used across pages, so they stay accounted until the writer is discarded
+         */
+        private int accountedCapacity = 0;
+
+        /**
+         * Bytes of the dictionary entries of the current page, released on {@link #reset()}
+         */
+        private long dictionaryBytes = 0;
+
+        Writer(Streamer<?>[] streamers, RamAccounting ramAccounting) {
+            assert supports(streamers) : "Columnar format doesn't support all streamers: " + Arrays.toString(streamers);
+            this.ramAccounting = ramAccounting;
+            int numColumns = streamers.length;
+            types = new byte[numColumns];
+            integrals = new long[numColumns][];
+            decimals = new double[numColumns][];
+            nulls = new long[numColumns][];
+            dictionaries = new ArrayList<>(numColumns);
+            dictionaryValues = new ArrayList<>(numColumns);
+            for (int i = 0; i < numColumns; i++) {
+                types[i] = columnType(streamers[i]);
+                dictionaries.add(types[i] == TYPE_STRING ? new HashMap<>() : null);
+                dictionaryValues.add(types[i] == TYPE_STRING ? new ArrayList<>() : null);
+            }
+            allocate();
+        }
+
+        private void allocate() {
+            for (int i = 0; i < types.length; i++) {
+                if (types[i] == TYPE_FLOAT || types[i] == TYPE_DOUBLE) {
+                    decimals[i] = new double[capacity];
+                } else {
+                    integrals[i] = new long[capacity];
+                }
+                nulls[i] = new long[bitsetWords(capacity)];
+            }
+        }
+
+        private void grow() {
+            capacity = capacity << 1;
+            for (int i = 0; i < types.length; i++) {
+                if (decimals[i] != null) {
+                    decimals[i] = Arrays.copyOf(decimals[i], capacity);
+                } else {
+                    integrals[i] = Arrays.copyOf(integrals[i], capacity);
+                }
+                nulls[i] = Arrays.copyOf(nulls[i], bitsetWords(capacity));
+            }
+        }
+
+        /**
+         * @return the bytes used by the column arrays (values and null bitmaps) for the given capacity
+         */
+        private long arraysBytes(int capacity) {
+            return types.length * ((long) capacity * Long.BYTES + (long) bitsetWords(capacity) * Long.BYTES);
+        }
+
+        void add(Row row) {
+            if (size == capacity) {
+                grow();
+            }
+            long bytes = 0;
+            if (capacity != accountedCapacity) {
+                bytes += arraysBytes(capacity) - arraysBytes(accountedCapacity);
+                accountedCapacity = capacity;
+            }
+            for (int c = 0; c < types.length; c++) {
+                Object value = row.get(c);
+                if (value == null) {
+                    nulls[c][size >>> 6] |= 1L << size;
+                    if (decimals[c] == null) {
+                        integrals[c][size] = 0L;
+                    } else {
+                        decimals[c][size] = 0.0;
+                    }
+                    continue;
+                }
+                switch (types[c]) {
+                    case TYPE_BOOLEAN:
+                        integrals[c][size] = ((Boolean) value) ? 1 : 0;
+                        break;
+
+                    case TYPE_BYTE:
+                    case TYPE_SHORT:
+                    case TYPE_INTEGER:
+                    case TYPE_LONG:
+                        integrals[c][size] = ((Number) value).longValue();
+                        break;
+
+                    case TYPE_FLOAT:
+                    case TYPE_DOUBLE:
+                        decimals[c][size] = ((Number) value).doubleValue();
+                        break;
+
+                    case TYPE_STRING:
+                        String str = (String) value;
+                        HashMap<String, Integer> dictionary = dictionaries.get(c);
+                        Integer code = dictionary.get(str);
+                        if (code == null) {
+                            List<String> values = dictionaryValues.get(c);
+                            code = values.size();
+                            values.add(str);
+                            dictionary.put(str, code);
+                            // dictionary and values list share the string instance
+                            long entryBytes = StringSizeEstimator.estimate(str) + HASH_MAP_ENTRY_OVERHEAD;
+                            dictionaryBytes += entryBytes;
+                            bytes += entryBytes;
+                        }
+                        integrals[c][size] = code;
+                        break;
+
+                    default:
+                        throw new AssertionError("Unexpected column type: " + types[c]);
+                }
+            }
+            ramAccounting.addBytes(bytes);
+            size++;
+        }
+
+        int size() {
+            return size;
+        }
+
+        /**
+         * @return the bytes of the rows of the current page
+         */
+        long pageBytes() {
+            return arraysBytes(size) + dictionaryBytes;
+        }
+
+        void writeTo(StreamOutput out) throws IOException {
+            out.writeVInt(types.length);
+            for (int c = 0; c < types.length; c++) {
+                byte type = types[c];
+                out.writeByte(type);
+                long[] columnNulls = nulls[c];
+                int numWords = bitsetWords(size);
+                boolean hasNulls = false;
+                for (int w = 0; w < numWords; w++) {
+                    if (columnNulls[w] != 0) {
+                        hasNulls = true;
+                        break;
+                    }
+                }
+                out.writeBoolean(hasNulls);
+                if (hasNulls) {
+                    for (int w = 0; w < numWords; w++) {
+                        out.writeLong(columnNulls[w]);
+                    }
+                }
+                long[] longs = integrals[c];
+                double[] doubles = decimals[c];
+                switch (type) {
+                    case TYPE_BOOLEAN:
+                        for (int i = 0; i < size; i++) {
+                            out.writeBoolean(longs[i] == 1);
+                        }
+                        break;
+
+                    case TYPE_BYTE:
+                        for (int i = 0; i < size; i++) {
+                            out.writeByte((byte) longs[i]);
+                        }
+                        break;
+
+                    case TYPE_SHORT:
+                        for (int i = 0; i < size; i++) {
+                            out.writeShort((short) longs[i]);
+                        }
+                        break;
+
+                    case TYPE_INTEGER:
+                        for (int i = 0; i < size; i++) {
+                            out.writeInt((int) longs[i]);
+                        }
+                        break;
+
+                    case TYPE_LONG:
+                        for (int i = 0; i < size; i++) {
+                            out.writeLong(longs[i]);
+                        }
+                        break;
+
+                    case TYPE_FLOAT:
+                        for (int i = 0; i < size; i++) {
+                            out.writeFloat((float) doubles[i]);
+                        }
+                        break;
+
+                    case TYPE_DOUBLE:
+                        for (int i = 0; i < size; i++) {
+                            out.writeDouble(doubles[i]);
+                        }
+                        break;
+
+                    case TYPE_STRING:
+                        List<String> values = dictionaryValues.get(c);
+                        out.writeVInt(values.size());
+                        for (int i = 0; i < values.size(); i++) {
+                            out.writeString(values.get(i));
+                        }
+                        for (int i = 0; i < size; i++) {
+                            out.writeVInt((int) longs[i]);
+                        }
+                        break;
+
+                    default:
+                        throw new AssertionError("Unexpected column type: " + type);
+                }
+            }
+        }
+
+        void reset() {
+            size = 0;
+            ramAccounting.addBytes(-dictionaryBytes);
+            dictionaryBytes = 0;
+            for (int i = 0; i < types.length; i++) {
+                Arrays.fill(nulls[i], 0L);
+                if (types[i] == TYPE_STRING) {
+                    dictionaries.get(i).clear();
+                    dictionaryValues.get(i).clear();
+                }
+            }
+        }
+    }
+
+    /**
+     * Decodes all columns of a page written by {@link Writer#writeTo(StreamOutput)}
+     */
+    static Column[] readColumns(StreamInput in, int size) throws IOException {
+        int numColumns = in.readVInt();
+        Column[] columns = new Column[numColumns];
+        for (int c = 0; c < numColumns; c++) {
+            byte type = in.readByte();
+            long[] nulls = null;
+            if (in.readBoolean()) {
+                nulls = new long[bitsetWords(size)];
+                for (int w = 0; w < nulls.length; w++) {
+                    nulls[w] = in.readLong();
+                }
+            }
+            switch (type) {
+                case TYPE_BOOLEAN: {
+                    boolean[] values = new boolean[size];
+                    for (int i = 0; i < size; i++) {
+                        values[i] = in.readBoolean();
+                    }
+                    columns[c] = new BooleanColumn(nulls, values);
+                    break;
+                }
+
+                case TYPE_BYTE: {
+                    byte[] values = new byte[size];
+                    in.readBytes(values, 0, size);
+                    columns[c] = new ByteColumn(nulls, values);
+                    break;
+                }
+
+                case TYPE_SHORT: {
+                    short[] values = new short[size];
+                    for (int i = 0; i < size; i++) {
+                        values[i] = in.readShort();
+                    }
+                    columns[c] = new ShortColumn(nulls, values);
+                    break;
+                }
+
+                case TYPE_INTEGER: {
+                    int[] values = new int[size];
+                    for (int i = 0; i < size; i++) {
+                        values[i] = in.readInt();
+                    }
+                    columns[c] = new IntColumn(nulls, values);
+                    break;
+                }
+
+                case TYPE_LONG: {
+                    long[] values = new long[size];
+                    for (int i = 0; i < size; i++) {
+                        values[i] = in.readLong();
+                    }
+                    columns[c] = new LongColumn(nulls, values);
+                    break;
+                }
+
+                case TYPE_FLOAT: {
+                    float[] values = new float[size];
+                    for (int i = 0; i < size; i++) {
+                        values[i] = in.readFloat();
+                    }
+                    columns[c] = new FloatColumn(nulls, values);
+                    break;
+                }
+
+                case TYPE_DOUBLE: {
+                    double[] values = new double[size];
+                    for (int i = 0; i < size; i++) {
+                        values[i] = in.readDouble();
+                    }
+                    columns[c] = new DoubleColumn(nulls, values);
+                    break;
+                }
+
+                case TYPE_STRING: {
+                    String[] dictionary = new String[in.readVInt()];
+                    for (int i = 0; i < dictionary.length; i++) {
+                        dictionary[i] = in.readString();
+                    }
+                    int[] codes = new int[size];
+                    for (int i = 0; i < size; i++) {
+                        codes[i] = in.readVInt();
+                    }
+                    columns[c] = new StringColumn(nulls, dictionary, codes);
+                    break;
+                }
+
+                default:
+                    throw new IOException("Unknown column type in columnar page: " + type);
+            }
+        }
+        return columns;
+    }
+
+    private static int bitsetWords(int numBits) {
+        return (numBits + 63) >>> 6;
+    }
+
+    /**
+     * A decoded column; values are stored unboxed and only boxed on {@link #get(int)}
+     */
+    abstract static class Column {
+
+        @Nullable
+        private final long[] nulls;
+
+        Column(@Nullable long[] nulls) {
+            this.nulls = nulls;
+        }
+
+        final boolean isNull(int row) {
+            return nulls != null && (nulls[row >>> 6] & (1L << row)) != 0;
+        }
+
+        @Nullable
+        final Object get(int row) {
+            return isNull(row) ? null : value(row);
+        }
+
+        abstract Object value(int row);
+    }
+
+    static final class BooleanColumn extends Column {
+
+        private final boolean[] values;
+
+        BooleanColumn(@Nullable long[] nulls, boolean[] values) {
+            super(nulls);
+            this.values = values;
+        }
+
+        @Override
+        Object value(int row) {
+            return values[row];
+        }
+    }
+
+    static final class ByteColumn extends Column {
+
+        private final byte[] values;
+
+        ByteColumn(@Nullable long[] nulls, byte[] values) {
+            super(nulls);
+            this.values = values;
+        }
+
+        @Override
+        Object value(int row) {
+            return values[row];
+        }
+    }
+
+    static final class ShortColumn extends Column {
+
+        private final short[] values;
+
+        ShortColumn(@Nullable long[] nulls, short[] values) {
+            super(nulls);
+            this.values = values;
+        }
+
+        @Override
+        Object value(int row) {
+            return values[row];
+        }
+    }
+
+    static final class IntColumn extends Column {
+
+        private final int[] values;
+
+        IntColumn(@Nullable long[] nulls, int[] values) {
+            super(nulls);
+            this.values = values;
+        }
+
+        @Override
+        Object value(int row) {
+            return values[row];
+        }
+    }
+
+    static final class LongColumn extends Column {
+
+        private final long[] values;
+
+        LongColumn(@Nullable long[] nulls, long[] values) {
+            super(nulls);
+            this.values = values;
+        }
+
+        @Override
+        Object value(int row) {
+            return values[row];
+        }
+    }
+
+    static final class FloatColumn extends Column {
+
+        private final float[] values;
+
+        FloatColumn(@Nullable long[] nulls, float[] values) {
+            super(nulls);
+            this.values = values;
+        }
+
+        @Override
+        Object value(int row) {
+            return values[row];
+        }
+    }
+
+    static final class DoubleColumn extends Column {
+
+        private final double[] values;
+
+        DoubleColumn(@Nullable long[] nulls, double[] values) {
+            super(nulls);
+            this.values = values;
+        }
+
+        @Override
+        Object value(int row) {
+            return values[row];
+        }
+    }
+
+    static final class StringColumn extends Column {
+
+        private final String[] dictionary;
+        private final int[] codes;
+
+        StringColumn(@Nullable long[] nulls, String[] dictionary, int[] codes) {
+            super(nulls);
+            this.dictionary = dictionary;
+            this.codes = codes;
+        }
+
+        @Override
+        Object value(int row) {
+            return dictionary[codes[row]];
+        }
+    }
+
+    /**
+     * A row view on the decoded columns; the same instance is re-used for all positions.
+     */
+    static final class ColumnsRow extends Row {
+
+        private final Column[] columns;
+        private int position = -1;
+
+        ColumnsRow(Column[] columns) {
+            this.columns = columns;
+        }
+
+        void position(int position) {
+            this.position = position;
+        }
+
+        @Override
+        public int numColumns() {
+            return columns.length;
+        }
+
+        @Override
+        public Object get(int index) {
+            return columns[index].get(position);
+        }
+    }
+}
@@ -24,7 +24,6 @@ package io.crate.execution.engine.distribution;
 
 import io.crate.common.annotations.VisibleForTesting;
 import io.crate.data.BatchIterator;
-import io.crate.data.Paging;
 import io.crate.data.Row;
 import io.crate.data.RowConsumer;
 import io.crate.exceptions.SQLExceptions;
@@ -48,7 +47,12 @@ import java.util.concurrent.atomic.AtomicInteger;
  * can either receive a part of the data or all data.
  *
  * Every time requests to the downstreams are made consumption of the source BatchIterator is stopped until a response
- * from all downstreams is received.
+ * from all downstreams is received. Downstreams respond right away as long as they have credits for more pages
+ * (see {@link io.crate.execution.jobs.CumulativePageBucketReceiver}), so the next page is produced while the previous
+ * ones are still waiting to be merged.
+ *
+ * Besides the row limit, the size of a page is bounded in bytes by an {@link AdaptivePageSize} which adapts to the
+ * time it takes until all downstreams responded.
  */
 public class DistributingConsumer implements RowConsumer {
 
@@ -59,7 +63,7 @@ public class DistributingConsumer implements RowConsumer {
     private final byte inputId;
     private final int bucketIdx;
     private final TransportDistributedResultAction distributedResultAction;
-    private final int pageSize;
+    private final AdaptivePageSize pageSize;
     private final StreamBucket[] buckets;
     private final List<Downstream> downstreams;
     private final boolean traceEnabled;
@@ -70,6 +74,9 @@ public class DistributingConsumer implements RowConsumer {
 
     private volatile Throwable failure;
 
+    private long pageBytes;
+    private long pageSentNanos;
+
     public DistributingConsumer(Logger logger,
                                 Executor responseExecutor,
                                 UUID jobId,
@@ -80,6 +87,31 @@ public class DistributingConsumer implements RowConsumer {
                                 Collection<String> downstreamNodeIds,
                                 TransportDistributedResultAction distributedResultAction,
                                 int pageSize) {
+        this(
+            logger,
+            responseExecutor,
+            jobId,
+            multiBucketBuilder,
+            targetPhaseId,
+            inputId,
+            bucketIdx,
+            downstreamNodeIds,
+            distributedResultAction,
+            new AdaptivePageSize(pageSize)
+        );
+    }
+
+    @VisibleForTesting
+    DistributingConsumer(Logger logger,
+                         Executor responseExecutor,
+                         UUID jobId,
+                         MultiBucketBuilder multiBucketBuilder,
+                         int targetPhaseId,
+                         byte inputId,
+                         int bucketIdx,
+                         Collection<String> downstreamNodeIds,
+                         TransportDistributedResultAction distributedResultAction,
+                         AdaptivePageSize pageSize) {
         this.traceEnabled = logger.isTraceEnabled();
         this.logger = logger;
         this.responseExecutor = responseExecutor;
@@ -116,7 +148,7 @@ public class DistributingConsumer implements RowConsumer {
         try {
             while (it.moveNext()) {
                 multiBucketBuilder.add(it.currentElement());
-                if (multiBucketBuilder.size() >= pageSize || multiBucketBuilder.ramBytesUsed() >= Paging.MAX_PAGE_BYTES) {
+                if (pageSize.isFull(multiBucketBuilder.size(), multiBucketBuilder.ramBytesUsed())) {
                     forwardResults(it, false);
                     return;
                 }
@@ -188,6 +220,8 @@ public class DistributingConsumer implements RowConsumer {
     }
 
     private void forwardResults(BatchIterator<Row> it, boolean isLast) {
+        pageBytes = multiBucketBuilder.ramBytesUsed();
+        pageSentNanos = System.nanoTime();
         multiBucketBuilder.build(buckets);
 
         AtomicInteger numActiveRequests = new AtomicInteger(downstreams.size());
@@ -225,6 +259,7 @@ public class DistributingConsumer implements RowConsumer {
 
     private void countdownAndMaybeContinue(BatchIterator<Row> it, AtomicInteger numActiveRequests, boolean sameExecutor) {
         if (numActiveRequests.decrementAndGet() == 0) {
+            pageSize.onPageAcknowledged(pageBytes, System.nanoTime() - pageSentNanos);
             if (downstreams.stream().anyMatch(Downstream::needsMoreData)) {
                 if (failure == null) {
                     if (sameExecutor) {
@@ -41,6 +41,13 @@ public interface MultiBucketBuilder extends Accountable {
      */
     int size();
 
+    /**
+     * size of the current page in bytes.
+     * Like {@link #size()} it starts at 0 again after each build call.
+     */
+    @Override
+    long ramBytesUsed();
+
     /**
      * Builds the buckets and writes them into the provided array.
      * The provided array must have size N where N is the number of buckets the page contains.
@@ -28,6 +28,7 @@ import io.crate.data.Bucket;
 import io.crate.data.Row;
 import io.crate.data.RowN;
 import org.apache.lucene.util.Accountable;
+import org.elasticsearch.Version;
 import org.elasticsearch.common.bytes.BytesReference;
 import org.elasticsearch.common.io.stream.BytesStreamOutput;
 import org.elasticsearch.common.io.stream.StreamInput;
@@ -43,11 +44,24 @@ import java.util.Iterator;
 
 import static java.util.Objects.requireNonNull;
 
+/**
+ * A bucket of rows serialized to bytes.
+ *
+ * The rows are either serialized row by row using the {@link Streamer}s of the columns, or, if all columns
+ * are supported by the {@link ColumnarPage} format, column by column.
+ */
 public class StreamBucket implements Bucket, Writeable {
 
     private Streamer<?>[] streamers;
     private int size = -1;
     private BytesReference bytes;
+    private boolean columnar = false;
+
+    /**
+     * Columns of a columnar bucket, decoded on the first iteration and shared by all following iterations.
+     */
+    @Nullable
+    private ColumnarPage.Column[] columns;
 
     public static class Builder implements Accountable {
 
@@ -55,6 +69,9 @@ public class StreamBucket implements Bucket, Writeable {
         private final RamAccounting ramAccounting;
         private final Streamer<?>[] streamers;
 
+        @Nullable
+        private final ColumnarPage.Writer columns;
+
         private int size = 0;
         private BytesStreamOutput out;
         private int prevOutSize = 0;
@@ -63,13 +80,22 @@ public class StreamBucket implements Bucket, Writeable {
             this.ramAccounting = requireNonNull(ramAccounting, "RamAccounting must not be null");
             assert validStreamers(streamers) : "streamers must not be null and they shouldn't be of undefinedType";
             this.streamers = streamers;
-            out = new BytesStreamOutput(INITIAL_PAGE_SIZE);
+            if (ColumnarPage.supports(streamers)) {
+                columns = new ColumnarPage.Writer(streamers, ramAccounting);
+            } else {
+                columns = null;
+                out = new BytesStreamOutput(INITIAL_PAGE_SIZE);
+            }
         }
 
         public void add(Row row) {
             assert streamers.length == row.numColumns() : "number of streamer must match row size";
 
             size++;
+            if (columns != null) {
+                columns.add(row);
+                return;
+            }
             for (int i = 0; i < row.numColumns(); i++) {
                 try {
                     //noinspection unchecked
@@ -85,12 +111,27 @@ public class StreamBucket implements Bucket, Writeable {
         public StreamBucket build() {
             StreamBucket sb = new StreamBucket(streamers);
             sb.size = size;
-            sb.bytes = out.bytes();
+            if (columns == null) {
+                sb.bytes = out.bytes();
+            } else {
+                BytesStreamOutput columnsOut = new BytesStreamOutput();
+                try {
+                    columns.writeTo(columnsOut);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                sb.bytes = columnsOut.bytes();
+                sb.columnar = true;
+            }
             return sb;
         }
 
         public void reset() {
-            out = new BytesStreamOutput(size); // next bucket is probably going to have the same size
+            if (columns == null) {
+                out = new BytesStreamOutput(size); // next bucket is probably going to have the same size
+            } else {
+                columns.reset();
+            }
             size = 0;
         }
 
@@ -98,9 +139,16 @@ public class StreamBucket implements Bucket, Writeable {
             return size;
         }
 
+        /**
+         * @return the bytes of the rows added since the last {@link #reset()}, not the total of the
+         *         {@link RamAccounting} which covers all pages built so far
+         */
         @Override
         public long ramBytesUsed() {
-            return ramAccounting.totalBytes();
+            if (columns == null) {
+                return out.size();
+            }
+            return columns.pageBytes();
         }
     }
 
@@ -114,6 +162,25 @@ public class StreamBucket implements Bucket, Writeable {
         return size;
     }
 
+    /**
+     * @return a bucket which shares the serialized rows but decodes them on its own. The decoded columns of a
+     *         columnar bucket are kept by the bucket which decoded them.
+     */
+    public StreamBucket copy() {
+        StreamBucket copy = new StreamBucket(streamers);
+        copy.size = size;
+        copy.bytes = bytes;
+        copy.columnar = columnar;
+        return copy;
+    }
+
+    /**
+     * @return the number of bytes of the serialized rows
+     */
+    public long bytesLength() {
+        return bytes == null ? 0L : bytes.length();
+    }
+
     public void streamers(Streamer<?>[] streamers) {
         assert validStreamers(streamers) : "streamers must not be null and they shouldn't be of undefinedType";
         this.streamers = streamers;
@@ -171,14 +238,44 @@ public class StreamBucket implements Bucket, Writeable {
         }
     }
 
+    private static class ColumnsIterator implements Iterator<Row> {
+
+        private final int size;
+        private final ColumnarPage.ColumnsRow row;
+        private int pos = 0;
+
+        private ColumnsIterator(ColumnarPage.Column[] columns, int size) {
+            this.size = size;
+            this.row = new ColumnarPage.ColumnsRow(columns);
+        }
+
+        @Override
+        public boolean hasNext() {
+            return pos < size;
+        }
+
+        @Override
+        public Row next() {
+            row.position(pos);
+            pos++;
+            return row;
+        }
+    }
+
     @Override
     @Nonnull
     public Iterator<Row> iterator() {
         if (size < 1) {
             return Collections.emptyIterator();
         }
-        assert streamers != null : "streamers must not be null";
         try {
+            if (columnar) {
+                if (columns == null) {
+                    columns = ColumnarPage.readColumns(bytes.streamInput(), size);
+                }
+                return new ColumnsIterator(columns, size);
+            }
+            assert streamers != null : "streamers must not be null";
             return new RowIterator(bytes.streamInput(), streamers, size);
         } catch (IOException e) {
             throw new UncheckedIOException(e);
@@ -201,6 +298,9 @@ public class StreamBucket implements Bucket, Writeable {
     public StreamBucket(StreamInput in) throws IOException {
         size = in.readVInt();
         if (size > 0) {
+            if (in.getVersion().onOrAfter(Version.V_4_3_0)) {
+                columnar = in.readBoolean();
+            }
             bytes = in.readBytesReference();
         }
     }
@@ -217,7 +317,27 @@ public class StreamBucket implements Bucket, Writeable {
         assert size > -1 : "size must be > -1";
         out.writeVInt(size);
         if (size > 0) {
-            out.writeBytesReference(bytes);
+            if (out.getVersion().onOrAfter(Version.V_4_3_0)) {
+                out.writeBoolean(columnar);
+                out.writeBytesReference(bytes);
+            } else {
+                out.writeBytesReference(columnar ? toRowFormat() : bytes);
+            }
+        }
+    }
+
+    /**
+     * Serializes the rows of a columnar bucket in the row format understood by nodes < 4.3.0
+     */
+    private BytesReference toRowFormat() throws IOException {
+        assert streamers != null : "streamers must be set to convert a columnar bucket to the row format";
+        BytesStreamOutput rowsOut = new BytesStreamOutput();
+        for (Row row : this) {
+            for (int i = 0; i < streamers.length; i++) {
+                //noinspection unchecked
+                ((Streamer) streamers[i]).writeValueTo(rowsOut, row.get(i));
+            }
         }
+        return rowsOut.bytes();
     }
 }
@@ -0,0 +1,392 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.execution.engine.hash;
+
+import io.crate.data.Input;
+import io.crate.types.BooleanType;
+import io.crate.types.ByteType;
+import io.crate.types.DataType;
+import io.crate.types.DoubleType;
+import io.crate.types.FloatType;
+import io.crate.types.IntegerType;
+import io.crate.types.IpType;
+import io.crate.types.LongType;
+import io.crate.types.ShortType;
+import io.crate.types.StringType;
+import io.crate.types.TimestampType;
+import org.apache.lucene.util.Accountable;
+import org.apache.lucene.util.ArrayUtil;
+import org.apache.lucene.util.RamUsageEstimator;
+import org.apache.lucene.util.StringHelper;
+import org.apache.lucene.util.UnicodeUtil;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Hash table for keys which consist of several columns.
+ *
+ * <p>
+ * The values of the key columns are serialized into a re-used probe buffer:
+ * a null marker per column followed by the raw bytes of fixed-width values or the length prefixed UTF-8 bytes
+ * of strings. Two keys are equal if their bytes are equal, which matches {@link Object#equals(Object)} on the values.
+ * Added keys are copied into one contiguous byte arena and the table itself consists of int arrays, so neither
+ * {@link #add()} nor {@link #find()} allocates per row.
+ * </p>
+ *
+ * <p>
+ * Keys get dense ids in the order they're added:
+ * <pre>
+ *     table.setProbe(keyInputs);
+ *     int id = table.add();
+ *     if (id < 0) {
+ *         // key existed already
+ *         id = -id - 1;
+ *     }
+ * </pre>
+ * </p>
+ */
+public final class CompositeKeyHashTable implements Accountable {
+
+    private static final byte NULL = 0;
+    private static final byte NOT_NULL = 1;
+    private static final int INITIAL_CAPACITY = 16;
+
+    private static final Set<Integer> SUPPORTED_TYPES = Set.of(
+        BooleanType.ID,
+        ByteType.ID,
+        ShortType.ID,
+        IntegerType.ID,
+        LongType.ID,
+        TimestampType.ID_WITH_TZ,
+        TimestampType.ID_WITHOUT_TZ,
+        FloatType.ID,
+        DoubleType.ID,
+        StringType.ID,
+        IpType.ID
+    );
+
+    private final int[] typeIds;
+
+    private byte[] probe = new byte[64];
+    private int probeLength;
+    private int probeHash;
+
+    private byte[] arena = new byte[1024];
+    private int arenaLength;
+
+    /**
+     * The key with id {@code i} is stored in {@code arena[offsets[i]:offsets[i + 1]]}
+     */
+    private int[] offsets = new int[INITIAL_CAPACITY + 1];
+    private int[] hashes = new int[INITIAL_CAPACITY];
+
+    /**
+     * Open addressing with linear probing; contains {@code id + 1} or 0 for empty slots
+     */
+    private int[] slots = new int[INITIAL_CAPACITY * 2];
+    private int size;
+
+    /**
+     * @return true if keys with the given types can be stored in a {@link CompositeKeyHashTable}
+     */
+    public static boolean supports(List<? extends DataType<?>> keyTypes) {
+        for (DataType<?> keyType : keyTypes) {
+            if (!SUPPORTED_TYPES.contains(keyType.id())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public CompositeKeyHashTable(List<? extends DataType<?>> keyTypes) {
+        assert supports(keyTypes) : "Key types must be supported: " + keyTypes;
+        typeIds = new int[keyTypes.size()];
+        for (int i = 0; i < typeIds.length; i++) {
+            typeIds[i] = keyTypes.get(i).id();
+        }
+    }
+
+    /**
+     * Serializes the current values of the key inputs into the probe buffer which is used by the next
+     * {@link #find()} or {@link #add()} call.
+     */
+    public void setProbe(List<? extends Input<?>> keyInputs) {
+        assert keyInputs.size() == typeIds.length : "Number of key inputs must match the number of key types";
+        probeLength = 0;
+        for (int i = 0; i < typeIds.length; i++) {
+            Object value = keyInputs.get(i).value();
+            if (value == null) {
+                ensureProbeCapacity(1);
+                probe[probeLength++] = NULL;
+                continue;
+            }
+            ensureProbeCapacity(1 + Long.BYTES);
+            probe[probeLength++] = NOT_NULL;
+            switch (typeIds[i]) {
+                case BooleanType.ID:
+                    probe[probeLength++] = (byte) ((Boolean) value ? 1 : 0);
+                    break;
+
+                case ByteType.ID:
+                    probe[probeLength++] = ((Number) value).byteValue();
+                    break;
+
+                case ShortType.ID:
+                    short s = ((Number) value).shortValue();
+                    probe[probeLength++] = (byte) s;
+                    probe[probeLength++] = (byte) (s >>> 8);
+                    break;
+
+                case IntegerType.ID:
+                    writeInt(((Number) value).intValue());
+                    break;
+
+                case FloatType.ID:
+                    writeInt(Float.floatToIntBits(((Number) value).floatValue()));
+                    break;
+
+                case LongType.ID:
+                case TimestampType.ID_WITH_TZ:
+                case TimestampType.ID_WITHOUT_TZ:
+                    writeLong(((Number) value).longValue());
+                    break;
+
+                case DoubleType.ID:
+                    writeLong(Double.doubleToLongBits(((Number) value).doubleValue()));
+                    break;
+
+                default:
+                    String str = (String) value;
+                    ensureProbeCapacity(Integer.BYTES + UnicodeUtil.maxUTF8Length(str.length()));
+                    int start = probeLength + Integer.BYTES;
+                    int end = UnicodeUtil.UTF16toUTF8(str, 0, str.length(), probe, start);
+                    writeInt(end - start);
+                    probeLength = end;
+                    break;
+            }
+        }
+        probeHash = StringHelper.murmurhash3_x86_32(probe, 0, probeLength, 0);
+    }
+
+    /**
+     * Variant of {@link #setProbe(List)} for tables where all key columns are of type {@link LongType},
+     * which doesn't require boxing the values.
+     *
+     * @param nulls marks the key columns which are null; the corresponding entry of {@code values} is ignored.
+     */
+    public void setProbe(long[] values, boolean[] nulls) {
+        assert values.length == typeIds.length && nulls.length == typeIds.length
+            : "Number of values must match the number of key types";
+        probeLength = 0;
+        ensureProbeCapacity(typeIds.length * (1 + Long.BYTES));
+        for (int i = 0; i < typeIds.length; i++) {
+            assert typeIds[i] == LongType.ID : "All key types must be long";
+            if (nulls[i]) {
+                probe[probeLength++] = NULL;
+            } else {
+                probe[probeLength++] = NOT_NULL;
+                writeLong(values[i]);
+            }
+        }
+        probeHash = StringHelper.murmurhash3_x86_32(probe, 0, probeLength, 0);
+    }
+
+    /**
+     * @return the id of the key in the probe buffer or -1 if it is not in the table
+     */
+    public int find() {
+        int slot = probeHash & (slots.length - 1);
+        while (true) {
+            int entry = slots[slot];
+            if (entry == 0) {
+                return -1;
+            }
+            if (probeEquals(entry - 1)) {
+                return entry - 1;
+            }
+            slot = (slot + 1) & (slots.length - 1);
+        }
+    }
+
+    /**
+     * Adds the key in the probe buffer to the table.
+     *
+     * @return the id of the new key or {@code -(id + 1)} if the key was already present
+     */
+    public int add() {
+        int slot = probeHash & (slots.length - 1);
+        while (true) {
+            int entry = slots[slot];
+            if (entry == 0) {
+                break;
+            }
+            if (probeEquals(entry - 1)) {
+                return -entry;
+            }
+            slot = (slot + 1) & (slots.length - 1);
+        }
+        int id = size;
+        hashes = ArrayUtil.grow(hashes, id + 1);
+        offsets = ArrayUtil.grow(offsets, id + 2);
+        if (arenaLength + probeLength > arena.length) {
+            arena = ArrayUtil.grow(arena, arenaLength + probeLength);
+        }
+        System.arraycopy(probe, 0, arena, arenaLength, probeLength);
+        arenaLength += probeLength;
+        offsets[id + 1] = arenaLength;
+        hashes[id] = probeHash;
+        slots[slot] = id + 1;
+        size++;
+        if (size * 4 > slots.length * 3) {
+            rehash(slots.length * 2);
+        }
+        return id;
+    }
+
+    /**
+     * Writes the values of the key with the given id into {@code cells}, starting at {@code offset}
+     */
+    public void getKey(int id, Object[] cells, int offset) {
+        int pos = offsets[id];
+        for (int i = 0; i < typeIds.length; i++) {
+            if (arena[pos++] == NULL) {
+                cells[offset + i] = null;
+                continue;
+            }
+            switch (typeIds[i]) {
+                case BooleanType.ID:
+                    cells[offset + i] = arena[pos] == 1;
+                    pos++;
+                    break;
+
+                case ByteType.ID:
+                    cells[offset + i] = arena[pos];
+                    pos++;
+                    break;
+
+                case ShortType.ID:
+                    cells[offset + i] = (short) ((arena[pos] & 0xFF) | (arena[pos + 1] << 8));
+                    pos += Short.BYTES;
+                    break;
+
+                case IntegerType.ID:
+                    cells[offset + i] = readInt(arena, pos);
+                    pos += Integer.BYTES;
+                    break;
+
+                case FloatType.ID:
+                    cells[offset + i] = Float.intBitsToFloat(readInt(arena, pos));
+                    pos += Integer.BYTES;
+                    break;
+
+                case LongType.ID:
+                case TimestampType.ID_WITH_TZ:
+                case TimestampType.ID_WITHOUT_TZ:
+                    cells[offset + i] = readLong(arena, pos);
+                    pos += Long.BYTES;
+                    break;
+
+                case DoubleType.ID:
+                    cells[offset + i] = Double.longBitsToDouble(readLong(arena, pos));
+                    pos += Long.BYTES;
+                    break;
+
+                default:
+                    int length = readInt(arena, pos);
+                    pos += Integer.BYTES;
+                    cells[offset + i] = new String(arena, pos, length, StandardCharsets.UTF_8);
+                    pos += length;
+                    break;
+            }
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void clear() {
+        Arrays.fill(slots, 0);
+        size = 0;
+        arenaLength = 0;
+    }
+
+    @Override
+    public long ramBytesUsed() {
+        return RamUsageEstimator.sizeOf(probe)
+               + RamUsageEstimator.sizeOf(arena)
+               + RamUsageEstimator.sizeOf(offsets)
+               + RamUsageEstimator.sizeOf(hashes)
+               + RamUsageEstimator.sizeOf(slots);
+    }
+
+    private boolean probeEquals(int id) {
+        return hashes[id] == probeHash
+               && Arrays.equals(arena, offsets[id], offsets[id + 1], probe, 0, probeLength);
+    }
+
+    private void rehash(int newNumSlots) {
+        int[] newSlots = new int[newNumSlots];
+        int mask = newNumSlots - 1;
+        for (int id = 0; id < size; id++) {
+            int slot = hashes[id] & mask;
+            while (newSlots[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            newSlots[slot] = id + 1;
+        }
+        slots = newSlots;
+    }
+
+    private void ensureProbeCapacity(int numBytes) {
+        if (probeLength + numBytes > probe.length) {
+            probe = ArrayUtil.grow(probe, probeLength + numBytes);
+        }
+    }
+
+    private void writeInt(int value) {
+        probe[probeLength++] = (byte) value;
+        probe[probeLength++] = (byte) (value >>> 8);
+        probe[probeLength++] = (byte) (value >>> 16);
+        probe[probeLength++] = (byte) (value >>> 24);
+    }
+
+    private void writeLong(long value) {
+        writeInt((int) value);
+        writeInt((int) (value >>> 32));
+    }
+
+    private static int readInt(byte[] buf, int pos) {
+        return (buf[pos] & 0xFF)
+               | ((buf[pos + 1] & 0xFF) << 8)
+               | ((buf[pos + 2] & 0xFF) << 16)
+               | ((buf[pos + 3] & 0xFF) << 24);
+    }
+
+    private static long readLong(byte[] buf, int pos) {
+        return (readInt(buf, pos) & 0xFFFFFFFFL) | ((long) readInt(buf, pos + 4) << 32);
+    }
+}
@@ -22,6 +22,7 @@
 
 package io.crate.execution.engine.join;
 
+import io.crate.breaker.RamAccounting;
 import io.crate.breaker.RowAccounting;
 import io.crate.data.BatchIterator;
 import io.crate.data.Paging;
@@ -29,11 +30,10 @@ import io.crate.data.Row;
 import io.crate.data.UnsafeArrayRow;
 import io.crate.data.join.CombinedRow;
 import io.crate.data.join.JoinBatchIterator;
-import io.netty.util.collection.IntObjectHashMap;
+import org.apache.lucene.util.ArrayUtil;
+import org.apache.lucene.util.RamUsageEstimator;
 
 import java.util.ArrayList;
-import java.util.Iterator;
-import java.util.List;
 import java.util.concurrent.CompletionStage;
 import java.util.function.IntSupplier;
 import java.util.function.Predicate;
@@ -43,13 +43,13 @@ import java.util.function.ToIntFunction;
  * <pre>
  *     Build Phase:
  *     for (leftRow in left) {
- *         calculate hash and put in Buffer (HashMap) until the blockSize is reached
+ *         get the id of the join key and put in Buffer until the blockSize is reached
  *     }
  *
  *     Probe Phase:
  *     // We iterate on the right until we find a matching row or the right side needs to be loaded a next batch of data
  *     for (rightRow in right) {
- *         if (hash(rightRow) found in Buffer {
+ *         if (key(rightRow) found in Buffer {
  *            for (row in matchedInBuffer) { // Handle duplicate values from left and hash collisions
  *                if (joinCondition matches) {
  *                    // We need to check that the joinCondition matches as we can have a hash collision
@@ -70,26 +70,41 @@ import java.util.function.ToIntFunction;
  *     Repeat until both sides are all loaded and processed.
  * </pre>
  * <p>
- * The caller of the constructor needs to pass two functions {@link #hashBuilderForLeft} and {@link #hashBuilderForRight}.
- * Those functions are called on each row of the left and right side respectively and they return the hash value of
- * the relevant columns of the row.
+ * The caller of the constructor needs to pass {@link JoinKeys} which assign the rows of the left and right side
+ * the id of their join key. Either based on two functions returning the hash value of the relevant columns of a row,
+ * or on a {@link io.crate.execution.engine.hash.CompositeKeyHashTable} containing the join keys themselves.
  * <p>
  * This information is not available for the {@link HashInnerJoinBatchIterator}, so it's the responsibility of the
- * caller to provide those two functions that operate on the left and right rows accordingly and return the hash values.
+ * caller to provide the {@link JoinKeys} that operate on the left and right rows accordingly.
+ * <p>
+ * The rows in the Buffer are chained per key id, so that adding and matching rows doesn't allocate per key.
+ * <p>
+ * The rows are accounted by the {@link RowAccounting} and released once a block is processed. The memory of the
+ * {@link JoinKeys} and of the chains is accounted by the {@link RamAccounting}; it isn't shrunk between blocks,
+ * so it is released on {@link #close()}.
  */
 public class HashInnerJoinBatchIterator extends JoinBatchIterator<Row, Row, Row> {
 
     private final RowAccounting<Object[]> leftRowAccounting;
+    private final RamAccounting ramAccounting;
     private final Predicate<Row> joinCondition;
 
     /**
      * Used to avoid instantiating multiple times RowN in {@link #findMatchingRows()}
      */
     private final UnsafeArrayRow leftRow = new UnsafeArrayRow();
-    private final ToIntFunction<Row> hashBuilderForLeft;
-    private final ToIntFunction<Row> hashBuilderForRight;
+    private final JoinKeys joinKeys;
     private final IntSupplier calculateBlockSize;
-    private final IntObjectHashMap<List<Object[]>> buffer;
+    private final ArrayList<Object[]> buffer = new ArrayList<>();
+
+    /**
+     * Index of the first and last row in the {@link #buffer} per key id and of the next row with the same key per row.
+     */
+    private int[] firstRowByKey = new int[16];
+    private int[] lastRowByKey = new int[16];
+    private int[] nextRowWithSameKey = new int[16];
+    private int numberOfKeysInBuffer = 0;
+    private long accountedBytes = 0;
 
     private final UnsafeArrayRow unsafeArrayRow = new UnsafeArrayRow();
 
@@ -98,7 +113,7 @@ public class HashInnerJoinBatchIterator extends JoinBatchIterator<Row, Row, Row>
     private boolean leftBatchHasItems = false;
     private int numberOfLeftBatchesForBlock;
     private int numberOfLeftBatchesLoadedForBlock;
-    private Iterator<Object[]> leftMatchingRowsIterator;
+    private int nextLeftMatchingRow = -1;
 
     public HashInnerJoinBatchIterator(BatchIterator<Row> left,
                                       BatchIterator<Row> right,
@@ -108,14 +123,32 @@ public class HashInnerJoinBatchIterator extends JoinBatchIterator<Row, Row, Row>
                                       ToIntFunction<Row> hashBuilderForLeft,
                                       ToIntFunction<Row> hashBuilderForRight,
                                       IntSupplier calculateBlockSize) {
+        this(
+            left,
+            right,
+            leftRowAccounting,
+            combiner,
+            joinCondition,
+            JoinKeys.ofHashes(hashBuilderForLeft, hashBuilderForRight),
+            RamAccounting.NO_ACCOUNTING,
+            calculateBlockSize
+        );
+    }
+
+    public HashInnerJoinBatchIterator(BatchIterator<Row> left,
+                                      BatchIterator<Row> right,
+                                      RowAccounting<Object[]> leftRowAccounting,
+                                      CombinedRow combiner,
+                                      Predicate<Row> joinCondition,
+                                      JoinKeys joinKeys,
+                                      RamAccounting ramAccounting,
+                                      IntSupplier calculateBlockSize) {
         super(left, right, combiner);
         this.leftRowAccounting = leftRowAccounting;
+        this.ramAccounting = ramAccounting;
         this.joinCondition = joinCondition;
-        this.hashBuilderForLeft = hashBuilderForLeft;
-        this.hashBuilderForRight = hashBuilderForRight;
+        this.joinKeys = joinKeys;
         this.calculateBlockSize = calculateBlockSize;
-        // resized upon block size calculation
-        this.buffer = new IntObjectHashMap<>();
         resetBuffer();
         // initially 1 page/batch is loaded
         numberOfLeftBatchesLoadedForBlock = 1;
@@ -133,7 +166,14 @@ public class HashInnerJoinBatchIterator extends JoinBatchIterator<Row, Row, Row>
         right.moveToStart();
         activeIt = left;
         resetBuffer();
-        leftMatchingRowsIterator = null;
+        nextLeftMatchingRow = -1;
+    }
+
+    @Override
+    public void close() {
+        super.close();
+        ramAccounting.addBytes(-accountedBytes);
+        accountedBytes = 0;
     }
 
     @Override
@@ -169,7 +209,9 @@ public class HashInnerJoinBatchIterator extends JoinBatchIterator<Row, Row, Row>
     private void resetBuffer() {
         blockSize = calculateBlockSize.getAsInt();
         buffer.clear();
+        joinKeys.clear();
         numberOfRowsInBuffer = 0;
+        numberOfKeysInBuffer = 0;
         leftRowAccounting.release();
 
         // A batch is not guaranteed to deliver PAGE_SIZE number of rows. It could be more or less.
@@ -184,8 +226,9 @@ public class HashInnerJoinBatchIterator extends JoinBatchIterator<Row, Row, Row>
             while (leftBatchHasItems = left.moveNext()) {
                 Object[] leftRow = left.currentElement().materialize();
                 leftRowAccounting.accountForAndMaybeBreak(leftRow);
-                int hash = hashBuilderForLeft.applyAsInt(unsafeArrayRow.cells(leftRow));
-                addToBuffer(leftRow, hash);
+                int keyId = joinKeys.addLeft(unsafeArrayRow.cells(leftRow));
+                addToBuffer(leftRow, keyId);
+                accountBufferBytes();
                 if (numberOfRowsInBuffer == blockSize) {
                     break;
                 }
@@ -202,15 +245,13 @@ public class HashInnerJoinBatchIterator extends JoinBatchIterator<Row, Row, Row>
         }
 
         // In case of multiple matches on the left side (duplicate values or hash collisions)
-        if (leftMatchingRowsIterator != null && findMatchingRows()) {
+        if (findMatchingRows()) {
             return true;
         }
-        leftMatchingRowsIterator = null;
         while (right.moveNext()) {
-            int rightHash = hashBuilderForRight.applyAsInt(right.currentElement());
-            List<Object[]> leftMatchingRows = buffer.get(rightHash);
-            if (leftMatchingRows != null) {
-                leftMatchingRowsIterator = leftMatchingRows.iterator();
+            int keyId = joinKeys.findRight(right.currentElement());
+            if (keyId >= 0) {
+                nextLeftMatchingRow = firstRowByKey[keyId];
                 combiner.setRight(right.currentElement());
                 if (findMatchingRows()) {
                     return true;
@@ -222,19 +263,39 @@ public class HashInnerJoinBatchIterator extends JoinBatchIterator<Row, Row, Row>
         return false;
     }
 
-    private void addToBuffer(Object[] currentRow, int hash) {
-        List<Object[]> existingRows = buffer.get(hash);
-        if (existingRows == null) {
-            existingRows = new ArrayList<>();
-            buffer.put(hash, existingRows);
+    private void addToBuffer(Object[] currentRow, int keyId) {
+        int rowIdx = buffer.size();
+        buffer.add(currentRow);
+        nextRowWithSameKey = ArrayUtil.grow(nextRowWithSameKey, rowIdx + 1);
+        nextRowWithSameKey[rowIdx] = -1;
+        if (keyId == numberOfKeysInBuffer) {
+            firstRowByKey = ArrayUtil.grow(firstRowByKey, keyId + 1);
+            lastRowByKey = ArrayUtil.grow(lastRowByKey, keyId + 1);
+            firstRowByKey[keyId] = rowIdx;
+            numberOfKeysInBuffer++;
+        } else {
+            nextRowWithSameKey[lastRowByKey[keyId]] = rowIdx;
         }
-        existingRows.add(currentRow);
+        lastRowByKey[keyId] = rowIdx;
         numberOfRowsInBuffer++;
     }
 
+    private void accountBufferBytes() {
+        long usedBytes = joinKeys.ramBytesUsed()
+                         + RamUsageEstimator.sizeOf(firstRowByKey)
+                         + RamUsageEstimator.sizeOf(lastRowByKey)
+                         + RamUsageEstimator.sizeOf(nextRowWithSameKey)
+                         + (long) buffer.size() * RamUsageEstimator.NUM_BYTES_OBJECT_REF;
+        if (usedBytes > accountedBytes) {
+            ramAccounting.addBytes(usedBytes - accountedBytes);
+            accountedBytes = usedBytes;
+        }
+    }
+
     private boolean findMatchingRows() {
-        while (leftMatchingRowsIterator.hasNext()) {
-            leftRow.cells(leftMatchingRowsIterator.next());
+        while (nextLeftMatchingRow >= 0) {
+            leftRow.cells(buffer.get(nextLeftMatchingRow));
+            nextLeftMatchingRow = nextRowWithSameKey[nextLeftMatchingRow];
             combiner.setLeft(leftRow);
             if (joinCondition.test(combiner.currentElement())) {
                 return true;
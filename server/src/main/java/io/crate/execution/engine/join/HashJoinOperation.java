@@ -22,6 +22,7 @@
 
 package io.crate.execution.engine.join;
 
+import io.crate.breaker.RamAccounting;
 import io.crate.breaker.RowAccounting;
 import io.crate.concurrent.CompletionListenable;
 import io.crate.data.BatchIterator;
@@ -31,16 +32,21 @@ import io.crate.data.Row;
 import io.crate.data.RowConsumer;
 import io.crate.data.join.CombinedRow;
 import io.crate.execution.engine.collect.CollectExpression;
+import io.crate.execution.engine.hash.CompositeKeyHashTable;
 import io.crate.expression.InputFactory;
 import io.crate.expression.symbol.Symbol;
 import io.crate.metadata.TransactionContext;
+import io.crate.types.DataType;
 import org.elasticsearch.common.breaker.CircuitBreaker;
 
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 import java.util.function.Predicate;
 import java.util.function.ToIntFunction;
 
+import static io.crate.expression.symbol.Symbols.typeView;
+
 public class HashJoinOperation implements CompletionListenable {
 
     private final CapturingRowConsumer leftConsumer;
@@ -54,6 +60,7 @@ public class HashJoinOperation implements CompletionListenable {
                              List<Symbol> joinLeftInputs,
                              List<Symbol> joinRightInputs,
                              RowAccounting<Object[]> rowAccounting,
+                             RamAccounting ramAccounting,
                              TransactionContext txnCtx,
                              InputFactory inputFactory,
                              CircuitBreaker circuitBreaker,
@@ -74,9 +81,9 @@ public class HashJoinOperation implements CompletionListenable {
                             rightConsumer.capturedBatchIterator().join(),
                             numRightCols,
                             joinPredicate,
-                            getHashBuilderFromSymbols(txnCtx, inputFactory, joinLeftInputs),
-                            getHashBuilderFromSymbols(txnCtx, inputFactory, joinRightInputs),
+                            getJoinKeys(txnCtx, inputFactory, joinLeftInputs, joinRightInputs),
                             rowAccounting,
+                            ramAccounting,
                             new RamBlockSizeCalculator(
                                 Paging.PAGE_SIZE,
                                 circuitBreaker,
@@ -107,6 +114,40 @@ public class HashJoinOperation implements CompletionListenable {
         return rightConsumer;
     }
 
+    private static JoinKeys getJoinKeys(TransactionContext txnCtx,
+                                        InputFactory inputFactory,
+                                        List<Symbol> joinLeftInputs,
+                                        List<Symbol> joinRightInputs) {
+        List<DataType<?>> keyTypes = typeView(joinLeftInputs);
+        if (keyTypes.equals(typeView(joinRightInputs)) && CompositeKeyHashTable.supports(keyTypes)) {
+            CompositeKeyHashTable table = new CompositeKeyHashTable(keyTypes);
+            return JoinKeys.ofTable(
+                table,
+                getProbeSetterFromSymbols(txnCtx, inputFactory, joinLeftInputs, table),
+                getProbeSetterFromSymbols(txnCtx, inputFactory, joinRightInputs, table)
+            );
+        }
+        return JoinKeys.ofHashes(
+            getHashBuilderFromSymbols(txnCtx, inputFactory, joinLeftInputs),
+            getHashBuilderFromSymbols(txnCtx, inputFactory, joinRightInputs)
+        );
+    }
+
+    private static Consumer<Row> getProbeSetterFromSymbols(TransactionContext txnCtx,
+                                                           InputFactory inputFactory,
+                                                           List<Symbol> inputs,
+                                                           CompositeKeyHashTable table) {
+        InputFactory.Context<? extends CollectExpression<Row, ?>> ctx = inputFactory.ctxForInputColumns(txnCtx, inputs);
+        var topLevelInputs = ctx.topLevelInputs();
+        var expressions = ctx.expressions();
+        return row -> {
+            for (int i = 0; i < expressions.size(); i++) {
+                expressions.get(i).setNextRow(row);
+            }
+            table.setProbe(topLevelInputs);
+        };
+    }
+
     private static ToIntFunction<Row> getHashBuilderFromSymbols(TransactionContext txnCtx,
                                                                 InputFactory inputFactory,
                                                                 List<Symbol> inputs) {
@@ -131,9 +172,9 @@ public class HashJoinOperation implements CompletionListenable {
                                                              BatchIterator<Row> right,
                                                              int rightNumCols,
                                                              Predicate<Row> joinCondition,
-                                                             ToIntFunction<Row> hashBuilderForLeft,
-                                                             ToIntFunction<Row> hashBuilderForRight,
+                                                             JoinKeys joinKeys,
                                                              RowAccounting<Object[]> rowAccounting,
+                                                             RamAccounting ramAccounting,
                                                              RamBlockSizeCalculator blockSizeCalculator) {
         CombinedRow combiner = new CombinedRow(leftNumCols, rightNumCols);
         return new HashInnerJoinBatchIterator(
@@ -142,8 +183,8 @@ public class HashJoinOperation implements CompletionListenable {
             rowAccounting,
             combiner,
             joinCondition,
-            hashBuilderForLeft,
-            hashBuilderForRight,
+            joinKeys,
+            ramAccounting,
             blockSizeCalculator);
     }
 }
@@ -0,0 +1,123 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.execution.engine.join;
+
+import com.carrotsearch.hppc.IntIntHashMap;
+import io.crate.data.Row;
+import io.crate.execution.engine.hash.CompositeKeyHashTable;
+import org.apache.lucene.util.Accountable;
+import org.apache.lucene.util.RamUsageEstimator;
+
+import java.util.function.Consumer;
+import java.util.function.ToIntFunction;
+
+/**
+ * Assigns ids to the join keys of the rows of a {@link HashInnerJoinBatchIterator}.
+ * Ids are dense and start at 0; rows of the left and right side which may match get the same id.
+ * {@link #clear()} keeps the allocated memory, see {@link #ramBytesUsed()}.
+ */
+public interface JoinKeys extends Accountable {
+
+    /**
+     * @return the id of the key of a row from the left side. Either an existing id or the number of keys added so far.
+     */
+    int addLeft(Row row);
+
+    /**
+     * @return the id of the key of a row from the right side or -1 if no row of the left side has the same key
+     */
+    int findRight(Row row);
+
+    void clear();
+
+    /**
+     * Join keys identified by the hash values of the rows.
+     * Rows with different keys may get the same id on hash collisions; the join condition has to filter those.
+     */
+    static JoinKeys ofHashes(ToIntFunction<Row> hashBuilderForLeft, ToIntFunction<Row> hashBuilderForRight) {
+        IntIntHashMap idByHash = new IntIntHashMap();
+        return new JoinKeys() {
+
+            @Override
+            public int addLeft(Row row) {
+                int hash = hashBuilderForLeft.applyAsInt(row);
+                int index = idByHash.indexOf(hash);
+                if (index >= 0) {
+                    return idByHash.indexGet(index);
+                }
+                int id = idByHash.size();
+                idByHash.indexInsert(index, hash, id);
+                return id;
+            }
+
+            @Override
+            public int findRight(Row row) {
+                return idByHash.getOrDefault(hashBuilderForRight.applyAsInt(row), -1);
+            }
+
+            @Override
+            public void clear() {
+                idByHash.clear();
+            }
+
+            @Override
+            public long ramBytesUsed() {
+                return RamUsageEstimator.sizeOf(idByHash.keys) + RamUsageEstimator.sizeOf(idByHash.values);
+            }
+        };
+    }
+
+    /**
+     * Join keys stored in a {@link CompositeKeyHashTable}; rows get the same id only if their keys are equal.
+     *
+     * @param setLeftProbe sets the key of a left row as probe of the table
+     * @param setRightProbe sets the key of a right row as probe of the table
+     */
+    static JoinKeys ofTable(CompositeKeyHashTable table, Consumer<Row> setLeftProbe, Consumer<Row> setRightProbe) {
+        return new JoinKeys() {
+
+            @Override
+            public int addLeft(Row row) {
+                setLeftProbe.accept(row);
+                int id = table.add();
+                return id < 0 ? -id - 1 : id;
+            }
+
+            @Override
+            public int findRight(Row row) {
+                setRightProbe.accept(row);
+                return table.find();
+            }
+
+            @Override
+            public void clear() {
+                table.clear();
+            }
+
+            @Override
+            public long ramBytesUsed() {
+                return table.ramBytesUsed();
+            }
+        };
+    }
+}
@@ -27,19 +27,42 @@ import io.crate.data.BatchIterator;
 import io.crate.data.FilteringBatchIterator;
 import io.crate.data.Projector;
 import io.crate.data.Row;
+import io.crate.expression.RowFilter;
+import io.crate.expression.compile.VectorizedInputs;
 
+import java.util.List;
 import java.util.function.Predicate;
 
 class FilterProjector implements Projector {
 
     private final Predicate<Row> rowFilterPredicate;
+    private final boolean vectorize;
 
     FilterProjector(Predicate<Row> rowFilterPredicate) {
+        this(rowFilterPredicate, true);
+    }
+
+    private FilterProjector(Predicate<Row> rowFilterPredicate, boolean vectorize) {
         this.rowFilterPredicate = rowFilterPredicate;
+        this.vectorize = vectorize;
+    }
+
+    /**
+     * @return a projector which evaluates the filter row by row, see {@link Projectors}
+     */
+    FilterProjector withoutVectorization() {
+        return new FilterProjector(rowFilterPredicate, false);
     }
 
     @Override
     public BatchIterator<Row> apply(BatchIterator<Row> batchIterator) {
+        if (vectorize && rowFilterPredicate instanceof RowFilter) {
+            RowFilter rowFilter = (RowFilter) rowFilterPredicate;
+            VectorizedInputs vectorizedInputs = VectorizedInputs.of(List.of(rowFilter.filterCondition()));
+            if (vectorizedInputs != null && vectorizedInputs.isPredicate(0)) {
+                return VectorizedBatchIterator.filter(batchIterator, rowFilter.expressions(), vectorizedInputs);
+            }
+        }
         return new FilteringBatchIterator<>(batchIterator, rowFilterPredicate);
     }
 
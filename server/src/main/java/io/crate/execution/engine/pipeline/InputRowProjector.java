@@ -28,25 +28,47 @@ import io.crate.data.Input;
 import io.crate.data.Projector;
 import io.crate.data.Row;
 import io.crate.execution.engine.collect.CollectExpression;
+import io.crate.expression.compile.VectorizedInputs;
 
 import java.util.List;
 
 /**
  * Projector which evaluates scalars or extends/cuts columns, see {@link MapRowUsingInputs}.
+ *
+ * Compiled scalars are evaluated a batch of rows at a time, see {@link VectorizedBatchIterator}.
  */
 public class InputRowProjector implements Projector {
 
     protected final List<Input<?>> inputs;
     protected final List<? extends CollectExpression<Row, ?>> collectExpressions;
+    private final boolean vectorize;
 
     public InputRowProjector(List<Input<?>> inputs,
                              List<? extends CollectExpression<Row, ?>> collectExpressions) {
+        this(inputs, collectExpressions, true);
+    }
+
+    private InputRowProjector(List<Input<?>> inputs,
+                              List<? extends CollectExpression<Row, ?>> collectExpressions,
+                              boolean vectorize) {
         this.inputs = inputs;
         this.collectExpressions = collectExpressions;
+        this.vectorize = vectorize;
+    }
+
+    /**
+     * @return a projector which evaluates the inputs row by row, see {@link Projectors}
+     */
+    InputRowProjector withoutVectorization() {
+        return new InputRowProjector(inputs, collectExpressions, false);
     }
 
     @Override
     public BatchIterator<Row> apply(BatchIterator<Row> batchIterator) {
+        VectorizedInputs vectorizedInputs = vectorize ? VectorizedInputs.of(inputs) : null;
+        if (vectorizedInputs != null) {
+            return VectorizedBatchIterator.map(batchIterator, collectExpressions, vectorizedInputs);
+        }
         return BatchIterators.map(batchIterator, new MapRowUsingInputs(inputs, collectExpressions));
     }
 
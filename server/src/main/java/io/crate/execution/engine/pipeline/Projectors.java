@@ -28,6 +28,8 @@ import io.crate.data.BatchIterator;
 import io.crate.data.Projector;
 import io.crate.data.Row;
 import io.crate.execution.dsl.projection.Projection;
+import io.crate.execution.dsl.projection.TopNDistinctProjection;
+import io.crate.execution.dsl.projection.TopNProjection;
 import io.crate.memory.MemoryManager;
 import io.crate.metadata.TransactionContext;
 
@@ -52,13 +54,8 @@ public final class Projectors {
                       MemoryManager memoryManager,
                       ProjectorFactory projectorFactory) {
         boolean independentScroll = false;
-        this.projectors = new ArrayList<>(projections.size());
-        for (Projection projection : projections) {
-            if (projection.requiredGranularity().ordinal() > projectorFactory.supportedGranularity().ordinal()) {
-                continue;
-            }
-            Projector projector = projectorFactory.create(projection, txnCtx, ramAccounting, memoryManager, jobId);
-            projectors.add(projector);
+        this.projectors = create(projections, jobId, txnCtx, ramAccounting, memoryManager, projectorFactory);
+        for (Projector projector : projectors) {
             independentScroll = independentScroll || projector.providesIndependentScroll();
         }
         this.independentScroll = independentScroll;
@@ -76,13 +73,45 @@ public final class Projectors {
                                           ProjectorFactory projectorFactory,
                                           BatchIterator<Row> source) {
         BatchIterator<Row> result = source;
+        for (Projector projector : create(projections, jobId, txnCtx, ramAccounting, memoryManager, projectorFactory)) {
+            result = projector.apply(result);
+        }
+        return result;
+    }
+
+    /**
+     * Creates the projectors of the projections matching {@link ProjectorFactory#supportedGranularity()}.
+     *
+     * A limit stops consuming once it has enough rows, so the filters and evaluations in front of it are evaluated
+     * row by row; {@link VectorizedBatchIterator} would evaluate rows the limit never reads.
+     */
+    private static ArrayList<Projector> create(Collection<? extends Projection> projections,
+                                               UUID jobId,
+                                               TransactionContext txnCtx,
+                                               RamAccounting ramAccounting,
+                                               MemoryManager memoryManager,
+                                               ProjectorFactory projectorFactory) {
+        ArrayList<Projector> projectors = new ArrayList<>(projections.size());
+        int lastLimit = -1;
         for (Projection projection : projections) {
             if (projection.requiredGranularity().ordinal() > projectorFactory.supportedGranularity().ordinal()) {
                 continue;
             }
-            result = projectorFactory.create(projection, txnCtx, ramAccounting, memoryManager, jobId).apply(result);
+            Projector projector = projectorFactory.create(projection, txnCtx, ramAccounting, memoryManager, jobId);
+            if (projection instanceof TopNProjection || projection instanceof TopNDistinctProjection) {
+                lastLimit = projectors.size();
+            }
+            projectors.add(projector);
         }
-        return result;
+        for (int i = 0; i < lastLimit; i++) {
+            Projector projector = projectors.get(i);
+            if (projector instanceof FilterProjector) {
+                projectors.set(i, ((FilterProjector) projector).withoutVectorization());
+            } else if (projector instanceof InputRowProjector) {
+                projectors.set(i, ((InputRowProjector) projector).withoutVectorization());
+            }
+        }
+        return projectors;
     }
 
     public BatchIterator<Row> wrap(BatchIterator<Row> source) {
@@ -0,0 +1,229 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.execution.engine.pipeline;
+
+import io.crate.data.BatchIterator;
+import io.crate.data.Input;
+import io.crate.data.MappedForwardingBatchIterator;
+import io.crate.data.Row;
+import io.crate.data.RowN;
+import io.crate.execution.engine.collect.CollectExpression;
+import io.crate.expression.InputRow;
+import io.crate.expression.compile.VectorizedInputs;
+
+import java.util.List;
+
+/**
+ * BatchIterator which evaluates {@link VectorizedInputs} a batch at a time.
+ *
+ * Rows are copied from the delegate into a buffer until either {@link VectorizedInputs#BATCH_SIZE} rows are
+ * buffered or the delegate runs out of loaded rows. The compiled inputs are then evaluated for the whole buffer
+ * and the buffered rows are emitted; the iterator never holds rows across a {@link #loadNextBatch()}.
+ *
+ * A filter has to copy the cells of every row, the predicate is only known once the batch is evaluated and the
+ * delegate may re-use its row. A map only copies the cells if some of its inputs aren't compiled.
+ *
+ * Rows are evaluated before they are consumed, so a failure is recorded for the row which caused it and is only
+ * raised once that row is emitted. Consumers which stop early, like a limit, don't fail on rows they wouldn't have
+ * evaluated row by row; {@link Projectors} doesn't vectorize projections followed by a limit at all.
+ */
+final class VectorizedBatchIterator extends MappedForwardingBatchIterator<Row, Row> {
+
+    private final BatchIterator<Row> delegate;
+    private final List<? extends CollectExpression<Row, ?>> expressions;
+    private final VectorizedInputs vectorizedInputs;
+    private final boolean isFilter;
+    private final Row outputRow;
+    private final boolean copyCells;
+
+    private final Object[][] buffer = new Object[VectorizedInputs.BATCH_SIZE][];
+    private final int[] selection = new int[VectorizedInputs.BATCH_SIZE];
+    private final RuntimeException[] errors = new RuntimeException[VectorizedInputs.BATCH_SIZE];
+    private boolean hasErrors = false;
+    private RowN bufferedRow;
+    private int numSelected = 0;
+    private int current = -1;
+
+    /**
+     * Emits the rows of the delegate for which the predicate at index {@code 0} of {@code vectorizedInputs}
+     * is true.
+     */
+    static BatchIterator<Row> filter(BatchIterator<Row> delegate,
+                                     List<? extends CollectExpression<Row, ?>> expressions,
+                                     VectorizedInputs vectorizedInputs) {
+        assert vectorizedInputs.isPredicate(0) : "The filter of a VectorizedBatchIterator must be a compiled predicate";
+        return new VectorizedBatchIterator(delegate, expressions, vectorizedInputs, true);
+    }
+
+    /**
+     * Emits the {@link VectorizedInputs#outputs()} for every row of the delegate, see {@link MapRowUsingInputs}
+     */
+    static BatchIterator<Row> map(BatchIterator<Row> delegate,
+                                  List<? extends CollectExpression<Row, ?>> expressions,
+                                  VectorizedInputs vectorizedInputs) {
+        return new VectorizedBatchIterator(delegate, expressions, vectorizedInputs, false);
+    }
+
+    private VectorizedBatchIterator(BatchIterator<Row> delegate,
+                                    List<? extends CollectExpression<Row, ?>> expressions,
+                                    VectorizedInputs vectorizedInputs,
+                                    boolean isFilter) {
+        this.delegate = delegate;
+        this.expressions = expressions;
+        this.vectorizedInputs = vectorizedInputs;
+        this.isFilter = isFilter;
+        this.outputRow = isFilter ? null : new InputRow(vectorizedInputs.outputs());
+        this.copyCells = isFilter || vectorizedInputs.isFullyCompiled() == false;
+    }
+
+    @Override
+    protected BatchIterator<Row> delegate() {
+        return delegate;
+    }
+
+    @Override
+    public Row currentElement() {
+        return outputRow == null ? bufferedRow : outputRow;
+    }
+
+    @Override
+    public void moveToStart() {
+        numSelected = 0;
+        current = -1;
+        delegate.moveToStart();
+    }
+
+    @Override
+    public boolean moveNext() {
+        while (true) {
+            current++;
+            if (current < numSelected) {
+                int position = isFilter ? selection[current] : current;
+                if (hasErrors && errors[position] != null) {
+                    throw errors[position];
+                }
+                if (copyCells) {
+                    bufferedRow.cells(buffer[position]);
+                }
+                if (outputRow != null) {
+                    if (copyCells) {
+                        setNextRow(bufferedRow);
+                    }
+                    vectorizedInputs.position(position);
+                }
+                return true;
+            }
+            if (fillBuffer() == false) {
+                return false;
+            }
+        }
+    }
+
+    private boolean fillBuffer() {
+        numSelected = 0;
+        current = -1;
+        int size = 0;
+        boolean loadFailed = false;
+        while (size < buffer.length && delegate.moveNext()) {
+            Row row = delegate.currentElement();
+            if (copyCells) {
+                copyCells(row, size);
+            }
+            setNextRow(row);
+            try {
+                vectorizedInputs.load(size);
+                errors[size] = null;
+            } catch (RuntimeException e) {
+                // the values of the row are incomplete, evaluating the batch could hide the failure
+                errors[size] = e;
+                loadFailed = true;
+            }
+            size++;
+        }
+        if (size == 0) {
+            return false;
+        }
+        if (loadFailed) {
+            evaluatePerRow(size);
+            return true;
+        }
+        try {
+            vectorizedInputs.evaluate(size);
+            hasErrors = false;
+            numSelected = isFilter ? vectorizedInputs.select(0, size, selection) : size;
+        } catch (RuntimeException e) {
+            evaluatePerRow(size);
+        }
+        return true;
+    }
+
+    /**
+     * Evaluates the rows one at a time to record the failure of each row.
+     * Rows which already failed to load are skipped.
+     * Failed rows are selected by a filter as well, so that the failure is raised once they're reached.
+     */
+    private void evaluatePerRow(int size) {
+        hasErrors = true;
+        Input<?> predicate = isFilter ? vectorizedInputs.outputs().get(0) : null;
+        for (int position = 0; position < size; position++) {
+            if (errors[position] == null) {
+                try {
+                    vectorizedInputs.evaluateAt(position);
+                } catch (RuntimeException e) {
+                    errors[position] = e;
+                }
+            }
+            if (predicate == null) {
+                numSelected++;
+            } else {
+                vectorizedInputs.position(position);
+                if (errors[position] != null || Boolean.TRUE.equals(predicate.value())) {
+                    selection[numSelected] = position;
+                    numSelected++;
+                }
+            }
+        }
+    }
+
+    private void copyCells(Row row, int position) {
+        int numColumns = row.numColumns();
+        if (bufferedRow == null) {
+            bufferedRow = new RowN(numColumns);
+        }
+        Object[] cells = buffer[position];
+        if (cells == null || cells.length != numColumns) {
+            cells = new Object[numColumns];
+            buffer[position] = cells;
+        }
+        for (int i = 0; i < numColumns; i++) {
+            cells[i] = row.get(i);
+        }
+    }
+
+    private void setNextRow(Row row) {
+        //noinspection ForLoopReplaceableByForEach // avoids iterator allocation - setNextRow is invoked per row
+        for (int i = 0; i < expressions.size(); i++) {
+            expressions.get(i).setNextRow(row);
+        }
+    }
+}
@@ -37,6 +37,7 @@ import org.apache.logging.log4j.Logger;
 
 import javax.annotation.Nonnull;
 import javax.annotation.concurrent.GuardedBy;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Iterator;
@@ -52,11 +53,21 @@ import java.util.concurrent.RejectedExecutionException;
  * A {@link PageBucketReceiver} which receives buckets from upstreams, wait to receive the page from all upstreams
  * and forwards the merged bucket results to the consumers for further processing. It then continues to receive
  * the buckets from the next page from all upstreams.
+ *
+ * Upstreams are granted credits for {@link #PAGE_CREDITS} pages: As long as fewer pages of an upstream are held,
+ * a page is acknowledged right away instead of once the consumer asks for more, so that the upstream can produce
+ * and send its next page while the current one is still being merged. Pages which arrive before the consumer
+ * needs them are buffered.
  */
 public class CumulativePageBucketReceiver implements PageBucketReceiver {
 
     private static final Logger LOGGER = LogManager.getLogger(CumulativePageBucketReceiver.class);
 
+    /**
+     * Number of pages per upstream which may be held by the receiver, including the page of the current round
+     */
+    static final int PAGE_CREDITS = 2;
+
     private final Object lock = new Object();
     private final String nodeName;
     private final boolean traceEnabled;
@@ -69,6 +80,16 @@ public class CumulativePageBucketReceiver implements PageBucketReceiver {
     private final Map<Integer, PageResultListener> listenersByBucketIdx;
     @GuardedBy("lock")
     private final Map<Integer, Bucket> bucketsByIdx;
+    @GuardedBy("lock")
+    private final Map<Integer, ArrayDeque<BufferedPage>> bufferedPagesByIdx;
+    @GuardedBy("lock")
+    private final Set<Integer> bucketIdxs;
+    /**
+     * False from the moment the buckets of a round are handed to the consumer until it fetches the next round.
+     * Pages received in between are buffered, they belong to the next round.
+     */
+    @GuardedBy("lock")
+    private boolean nextPageRequested = true;
     private final RowConsumer consumer;
     private final PagingIterator<Integer, Row> pagingIterator;
     private final BatchIterator<Row> batchPagingIterator;
@@ -95,6 +116,8 @@ public class CumulativePageBucketReceiver implements PageBucketReceiver {
 
         this.exhausted = Collections.newSetFromMap(new IntObjectHashMap<>(numBuckets));
         this.bucketsByIdx = new IntObjectHashMap<>(numBuckets);
+        this.bufferedPagesByIdx = new IntObjectHashMap<>(numBuckets);
+        this.bucketIdxs = Collections.newSetFromMap(new IntObjectHashMap<>(numBuckets));
         this.listenersByBucketIdx = new IntObjectHashMap<>(numBuckets);
         processingFuture.whenComplete((result, ex) -> {
             synchronized (listenersByBucketIdx) {
@@ -122,30 +145,45 @@ public class CumulativePageBucketReceiver implements PageBucketReceiver {
     @Override
     public void setBucket(int bucketIdx, Bucket rows, boolean isLast, PageResultListener pageResultListener) {
         final boolean isLastOrHasError;
-        synchronized (listenersByBucketIdx) {
-            isLastOrHasError = isLast || lastThrowable != null;
-            if (!isLastOrHasError) {
-                listenersByBucketIdx.put(bucketIdx, pageResultListener);
-            }
-        }
-        if (isLastOrHasError) {
-            pageResultListener.needMore(false);
-        }
+        final boolean grantCredit;
         final boolean allBucketsOfPageReceived;
         synchronized (lock) {
             if (traceEnabled) {
                 LOGGER.trace("method=setBucket phaseId={} bucket={} istLast={}", phaseId, bucketIdx, isLast);
             }
-
-            if (bucketsByIdx.putIfAbsent(bucketIdx, rows) != null) {
-                processingFuture.completeExceptionally(new IllegalStateException(String.format(Locale.ENGLISH,
-                    "Same bucket of a page set more than once. node=%s method=setBucket phaseId=%d bucket=%d",
-                    nodeName, phaseId, bucketIdx)));
+            bucketIdxs.add(bucketIdx);
+            boolean receivedAllBefore = bucketsByIdx.size() == numBuckets;
+            int pagesHeld;
+            if (bucketsByIdx.containsKey(bucketIdx) || !nextPageRequested) {
+                // the consumer didn't ask for the next page of this bucket yet
+                ArrayDeque<BufferedPage> bufferedPages = bufferedPagesByIdx.computeIfAbsent(bucketIdx, k -> new ArrayDeque<>());
+                if (bufferedPages.size() + 1 >= PAGE_CREDITS) {
+                    processingFuture.completeExceptionally(new IllegalStateException(String.format(Locale.ENGLISH,
+                        "Received more pages of a bucket than granted. node=%s method=setBucket phaseId=%d bucket=%d",
+                        nodeName, phaseId, bucketIdx)));
+                }
+                bufferedPages.add(new BufferedPage(rows, isLast));
+                pagesHeld = 1 + bufferedPages.size();
+            } else {
+                bucketsByIdx.put(bucketIdx, rows);
+                if (isLast) {
+                    exhausted.add(bucketIdx);
+                }
+                pagesHeld = 1;
             }
-            if (isLast) {
-                exhausted.add(bucketIdx);
+            grantCredit = pagesHeld < PAGE_CREDITS;
+            synchronized (listenersByBucketIdx) {
+                isLastOrHasError = isLast || lastThrowable != null || processingFuture.isDone();
+                if (!isLastOrHasError && !grantCredit) {
+                    listenersByBucketIdx.put(bucketIdx, pageResultListener);
+                }
             }
-            allBucketsOfPageReceived = bucketsByIdx.size() == numBuckets;
+            allBucketsOfPageReceived = !receivedAllBefore && bucketsByIdx.size() == numBuckets;
+        }
+        if (isLastOrHasError) {
+            pageResultListener.needMore(false);
+        } else if (grantCredit) {
+            pageResultListener.needMore(true);
         }
         if (allBucketsOfPageReceived) {
             processPage();
@@ -211,6 +249,7 @@ public class CumulativePageBucketReceiver implements PageBucketReceiver {
     private List<KeyIterable<Integer, Row>> getBuckets() {
         List<KeyIterable<Integer, Row>> buckets = new ArrayList<>(numBuckets);
         synchronized (lock) {
+            nextPageRequested = false;
             Iterator<Map.Entry<Integer, Bucket>> entryIt = bucketsByIdx.entrySet().iterator();
             while (entryIt.hasNext()) {
                 Map.Entry<Integer, Bucket> entry = entryIt.next();
@@ -244,24 +283,73 @@ public class CumulativePageBucketReceiver implements PageBucketReceiver {
     }
 
     private void fetchExhausted(Integer exhaustedBucket) {
-        synchronized (listenersByBucketIdx) {
+        final PageResultListener pageResultListener;
+        final boolean allBucketsOfPageReceived;
+        synchronized (lock) {
+            nextPageRequested = true;
+            boolean receivedAllBefore = bucketsByIdx.size() == numBuckets;
+            moveBufferedPage(exhaustedBucket);
             // We're only requesting data for 1 specific bucket,
             // so we need to fill in other buckets to meet the
             // "receivedAllBucketsOfPage" condition once we get the data for this bucket
-            PageResultListener pageResultListener = listenersByBucketIdx.remove(exhaustedBucket);
-            for (Integer bucketIdx : listenersByBucketIdx.keySet()) {
-                bucketsByIdx.putIfAbsent(bucketIdx, Bucket.EMPTY);
+            for (Integer bucketIdx : bucketIdxs) {
+                if (!bucketIdx.equals(exhaustedBucket)) {
+                    bucketsByIdx.putIfAbsent(bucketIdx, Bucket.EMPTY);
+                }
             }
+            synchronized (listenersByBucketIdx) {
+                pageResultListener = listenersByBucketIdx.remove(exhaustedBucket);
+            }
+            allBucketsOfPageReceived = !receivedAllBefore && bucketsByIdx.size() == numBuckets;
+        }
+        // null if the upstream was granted a credit and its next page is on the way
+        if (pageResultListener != null) {
             pageResultListener.needMore(true);
         }
+        if (allBucketsOfPageReceived) {
+            processPage();
+        }
     }
 
     private void fetchFromUnExhausted() {
-        synchronized (listenersByBucketIdx) {
-            for (PageResultListener listener : listenersByBucketIdx.values()) {
-                listener.needMore(true);
+        final List<PageResultListener> listeners;
+        final boolean allBucketsOfPageReceived;
+        synchronized (lock) {
+            nextPageRequested = true;
+            boolean receivedAllBefore = bucketsByIdx.size() == numBuckets;
+            for (Integer bucketIdx : bufferedPagesByIdx.keySet()) {
+                moveBufferedPage(bucketIdx);
             }
-            listenersByBucketIdx.clear();
+            synchronized (listenersByBucketIdx) {
+                listeners = new ArrayList<>(listenersByBucketIdx.values());
+                listenersByBucketIdx.clear();
+            }
+            allBucketsOfPageReceived = !receivedAllBefore && bucketsByIdx.size() == numBuckets;
+        }
+        for (PageResultListener listener : listeners) {
+            listener.needMore(true);
+        }
+        if (allBucketsOfPageReceived) {
+            processPage();
+        }
+    }
+
+    /**
+     * Makes the oldest buffered page of the bucket the page of the current round, if there is one
+     */
+    @GuardedBy("lock")
+    private void moveBufferedPage(Integer bucketIdx) {
+        ArrayDeque<BufferedPage> bufferedPages = bufferedPagesByIdx.get(bucketIdx);
+        if (bufferedPages == null || bucketsByIdx.containsKey(bucketIdx)) {
+            return;
+        }
+        BufferedPage page = bufferedPages.poll();
+        if (page == null) {
+            return;
+        }
+        bucketsByIdx.put(bucketIdx, page.rows);
+        if (page.isLast) {
+            exhausted.add(bucketIdx);
         }
     }
 
@@ -298,6 +386,17 @@ public class CumulativePageBucketReceiver implements PageBucketReceiver {
         }
     }
 
+    private static final class BufferedPage {
+
+        private final Bucket rows;
+        private final boolean isLast;
+
+        BufferedPage(Bucket rows, boolean isLast) {
+            this.rows = rows;
+            this.isLast = isLast;
+        }
+    }
+
     @Override
     public String toString() {
         return "CumulativePageBucketReceiver{" +
@@ -923,11 +923,10 @@ public class JobSetup {
                 joinCondition,
                 phase.leftJoinConditionInputs(),
                 phase.rightJoinConditionInputs(),
-                // 110 extra bytes per row =
-                //    96 bytes for each ArrayList +
-                //    7 bytes per key for the IntHashObjectHashMap  (should be 4 but the map pre-allocates more)
-                //    7 bytes perv value (pointer from the map to the list) (should be 4 but the map pre-allocates more)
-                new RowCellsAccountingWithEstimators(phase.leftOutputTypes(), ramAccountingOfOperation, 110),
+                // The join keys and the chains of the buffered rows are accounted by the join itself.
+                // They are kept across blocks, so they must not be released with the rows of a block.
+                new RowCellsAccountingWithEstimators(phase.leftOutputTypes(), ramAccountingOfOperation, 0),
+                new ConcurrentRamAccounting(ramAccounting::addBytes, bytes -> ramAccounting.addBytes(-bytes)),
                 context.transactionContext,
                 inputFactory,
                 breaker(),
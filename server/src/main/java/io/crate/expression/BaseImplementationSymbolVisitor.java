@@ -25,6 +25,7 @@ package io.crate.expression;
 import com.google.common.base.Joiner;
 import io.crate.data.Input;
 import io.crate.exceptions.UnsupportedFeatureException;
+import io.crate.expression.compile.ExpressionCompiler;
 import io.crate.expression.symbol.AliasSymbol;
 import io.crate.expression.symbol.DynamicReference;
 import io.crate.expression.symbol.Function;
@@ -68,6 +69,10 @@ public class BaseImplementationSymbolVisitor<C> extends SymbolVisitor<C, Input<?
             for (Symbol argument : function.arguments()) {
                 argumentInputs[i++] = argument.accept(this, context);
             }
+            Input<?> compiled = ExpressionCompiler.compile(function, scalarImpl, argumentInputs);
+            if (compiled != null) {
+                return compiled;
+            }
             return new FunctionExpression<>(txnCtx, nodeCtx, scalarImpl, argumentInputs);
         } else {
             throw new UnsupportedFeatureException(
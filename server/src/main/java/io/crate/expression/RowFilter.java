@@ -61,6 +61,14 @@ public class RowFilter implements Predicate<Row> {
         return InputCondition.matches(filterCondition);
     }
 
+    public Input<Boolean> filterCondition() {
+        return filterCondition;
+    }
+
+    public List<CollectExpression<Row, ?>> expressions() {
+        return expressions;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
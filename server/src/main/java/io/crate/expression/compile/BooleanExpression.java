@@ -0,0 +1,586 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.expression.compile;
+
+import io.crate.data.Input;
+
+import javax.annotation.Nullable;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A compiled expression with a {@code boolean} result, see {@link LongExpression}.
+ *
+ * In the batch {@link #values} are {@code false} for null positions, so a position matches a filter if its value
+ * is {@code true}.
+ */
+abstract class BooleanExpression implements Input<Boolean>, Vectorized {
+
+    boolean isNull;
+
+    boolean[] values;
+    boolean[] nulls;
+
+    /**
+     * @return the result; only valid if {@link #isNull} is false afterwards.
+     */
+    abstract boolean evaluate();
+
+    @Override
+    public final Boolean value() {
+        boolean result = evaluate();
+        if (isNull) {
+            return null;
+        }
+        return result;
+    }
+
+    @Override
+    public void prepare(int capacity, List<Leaf> leaves) {
+        if (values == null || values.length < capacity) {
+            values = new boolean[capacity];
+            nulls = new boolean[capacity];
+        }
+    }
+
+    @Override
+    public final boolean[] nulls() {
+        return nulls;
+    }
+
+    @Override
+    public final Object valueAt(int position) {
+        if (nulls[position]) {
+            return null;
+        }
+        return values[position];
+    }
+
+    /**
+     * Writes the positions from {@code 0} to {@code size - 1} which evaluated to {@code true} into {@code selection}
+     *
+     * @return the number of matching positions
+     */
+    final int select(int size, int[] selection) {
+        int selected = 0;
+        for (int i = 0; i < size; i++) {
+            selection[selected] = i;
+            selected += values[i] ? 1 : 0;
+        }
+        return selected;
+    }
+
+    enum Comparison {
+        EQ("="),
+        LT("<"),
+        LTE("<="),
+        GT(">"),
+        GTE(">=");
+
+        private final String operator;
+
+        Comparison(String operator) {
+            this.operator = operator;
+        }
+
+        boolean matches(int cmpResult) {
+            switch (this) {
+                case EQ:
+                    return cmpResult == 0;
+                case LT:
+                    return cmpResult < 0;
+                case LTE:
+                    return cmpResult <= 0;
+                case GT:
+                    return cmpResult > 0;
+                case GTE:
+                    return cmpResult >= 0;
+                default:
+                    throw new AssertionError("Unexpected comparison: " + this);
+            }
+        }
+
+        @Override
+        public String toString() {
+            return operator;
+        }
+    }
+
+    static final class Column extends BooleanExpression implements Vectorized.Leaf {
+
+        private final Input<?> input;
+
+        Column(Input<?> input) {
+            this.input = input;
+        }
+
+        @Override
+        boolean evaluate() {
+            Object value = input.value();
+            if (value == null) {
+                isNull = true;
+                return false;
+            }
+            isNull = false;
+            return (Boolean) value;
+        }
+
+        @Override
+        public void prepare(int capacity, List<Leaf> leaves) {
+            super.prepare(capacity, leaves);
+            leaves.add(this);
+        }
+
+        @Override
+        public void load(int position) {
+            Object value = input.value();
+            nulls[position] = value == null;
+            values[position] = value != null && (Boolean) value;
+        }
+
+        @Override
+        public void evaluate(@Nullable int[] selection, int size) {
+        }
+
+        @Override
+        public String toString() {
+            return input.toString();
+        }
+    }
+
+    static final class Constant extends BooleanExpression {
+
+        private final boolean value;
+
+        Constant(Boolean value) {
+            this.isNull = value == null;
+            this.value = value != null && value;
+        }
+
+        @Override
+        boolean evaluate() {
+            return value;
+        }
+
+        @Override
+        public void prepare(int capacity, List<Leaf> leaves) {
+            super.prepare(capacity, leaves);
+            Arrays.fill(values, value);
+            Arrays.fill(nulls, isNull);
+        }
+
+        @Override
+        public void evaluate(@Nullable int[] selection, int size) {
+        }
+
+        @Override
+        public String toString() {
+            return isNull ? "NULL" : Boolean.toString(value);
+        }
+    }
+
+    static final class CompareLong extends BooleanExpression {
+
+        private final Comparison comparison;
+        private final LongExpression left;
+        private final LongExpression right;
+
+        CompareLong(Comparison comparison, LongExpression left, LongExpression right) {
+            this.comparison = comparison;
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        boolean evaluate() {
+            long l = left.evaluate();
+            if (left.isNull) {
+                isNull = true;
+                return false;
+            }
+            long r = right.evaluate();
+            if (right.isNull) {
+                isNull = true;
+                return false;
+            }
+            isNull = false;
+            return comparison.matches(Long.compare(l, r));
+        }
+
+        @Override
+        public void prepare(int capacity, List<Leaf> leaves) {
+            super.prepare(capacity, leaves);
+            left.prepare(capacity, leaves);
+            right.prepare(capacity, leaves);
+        }
+
+        @Override
+        public void evaluate(@Nullable int[] selection, int size) {
+            left.evaluate(selection, size);
+            right.evaluate(selection, size);
+            long[] l = left.values;
+            long[] r = right.values;
+            boolean[] leftNulls = left.nulls;
+            boolean[] rightNulls = right.nulls;
+            if (selection == null) {
+                // One loop per comparison, a switch within the loop would prevent the JIT from vectorizing it
+                switch (comparison) {
+                    case EQ:
+                        for (int i = 0; i < size; i++) {
+                            values[i] = l[i] == r[i];
+                        }
+                        break;
+                    case LT:
+                        for (int i = 0; i < size; i++) {
+                            values[i] = l[i] < r[i];
+                        }
+                        break;
+                    case LTE:
+                        for (int i = 0; i < size; i++) {
+                            values[i] = l[i] <= r[i];
+                        }
+                        break;
+                    case GT:
+                        for (int i = 0; i < size; i++) {
+                            values[i] = l[i] > r[i];
+                        }
+                        break;
+                    case GTE:
+                        for (int i = 0; i < size; i++) {
+                            values[i] = l[i] >= r[i];
+                        }
+                        break;
+                    default:
+                        throw new AssertionError("Unexpected comparison: " + comparison);
+                }
+                for (int i = 0; i < size; i++) {
+                    boolean isNull = leftNulls[i] | rightNulls[i];
+                    nulls[i] = isNull;
+                    values[i] &= !isNull;
+                }
+            } else {
+                for (int i = 0; i < size; i++) {
+                    int pos = selection[i];
+                    boolean isNull = leftNulls[pos] | rightNulls[pos];
+                    nulls[pos] = isNull;
+                    values[pos] = !isNull && comparison.matches(Long.compare(l[pos], r[pos]));
+                }
+            }
+        }
+
+        @Override
+        public String toString() {
+            return "(" + left + " " + comparison + " " + right + ")";
+        }
+    }
+
+    /**
+     * Uses {@link Double#compare(double, double)} like the interpreted operators which use
+     * {@link Double#compareTo(Double)} or {@link Double#equals(Object)}: NaN equals NaN and -0.0 is less than 0.0
+     */
+    static final class CompareDouble extends BooleanExpression {
+
+        private final Comparison comparison;
+        private final DoubleExpression left;
+        private final DoubleExpression right;
+
+        CompareDouble(Comparison comparison, DoubleExpression left, DoubleExpression right) {
+            this.comparison = comparison;
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        boolean evaluate() {
+            double l = left.evaluate();
+            if (left.isNull) {
+                isNull = true;
+                return false;
+            }
+            double r = right.evaluate();
+            if (right.isNull) {
+                isNull = true;
+                return false;
+            }
+            isNull = false;
+            return comparison.matches(Double.compare(l, r));
+        }
+
+        @Override
+        public void prepare(int capacity, List<Leaf> leaves) {
+            super.prepare(capacity, leaves);
+            left.prepare(capacity, leaves);
+            right.prepare(capacity, leaves);
+        }
+
+        @Override
+        public void evaluate(@Nullable int[] selection, int size) {
+            left.evaluate(selection, size);
+            right.evaluate(selection, size);
+            double[] l = left.values;
+            double[] r = right.values;
+            boolean[] leftNulls = left.nulls;
+            boolean[] rightNulls = right.nulls;
+            for (int i = 0; i < size; i++) {
+                int pos = selection == null ? i : selection[i];
+                boolean isNull = leftNulls[pos] | rightNulls[pos];
+                nulls[pos] = isNull;
+                values[pos] = !isNull && comparison.matches(Double.compare(l[pos], r[pos]));
+            }
+        }
+
+        @Override
+        public String toString() {
+            return "(" + left + " " + comparison + " " + right + ")";
+        }
+    }
+
+    /**
+     * Three valued AND, both sides are always evaluated like in {@link io.crate.expression.operator.AndOperator}
+     */
+    static final class And extends BooleanExpression {
+
+        private final BooleanExpression left;
+        private final BooleanExpression right;
+
+        And(BooleanExpression left, BooleanExpression right) {
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        boolean evaluate() {
+            boolean l = left.evaluate();
+            boolean r = right.evaluate();
+            if ((left.isNull == false && l == false) || (right.isNull == false && r == false)) {
+                isNull = false;
+                return false;
+            }
+            isNull = left.isNull || right.isNull;
+            return true;
+        }
+
+        @Override
+        public void prepare(int capacity, List<Leaf> leaves) {
+            super.prepare(capacity, leaves);
+            left.prepare(capacity, leaves);
+            right.prepare(capacity, leaves);
+        }
+
+        /**
+         * false if either side is false, otherwise null if either side is null.
+         * Null positions have the value false, so {@code l | ln} is false only for a definite false.
+         */
+        @Override
+        public void evaluate(@Nullable int[] selection, int size) {
+            left.evaluate(selection, size);
+            right.evaluate(selection, size);
+            boolean[] l = left.values;
+            boolean[] r = right.values;
+            boolean[] ln = left.nulls;
+            boolean[] rn = right.nulls;
+            if (selection == null) {
+                for (int i = 0; i < size; i++) {
+                    values[i] = l[i] & r[i];
+                    nulls[i] = (l[i] | ln[i]) & (r[i] | rn[i]) & (ln[i] | rn[i]);
+                }
+            } else {
+                for (int i = 0; i < size; i++) {
+                    int pos = selection[i];
+                    values[pos] = l[pos] & r[pos];
+                    nulls[pos] = (l[pos] | ln[pos]) & (r[pos] | rn[pos]) & (ln[pos] | rn[pos]);
+                }
+            }
+        }
+
+        @Override
+        public String toString() {
+            return "(" + left + " AND " + right + ")";
+        }
+    }
+
+    /**
+     * Three valued OR, both sides are always evaluated like in {@link io.crate.expression.operator.OrOperator}
+     */
+    static final class Or extends BooleanExpression {
+
+        private final BooleanExpression left;
+        private final BooleanExpression right;
+
+        Or(BooleanExpression left, BooleanExpression right) {
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        boolean evaluate() {
+            boolean l = left.evaluate();
+            boolean r = right.evaluate();
+            if ((left.isNull == false && l) || (right.isNull == false && r)) {
+                isNull = false;
+                return true;
+            }
+            isNull = left.isNull || right.isNull;
+            return false;
+        }
+
+        @Override
+        public void prepare(int capacity, List<Leaf> leaves) {
+            super.prepare(capacity, leaves);
+            left.prepare(capacity, leaves);
+            right.prepare(capacity, leaves);
+        }
+
+        /**
+         * true if either side is true, otherwise null if either side is null.
+         */
+        @Override
+        public void evaluate(@Nullable int[] selection, int size) {
+            left.evaluate(selection, size);
+            right.evaluate(selection, size);
+            boolean[] l = left.values;
+            boolean[] r = right.values;
+            boolean[] ln = left.nulls;
+            boolean[] rn = right.nulls;
+            if (selection == null) {
+                for (int i = 0; i < size; i++) {
+                    boolean value = l[i] | r[i];
+                    values[i] = value;
+                    nulls[i] = !value & (ln[i] | rn[i]);
+                }
+            } else {
+                for (int i = 0; i < size; i++) {
+                    int pos = selection[i];
+                    boolean value = l[pos] | r[pos];
+                    values[pos] = value;
+                    nulls[pos] = !value & (ln[pos] | rn[pos]);
+                }
+            }
+        }
+
+        @Override
+        public String toString() {
+            return "(" + left + " OR " + right + ")";
+        }
+    }
+
+    static final class Not extends BooleanExpression {
+
+        private final BooleanExpression arg;
+
+        Not(BooleanExpression arg) {
+            this.arg = arg;
+        }
+
+        @Override
+        boolean evaluate() {
+            boolean value = arg.evaluate();
+            isNull = arg.isNull;
+            return !value;
+        }
+
+        @Override
+        public void prepare(int capacity, List<Leaf> leaves) {
+            super.prepare(capacity, leaves);
+            arg.prepare(capacity, leaves);
+            nulls = arg.nulls;
+        }
+
+        @Override
+        public void evaluate(@Nullable int[] selection, int size) {
+            arg.evaluate(selection, size);
+            boolean[] argValues = arg.values;
+            if (selection == null) {
+                for (int i = 0; i < size; i++) {
+                    values[i] = !(argValues[i] | nulls[i]);
+                }
+            } else {
+                for (int i = 0; i < size; i++) {
+                    int pos = selection[i];
+                    values[pos] = !(argValues[pos] | nulls[pos]);
+                }
+            }
+        }
+
+        @Override
+        public String toString() {
+            return "NOT " + arg;
+        }
+    }
+
+    /**
+     * {@code IS NULL} of any value. If the argument is compiled its null flags are used, otherwise the argument
+     * is read as a leaf.
+     */
+    static final class IsNull extends BooleanExpression implements Vectorized.Leaf {
+
+        private final Input<?> arg;
+
+        IsNull(Input<?> arg) {
+            this.arg = arg;
+        }
+
+        @Override
+        boolean evaluate() {
+            isNull = false;
+            return arg.value() == null;
+        }
+
+        @Override
+        public void prepare(int capacity, List<Leaf> leaves) {
+            super.prepare(capacity, leaves);
+            if (arg instanceof Vectorized) {
+                ((Vectorized) arg).prepare(capacity, leaves);
+            } else {
+                leaves.add(this);
+            }
+        }
+
+        @Override
+        public void load(int position) {
+            values[position] = arg.value() == null;
+        }
+
+        @Override
+        public void evaluate(@Nullable int[] selection, int size) {
+            if (arg instanceof Vectorized) {
+                Vectorized vectorizedArg = (Vectorized) arg;
+                vectorizedArg.evaluate(selection, size);
+                boolean[] argNulls = vectorizedArg.nulls();
+                if (selection == null) {
+                    System.arraycopy(argNulls, 0, values, 0, size);
+                } else {
+                    for (int i = 0; i < size; i++) {
+                        int pos = selection[i];
+                        values[pos] = argNulls[pos];
+                    }
+                }
+            }
+        }
+
+        @Override
+        public String toString() {
+            return "(" + arg + " IS NULL)";
+        }
+    }
+}
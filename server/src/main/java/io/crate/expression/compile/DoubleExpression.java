@@ -0,0 +1,512 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.expression.compile;
+
+import io.crate.data.Input;
+
+import javax.annotation.Nullable;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A compiled expression with a {@code real} or {@code double precision} result.
+ *
+ * {@link #evaluate()} computes the result as primitive double and sets {@link #isNull} instead of boxing it,
+ * only {@link #value()} boxes the final result.
+ * {@code real} results are rounded to float after each operation, which gives the same results as
+ * float arithmetic for the supported operations.
+ */
+abstract class DoubleExpression implements Input<Number>, Vectorized {
+
+    final boolean isFloat;
+    boolean isNull;
+
+    double[] values;
+    boolean[] nulls;
+
+    DoubleExpression(boolean isFloat) {
+        this.isFloat = isFloat;
+    }
+
+    /**
+     * @return the result; only valid if {@link #isNull} is false afterwards.
+     */
+    abstract double evaluate();
+
+    @Override
+    public final Number value() {
+        double result = evaluate();
+        if (isNull) {
+            return null;
+        }
+        return isFloat ? (Number) (float) result : (Number) result;
+    }
+
+    @Override
+    public void prepare(int capacity, List<Leaf> leaves) {
+        if (values == null || values.length < capacity) {
+            values = new double[capacity];
+            nulls = new boolean[capacity];
+        }
+    }
+
+    @Override
+    public final boolean[] nulls() {
+        return nulls;
+    }
+
+    @Override
+    public final Object valueAt(int position) {
+        if (nulls[position]) {
+            return null;
+        }
+        double result = values[position];
+        return isFloat ? (Number) (float) result : (Number) result;
+    }
+
+    static final class Column extends DoubleExpression implements Vectorized.Leaf {
+
+        private final Input<?> input;
+
+        Column(Input<?> input, boolean isFloat) {
+            super(isFloat);
+            this.input = input;
+        }
+
+        @Override
+        double evaluate() {
+            Object value = input.value();
+            if (value == null) {
+                isNull = true;
+                return 0;
+            }
+            isNull = false;
+            return isFloat ? ((Number) value).floatValue() : ((Number) value).doubleValue();
+        }
+
+        @Override
+        public void prepare(int capacity, List<Leaf> leaves) {
+            super.prepare(capacity, leaves);
+            leaves.add(this);
+        }
+
+        @Override
+        public void load(int position) {
+            Object value = input.value();
+            nulls[position] = value == null;
+            if (value == null) {
+                values[position] = 0;
+            } else {
+                values[position] = isFloat ? ((Number) value).floatValue() : ((Number) value).doubleValue();
+            }
+        }
+
+        @Override
+        public void evaluate(@Nullable int[] selection, int size) {
+        }
+
+        @Override
+        public String toString() {
+            return input.toString();
+        }
+    }
+
+    static final class Constant extends DoubleExpression {
+
+        private final double value;
+
+        Constant(Number value, boolean isFloat) {
+            super(isFloat);
+            this.isNull = value == null;
+            this.value = value == null ? 0 : (isFloat ? value.floatValue() : value.doubleValue());
+        }
+
+        @Override
+        double evaluate() {
+            return value;
+        }
+
+        @Override
+        public void prepare(int capacity, List<Leaf> leaves) {
+            super.prepare(capacity, leaves);
+            Arrays.fill(values, value);
+            Arrays.fill(nulls, isNull);
+        }
+
+        @Override
+        public void evaluate(@Nullable int[] selection, int size) {
+        }
+
+        @Override
+        public String toString() {
+            return isNull ? "NULL" : Double.toString(value);
+        }
+    }
+
+    /**
+     * {@code real} to {@code double precision}, the value doesn't change.
+     */
+    static final class Widen extends DoubleExpression {
+
+        private final DoubleExpression arg;
+
+        Widen(DoubleExpression arg) {
+            super(false);
+            this.arg = arg;
+        }
+
+        @Override
+        double evaluate() {
+            double value = arg.evaluate();
+            isNull = arg.isNull;
+            return value;
+        }
+
+        @Override
+        public void prepare(int capacity, List<Leaf> leaves) {
+            arg.prepare(capacity, leaves);
+            values = arg.values;
+            nulls = arg.nulls;
+        }
+
+        @Override
+        public void evaluate(@Nullable int[] selection, int size) {
+            arg.evaluate(selection, size);
+        }
+
+        @Override
+        public String toString() {
+            return "double(" + arg + ")";
+        }
+    }
+
+    /**
+     * {@code integer} or {@code bigint} to {@code double precision}
+     */
+    static final class FromLong extends DoubleExpression {
+
+        private final LongExpression arg;
+
+        FromLong(LongExpression arg) {
+            super(false);
+            this.arg = arg;
+        }
+
+        @Override
+        double evaluate() {
+            long value = arg.evaluate();
+            isNull = arg.isNull;
+            return value;
+        }
+
+        @Override
+        public void prepare(int capacity, List<Leaf> leaves) {
+            super.prepare(capacity, leaves);
+            arg.prepare(capacity, leaves);
+            nulls = arg.nulls;
+        }
+
+        @Override
+        public void evaluate(@Nullable int[] selection, int size) {
+            arg.evaluate(selection, size);
+            long[] argValues = arg.values;
+            if (selection == null) {
+                for (int i = 0; i < size; i++) {
+                    values[i] = argValues[i];
+                }
+            } else {
+                for (int i = 0; i < size; i++) {
+                    int pos = selection[i];
+                    values[pos] = argValues[pos];
+                }
+            }
+        }
+
+        @Override
+        public String toString() {
+            return "double(" + arg + ")";
+        }
+    }
+
+    abstract static class Binary extends DoubleExpression {
+
+        private final DoubleExpression left;
+        private final DoubleExpression right;
+
+        Binary(DoubleExpression left, DoubleExpression right, boolean isFloat) {
+            super(isFloat);
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        final double evaluate() {
+            double l = left.evaluate();
+            if (left.isNull) {
+                isNull = true;
+                return 0;
+            }
+            double r = right.evaluate();
+            if (right.isNull) {
+                isNull = true;
+                return 0;
+            }
+            isNull = false;
+            double result = apply(l, r);
+            return isFloat ? (float) result : result;
+        }
+
+        @Override
+        public final void prepare(int capacity, List<Leaf> leaves) {
+            super.prepare(capacity, leaves);
+            left.prepare(capacity, leaves);
+            right.prepare(capacity, leaves);
+        }
+
+        @Override
+        public final void evaluate(@Nullable int[] selection, int size) {
+            left.evaluate(selection, size);
+            right.evaluate(selection, size);
+            boolean[] leftNulls = left.nulls;
+            boolean[] rightNulls = right.nulls;
+            if (selection == null) {
+                for (int i = 0; i < size; i++) {
+                    nulls[i] = leftNulls[i] | rightNulls[i];
+                }
+            } else {
+                for (int i = 0; i < size; i++) {
+                    int pos = selection[i];
+                    nulls[pos] = leftNulls[pos] | rightNulls[pos];
+                }
+            }
+            // Floating point operations can't fail, so null positions are computed as well to keep the loops simple
+            apply(left.values, right.values, selection, size);
+            if (isFloat) {
+                if (selection == null) {
+                    for (int i = 0; i < size; i++) {
+                        values[i] = (float) values[i];
+                    }
+                } else {
+                    for (int i = 0; i < size; i++) {
+                        int pos = selection[i];
+                        values[pos] = (float) values[pos];
+                    }
+                }
+            }
+        }
+
+        /**
+         * Computes {@link #values} for the selected positions, see {@link LongExpression.Binary}
+         */
+        abstract void apply(double[] left, double[] right, @Nullable int[] selection, int size);
+
+        abstract double apply(double left, double right);
+
+        abstract String operator();
+
+        @Override
+        public String toString() {
+            return "(" + left + " " + operator() + " " + right + ")";
+        }
+    }
+
+    static final class Add extends Binary {
+
+        Add(DoubleExpression left, DoubleExpression right, boolean isFloat) {
+            super(left, right, isFloat);
+        }
+
+        @Override
+        void apply(double[] left, double[] right, @Nullable int[] selection, int size) {
+            if (selection == null) {
+                for (int i = 0; i < size; i++) {
+                    values[i] = left[i] + right[i];
+                }
+            } else {
+                for (int i = 0; i < size; i++) {
+                    int pos = selection[i];
+                    values[pos] = left[pos] + right[pos];
+                }
+            }
+        }
+
+        @Override
+        double apply(double left, double right) {
+            return left + right;
+        }
+
+        @Override
+        String operator() {
+            return "+";
+        }
+    }
+
+    static final class Subtract extends Binary {
+
+        Subtract(DoubleExpression left, DoubleExpression right, boolean isFloat) {
+            super(left, right, isFloat);
+        }
+
+        @Override
+        void apply(double[] left, double[] right, @Nullable int[] selection, int size) {
+            if (selection == null) {
+                for (int i = 0; i < size; i++) {
+                    values[i] = left[i] - right[i];
+                }
+            } else {
+                for (int i = 0; i < size; i++) {
+                    int pos = selection[i];
+                    values[pos] = left[pos] - right[pos];
+                }
+            }
+        }
+
+        @Override
+        double apply(double left, double right) {
+            return left - right;
+        }
+
+        @Override
+        String operator() {
+            return "-";
+        }
+    }
+
+    static final class Multiply extends Binary {
+
+        Multiply(DoubleExpression left, DoubleExpression right, boolean isFloat) {
+            super(left, right, isFloat);
+        }
+
+        @Override
+        void apply(double[] left, double[] right, @Nullable int[] selection, int size) {
+            if (selection == null) {
+                for (int i = 0; i < size; i++) {
+                    values[i] = left[i] * right[i];
+                }
+            } else {
+                for (int i = 0; i < size; i++) {
+                    int pos = selection[i];
+                    values[pos] = left[pos] * right[pos];
+                }
+            }
+        }
+
+        @Override
+        double apply(double left, double right) {
+            return left * right;
+        }
+
+        @Override
+        String operator() {
+            return "*";
+        }
+    }
+
+    static final class Divide extends Binary {
+
+        Divide(DoubleExpression left, DoubleExpression right, boolean isFloat) {
+            super(left, right, isFloat);
+        }
+
+        @Override
+        void apply(double[] left, double[] right, @Nullable int[] selection, int size) {
+            if (selection == null) {
+                for (int i = 0; i < size; i++) {
+                    values[i] = left[i] / right[i];
+                }
+            } else {
+                for (int i = 0; i < size; i++) {
+                    int pos = selection[i];
+                    values[pos] = left[pos] / right[pos];
+                }
+            }
+        }
+
+        @Override
+        double apply(double left, double right) {
+            return left / right;
+        }
+
+        @Override
+        String operator() {
+            return "/";
+        }
+    }
+
+    static final class Modulus extends Binary {
+
+        Modulus(DoubleExpression left, DoubleExpression right, boolean isFloat) {
+            super(left, right, isFloat);
+        }
+
+        @Override
+        void apply(double[] left, double[] right, @Nullable int[] selection, int size) {
+            if (selection == null) {
+                for (int i = 0; i < size; i++) {
+                    values[i] = left[i] % right[i];
+                }
+            } else {
+                for (int i = 0; i < size; i++) {
+                    int pos = selection[i];
+                    values[pos] = left[pos] % right[pos];
+                }
+            }
+        }
+
+        @Override
+        double apply(double left, double right) {
+            return left % right;
+        }
+
+        @Override
+        String operator() {
+            return "%";
+        }
+    }
+
+    static final class Power extends Binary {
+
+        Power(DoubleExpression left, DoubleExpression right) {
+            super(left, right, false);
+        }
+
+        @Override
+        void apply(double[] left, double[] right, @Nullable int[] selection, int size) {
+            for (int i = 0; i < size; i++) {
+                int pos = selection == null ? i : selection[i];
+                values[pos] = Math.pow(left[pos], right[pos]);
+            }
+        }
+
+        @Override
+        double apply(double left, double right) {
+            return Math.pow(left, right);
+        }
+
+        @Override
+        String operator() {
+            return "^";
+        }
+    }
+}
@@ -0,0 +1,318 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.expression.compile;
+
+import io.crate.data.Input;
+import io.crate.expression.operator.AndOperator;
+import io.crate.expression.operator.EqOperator;
+import io.crate.expression.operator.GtOperator;
+import io.crate.expression.operator.GteOperator;
+import io.crate.expression.operator.LtOperator;
+import io.crate.expression.operator.LteOperator;
+import io.crate.expression.operator.OrOperator;
+import io.crate.expression.predicate.IsNullPredicate;
+import io.crate.expression.predicate.NotPredicate;
+import io.crate.expression.scalar.arithmetic.ArithmeticFunctions;
+import io.crate.expression.scalar.cast.ExplicitCastFunction;
+import io.crate.expression.scalar.cast.ImplicitCastFunction;
+import io.crate.expression.scalar.cast.TryCastFunction;
+import io.crate.expression.symbol.Function;
+import io.crate.expression.symbol.Literal;
+import io.crate.metadata.Scalar;
+import io.crate.metadata.functions.Signature;
+import io.crate.types.DataType;
+import io.crate.types.DoubleType;
+import io.crate.types.FloatType;
+import io.crate.types.IntegerType;
+import io.crate.types.LongType;
+import io.crate.types.TimestampType;
+
+import javax.annotation.Nullable;
+import java.util.List;
+
+/**
+ * Compiles arithmetic, comparison, logical, IS NULL and widening cast functions over numeric and boolean values
+ * into a tree of {@link LongExpression}, {@link DoubleExpression} and {@link BooleanExpression} nodes.
+ *
+ * <p>
+ * Other than a {@link io.crate.expression.FunctionExpression} tree, which calls
+ * {@link Scalar#evaluate(io.crate.metadata.TransactionContext, io.crate.metadata.NodeContext, Input[])} and boxes
+ * the result on every level, the compiled nodes pass primitive values to their parents. Each operation has its own
+ * node class, so the calls of a node to its children stay monomorphic and can be inlined by the JIT.
+ * Values are only boxed at the root and where a compiled node reads the value of an {@link Input} it didn't compile.
+ * </p>
+ *
+ * <p>
+ * The nodes have the same semantics as the interpreted functions, including overflow errors and three valued logic.
+ * Everything else is evaluated by the interpreter.
+ * </p>
+ *
+ * <p>
+ * The compiled nodes can also evaluate a batch of rows at once, see {@link VectorizedInputs}.
+ * </p>
+ */
+public final class ExpressionCompiler {
+
+    private enum Kind {
+        INTEGER,
+        LONG,
+        FLOAT,
+        DOUBLE
+    }
+
+    private ExpressionCompiler() {
+    }
+
+    /**
+     * @param scalar the function implementation
+     * @param arguments the already created inputs for the arguments of the function
+     * @return a compiled input or null if the function is not supported
+     */
+    @Nullable
+    public static Input<?> compile(Function function, Scalar<?, ?> scalar, Input<?>[] arguments) {
+        Signature signature = scalar.signature();
+        if (signature.getName().schema() != null) {
+            return null;
+        }
+        List<DataType<?>> argumentTypes = scalar.boundSignature().getArgumentDataTypes();
+        String name = signature.getName().name();
+        switch (name) {
+            case ArithmeticFunctions.Names.ADD:
+            case ArithmeticFunctions.Names.SUBTRACT:
+            case ArithmeticFunctions.Names.MULTIPLY:
+            case ArithmeticFunctions.Names.DIVIDE:
+            case ArithmeticFunctions.Names.MODULUS:
+            case ArithmeticFunctions.Names.MOD:
+            case ArithmeticFunctions.Names.POWER:
+                return compileArithmetic(name, argumentTypes, arguments);
+
+            case EqOperator.NAME:
+                return compileComparison(BooleanExpression.Comparison.EQ, argumentTypes, arguments);
+            case LtOperator.NAME:
+                return compileComparison(BooleanExpression.Comparison.LT, argumentTypes, arguments);
+            case LteOperator.NAME:
+                return compileComparison(BooleanExpression.Comparison.LTE, argumentTypes, arguments);
+            case GtOperator.NAME:
+                return compileComparison(BooleanExpression.Comparison.GT, argumentTypes, arguments);
+            case GteOperator.NAME:
+                return compileComparison(BooleanExpression.Comparison.GTE, argumentTypes, arguments);
+
+            case AndOperator.NAME:
+                return new BooleanExpression.And(asBoolean(arguments[0]), asBoolean(arguments[1]));
+            case OrOperator.NAME:
+                return new BooleanExpression.Or(asBoolean(arguments[0]), asBoolean(arguments[1]));
+            case NotPredicate.NAME:
+                return new BooleanExpression.Not(asBoolean(arguments[0]));
+            case IsNullPredicate.NAME:
+                return new BooleanExpression.IsNull(arguments[0]);
+
+            case ImplicitCastFunction.NAME:
+            case ExplicitCastFunction.NAME:
+            case TryCastFunction.NAME:
+                return compileCast(argumentTypes.get(0), function.valueType(), arguments[0]);
+
+            default:
+                return null;
+        }
+    }
+
+    @Nullable
+    private static Input<?> compileArithmetic(String name, List<DataType<?>> argumentTypes, Input<?>[] arguments) {
+        Kind kind = binaryKind(argumentTypes);
+        if (kind == null) {
+            return null;
+        }
+        switch (kind) {
+            case INTEGER:
+            case LONG: {
+                boolean isInteger = kind == Kind.INTEGER;
+                LongExpression left = asLong(arguments[0], isInteger);
+                LongExpression right = asLong(arguments[1], isInteger);
+                switch (name) {
+                    case ArithmeticFunctions.Names.ADD:
+                        return new LongExpression.Add(left, right, isInteger);
+                    case ArithmeticFunctions.Names.SUBTRACT:
+                        return new LongExpression.Subtract(left, right, isInteger);
+                    case ArithmeticFunctions.Names.MULTIPLY:
+                        return new LongExpression.Multiply(left, right, isInteger);
+                    case ArithmeticFunctions.Names.DIVIDE:
+                        return new LongExpression.Divide(left, right, isInteger);
+                    case ArithmeticFunctions.Names.MODULUS:
+                    case ArithmeticFunctions.Names.MOD:
+                        return new LongExpression.Modulus(left, right, isInteger);
+                    default:
+                        return null;
+                }
+            }
+
+            case FLOAT:
+            case DOUBLE: {
+                boolean isFloat = kind == Kind.FLOAT;
+                DoubleExpression left = asDouble(arguments[0], isFloat);
+                DoubleExpression right = asDouble(arguments[1], isFloat);
+                switch (name) {
+                    case ArithmeticFunctions.Names.ADD:
+                        return new DoubleExpression.Add(left, right, isFloat);
+                    case ArithmeticFunctions.Names.SUBTRACT:
+                        return new DoubleExpression.Subtract(left, right, isFloat);
+                    case ArithmeticFunctions.Names.MULTIPLY:
+                        return new DoubleExpression.Multiply(left, right, isFloat);
+                    case ArithmeticFunctions.Names.DIVIDE:
+                        return new DoubleExpression.Divide(left, right, isFloat);
+                    case ArithmeticFunctions.Names.MODULUS:
+                    case ArithmeticFunctions.Names.MOD:
+                        return new DoubleExpression.Modulus(left, right, isFloat);
+                    case ArithmeticFunctions.Names.POWER:
+                        return isFloat ? null : new DoubleExpression.Power(left, right);
+                    default:
+                        return null;
+                }
+            }
+
+            default:
+                return null;
+        }
+    }
+
+    @Nullable
+    private static Input<?> compileComparison(BooleanExpression.Comparison comparison,
+                                              List<DataType<?>> argumentTypes,
+                                              Input<?>[] arguments) {
+        Kind kind = binaryKind(argumentTypes);
+        if (kind == null) {
+            return null;
+        }
+        switch (kind) {
+            case INTEGER:
+            case LONG: {
+                boolean isInteger = kind == Kind.INTEGER;
+                return new BooleanExpression.CompareLong(
+                    comparison,
+                    asLong(arguments[0], isInteger),
+                    asLong(arguments[1], isInteger)
+                );
+            }
+
+            case FLOAT:
+            case DOUBLE: {
+                boolean isFloat = kind == Kind.FLOAT;
+                return new BooleanExpression.CompareDouble(
+                    comparison,
+                    asDouble(arguments[0], isFloat),
+                    asDouble(arguments[1], isFloat)
+                );
+            }
+
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Only widening casts are compiled, they can't fail or lose precision.
+     */
+    @Nullable
+    private static Input<?> compileCast(DataType<?> sourceType, DataType<?> targetType, Input<?> argument) {
+        Kind source = kind(sourceType);
+        if (source == null) {
+            return null;
+        }
+        switch (targetType.id()) {
+            case LongType.ID:
+                return source == Kind.INTEGER ? new LongExpression.Widen(asLong(argument, true)) : null;
+
+            case DoubleType.ID:
+                switch (source) {
+                    case INTEGER:
+                        return new DoubleExpression.FromLong(asLong(argument, true));
+                    case LONG:
+                        return sourceType.id() == LongType.ID
+                            ? new DoubleExpression.FromLong(asLong(argument, false))
+                            : null;
+                    case FLOAT:
+                        return new DoubleExpression.Widen(asDouble(argument, true));
+                    default:
+                        return null;
+                }
+
+            default:
+                return null;
+        }
+    }
+
+    @Nullable
+    private static Kind binaryKind(List<DataType<?>> argumentTypes) {
+        if (argumentTypes.size() != 2 || argumentTypes.get(0).id() != argumentTypes.get(1).id()) {
+            return null;
+        }
+        return kind(argumentTypes.get(0));
+    }
+
+    @Nullable
+    private static Kind kind(DataType<?> type) {
+        switch (type.id()) {
+            case IntegerType.ID:
+                return Kind.INTEGER;
+            case LongType.ID:
+            case TimestampType.ID_WITH_TZ:
+            case TimestampType.ID_WITHOUT_TZ:
+                return Kind.LONG;
+            case FloatType.ID:
+                return Kind.FLOAT;
+            case DoubleType.ID:
+                return Kind.DOUBLE;
+            default:
+                return null;
+        }
+    }
+
+    private static LongExpression asLong(Input<?> input, boolean isInteger) {
+        if (input instanceof LongExpression && ((LongExpression) input).isInteger == isInteger) {
+            return (LongExpression) input;
+        }
+        if (input instanceof Literal) {
+            return new LongExpression.Constant((Number) input.value(), isInteger);
+        }
+        return new LongExpression.Column(input, isInteger);
+    }
+
+    private static DoubleExpression asDouble(Input<?> input, boolean isFloat) {
+        if (input instanceof DoubleExpression && ((DoubleExpression) input).isFloat == isFloat) {
+            return (DoubleExpression) input;
+        }
+        if (input instanceof Literal) {
+            return new DoubleExpression.Constant((Number) input.value(), isFloat);
+        }
+        return new DoubleExpression.Column(input, isFloat);
+    }
+
+    private static BooleanExpression asBoolean(Input<?> input) {
+        if (input instanceof BooleanExpression) {
+            return (BooleanExpression) input;
+        }
+        if (input instanceof Literal) {
+            return new BooleanExpression.Constant((Boolean) input.value());
+        }
+        return new BooleanExpression.Column(input);
+    }
+}
@@ -0,0 +1,453 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.expression.compile;
+
+import io.crate.data.Input;
+
+import javax.annotation.Nullable;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A compiled expression with an {@code integer}, {@code bigint} or {@code timestamp} result.
+ *
+ * {@link #evaluate()} computes the result as primitive long and sets {@link #isNull} instead of boxing it,
+ * only {@link #value()} boxes the final result.
+ * {@code integer} results are computed with {@code int} semantics (overflow and truncation).
+ */
+abstract class LongExpression implements Input<Number>, Vectorized {
+
+    final boolean isInteger;
+    boolean isNull;
+
+    long[] values;
+    boolean[] nulls;
+
+    LongExpression(boolean isInteger) {
+        this.isInteger = isInteger;
+    }
+
+    /**
+     * @return the result; only valid if {@link #isNull} is false afterwards.
+     */
+    abstract long evaluate();
+
+    @Override
+    public final Number value() {
+        long result = evaluate();
+        if (isNull) {
+            return null;
+        }
+        return isInteger ? (Number) (int) result : (Number) result;
+    }
+
+    @Override
+    public void prepare(int capacity, List<Leaf> leaves) {
+        if (values == null || values.length < capacity) {
+            values = new long[capacity];
+            nulls = new boolean[capacity];
+        }
+    }
+
+    @Override
+    public final boolean[] nulls() {
+        return nulls;
+    }
+
+    @Override
+    public final Object valueAt(int position) {
+        if (nulls[position]) {
+            return null;
+        }
+        long result = values[position];
+        return isInteger ? (Number) (int) result : (Number) result;
+    }
+
+    static final class Column extends LongExpression implements Vectorized.Leaf {
+
+        private final Input<?> input;
+
+        Column(Input<?> input, boolean isInteger) {
+            super(isInteger);
+            this.input = input;
+        }
+
+        @Override
+        long evaluate() {
+            Object value = input.value();
+            if (value == null) {
+                isNull = true;
+                return 0;
+            }
+            isNull = false;
+            return isInteger ? ((Number) value).intValue() : ((Number) value).longValue();
+        }
+
+        @Override
+        public void prepare(int capacity, List<Leaf> leaves) {
+            super.prepare(capacity, leaves);
+            leaves.add(this);
+        }
+
+        @Override
+        public void load(int position) {
+            Object value = input.value();
+            nulls[position] = value == null;
+            if (value == null) {
+                values[position] = 0;
+            } else {
+                values[position] = isInteger ? ((Number) value).intValue() : ((Number) value).longValue();
+            }
+        }
+
+        @Override
+        public void evaluate(@Nullable int[] selection, int size) {
+        }
+
+        @Override
+        public String toString() {
+            return input.toString();
+        }
+    }
+
+    static final class Constant extends LongExpression {
+
+        private final long value;
+
+        Constant(Number value, boolean isInteger) {
+            super(isInteger);
+            this.isNull = value == null;
+            this.value = value == null ? 0 : (isInteger ? value.intValue() : value.longValue());
+        }
+
+        @Override
+        long evaluate() {
+            return value;
+        }
+
+        @Override
+        public void prepare(int capacity, List<Leaf> leaves) {
+            super.prepare(capacity, leaves);
+            Arrays.fill(values, value);
+            Arrays.fill(nulls, isNull);
+        }
+
+        @Override
+        public void evaluate(@Nullable int[] selection, int size) {
+        }
+
+        @Override
+        public String toString() {
+            return isNull ? "NULL" : Long.toString(value);
+        }
+    }
+
+    /**
+     * {@code integer} to {@code bigint}, the value doesn't change.
+     */
+    static final class Widen extends LongExpression {
+
+        private final LongExpression arg;
+
+        Widen(LongExpression arg) {
+            super(false);
+            this.arg = arg;
+        }
+
+        @Override
+        long evaluate() {
+            long value = arg.evaluate();
+            isNull = arg.isNull;
+            return value;
+        }
+
+        @Override
+        public void prepare(int capacity, List<Leaf> leaves) {
+            arg.prepare(capacity, leaves);
+            values = arg.values;
+            nulls = arg.nulls;
+        }
+
+        @Override
+        public void evaluate(@Nullable int[] selection, int size) {
+            arg.evaluate(selection, size);
+        }
+
+        @Override
+        public String toString() {
+            return "bigint(" + arg + ")";
+        }
+    }
+
+    abstract static class Binary extends LongExpression {
+
+        private final LongExpression left;
+        private final LongExpression right;
+
+        Binary(LongExpression left, LongExpression right, boolean isInteger) {
+            super(isInteger);
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        final long evaluate() {
+            long l = left.evaluate();
+            if (left.isNull) {
+                isNull = true;
+                return 0;
+            }
+            long r = right.evaluate();
+            if (right.isNull) {
+                isNull = true;
+                return 0;
+            }
+            isNull = false;
+            try {
+                return isInteger ? apply((int) l, (int) r) : apply(l, r);
+            } catch (ArithmeticException e) {
+                // Same as the interpreted arithmetic functions
+                throw new IllegalArgumentException(e.getMessage());
+            }
+        }
+
+        @Override
+        public final void prepare(int capacity, List<Leaf> leaves) {
+            super.prepare(capacity, leaves);
+            left.prepare(capacity, leaves);
+            right.prepare(capacity, leaves);
+        }
+
+        @Override
+        public final void evaluate(@Nullable int[] selection, int size) {
+            left.evaluate(selection, size);
+            right.evaluate(selection, size);
+            boolean[] leftNulls = left.nulls;
+            boolean[] rightNulls = right.nulls;
+            if (selection == null) {
+                for (int i = 0; i < size; i++) {
+                    nulls[i] = leftNulls[i] | rightNulls[i];
+                }
+            } else {
+                for (int i = 0; i < size; i++) {
+                    int pos = selection[i];
+                    nulls[pos] = leftNulls[pos] | rightNulls[pos];
+                }
+            }
+            try {
+                apply(left.values, right.values, selection, size);
+            } catch (ArithmeticException e) {
+                throw new IllegalArgumentException(e.getMessage());
+            }
+        }
+
+        /**
+         * Computes {@link #values} for the selected positions; null positions must be skipped and set to 0.
+         *
+         * Each operation implements the loop itself, so that the call to {@code apply} within the loop is
+         * monomorphic and can be inlined.
+         */
+        abstract void apply(long[] left, long[] right, @Nullable int[] selection, int size);
+
+        abstract int apply(int left, int right);
+
+        abstract long apply(long left, long right);
+
+        abstract String operator();
+
+        @Override
+        public String toString() {
+            return "(" + left + " " + operator() + " " + right + ")";
+        }
+    }
+
+    static final class Add extends Binary {
+
+        Add(LongExpression left, LongExpression right, boolean isInteger) {
+            super(left, right, isInteger);
+        }
+
+        @Override
+        void apply(long[] left, long[] right, @Nullable int[] selection, int size) {
+            for (int i = 0; i < size; i++) {
+                int pos = selection == null ? i : selection[i];
+                if (nulls[pos]) {
+                    values[pos] = 0;
+                } else {
+                    values[pos] = isInteger ? apply((int) left[pos], (int) right[pos]) : apply(left[pos], right[pos]);
+                }
+            }
+        }
+
+        @Override
+        int apply(int left, int right) {
+            return Math.addExact(left, right);
+        }
+
+        @Override
+        long apply(long left, long right) {
+            return Math.addExact(left, right);
+        }
+
+        @Override
+        String operator() {
+            return "+";
+        }
+    }
+
+    static final class Subtract extends Binary {
+
+        Subtract(LongExpression left, LongExpression right, boolean isInteger) {
+            super(left, right, isInteger);
+        }
+
+        @Override
+        void apply(long[] left, long[] right, @Nullable int[] selection, int size) {
+            for (int i = 0; i < size; i++) {
+                int pos = selection == null ? i : selection[i];
+                if (nulls[pos]) {
+                    values[pos] = 0;
+                } else {
+                    values[pos] = isInteger ? apply((int) left[pos], (int) right[pos]) : apply(left[pos], right[pos]);
+                }
+            }
+        }
+
+        @Override
+        int apply(int left, int right) {
+            return Math.subtractExact(left, right);
+        }
+
+        @Override
+        long apply(long left, long right) {
+            return Math.subtractExact(left, right);
+        }
+
+        @Override
+        String operator() {
+            return "-";
+        }
+    }
+
+    static final class Multiply extends Binary {
+
+        Multiply(LongExpression left, LongExpression right, boolean isInteger) {
+            super(left, right, isInteger);
+        }
+
+        @Override
+        void apply(long[] left, long[] right, @Nullable int[] selection, int size) {
+            for (int i = 0; i < size; i++) {
+                int pos = selection == null ? i : selection[i];
+                if (nulls[pos]) {
+                    values[pos] = 0;
+                } else {
+                    values[pos] = isInteger ? apply((int) left[pos], (int) right[pos]) : apply(left[pos], right[pos]);
+                }
+            }
+        }
+
+        @Override
+        int apply(int left, int right) {
+            return Math.multiplyExact(left, right);
+        }
+
+        @Override
+        long apply(long left, long right) {
+            return Math.multiplyExact(left, right);
+        }
+
+        @Override
+        String operator() {
+            return "*";
+        }
+    }
+
+    static final class Divide extends Binary {
+
+        Divide(LongExpression left, LongExpression right, boolean isInteger) {
+            super(left, right, isInteger);
+        }
+
+        @Override
+        void apply(long[] left, long[] right, @Nullable int[] selection, int size) {
+            for (int i = 0; i < size; i++) {
+                int pos = selection == null ? i : selection[i];
+                if (nulls[pos]) {
+                    values[pos] = 0;
+                } else {
+                    values[pos] = isInteger ? apply((int) left[pos], (int) right[pos]) : apply(left[pos], right[pos]);
+                }
+            }
+        }
+
+        @Override
+        int apply(int left, int right) {
+            return left / right;
+        }
+
+        @Override
+        long apply(long left, long right) {
+            return left / right;
+        }
+
+        @Override
+        String operator() {
+            return "/";
+        }
+    }
+
+    static final class Modulus extends Binary {
+
+        Modulus(LongExpression left, LongExpression right, boolean isInteger) {
+            super(left, right, isInteger);
+        }
+
+        @Override
+        void apply(long[] left, long[] right, @Nullable int[] selection, int size) {
+            for (int i = 0; i < size; i++) {
+                int pos = selection == null ? i : selection[i];
+                if (nulls[pos]) {
+                    values[pos] = 0;
+                } else {
+                    values[pos] = isInteger ? apply((int) left[pos], (int) right[pos]) : apply(left[pos], right[pos]);
+                }
+            }
+        }
+
+        @Override
+        int apply(int left, int right) {
+            return left % right;
+        }
+
+        @Override
+        long apply(long left, long right) {
+            return left % right;
+        }
+
+        @Override
+        String operator() {
+            return "%";
+        }
+    }
+}
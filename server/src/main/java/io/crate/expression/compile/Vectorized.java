@@ -0,0 +1,65 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.expression.compile;
+
+import javax.annotation.Nullable;
+import java.util.List;
+
+/**
+ * Batch at a time evaluation of a compiled expression, see {@link VectorizedInputs}.
+ *
+ * Every node owns primitive vectors for its results and null flags, indexed by the position of a row in the batch.
+ * A node evaluates its children for the whole batch and then computes its own vector in a single loop, so the
+ * per row overhead is a few array accesses. Null positions hold {@code 0} or {@code false}.
+ */
+interface Vectorized {
+
+    /**
+     * Allocates the vectors for batches of up to {@code capacity} rows and adds the nodes which read their values
+     * from the current row to {@code leaves}.
+     */
+    void prepare(int capacity, List<Leaf> leaves);
+
+    /**
+     * Computes the vectors for the given positions, the leaves must have been loaded before.
+     *
+     * @param selection the positions to evaluate, or null to evaluate the positions {@code 0} to {@code size - 1}
+     * @param size the number of positions
+     */
+    void evaluate(@Nullable int[] selection, int size);
+
+    boolean[] nulls();
+
+    /**
+     * @return the boxed result at the given position
+     */
+    Object valueAt(int position);
+
+    interface Leaf {
+
+        /**
+         * Reads the value of the current row into the given position
+         */
+        void load(int position);
+    }
+}
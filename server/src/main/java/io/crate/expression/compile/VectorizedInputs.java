@@ -0,0 +1,169 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.expression.compile;
+
+import io.crate.data.Input;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Evaluates the compiled inputs of a list of inputs for a batch of rows at once.
+ *
+ * Usage:
+ * <pre>
+ *     for each row at position p in the batch:
+ *         set the row on the collect expressions
+ *         load(p)
+ *     evaluate(numRows)
+ *     for each position p:
+ *         position(p)
+ *         outputs().get(i).value()
+ * </pre>
+ *
+ * The values of the rows are read once by the leaves of the compiled trees, afterwards every node computes its
+ * result for all rows of the batch in a simple loop over primitive arrays. The loops of the floating point
+ * arithmetic, the comparisons of integral values and the logical operators can be vectorized by the JIT.
+ *
+ * Inputs which are not compiled are evaluated row by row when their value is read, so the collect expressions
+ * must be set to the row of the current position.
+ */
+public final class VectorizedInputs {
+
+    public static final int BATCH_SIZE = 1024;
+
+    private final Vectorized[] vectorized;
+    private final List<Vectorized.Leaf> leaves = new ArrayList<>();
+    private final List<Input<?>> outputs;
+    private final int[] singlePosition = new int[1];
+    private final boolean fullyCompiled;
+    private int position = 0;
+
+    /**
+     * @return the vectorized inputs or null if none of the inputs is compiled
+     */
+    @Nullable
+    public static VectorizedInputs of(List<? extends Input<?>> inputs) {
+        for (Input<?> input : inputs) {
+            if (input instanceof Vectorized) {
+                return new VectorizedInputs(inputs);
+            }
+        }
+        return null;
+    }
+
+    private VectorizedInputs(List<? extends Input<?>> inputs) {
+        vectorized = new Vectorized[inputs.size()];
+        outputs = new ArrayList<>(inputs.size());
+        boolean fullyCompiled = true;
+        for (int i = 0; i < inputs.size(); i++) {
+            Input<?> input = inputs.get(i);
+            if (input instanceof Vectorized) {
+                Vectorized node = (Vectorized) input;
+                node.prepare(BATCH_SIZE, leaves);
+                vectorized[i] = node;
+                outputs.add(() -> node.valueAt(position));
+            } else {
+                outputs.add(input);
+                fullyCompiled = false;
+            }
+        }
+        this.fullyCompiled = fullyCompiled;
+    }
+
+    /**
+     * Reads the values of the current row into the given position
+     */
+    public void load(int position) {
+        //noinspection ForLoopReplaceableByForEach // avoids iterator allocation - load is invoked per row
+        for (int i = 0; i < leaves.size(); i++) {
+            leaves.get(i).load(position);
+        }
+    }
+
+    /**
+     * Evaluates the compiled inputs for the loaded positions {@code 0} to {@code size - 1}
+     */
+    public void evaluate(int size) {
+        assert size <= BATCH_SIZE : "size must not exceed BATCH_SIZE";
+        for (Vectorized node : vectorized) {
+            if (node != null) {
+                node.evaluate(null, size);
+            }
+        }
+    }
+
+    /**
+     * Evaluates the compiled inputs for a single loaded position.
+     *
+     * Used to find the rows which fail if the evaluation of a whole batch failed, see {@link #evaluate(int)}
+     */
+    public void evaluateAt(int position) {
+        singlePosition[0] = position;
+        for (Vectorized node : vectorized) {
+            if (node != null) {
+                node.evaluate(singlePosition, 1);
+            }
+        }
+    }
+
+    /**
+     * @return true if the input at the given index is a compiled boolean expression which can be used with
+     *         {@link #select(int, int, int[])}
+     */
+    public boolean isPredicate(int index) {
+        return vectorized[index] instanceof BooleanExpression;
+    }
+
+    /**
+     * Writes the evaluated positions for which the boolean input at the given index is {@code true}
+     * into {@code selection}.
+     *
+     * @return the number of selected positions
+     */
+    public int select(int index, int size, int[] selection) {
+        return ((BooleanExpression) vectorized[index]).select(size, selection);
+    }
+
+    /**
+     * @return true if all inputs are compiled; the {@link #outputs()} then don't read from the collect expressions
+     */
+    public boolean isFullyCompiled() {
+        return fullyCompiled;
+    }
+
+    /**
+     * Sets the position from which the {@link #outputs()} of the compiled inputs read their value
+     */
+    public void position(int position) {
+        this.position = position;
+    }
+
+    /**
+     * @return the inputs; the compiled inputs return the value at the current {@link #position(int)}
+     */
+    public List<Input<?>> outputs() {
+        return outputs;
+    }
+}
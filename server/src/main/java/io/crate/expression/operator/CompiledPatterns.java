@@ -0,0 +1,269 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.expression.operator;
+
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import io.crate.common.annotations.VisibleForTesting;
+import org.apache.lucene.util.automaton.ByteRunAutomaton;
+import org.apache.lucene.util.automaton.RegExp;
+
+import javax.annotation.Nullable;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+
+import static io.crate.expression.RegexpFlags.isPcrePattern;
+
+/**
+ * Compiles LIKE patterns and regular expressions into matchers.
+ *
+ * The matchers are cached per node, so that patterns which aren't literals (e.g. the pattern of {@code ANY(LIKE)})
+ * or patterns used by many queries don't have to be compiled on each evaluation.
+ *
+ * LIKE patterns which consist of literals and {@code %} only (exact, {@code prefix%}, {@code %suffix},
+ * {@code %infix%}, ...) are matched by scanning the characters of the value instead of using a regular expression.
+ */
+public final class CompiledPatterns {
+
+    @VisibleForTesting
+    static final int CACHE_SIZE = 1000;
+
+    private static final LoadingCache<String, Predicate<String>> LIKE =
+        newCache(pattern -> compileLike(pattern, false));
+    private static final LoadingCache<String, Predicate<String>> ILIKE =
+        newCache(pattern -> compileLike(pattern, true));
+    private static final LoadingCache<String, Predicate<String>> REGEXP =
+        newCache(CompiledPatterns::compileRegexp);
+    private static final LoadingCache<String, Predicate<String>> REGEXP_IGNORE_CASE =
+        newCache(CompiledPatterns::compileRegexpIgnoreCase);
+
+    private CompiledPatterns() {
+    }
+
+    private static LoadingCache<String, Predicate<String>> newCache(Function<String, Predicate<String>> compile) {
+        return CacheBuilder.newBuilder()
+            .maximumSize(CACHE_SIZE)
+            .build(new CacheLoader<>() {
+                @Override
+                public Predicate<String> load(String pattern) {
+                    return compile.apply(pattern);
+                }
+            });
+    }
+
+    private static Predicate<String> get(LoadingCache<String, Predicate<String>> cache, String pattern) {
+        try {
+            return cache.getUnchecked(pattern);
+        } catch (UncheckedExecutionException e) {
+            // Surface invalid patterns the same way as without cache
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * @return a cached matcher for a LIKE or ILIKE pattern using {@link LikeOperators#DEFAULT_ESCAPE}
+     */
+    public static Predicate<String> like(String pattern, boolean ignoreCase) {
+        return get(ignoreCase ? ILIKE : LIKE, pattern);
+    }
+
+    /**
+     * @return a cached matcher for a regular expression as used by the {@code ~} operator
+     */
+    public static Predicate<String> regexp(String pattern) {
+        return get(REGEXP, pattern);
+    }
+
+    /**
+     * @return a cached matcher for a regular expression as used by the {@code ~*} operator
+     */
+    public static Predicate<String> regexpIgnoreCase(String pattern) {
+        return get(REGEXP_IGNORE_CASE, pattern);
+    }
+
+    /**
+     * Compiles a LIKE pattern without caching it.
+     *
+     * Case insensitive matching only folds US-ASCII characters, like {@link Pattern#CASE_INSENSITIVE} does.
+     */
+    public static Predicate<String> compileLike(String pattern, boolean ignoreCase) {
+        LiteralSegments segments = LiteralSegments.parse(pattern, LikeOperators.DEFAULT_ESCAPE, ignoreCase);
+        if (segments != null) {
+            return segments;
+        }
+        int flags = ignoreCase ? Pattern.DOTALL | Pattern.CASE_INSENSITIVE : Pattern.DOTALL;
+        Pattern regex = Pattern.compile(LikeOperators.patternToRegex(pattern), flags);
+        return value -> regex.matcher(value).matches();
+    }
+
+    private static Predicate<String> compileRegexp(String pattern) {
+        if (isPcrePattern(pattern)) {
+            Pattern regex = Pattern.compile(pattern);
+            return value -> regex.matcher(value).matches();
+        }
+        ByteRunAutomaton automaton = new ByteRunAutomaton(new RegExp(pattern).toAutomaton());
+        return value -> {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            return automaton.run(bytes, 0, bytes.length);
+        };
+    }
+
+    private static Predicate<String> compileRegexpIgnoreCase(String pattern) {
+        Pattern regex = Pattern.compile(pattern, Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE);
+        return value -> regex.matcher(value).matches();
+    }
+
+    /**
+     * Matches a LIKE pattern without {@code _} wildcards.
+     *
+     * The value must start with the first and end with the last segment, the segments in between must appear
+     * in order and without overlapping. Finding the leftmost occurrence of each of them is sufficient for that.
+     */
+    @VisibleForTesting
+    static final class LiteralSegments implements Predicate<String> {
+
+        private final String[] segments;
+        private final boolean ignoreCase;
+        private final int minLength;
+
+        private LiteralSegments(List<String> segments, boolean ignoreCase) {
+            this.segments = segments.toArray(new String[0]);
+            this.ignoreCase = ignoreCase;
+            int length = 0;
+            for (String segment : segments) {
+                length += segment.length();
+            }
+            this.minLength = length;
+        }
+
+        /**
+         * @return the segments between the {@code %} wildcards of the pattern or null if the pattern contains
+         *         {@code _} wildcards or ends with an incomplete escape sequence.
+         */
+        @Nullable
+        static LiteralSegments parse(String pattern, char escapeChar, boolean ignoreCase) {
+            ArrayList<String> segments = new ArrayList<>();
+            StringBuilder segment = new StringBuilder(pattern.length());
+            boolean escaped = false;
+            for (int i = 0; i < pattern.length(); i++) {
+                char c = pattern.charAt(i);
+                if (escaped) {
+                    segment.append(c);
+                    escaped = false;
+                } else if (c == escapeChar) {
+                    escaped = true;
+                } else if (c == '%') {
+                    segments.add(segment.toString());
+                    segment.setLength(0);
+                } else if (c == '_') {
+                    return null;
+                } else {
+                    segment.append(c);
+                }
+            }
+            if (escaped) {
+                return null;
+            }
+            segments.add(segment.toString());
+            return new LiteralSegments(segments, ignoreCase);
+        }
+
+        @Override
+        public boolean test(String value) {
+            int length = value.length();
+            if (length < minLength) {
+                return false;
+            }
+            String first = segments[0];
+            if (segments.length == 1) {
+                return length == first.length() && regionMatches(value, 0, first);
+            }
+            String last = segments[segments.length - 1];
+            int end = length - last.length();
+            if (!regionMatches(value, 0, first) || !regionMatches(value, end, last)) {
+                return false;
+            }
+            int pos = first.length();
+            for (int i = 1; i < segments.length - 1; i++) {
+                String segment = segments[i];
+                int idx = indexOf(value, segment, pos, end);
+                if (idx < 0) {
+                    return false;
+                }
+                pos = idx + segment.length();
+            }
+            return true;
+        }
+
+        private boolean regionMatches(String value, int offset, String segment) {
+            if (!ignoreCase) {
+                return value.startsWith(segment, offset);
+            }
+            for (int i = 0; i < segment.length(); i++) {
+                if (!equalsIgnoreAsciiCase(value.charAt(offset + i), segment.charAt(i))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * @return the first position of segment within value[from:end] or -1
+         */
+        private int indexOf(String value, String segment, int from, int end) {
+            int lastStart = end - segment.length();
+            if (!ignoreCase) {
+                int idx = value.indexOf(segment, from);
+                return idx <= lastStart ? idx : -1;
+            }
+            for (int i = from; i <= lastStart; i++) {
+                if (regionMatches(value, i, segment)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        private static boolean equalsIgnoreAsciiCase(char a, char b) {
+            if (a == b) {
+                return true;
+            }
+            if (a >= 'A' && a <= 'Z') {
+                return a + ('a' - 'A') == b;
+            }
+            if (a >= 'a' && a <= 'z') {
+                return a - ('a' - 'A') == b;
+            }
+            return false;
+        }
+    }
+}
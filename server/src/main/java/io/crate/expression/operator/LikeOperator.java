@@ -29,7 +29,7 @@ import io.crate.metadata.TransactionContext;
 import io.crate.metadata.functions.Signature;
 
 import java.util.List;
-import java.util.regex.Pattern;
+import java.util.function.Predicate;
 
 public class LikeOperator extends Operator<String> {
 
@@ -87,12 +87,12 @@ public class LikeOperator extends Operator<String> {
     private static class CompiledLike extends Scalar<Boolean, String> {
         private final Signature signature;
         private final Signature boundSignature;
-        private final Pattern pattern;
+        private final Predicate<String> matcher;
 
         CompiledLike(Signature signature, Signature boundSignature, String pattern, int patternMatchingFlags) {
             this.signature = signature;
             this.boundSignature = boundSignature;
-            this.pattern = LikeOperators.makePattern(pattern, patternMatchingFlags);
+            this.matcher = CompiledPatterns.compileLike(pattern, LikeOperators.isCaseInsensitive(patternMatchingFlags));
         }
 
         @Override
@@ -112,7 +112,7 @@ public class LikeOperator extends Operator<String> {
             if (value == null) {
                 return null;
             }
-            return pattern.matcher(value).matches();
+            return matcher.test(value);
         }
     }
 }
@@ -92,7 +92,7 @@ public class LikeOperators {
                 new AnyLikeOperator(
                     signature,
                     boundSignature,
-                    LikeOperators::matches,
+                    false,
                     CASE_SENSITIVE
                 )
         );
@@ -107,7 +107,7 @@ public class LikeOperators {
                 new AnyLikeOperator(
                     signature,
                     boundSignature,
-                    TriPredicate.negate(LikeOperators::matches),
+                    true,
                     CASE_SENSITIVE
                 )
         );
@@ -122,7 +122,7 @@ public class LikeOperators {
                 new AnyLikeOperator(
                     signature,
                     boundSignature,
-                    LikeOperators::matches,
+                    false,
                     CASE_INSENSITIVE
                 )
         );
@@ -137,18 +137,18 @@ public class LikeOperators {
                 new AnyLikeOperator(
                     signature,
                     boundSignature,
-                    TriPredicate.negate(LikeOperators::matches),
+                    true,
                     CASE_INSENSITIVE
                 )
         );
     }
 
-    static final Pattern makePattern(String pattern, int flags) {
-        return Pattern.compile(patternToRegex(pattern, DEFAULT_ESCAPE, true), flags);
+    public static boolean isCaseInsensitive(int patternMatchingFlags) {
+        return (patternMatchingFlags & Pattern.CASE_INSENSITIVE) != 0;
     }
 
     static boolean matches(String expression, String pattern, int patternMatchingFlags) {
-        return makePattern(pattern, patternMatchingFlags).matcher(expression).matches();
+        return CompiledPatterns.like(pattern, isCaseInsensitive(patternMatchingFlags)).test(expression);
     }
 
     public static String patternToRegex(String patternString) {
@@ -195,6 +195,9 @@ public class LikeOperators {
                             case ')':
                             case '|':
                             case '+':
+                            case '?':
+                            case '{':
+                            case '}':
                                 regex.append('\\');
                                 break;
                             default:
@@ -28,7 +28,6 @@ import io.crate.metadata.functions.Signature;
 import io.crate.types.DataTypes;
 
 import java.util.List;
-import java.util.regex.Pattern;
 
 
 public class RegexpMatchCaseInsensitiveOperator extends Operator<String> {
@@ -71,9 +70,7 @@ public class RegexpMatchCaseInsensitiveOperator extends Operator<String> {
         if (pattern == null) {
             return null;
         }
-
-        Pattern p = Pattern.compile(pattern, Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE);
-        return p.matcher(source).matches();
+        return CompiledPatterns.regexpIgnoreCase(pattern).test(source);
     }
 
     @Override
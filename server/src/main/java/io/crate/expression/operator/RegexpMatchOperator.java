@@ -26,14 +26,9 @@ import io.crate.metadata.NodeContext;
 import io.crate.metadata.TransactionContext;
 import io.crate.metadata.functions.Signature;
 import io.crate.types.DataTypes;
-import org.apache.lucene.util.automaton.ByteRunAutomaton;
-import org.apache.lucene.util.automaton.RegExp;
 
-import java.nio.charset.StandardCharsets;
 import java.util.List;
 
-import static io.crate.expression.RegexpFlags.isPcrePattern;
-
 
 public class RegexpMatchOperator extends Operator<String> {
 
@@ -75,14 +70,7 @@ public class RegexpMatchOperator extends Operator<String> {
         if (pattern == null) {
             return null;
         }
-        if (isPcrePattern(pattern)) {
-            return source.matches(pattern);
-        } else {
-            RegExp regexp = new RegExp(pattern);
-            ByteRunAutomaton regexpRunAutomaton = new ByteRunAutomaton(regexp.toAutomaton());
-            byte[] bytes = source.getBytes(StandardCharsets.UTF_8);
-            return regexpRunAutomaton.run(bytes, 0, bytes.length);
-        }
+        return CompiledPatterns.regexp(pattern).test(source);
     }
 
     @Override
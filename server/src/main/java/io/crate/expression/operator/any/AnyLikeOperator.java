@@ -22,8 +22,9 @@
 package io.crate.expression.operator.any;
 
 import io.crate.data.Input;
+import io.crate.expression.operator.CompiledPatterns;
+import io.crate.expression.operator.LikeOperators;
 import io.crate.expression.operator.Operator;
-import io.crate.expression.operator.TriPredicate;
 import io.crate.metadata.NodeContext;
 import io.crate.metadata.TransactionContext;
 import io.crate.metadata.functions.Signature;
@@ -31,23 +32,25 @@ import io.crate.types.ArrayType;
 import io.crate.types.DataType;
 import io.crate.types.ObjectType;
 
+import java.util.function.Predicate;
+
 import static io.crate.expression.operator.any.AnyOperators.collectionValueToIterable;
 
 public class AnyLikeOperator extends Operator<Object> {
 
     private final Signature signature;
     private final Signature boundSignature;
-    private final TriPredicate<String, String, Integer> matcher;
-    private final int patternMatchingFlags;
+    private final boolean negate;
+    private final boolean ignoreCase;
 
     public AnyLikeOperator(Signature signature,
                            Signature boundSignature,
-                           TriPredicate<String, String, Integer> matcher,
+                           boolean negate,
                            int patternMatchingFlags) {
         this.signature = signature;
         this.boundSignature = boundSignature;
-        this.matcher = matcher;
-        this.patternMatchingFlags = patternMatchingFlags;
+        this.negate = negate;
+        this.ignoreCase = LikeOperators.isCaseInsensitive(patternMatchingFlags);
         DataType<?> innerType = ((ArrayType<?>) boundSignature.getArgumentDataTypes().get(1)).innerType();
         if (innerType.id() == ObjectType.ID) {
             throw new IllegalArgumentException("ANY on object arrays is not supported");
@@ -65,7 +68,8 @@ public class AnyLikeOperator extends Operator<Object> {
     }
 
     private Boolean doEvaluate(Object left, Iterable<?> rightIterable) {
-        String pattern = (String) left;
+        // The pattern is the same for all elements, so it is compiled once per row
+        Predicate<String> matcher = CompiledPatterns.like((String) left, ignoreCase);
         boolean hasNull = false;
         for (Object elem : rightIterable) {
             if (elem == null) {
@@ -74,7 +78,7 @@ public class AnyLikeOperator extends Operator<Object> {
             }
             assert elem instanceof String : "elem must be a String";
             String elemValue = (String) elem;
-            if (matcher.test(elemValue, pattern, patternMatchingFlags)) {
+            if (matcher.test(elemValue) != negate) {
                 return true;
             }
         }
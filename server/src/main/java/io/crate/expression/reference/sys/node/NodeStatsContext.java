@@ -32,6 +32,7 @@ import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.io.stream.Writeable;
 import org.elasticsearch.http.HttpStats;
+import org.elasticsearch.index.shard.TranslogSyncStats;
 import org.elasticsearch.monitor.fs.FsInfo;
 import org.elasticsearch.monitor.jvm.JvmStats;
 import org.elasticsearch.monitor.os.OsInfo;
@@ -62,6 +63,7 @@ public class NodeStatsContext implements Writeable {
     private ThreadPoolStats threadPools;
     private HttpStats httpStats;
     private ConnectionStats psqlStats;
+    private TranslogSyncStats translogSyncStats;
 
     private String osName;
     private String osArch;
@@ -195,6 +197,10 @@ public class NodeStatsContext implements Writeable {
         return psqlStats;
     }
 
+    public TranslogSyncStats translogSyncStats() {
+        return translogSyncStats;
+    }
+
     public long openTransportConnections() {
         return openTransportConnections;
     }
@@ -291,6 +297,10 @@ public class NodeStatsContext implements Writeable {
         this.psqlStats = psqlStats;
     }
 
+    public void translogSyncStats(TranslogSyncStats translogSyncStats) {
+        this.translogSyncStats = translogSyncStats;
+    }
+
     void openTransportConnections(long openTransportConnections) {
         this.openTransportConnections = openTransportConnections;
     }
@@ -326,6 +336,9 @@ public class NodeStatsContext implements Writeable {
         this.jvmName = DataTypes.STRING.readValueFrom(in);
         this.jvmVendor = DataTypes.STRING.readValueFrom(in);
         this.jvmVersion = DataTypes.STRING.readValueFrom(in);
+        if (in.getVersion().onOrAfter(Version.V_4_3_0)) {
+            this.translogSyncStats = in.readOptionalWriteable(TranslogSyncStats::new);
+        }
     }
 
     @Override
@@ -365,5 +378,8 @@ public class NodeStatsContext implements Writeable {
         DataTypes.STRING.writeValueTo(out, jvmName);
         DataTypes.STRING.writeValueTo(out, jvmVendor);
         DataTypes.STRING.writeValueTo(out, jvmVersion);
+        if (out.getVersion().onOrAfter(Version.V_4_3_0)) {
+            out.writeOptionalWriteable(translogSyncStats);
+        }
     }
 }
@@ -40,6 +40,8 @@ import org.elasticsearch.common.transport.BoundTransportAddress;
 import org.elasticsearch.common.transport.TransportAddress;
 import org.elasticsearch.http.HttpServerTransport;
 import org.elasticsearch.http.HttpStats;
+import org.elasticsearch.index.shard.TranslogSyncStats;
+import org.elasticsearch.indices.IndicesService;
 import org.elasticsearch.monitor.MonitorService;
 import org.elasticsearch.monitor.fs.FsService;
 import org.elasticsearch.monitor.jvm.JvmService;
@@ -79,6 +81,7 @@ public class NodeStatsContextFieldResolver {
     private final JvmService jvmService;
     private final FsService fsService;
     private final LongSupplier clusterStateVersion;
+    private final Supplier<TranslogSyncStats> translogSyncStats;
 
     @Inject
     @SuppressWarnings("unused")
@@ -88,7 +91,8 @@ public class NodeStatsContextFieldResolver {
                                          TransportService transportService,
                                          ThreadPool threadPool,
                                          ExtendedNodeInfo extendedNodeInfo,
-                                         PostgresNetty postgresNetty) {
+                                         PostgresNetty postgresNetty,
+                                         IndicesService indicesService) {
         this(
             clusterService::localNode,
             nodeService.getMonitorService(),
@@ -105,7 +109,8 @@ public class NodeStatsContextFieldResolver {
                 return boundTransportAddress.publishAddress();
             },
             () -> transportService.stats().getServerOpen(),
-            () -> clusterService.state().version()
+            () -> clusterService.state().version(),
+            () -> indicesService.getTranslogSyncTracker().stats()
         );
     }
 
@@ -119,7 +124,8 @@ public class NodeStatsContextFieldResolver {
                                   Supplier<ConnectionStats> psqlStats,
                                   Supplier<TransportAddress> boundPostgresAddress,
                                   LongSupplier numOpenTransportConnections,
-                                  LongSupplier clusterStateVersion) {
+                                  LongSupplier clusterStateVersion,
+                                  Supplier<TranslogSyncStats> translogSyncStats) {
         this.localNode = localNode;
         processService = monitorService.processService();
         osService = monitorService.osService();
@@ -133,6 +139,7 @@ public class NodeStatsContextFieldResolver {
         this.boundPostgresAddress = boundPostgresAddress;
         this.numOpenTransportConnections = numOpenTransportConnections;
         this.clusterStateVersion = clusterStateVersion;
+        this.translogSyncStats = translogSyncStats;
     }
 
     public NodeStatsContext forTopColumnIdents(Collection<ColumnIdent> topColumnIdents) {
@@ -266,5 +273,11 @@ public class NodeStatsContextFieldResolver {
             public void accept(NodeStatsContext context) {
                 context.fsInfo(fsService.stats());
             }
+        }),
+        entry(SysNodesTableInfo.Columns.TRANSLOG_SYNC, new Consumer<>() {
+            @Override
+            public void accept(NodeStatsContext context) {
+                context.translogSyncStats(translogSyncStats.get());
+            }
         }));
 }
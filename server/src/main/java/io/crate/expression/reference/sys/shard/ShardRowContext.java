@@ -322,6 +322,14 @@ public class ShardRowContext {
             : recoveryState.getIndex().recoveredBytesPercent();
     }
 
+    @Nullable
+    public Long recoverySizeRecoveredBytesPerSec() {
+        var recoveryState = indexShard.recoveryState();
+        return recoveryState == null
+            ? null
+            : recoveryState.getIndex().recoveredBytesPerSec();
+    }
+
     @Nullable
     public Integer recoveryFilesUsed() {
         var recoveryState = indexShard.recoveryState();
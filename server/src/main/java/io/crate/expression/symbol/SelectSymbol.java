@@ -26,6 +26,7 @@ import io.crate.analyze.relations.AnalyzedRelation;
 import io.crate.expression.symbol.format.Style;
 import io.crate.types.ArrayType;
 import io.crate.types.DataType;
+import io.crate.types.DataTypes;
 import org.elasticsearch.common.io.stream.StreamOutput;
 
 import java.io.IOException;
@@ -38,16 +39,26 @@ public class SelectSymbol extends Symbol {
     private final AnalyzedRelation relation;
     private final ArrayType<?> dataType;
     private final ResultType resultType;
+    private final boolean correlated;
 
     public enum ResultType {
         SINGLE_COLUMN_SINGLE_VALUE,
-        SINGLE_COLUMN_MULTIPLE_VALUES
+        SINGLE_COLUMN_MULTIPLE_VALUES,
+        /**
+         * The subquery of an EXISTS predicate; the value is true if the subquery returns at least one row
+         */
+        EXISTS
     }
 
     public SelectSymbol(AnalyzedRelation relation, ArrayType<?> dataType, ResultType resultType) {
+        this(relation, dataType, resultType, false);
+    }
+
+    public SelectSymbol(AnalyzedRelation relation, ArrayType<?> dataType, ResultType resultType, boolean correlated) {
         this.relation = relation;
         this.dataType = dataType;
         this.resultType = resultType;
+        this.correlated = correlated;
     }
 
     public AnalyzedRelation relation() {
@@ -74,6 +85,9 @@ public class SelectSymbol extends Symbol {
         if (resultType == ResultType.SINGLE_COLUMN_SINGLE_VALUE) {
             return dataType.innerType();
         }
+        if (resultType == ResultType.EXISTS) {
+            return DataTypes.BOOLEAN;
+        }
         return dataType;
     }
 
@@ -85,4 +99,12 @@ public class SelectSymbol extends Symbol {
     public ResultType getResultType() {
         return resultType;
     }
+
+    /**
+     * @return true if the subquery refers to columns of the relations of the parent query.
+     *         Such a subquery cannot be executed on its own, it must be rewritten into a join.
+     */
+    public boolean isCorrelated() {
+        return correlated;
+    }
 }
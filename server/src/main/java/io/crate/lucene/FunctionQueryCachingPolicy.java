@@ -0,0 +1,54 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.lucene;
+
+import org.apache.lucene.search.IndexOrDocValuesQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.UsageTrackingQueryCachingPolicy;
+
+/**
+ * A {@link UsageTrackingQueryCachingPolicy} which treats a {@link GenericFunctionQuery} as costly.
+ *
+ * A {@link GenericFunctionQuery} evaluates its function for every document of a segment. Its per-segment filter
+ * bitset is therefore cached as soon as the query is seen a second time, like range or multi term queries,
+ * instead of waiting for it to become one of the most frequently used queries.
+ *
+ * The costly check of {@link UsageTrackingQueryCachingPolicy} recognizes point queries by their class, so the
+ * range queries of columns with doc values, which are wrapped in an {@link IndexOrDocValuesQuery}, are judged by
+ * their index query.
+ */
+public class FunctionQueryCachingPolicy extends UsageTrackingQueryCachingPolicy {
+
+    private static final int MIN_FREQUENCY_COSTLY = 2;
+
+    @Override
+    protected int minFrequencyToCache(Query query) {
+        if (query instanceof GenericFunctionQuery) {
+            return MIN_FREQUENCY_COSTLY;
+        }
+        if (query instanceof IndexOrDocValuesQuery) {
+            return super.minFrequencyToCache(((IndexOrDocValuesQuery) query).getIndexQuery());
+        }
+        return super.minFrequencyToCache(query);
+    }
+}
@@ -0,0 +1,128 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.lucene;
+
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.PointValues;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.ConstantScoreQuery;
+import org.apache.lucene.search.IndexOrDocValuesQuery;
+import org.apache.lucene.search.MatchNoDocsQuery;
+import org.apache.lucene.search.PointRangeQuery;
+import org.apache.lucene.search.Query;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+
+/**
+ * Prunes a whole shard if a range the query requires on a point field is disjoint from the values of the shard.
+ *
+ * Lucene keeps the min and max value of the points of every segment, computed when the segment is written
+ * on refresh or merge. If none of the segments of a shard overlaps with the range, the query can't match and is
+ * replaced by a {@link MatchNoDocsQuery} before the collection starts. That avoids creating the weight and the
+ * scorers of the other clauses for every segment, e.g. a {@link GenericFunctionQuery} or the up-front count of
+ * an ordered collect.
+ */
+public final class PointRangePruning {
+
+    private PointRangePruning() {
+    }
+
+    /**
+     * @return a {@link MatchNoDocsQuery} if the query can't match any document of the reader, otherwise the query
+     */
+    public static Query prune(IndexReader reader, Query query) {
+        try {
+            if (isDisjoint(reader, query)) {
+                return new MatchNoDocsQuery("Shard contains no values within the range of " + query);
+            }
+            return query;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static boolean isDisjoint(IndexReader reader, Query query) throws IOException {
+        if (query instanceof PointRangeQuery) {
+            return isDisjoint(reader, (PointRangeQuery) query);
+        }
+        if (query instanceof IndexOrDocValuesQuery) {
+            return isDisjoint(reader, ((IndexOrDocValuesQuery) query).getIndexQuery());
+        }
+        if (query instanceof ConstantScoreQuery) {
+            return isDisjoint(reader, ((ConstantScoreQuery) query).getQuery());
+        }
+        if (query instanceof BooleanQuery) {
+            // a conjunction can't match if one of its required clauses can't match
+            for (BooleanClause clause : ((BooleanQuery) query).clauses()) {
+                if (clause.isRequired() && isDisjoint(reader, clause.getQuery())) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static boolean isDisjoint(IndexReader reader, PointRangeQuery query) throws IOException {
+        String field = query.getField();
+        int numDims = query.getNumDims();
+        int bytesPerDim = query.getBytesPerDim();
+        byte[] lowerPoint = query.getLowerPoint();
+        byte[] upperPoint = query.getUpperPoint();
+        for (LeafReaderContext leaf : reader.leaves()) {
+            PointValues values = leaf.reader().getPointValues(field);
+            if (values == null) {
+                // No document of the segment has a value for the field
+                continue;
+            }
+            if (values.getNumIndexDimensions() != numDims || values.getBytesPerDimension() != bytesPerDim) {
+                // Let the query deal with the mismatch
+                return false;
+            }
+            if (overlaps(values.getMinPackedValue(), values.getMaxPackedValue(), lowerPoint, upperPoint, numDims, bytesPerDim)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean overlaps(byte[] minPackedValue,
+                                    byte[] maxPackedValue,
+                                    byte[] lowerPoint,
+                                    byte[] upperPoint,
+                                    int numDims,
+                                    int bytesPerDim) {
+        for (int dim = 0; dim < numDims; dim++) {
+            int from = dim * bytesPerDim;
+            int to = from + bytesPerDim;
+            if (Arrays.compareUnsigned(lowerPoint, from, to, maxPackedValue, from, to) > 0
+                || Arrays.compareUnsigned(upperPoint, from, to, minPackedValue, from, to) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -96,8 +96,8 @@ public class ClassifiedMetrics implements Iterable<MetricsView> {
     private Metrics getOrCreate(Classification classification) {
         Metrics histogram = metrics.get(classification);
         if (histogram == null) {
-            histogram = new Metrics(classification);
-            metrics.put(classification, histogram);
+            // computeIfAbsent so that concurrent first recordings of a classification don't overwrite each other
+            histogram = metrics.computeIfAbsent(classification, Metrics::new);
         }
         return histogram;
     }
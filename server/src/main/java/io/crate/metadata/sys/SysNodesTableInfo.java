@@ -61,6 +61,7 @@ public class SysNodesTableInfo {
     private static final String SYS_COL_OS_INFO = "os_info";
     private static final String SYS_COL_PROCESS = "process";
     private static final String SYS_COL_FS = "fs";
+    private static final String SYS_COL_TRANSLOG_SYNC = "translog_sync";
 
     public static class Columns {
         public static final ColumnIdent ID = new ColumnIdent(SYS_COL_ID);
@@ -92,6 +93,8 @@ public class SysNodesTableInfo {
         public static final ColumnIdent PROCESS = new ColumnIdent(SYS_COL_PROCESS);
 
         public static final ColumnIdent FS = new ColumnIdent(SYS_COL_FS);
+
+        public static final ColumnIdent TRANSLOG_SYNC = new ColumnIdent(SYS_COL_TRANSLOG_SYNC);
     }
 
 
@@ -250,6 +253,11 @@ public class SysNodesTableInfo {
                     .add("path", STRING, FsInfo.Path::getPath)
                 .endObjectArray()
             .endObject()
+            .startObject("translog_sync")
+                .add("requests", LONG, x -> x.translogSyncStats().requests())
+                .add("fsyncs", LONG, x -> x.translogSyncStats().fsyncs())
+                .add("fsyncs_saved", LONG, x -> x.translogSyncStats().fsyncsSaved())
+            .endObject()
             .setPrimaryKeys(new ColumnIdent("id"))
             .build();
     }
@@ -94,6 +94,7 @@ public class SysShardsTableInfo {
         static final ColumnIdent SEQ_NO_STATS = new ColumnIdent("seq_no_stats");
         static final ColumnIdent TRANSLOG_STATS = new ColumnIdent("translog_stats");
         static final ColumnIdent RETENTION_LEASES = new ColumnIdent("retention_leases");
+        static final ColumnIdent QUERY_CACHE = new ColumnIdent("query_cache");
     }
 
     public static Map<ColumnIdent, RowCollectExpressionFactory<UnassignedShard>> unassignedShardsExpressions() {
@@ -116,7 +117,8 @@ public class SysShardsTableInfo {
             entry(Columns.NODE, NestedNullObjectExpression::new),
             entry(Columns.SEQ_NO_STATS, NestedNullObjectExpression::new),
             entry(Columns.TRANSLOG_STATS, NestedNullObjectExpression::new),
-            entry(Columns.RETENTION_LEASES, NestedNullObjectExpression::new)
+            entry(Columns.RETENTION_LEASES, NestedNullObjectExpression::new),
+            entry(Columns.QUERY_CACHE, NestedNullObjectExpression::new)
         );
     }
 
@@ -144,6 +146,7 @@ public class SysShardsTableInfo {
                     .add("reused", LONG, ShardRowContext::recoverySizeReused)
                     .add("recovered", LONG, ShardRowContext::recoverySizeRecoveredBytes)
                     .add("percent", DataTypes.FLOAT, ShardRowContext::recoverySizeRecoveredBytesPercent)
+                    .add("bytes_per_sec", LONG, ShardRowContext::recoverySizeRecoveredBytesPerSec)
                 .endObject()
 
                 .startObject("files")
@@ -183,6 +186,13 @@ public class SysShardsTableInfo {
                     .add("source", STRING, RetentionLease::source)
                 .endObjectArray()
             .endObject()
+            .startObject(Columns.QUERY_CACHE.name())
+                .add("hits", LONG, r -> r.indexShard().queryCacheStats().getHitCount())
+                .add("misses", LONG, r -> r.indexShard().queryCacheStats().getMissCount())
+                .add("entries", LONG, r -> r.indexShard().queryCacheStats().getCacheSize())
+                .add("evictions", LONG, r -> r.indexShard().queryCacheStats().getEvictions())
+                .add("size", LONG, r -> r.indexShard().queryCacheStats().getMemorySizeInBytes())
+            .endObject()
             .setPrimaryKeys(
                 Columns.SCHEMA_NAME,
                 Columns.TABLE_NAME,
@@ -72,16 +72,46 @@ public class HashJoin implements LogicalPlan {
     private final List<Symbol> outputs;
     final LogicalPlan rhs;
     final LogicalPlan lhs;
+    private final boolean hasRuntimeFilter;
 
     public HashJoin(LogicalPlan lhs,
                     LogicalPlan rhs,
                     Symbol joinCondition,
                     AnalyzedRelation concreteRelation) {
+        this(lhs, rhs, joinCondition, concreteRelation, false);
+    }
+
+    private HashJoin(LogicalPlan lhs,
+                     LogicalPlan rhs,
+                     Symbol joinCondition,
+                     AnalyzedRelation concreteRelation,
+                     boolean hasRuntimeFilter) {
         this.outputs = Lists2.concat(lhs.outputs(), rhs.outputs());
         this.lhs = lhs;
         this.rhs = rhs;
         this.concreteRelation = concreteRelation;
         this.joinCondition = joinCondition;
+        this.hasRuntimeFilter = hasRuntimeFilter;
+    }
+
+    /**
+     * @return a HashJoin with new sources, one of them filtered by the join keys of the other.
+     *         {@link #hasRuntimeFilter()} of the new HashJoin is true.
+     */
+    public HashJoin withRuntimeFilter(LogicalPlan newLhs, LogicalPlan newRhs) {
+        return new HashJoin(newLhs, newRhs, joinCondition, concreteRelation, true);
+    }
+
+    public boolean hasRuntimeFilter() {
+        return hasRuntimeFilter;
+    }
+
+    /**
+     * @return the symbols of the equi-join conditions of the lhs (v1) and the rhs (v2);
+     *         the symbols at the same position form a condition.
+     */
+    public Tuple<List<Symbol>, List<Symbol>> joinKeys() {
+        return extractHashJoinSymbolsFromJoinSymbolsAndSplitPerSide(false);
     }
 
     public JoinType joinType() {
@@ -233,7 +263,8 @@ public class HashJoin implements LogicalPlan {
             sources.get(0),
             sources.get(1),
             joinCondition,
-            concreteRelation
+            concreteRelation,
+            hasRuntimeFilter
         );
     }
 
@@ -256,7 +287,8 @@ public class HashJoin implements LogicalPlan {
             newLhs,
             newRhs,
             joinCondition,
-            concreteRelation
+            concreteRelation,
+            hasRuntimeFilter
         );
     }
 
@@ -287,7 +319,8 @@ public class HashJoin implements LogicalPlan {
                 lhsFetchRewrite.newPlan(),
                 rhsFetchRewrite.newPlan(),
                 joinCondition,
-                concreteRelation
+                concreteRelation,
+                hasRuntimeFilter
             )
         );
     }
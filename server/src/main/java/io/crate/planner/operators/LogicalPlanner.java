@@ -22,6 +22,7 @@
 
 package io.crate.planner.operators;
 
+import static io.crate.expression.symbol.SelectSymbol.ResultType.EXISTS;
 import static io.crate.expression.symbol.SelectSymbol.ResultType.SINGLE_COLUMN_SINGLE_VALUE;
 
 import java.util.Collection;
@@ -77,6 +78,7 @@ import io.crate.planner.PlannerContext;
 import io.crate.planner.SubqueryPlanner;
 import io.crate.planner.consumer.InsertFromSubQueryPlanner;
 import io.crate.planner.optimizer.Optimizer;
+import io.crate.planner.optimizer.rule.AddRuntimeFilterToHashJoin;
 import io.crate.planner.optimizer.rule.DeduplicateOrder;
 import io.crate.planner.optimizer.rule.MergeAggregateAndCollectToCount;
 import io.crate.planner.optimizer.rule.MergeFilterAndCollect;
@@ -114,6 +116,7 @@ public class LogicalPlanner {
     private final Visitor statementVisitor = new Visitor();
     private final Optimizer writeOptimizer;
     private final Optimizer fetchOptimizer;
+    private final Optimizer runtimeFilterOptimizer;
 
     public LogicalPlanner(NodeContext nodeCtx, TableStats tableStats, Supplier<Version> minNodeVersionInCluster) {
         this.optimizer = new Optimizer(
@@ -143,6 +146,21 @@ public class LogicalPlanner {
                 new RewriteGroupByKeysLimitToTopNDistinct()
             )
         );
+        // Runs after the main optimizer, once the filters are pushed down and the row estimates of the
+        // join sources are final. Moves the runtime filters into the probe sides.
+        this.runtimeFilterOptimizer = new Optimizer(
+            nodeCtx,
+            minNodeVersionInCluster,
+            List.of(
+                new AddRuntimeFilterToHashJoin(),
+                new MergeFilters(),
+                new MoveFilterBeneathRename(),
+                new MoveFilterBeneathFetchOrEval(),
+                new MoveFilterBeneathHashJoin(),
+                new MoveFilterBeneathNestedLoop(),
+                new MergeFilterAndCollect()
+            )
+        );
         this.fetchOptimizer = new Optimizer(
             nodeCtx,
             minNodeVersionInCluster,
@@ -173,6 +191,12 @@ public class LogicalPlanner {
             // So we limit the query to 2 if there is no limit to avoid retrieval of many rows while being able to validate max1row
             fetchSize = 2;
             maybeApplySoftLimit = plan -> new Limit(plan, Literal.of(2L), Literal.of(0L));
+        } else if (selectSymbol.getResultType() == EXISTS) {
+            // WHERE EXISTS (SELECT foo FROM t)
+            //        ^^^^^^^^^^^^^^^^^^^^^^^^^^
+            // The first row is enough to decide
+            fetchSize = 1;
+            maybeApplySoftLimit = plan -> new Limit(plan, Literal.of(1L), Literal.of(0L));
         } else {
             fetchSize = 0;
             maybeApplySoftLimit = plan -> plan;
@@ -225,7 +249,11 @@ public class LogicalPlanner {
             plannerContext.params()
         );
         LogicalPlan logicalPlan = relation.accept(planBuilder, relation.outputs());
-        LogicalPlan optimizedPlan = optimizer.optimize(logicalPlan, tableStats, coordinatorTxnCtx);
+        LogicalPlan optimizedPlan = runtimeFilterOptimizer.optimize(
+            optimizer.optimize(logicalPlan, tableStats, coordinatorTxnCtx),
+            tableStats,
+            coordinatorTxnCtx
+        );
         assert logicalPlan.outputs().equals(optimizedPlan.outputs()) : "Optimized plan must have the same outputs as original plan";
         LogicalPlan prunedPlan = optimizedPlan.pruneOutputsExcept(tableStats, relation.outputs());
         assert logicalPlan.outputs().equals(optimizedPlan.outputs()) : "Pruned plan must have the same outputs as original plan";
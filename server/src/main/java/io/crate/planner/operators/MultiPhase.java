@@ -58,6 +58,14 @@ public class MultiPhase extends ForwardingLogicalPlan {
         }
     }
 
+    /**
+     * @param subQueries plans which must be executed before the source; their results are bound to the
+     *                   {@link SelectSymbol}s contained in the source.
+     */
+    public static LogicalPlan create(LogicalPlan source, Map<LogicalPlan, SelectSymbol> subQueries) {
+        return new MultiPhase(source, subQueries);
+    }
+
     private MultiPhase(LogicalPlan source, Map<LogicalPlan, SelectSymbol> subQueries) {
         super(source);
         HashMap<LogicalPlan, SelectSymbol> allSubQueries = new HashMap<>(source.dependencies());
@@ -28,6 +28,7 @@ import io.crate.common.collections.Lists2;
 import io.crate.metadata.settings.session.SessionSetting;
 import io.crate.metadata.settings.session.SessionSettingProvider;
 import io.crate.planner.operators.RewriteInsertFromSubQueryToInsertFromValues;
+import io.crate.planner.optimizer.rule.AddRuntimeFilterToHashJoin;
 import io.crate.planner.optimizer.rule.DeduplicateOrder;
 import io.crate.planner.optimizer.rule.MergeAggregateAndCollectToCount;
 import io.crate.planner.optimizer.rule.MergeFilterAndCollect;
@@ -62,6 +63,7 @@ public class LoadedRules implements SessionSettingProvider {
     private static final String OPTIMIZER_SETTING_PREFIX = "optimizer_";
 
     private final List<Class<? extends Rule<?>>> rules = List.of(
+        AddRuntimeFilterToHashJoin.class,
         RemoveRedundantFetchOrEval.class,
         MergeAggregateAndCollectToCount.class,
         MergeFilters.class,
@@ -0,0 +1,214 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.planner.optimizer.rule;
+
+import io.crate.analyze.relations.AbstractTableRelation;
+import io.crate.analyze.relations.DocTableRelation;
+import io.crate.common.collections.Tuple;
+import io.crate.expression.operator.GtOperator;
+import io.crate.expression.operator.OrOperator;
+import io.crate.expression.operator.any.AnyOperators;
+import io.crate.expression.scalar.ArrayUpperFunction;
+import io.crate.expression.scalar.conditional.CoalesceFunction;
+import io.crate.expression.symbol.Function;
+import io.crate.expression.symbol.Literal;
+import io.crate.expression.symbol.SelectSymbol;
+import io.crate.expression.symbol.Symbol;
+import io.crate.expression.symbol.SymbolVisitors;
+import io.crate.metadata.FunctionImplementation;
+import io.crate.metadata.NodeContext;
+import io.crate.metadata.SearchPath;
+import io.crate.metadata.TransactionContext;
+import io.crate.planner.operators.Collect;
+import io.crate.planner.operators.Eval;
+import io.crate.planner.operators.Filter;
+import io.crate.planner.operators.HashJoin;
+import io.crate.planner.operators.Limit;
+import io.crate.planner.operators.LogicalPlan;
+import io.crate.planner.operators.MultiPhase;
+import io.crate.planner.operators.Rename;
+import io.crate.planner.operators.RootRelationBoundary;
+import io.crate.planner.optimizer.Rule;
+import io.crate.planner.optimizer.matcher.Captures;
+import io.crate.planner.optimizer.matcher.Pattern;
+import io.crate.statistics.TableStats;
+import io.crate.types.ArrayType;
+import io.crate.types.DataType;
+import io.crate.types.DataTypes;
+
+import java.util.List;
+import java.util.Map;
+
+import static io.crate.planner.optimizer.matcher.Pattern.typeOf;
+
+/**
+ * Filters the probe side of a {@link HashJoin} by the join keys of a small build side:
+ *
+ * <pre>
+ *     HashJoin[f.dim_id = d.id]
+ *       Collect[fact AS f]
+ *       Collect[dim AS d | name = 'x']
+ *
+ *     HashJoin[f.dim_id = d.id]
+ *       MultiPhase
+ *         Filter[coalesce(array_length(keys, 1), 0) > 10000 OR f.dim_id = ANY(keys)]
+ *           Collect[fact AS f]
+ *         Limit[10001]
+ *           Collect[dim | [id] | name = 'x']
+ *       Collect[dim AS d | name = 'x']
+ * </pre>
+ *
+ * The keys are collected before the join is executed and the filter is pushed down into the collect phase of the
+ * probe side, where it becomes a terms query. That way rows without a join partner aren't read and distributed.
+ * The keys are limited to {@link #MAX_BUILD_ROWS} + 1 rows. If the estimate was wrong and the limit is reached, the
+ * filter is normalized to {@code true} once the keys are bound.
+ *
+ * The build side is executed twice and the probe side can only start once the keys are collected. So this only
+ * applies if the build side is deterministic, small, and the probe side reads many more rows than the two scans
+ * of the build side, according to the table statistics.
+ */
+public final class AddRuntimeFilterToHashJoin implements Rule<HashJoin> {
+
+    static final long MAX_BUILD_ROWS = 10_000;
+    static final long MIN_PROBE_TO_BUILD_RATIO = 10;
+
+    private final Pattern<HashJoin> pattern;
+
+    public AddRuntimeFilterToHashJoin() {
+        this.pattern = typeOf(HashJoin.class)
+            .with(join -> !join.hasRuntimeFilter());
+    }
+
+    @Override
+    public Pattern<HashJoin> pattern() {
+        return pattern;
+    }
+
+    @Override
+    public LogicalPlan apply(HashJoin join,
+                             Captures captures,
+                             TableStats tableStats,
+                             TransactionContext txnCtx,
+                             NodeContext nodeCtx) {
+        // Same choice as in HashJoin.build: The smaller side is used to build the hash table
+        boolean rhsIsBuildSide = join.lhs().numExpectedRows() >= join.rhs().numExpectedRows();
+        LogicalPlan build = rhsIsBuildSide ? join.rhs() : join.lhs();
+        LogicalPlan probe = rhsIsBuildSide ? join.lhs() : join.rhs();
+        long buildRows = build.numExpectedRows();
+        if (buildRows < 0
+            || buildRows > MAX_BUILD_ROWS
+            || !isRepeatable(build)) {
+            return null;
+        }
+        long scannedBuildRows = scannedRows(build, tableStats);
+        if (scannedBuildRows < 0
+            || probe.numExpectedRows() < Math.max(1, scannedBuildRows) * MIN_PROBE_TO_BUILD_RATIO) {
+            return null;
+        }
+        Tuple<List<Symbol>, List<Symbol>> joinKeys = join.joinKeys();
+        List<Symbol> buildKeys = rhsIsBuildSide ? joinKeys.v2() : joinKeys.v1();
+        List<Symbol> probeKeys = rhsIsBuildSide ? joinKeys.v1() : joinKeys.v2();
+        for (int i = 0; i < buildKeys.size(); i++) {
+            Symbol buildKey = buildKeys.get(i);
+            Symbol probeKey = probeKeys.get(i);
+            DataType<?> type = buildKey.valueType();
+            if (!type.equals(probeKey.valueType())
+                || !DataTypes.isPrimitive(type)
+                || !build.outputs().contains(buildKey)
+                || !probe.outputs().contains(probeKey)) {
+                continue;
+            }
+            LogicalPlan keysPlan = new RootRelationBoundary(
+                new Limit(
+                    Eval.create(build.pruneOutputsExcept(tableStats, List.of(buildKey)), List.of(buildKey)),
+                    Literal.of(MAX_BUILD_ROWS + 1),
+                    Literal.of(0L)
+                )
+            );
+            SelectSymbol keys = new SelectSymbol(
+                build.baseTables().get(0),
+                new ArrayType<>(type),
+                SelectSymbol.ResultType.SINGLE_COLUMN_MULTIPLE_VALUES
+            );
+            Symbol tooManyKeys = function(nodeCtx, GtOperator.NAME, List.of(
+                function(nodeCtx, CoalesceFunction.NAME, List.of(
+                    function(nodeCtx, ArrayUpperFunction.ARRAY_LENGTH, List.of(keys, Literal.of(1))),
+                    Literal.of(0)
+                )),
+                Literal.of((int) MAX_BUILD_ROWS)
+            ));
+            Symbol filter = function(nodeCtx, OrOperator.NAME, List.of(
+                tooManyKeys,
+                function(nodeCtx, AnyOperators.Type.EQ.opName(), List.of(probeKey, keys))
+            ));
+            LogicalPlan filteredProbe = MultiPhase.create(Filter.create(probe, filter), Map.of(keysPlan, keys));
+            return rhsIsBuildSide
+                ? join.withRuntimeFilter(filteredProbe, build)
+                : join.withRuntimeFilter(build, filteredProbe);
+        }
+        return null;
+    }
+
+    private static Function function(NodeContext nodeCtx, String name, List<Symbol> args) {
+        FunctionImplementation impl = nodeCtx.functions().get(null, name, args, SearchPath.pathWithPGCatalogAndDoc());
+        return new Function(impl.signature(), args, impl.boundSignature().getReturnType().createType());
+    }
+
+    /**
+     * @return the number of rows the plan reads from its tables or -1 if unknown
+     */
+    private static long scannedRows(LogicalPlan plan, TableStats tableStats) {
+        long rows = 0;
+        for (AbstractTableRelation<?> table : plan.baseTables()) {
+            long numDocs = tableStats.numDocs(table.relationName());
+            if (numDocs < 0) {
+                return -1;
+            }
+            rows += numDocs;
+        }
+        return rows;
+    }
+
+    /**
+     * @return true if executing the plan twice results in the same rows
+     */
+    private static boolean isRepeatable(LogicalPlan plan) {
+        if (plan instanceof Collect) {
+            Collect collect = (Collect) plan;
+            return collect.relation() instanceof DocTableRelation
+                   && !SymbolVisitors.any(AddRuntimeFilterToHashJoin::isNonDeterministic, collect.where().queryOrFallback());
+        }
+        if (plan instanceof Filter) {
+            return !SymbolVisitors.any(AddRuntimeFilterToHashJoin::isNonDeterministic, ((Filter) plan).query())
+                   && isRepeatable(((Filter) plan).source());
+        }
+        if (plan instanceof Eval || plan instanceof Rename) {
+            return isRepeatable(plan.sources().get(0));
+        }
+        return false;
+    }
+
+    private static boolean isNonDeterministic(Symbol symbol) {
+        return symbol instanceof Function && !((Function) symbol).isDeterministic();
+    }
+}
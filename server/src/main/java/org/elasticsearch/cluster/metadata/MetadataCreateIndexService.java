@@ -63,6 +63,8 @@ import org.elasticsearch.env.Environment;
 import org.elasticsearch.index.Index;
 import org.elasticsearch.index.IndexNotFoundException;
 import org.elasticsearch.index.IndexService;
+import org.elasticsearch.index.IndexSettings;
+import org.elasticsearch.index.IndexSortConfig;
 import org.elasticsearch.index.mapper.DocumentMapper;
 import org.elasticsearch.index.mapper.MapperService;
 import org.elasticsearch.index.mapper.MapperService.MergeReason;
@@ -448,6 +450,14 @@ public class MetadataCreateIndexService {
                     removalExtraInfo = "failed on parsing default mapping/mappings on index creation";
                     throw e;
                 }
+                if (recoverFromIndex == null) {
+                    // now that the mapping is merged we can validate the index sort.
+                    // A resized index gets its mapping from the source index, it is validated on recovery.
+                    IndexSortConfig.buildIndexSort(
+                        IndexSettings.INDEX_SORT_BY_SETTING.get(actualIndexSettings),
+                        mapperService::fullName
+                    );
+                }
 
                 // now, update the mappings with the actual source
                 Map<String, MappingMetadata> mappingsMetadata = new HashMap<>();
@@ -41,6 +41,8 @@ import io.crate.common.unit.TimeValue;
 import org.elasticsearch.common.xcontent.NamedXContentRegistry;
 import org.elasticsearch.index.Index;
 import org.elasticsearch.index.IndexService;
+import org.elasticsearch.index.IndexSettings;
+import org.elasticsearch.index.IndexSortConfig;
 import org.elasticsearch.index.mapper.MapperParsingException;
 import org.elasticsearch.index.mapper.MapperService;
 import org.elasticsearch.index.mapper.MapperService.MergeReason;
@@ -254,6 +256,11 @@ public class MetadataIndexTemplateService {
             }
 
             dummyIndexService.mapperService().merge(mappingsForValidation, MergeReason.MAPPING_UPDATE);
+            // the partitions of a table are created on the first insert, validate the index sort up front
+            IndexSortConfig.buildIndexSort(
+                IndexSettings.INDEX_SORT_BY_SETTING.get(request.settings),
+                dummyIndexService.mapperService()::fullName
+            );
 
         } finally {
             if (createdIndex != null) {
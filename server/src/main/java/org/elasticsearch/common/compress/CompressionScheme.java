@@ -0,0 +1,58 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package org.elasticsearch.common.compress;
+
+import java.util.Locale;
+
+/**
+ * The compression algorithms which can be used to compress transport messages.
+ */
+public enum CompressionScheme {
+
+    DEFLATE(CompressorFactory.COMPRESSOR),
+    LZ4(CompressorFactory.LZ4);
+
+    private final Compressor compressor;
+
+    CompressionScheme(Compressor compressor) {
+        this.compressor = compressor;
+    }
+
+    public Compressor compressor() {
+        return compressor;
+    }
+
+    public static CompressionScheme parse(String value) {
+        try {
+            return valueOf(value.toUpperCase(Locale.ENGLISH));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException(
+                "Invalid compression scheme [" + value + "], must be one of [deflate, lz4]", e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return name().toLowerCase(Locale.ENGLISH);
+    }
+}
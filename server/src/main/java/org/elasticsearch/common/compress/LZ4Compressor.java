@@ -0,0 +1,262 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package org.elasticsearch.common.compress;
+
+import org.apache.lucene.store.ByteArrayDataInput;
+import org.apache.lucene.store.ByteArrayDataOutput;
+import org.apache.lucene.util.compress.LZ4;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.io.stream.InputStreamStreamInput;
+import org.elasticsearch.common.io.stream.OutputStreamStreamOutput;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+/**
+ * {@link Compressor} implementation based on the LZ4 block format, using the LZ4 implementation of Lucene.
+ *
+ * Much cheaper in CPU than {@link DeflateCompressor} at the cost of a lower compression ratio,
+ * which makes it suitable for compressing high volume inter-node traffic.
+ *
+ * The stream is a sequence of blocks of at most {@link #BLOCK_SIZE} uncompressed bytes:
+ * <pre>
+ *  [int uncompressedLength][int compressedLength][compressedLength bytes]
+ * </pre>
+ * A block with {@code compressedLength == uncompressedLength} is stored raw; a block with
+ * {@code uncompressedLength == 0} marks the end of the stream.
+ */
+public class LZ4Compressor implements Compressor {
+
+    // An arbitrary header that we use to identify compressed streams, see DeflateCompressor
+    private static final byte[] HEADER = new byte[]{'L', 'Z', '4', '\0'};
+
+    static final int BLOCK_SIZE = 64 * 1024;
+
+    /**
+     * Upper bound of the size of a compressed block of {@code length} bytes, see LZ4_COMPRESSBOUND of the reference implementation
+     */
+    static int maxCompressedLength(int length) {
+        return length + length / 255 + 16;
+    }
+
+    @Override
+    public boolean isCompressed(BytesReference bytes) {
+        if (bytes.length() < HEADER.length) {
+            return false;
+        }
+        for (int i = 0; i < HEADER.length; ++i) {
+            if (bytes.get(i) != HEADER[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public StreamInput streamInput(StreamInput in) throws IOException {
+        final byte[] headerBytes = new byte[HEADER.length];
+        int len = 0;
+        while (len < headerBytes.length) {
+            final int read = in.read(headerBytes, len, headerBytes.length - len);
+            if (read == -1) {
+                break;
+            }
+            len += read;
+        }
+        if (len != HEADER.length || Arrays.equals(headerBytes, HEADER) == false) {
+            throw new IllegalArgumentException("Input stream is not compressed with LZ4!");
+        }
+        return new InputStreamStreamInput(new BlockInputStream(in));
+    }
+
+    @Override
+    public StreamOutput streamOutput(StreamOutput out) throws IOException {
+        out.writeBytes(HEADER);
+        return new OutputStreamStreamOutput(new BlockOutputStream(out));
+    }
+
+    private static class BlockOutputStream extends OutputStream {
+
+        private final StreamOutput out;
+        private final byte[] buffer = new byte[BLOCK_SIZE];
+        private final byte[] compressed = new byte[maxCompressedLength(BLOCK_SIZE)];
+        private final ByteArrayDataOutput compressedOut = new ByteArrayDataOutput();
+        private final LZ4.FastCompressionHashTable hashTable = new LZ4.FastCompressionHashTable();
+        private int count = 0;
+        private boolean closed = false;
+
+        BlockOutputStream(StreamOutput out) {
+            this.out = out;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            if (count == buffer.length) {
+                writeBlock();
+            }
+            buffer[count++] = (byte) b;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            while (len > 0) {
+                if (count == buffer.length) {
+                    writeBlock();
+                }
+                int toCopy = Math.min(len, buffer.length - count);
+                System.arraycopy(b, off, buffer, count, toCopy);
+                count += toCopy;
+                off += toCopy;
+                len -= toCopy;
+            }
+        }
+
+        private void writeBlock() throws IOException {
+            if (count == 0) {
+                return;
+            }
+            compressedOut.reset(compressed);
+            LZ4.compress(buffer, 0, count, compressedOut, hashTable);
+            int compressedLength = compressedOut.getPosition();
+            out.writeInt(count);
+            if (compressedLength >= count) {
+                out.writeInt(count);
+                out.writeBytes(buffer, 0, count);
+            } else {
+                out.writeInt(compressedLength);
+                out.writeBytes(compressed, 0, compressedLength);
+            }
+            count = 0;
+        }
+
+        @Override
+        public void flush() throws IOException {
+            writeBlock();
+            out.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            try {
+                writeBlock();
+                out.writeInt(0);
+            } finally {
+                out.close();
+            }
+        }
+    }
+
+    private static class BlockInputStream extends InputStream {
+
+        private final StreamInput in;
+        private final byte[] buffer = new byte[BLOCK_SIZE];
+        private byte[] compressed = null;
+        private final ByteArrayDataInput compressedIn = new ByteArrayDataInput();
+        private int pos = 0;
+        private int limit = 0;
+        private boolean eos = false;
+
+        BlockInputStream(StreamInput in) {
+            this.in = in;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (pos == limit && readBlock() == false) {
+                return -1;
+            }
+            return buffer[pos++] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            if (pos == limit && readBlock() == false) {
+                return -1;
+            }
+            int toCopy = Math.min(len, limit - pos);
+            System.arraycopy(buffer, pos, b, off, toCopy);
+            pos += toCopy;
+            return toCopy;
+        }
+
+        @Override
+        public int available() {
+            return limit - pos;
+        }
+
+        private boolean readBlock() throws IOException {
+            if (eos) {
+                return false;
+            }
+            final int uncompressedLength = in.readInt();
+            if (uncompressedLength == 0) {
+                eos = true;
+                return false;
+            }
+            final int compressedLength = in.readInt();
+            if (uncompressedLength < 0 || uncompressedLength > BLOCK_SIZE
+                || compressedLength < 0 || compressedLength > maxCompressedLength(uncompressedLength)) {
+                throw new IOException("Corrupted LZ4 stream: invalid block lengths uncompressed="
+                                      + uncompressedLength + " compressed=" + compressedLength);
+            }
+            if (compressedLength == uncompressedLength) {
+                in.readBytes(buffer, 0, uncompressedLength);
+            } else {
+                if (compressed == null) {
+                    compressed = new byte[maxCompressedLength(BLOCK_SIZE)];
+                }
+                in.readBytes(compressed, 0, compressedLength);
+                compressedIn.reset(compressed, 0, compressedLength);
+                int decompressedLength;
+                try {
+                    decompressedLength = LZ4.decompress(compressedIn, uncompressedLength, buffer, 0);
+                } catch (IndexOutOfBoundsException e) {
+                    throw new IOException("Corrupted LZ4 block", e);
+                }
+                if (decompressedLength != uncompressedLength || compressedIn.getPosition() != compressedLength) {
+                    throw new IOException("Corrupted LZ4 block: expected " + uncompressedLength + " bytes but got "
+                                          + decompressedLength);
+                }
+            }
+            pos = 0;
+            limit = uncompressedLength;
+            return true;
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+}
@@ -23,10 +23,13 @@ import org.apache.lucene.index.IndexReader;
 import org.apache.lucene.index.LeafReader;
 import org.apache.lucene.index.LeafReaderContext;
 import org.apache.lucene.index.Term;
+import org.apache.lucene.util.BytesRef;
 import org.apache.lucene.util.CloseableThreadLocal;
 import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
 
 import java.io.IOException;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Objects;
 import java.util.concurrent.ConcurrentMap;
@@ -145,6 +148,49 @@ public final class VersionsAndSeqNoResolver {
         return null;
     }
 
+    /**
+     * Bulk version of {@link #loadDocIdAndVersion(IndexReader, Term, boolean)}.
+     *
+     * The uids are looked up in sorted order, so that each segment's terms enum is positioned forward only
+     * and consecutive seeks can re-use the already loaded term blocks.
+     *
+     * @return the doc ID and version for each uid, at the same position as the uid; null if the uid wasn't found
+     */
+    public static DocIdAndVersion[] loadDocIdsAndVersions(IndexReader reader,
+                                                          String uidField,
+                                                          List<BytesRef> uids,
+                                                          boolean loadSeqNo) throws IOException {
+        DocIdAndVersion[] results = new DocIdAndVersion[uids.size()];
+        if (uids.isEmpty()) {
+            return results;
+        }
+        Integer[] order = new Integer[uids.size()];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, Comparator.comparing(uids::get));
+
+        PerThreadIDVersionAndSeqNoLookup[] lookups = getLookupState(reader, uidField);
+        List<LeafReaderContext> leaves = reader.leaves();
+        int remaining = uids.size();
+        // iterate backwards like loadDocIdAndVersion, a uid that is found in a later segment is not looked up again
+        for (int i = leaves.size() - 1; i >= 0 && remaining > 0; i--) {
+            final LeafReaderContext leaf = leaves.get(i);
+            PerThreadIDVersionAndSeqNoLookup lookup = lookups[leaf.ord];
+            for (int idx : order) {
+                if (results[idx] != null) {
+                    continue;
+                }
+                DocIdAndVersion result = lookup.lookupVersion(uids.get(idx), loadSeqNo, leaf);
+                if (result != null) {
+                    results[idx] = result;
+                    remaining--;
+                }
+            }
+        }
+        return results;
+    }
+
     /**
      * Loads the internal docId and sequence number of the latest copy for a given uid from the provided reader.
      * The result is either null or the live and latest version of the given uid.
@@ -50,6 +50,8 @@ import org.elasticsearch.indices.IndicesService;
 import org.elasticsearch.plugins.MetadataUpgrader;
 import org.elasticsearch.transport.TransportService;
 
+import javax.annotation.Nullable;
+import java.io.Closeable;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
@@ -72,8 +74,12 @@ import java.util.function.UnaryOperator;
  * {@link ClusterState#metadata()}. Instead when node is starting up, it calls {@link #getMetadata()} method and if this node is
  * elected as master, it requests metadata from other master eligible nodes. After that, master node performs re-conciliation on the
  * gathered results, re-creates {@link ClusterState} and broadcasts this state to other nodes in the cluster.
+ * <p>
+ * If {@link PersistedClusterStateService#LUCENE_METADATA_STORE_SETTING} is enabled, master-eligible nodes keep the
+ * cluster metadata in a {@link PersistedClusterStateService} instead of the manifest and per-index state files.
+ * Index state files are then only written for indices which have shards on this node.
  */
-public class GatewayMetaState implements ClusterStateApplier, CoordinationState.PersistedState {
+public class GatewayMetaState implements ClusterStateApplier, CoordinationState.PersistedState, Closeable {
 
     protected static final Logger LOGGER = LogManager.getLogger(GatewayMetaState.class);
 
@@ -83,11 +89,15 @@ public class GatewayMetaState implements ClusterStateApplier, CoordinationState.
     private final ClusterService clusterService;
     private final IndicesService indicesService;
     private final TransportService transportService;
+    @Nullable
+    private final PersistedClusterStateService persistedClusterStateService;
 
     //there is a single thread executing updateClusterState calls, hence no volatile modifier
     protected Manifest previousManifest;
     protected ClusterState previousClusterState;
     protected boolean incrementalWrite;
+    // set after a failed write; the on-disk state is then unknown, so the next state must be written in full
+    private boolean writeNextStateFully;
 
     public GatewayMetaState(Settings settings, NodeEnvironment nodeEnv, MetaStateService metaStateService,
                             MetadataIndexUpgradeService metadataIndexUpgradeService, MetadataUpgrader metadataUpgrader,
@@ -99,6 +109,7 @@ public class GatewayMetaState implements ClusterStateApplier, CoordinationState.
         this.transportService = transportService;
         this.clusterService = clusterService;
         this.indicesService = indicesService;
+        this.persistedClusterStateService = createPersistedClusterStateService(settings, nodeEnv, metaStateService);
 
         upgradeMetadata(metadataIndexUpgradeService, metadataUpgrader);
         initializeClusterState(ClusterName.CLUSTER_NAME_SETTING.get(settings));
@@ -116,9 +127,60 @@ public class GatewayMetaState implements ClusterStateApplier, CoordinationState.
         return this;
     }
 
+    @Nullable
+    private static PersistedClusterStateService createPersistedClusterStateService(Settings settings,
+                                                                                   NodeEnvironment nodeEnv,
+                                                                                   MetaStateService metaStateService)
+            throws IOException {
+        if (DiscoveryNode.isMasterNode(settings) == false) {
+            return null;
+        }
+        if (PersistedClusterStateService.LUCENE_METADATA_STORE_SETTING.get(settings)) {
+            return new PersistedClusterStateService(
+                nodeEnv.nodeDataPaths(), nodeEnv.nodeId(), metaStateService.namedXContentRegistry());
+        }
+        if (PersistedClusterStateService.hasPersistedState(nodeEnv.nodeDataPaths())) {
+            throw new IllegalStateException(
+                "The cluster metadata of this node is stored in the Lucene based metadata store and cannot be read " +
+                "without [" + PersistedClusterStateService.LUCENE_METADATA_STORE_SETTING.getKey() + "] enabled");
+        }
+        return null;
+    }
+
+    /**
+     * Loads the metadata from the {@link PersistedClusterStateService} if used, falling back to the legacy state
+     * files if it doesn't contain any state yet.
+     */
+    private Tuple<Manifest, Metadata> loadFullState() throws IOException {
+        if (persistedClusterStateService == null) {
+            return metaStateService.loadFullState();
+        }
+        PersistedClusterStateService.OnDiskState onDiskState = persistedClusterStateService.loadBestOnDiskState();
+        if (onDiskState.empty()) {
+            Tuple<Manifest, Metadata> legacyState = metaStateService.loadFullState();
+            Manifest manifest = legacyState.v1();
+            return new Tuple<>(
+                newManifest(manifest.getCurrentTerm(), manifest.getClusterStateVersion(), Collections.emptyMap()),
+                legacyState.v2()
+            );
+        }
+        return new Tuple<>(
+            newManifest(onDiskState.currentTerm(), onDiskState.lastAcceptedVersion(), Collections.emptyMap()),
+            onDiskState.metadata()
+        );
+    }
+
+    /**
+     * Creates a manifest which is only kept in memory if the {@link PersistedClusterStateService} is used.
+     * The global generation is unused, the index generations refer to the state files of local indices.
+     */
+    private static Manifest newManifest(long currentTerm, long clusterStateVersion, Map<Index, Long> indexGenerations) {
+        return new Manifest(currentTerm, clusterStateVersion, Manifest.empty().getGlobalGeneration(), indexGenerations);
+    }
+
     private void initializeClusterState(ClusterName clusterName) throws IOException {
         long startNS = System.nanoTime();
-        Tuple<Manifest, Metadata> manifestAndMetadata = metaStateService.loadFullState();
+        Tuple<Manifest, Metadata> manifestAndMetadata = loadFullState();
         previousManifest = manifestAndMetadata.v1();
 
         final Metadata metadata = manifestAndMetadata.v2();
@@ -146,6 +208,10 @@ public class GatewayMetaState implements ClusterStateApplier, CoordinationState.
             throws IOException {
         if (isMasterOrDataNode()) {
             try {
+                if (persistedClusterStateService != null) {
+                    upgradePersistedMetadata(metadataIndexUpgradeService, metadataUpgrader);
+                    return;
+                }
                 final Tuple<Manifest, Metadata> metaStateAndData = metaStateService.loadFullState();
                 final Manifest manifest = metaStateAndData.v1();
                 final Metadata metadata = metaStateAndData.v2();
@@ -185,6 +251,24 @@ public class GatewayMetaState implements ClusterStateApplier, CoordinationState.
         }
     }
 
+    /**
+     * Upgrades the metadata stored in the {@link PersistedClusterStateService}, or migrates the legacy state
+     * into it on the first start with the store enabled.
+     */
+    private void upgradePersistedMetadata(MetadataIndexUpgradeService metadataIndexUpgradeService,
+                                          MetadataUpgrader metadataUpgrader) throws IOException {
+        final Tuple<Manifest, Metadata> manifestAndMetadata = loadFullState();
+        final Manifest manifest = manifestAndMetadata.v1();
+        final Metadata upgradedMetadata = upgradeMetadata(
+            manifestAndMetadata.v2(), metadataIndexUpgradeService, metadataUpgrader);
+        final ClusterState clusterState = ClusterState.builder(ClusterName.CLUSTER_NAME_SETTING.get(settings))
+            .version(manifest.getClusterStateVersion())
+            .metadata(upgradedMetadata)
+            .build();
+        persistedClusterStateService.writeFullStateAndCommit(manifest.getCurrentTerm(), clusterState);
+        metaStateService.deleteManifestAndGlobalState();
+    }
+
     protected boolean isMasterOrDataNode() {
         return DiscoveryNode.isMasterNode(settings) || DiscoveryNode.isDataNode(settings);
     }
@@ -212,9 +296,14 @@ public class GatewayMetaState implements ClusterStateApplier, CoordinationState.
                 innerSetCurrentTerm(event.state().term());
             }
 
+            if (writeNextStateFully) {
+                incrementalWrite = false;
+            }
             updateClusterState(event.state(), event.previousState());
+            writeNextStateFully = false;
             incrementalWrite = true;
         } catch (WriteStateException e) {
+            writeNextStateFully = true;
             LOGGER.warn("Exception occurred when storing new meta data", e);
         }
     }
@@ -235,12 +324,19 @@ public class GatewayMetaState implements ClusterStateApplier, CoordinationState.
         try {
             innerSetCurrentTerm(currentTerm);
         } catch (WriteStateException e) {
+            writeNextStateFully = true;
             LOGGER.error(new ParameterizedMessage("Failed to set current term to {}", currentTerm), e);
             e.rethrowAsErrorOrUncheckedException();
         }
     }
 
     private void innerSetCurrentTerm(long currentTerm) throws WriteStateException {
+        if (persistedClusterStateService != null) {
+            persistedClusterStateService.commit(currentTerm, previousClusterState);
+            previousManifest = newManifest(currentTerm, previousManifest.getClusterStateVersion(),
+                                           previousManifest.getIndexGenerations());
+            return;
+        }
         Manifest manifest = new Manifest(currentTerm, previousManifest.getClusterStateVersion(), previousManifest.getGlobalGeneration(),
             new HashMap<>(previousManifest.getIndexGenerations()));
         metaStateService.writeManifestAndCleanup("current term changed", manifest);
@@ -250,14 +346,23 @@ public class GatewayMetaState implements ClusterStateApplier, CoordinationState.
     @Override
     public void setLastAcceptedState(ClusterState clusterState) {
         try {
-            incrementalWrite = previousClusterState.term() == clusterState.term();
+            incrementalWrite = writeNextStateFully == false && previousClusterState.term() == clusterState.term();
             updateClusterState(clusterState, previousClusterState);
+            writeNextStateFully = false;
         } catch (WriteStateException e) {
+            writeNextStateFully = true;
             LOGGER.error(new ParameterizedMessage("Failed to set last accepted state with version {}", clusterState.version()), e);
             e.rethrowAsErrorOrUncheckedException();
         }
     }
 
+    @Override
+    public void close() throws IOException {
+        if (persistedClusterStateService != null) {
+            persistedClusterStateService.close();
+        }
+    }
+
     /**
      * This class is used to write changed global {@link Metadata}, {@link IndexMetadata} and {@link Manifest} to disk.
      * This class delegates <code>write*</code> calls to corresponding write calls in {@link MetaStateService} and
@@ -333,6 +438,16 @@ public class GatewayMetaState implements ClusterStateApplier, CoordinationState.
             }
         }
 
+        /**
+         * Finishes the transaction without writing a manifest. Used if the manifest is only kept in memory because
+         * the cluster metadata is persisted by the {@link PersistedClusterStateService}.
+         */
+        void finish() {
+            assert finished == false : FINISHED_MSG;
+            commitCleanupActions.forEach(Runnable::run);
+            finished = true;
+        }
+
         void rollback() {
             rollbackCleanupActions.forEach(Runnable::run);
             finished = true;
@@ -349,6 +464,10 @@ public class GatewayMetaState implements ClusterStateApplier, CoordinationState.
      */
     protected void updateClusterState(ClusterState newState, ClusterState previousState)
             throws WriteStateException {
+        if (persistedClusterStateService != null) {
+            updatePersistedClusterState(newState, previousState);
+            return;
+        }
         Metadata newMetadata = newState.metadata();
 
         final AtomicClusterStateWriter writer = new AtomicClusterStateWriter(metaStateService, previousManifest);
@@ -361,6 +480,28 @@ public class GatewayMetaState implements ClusterStateApplier, CoordinationState.
         previousClusterState = newState;
     }
 
+    private void updatePersistedClusterState(ClusterState newState, ClusterState previousState) throws WriteStateException {
+        final long currentTerm = previousManifest.getCurrentTerm();
+        if (incrementalWrite) {
+            persistedClusterStateService.writeIncrementalStateAndCommit(currentTerm, previousState, newState);
+        } else {
+            persistedClusterStateService.writeFullStateAndCommit(currentTerm, newState);
+        }
+
+        // Shard level actions (e.g. listing started shards or dangling indices) still read the index metadata
+        // from the index folder, so keep writing it for indices with shards on this node.
+        Map<Index, Long> indexGenerations = previousManifest.getIndexGenerations();
+        DiscoveryNode localNode = newState.nodes().getLocalNode();
+        if (localNode != null && localNode.isDataNode() && newState.getRoutingNodes().node(localNode.getId()) != null) {
+            final AtomicClusterStateWriter writer = new AtomicClusterStateWriter(metaStateService, previousManifest);
+            Set<Index> relevantIndices = getRelevantIndicesOnDataOnlyNode(newState, previousState, indexGenerations.keySet());
+            indexGenerations = writeIndicesMetadata(writer, newState, previousState, relevantIndices);
+            writer.finish();
+        }
+        previousManifest = newManifest(currentTerm, newState.version(), indexGenerations);
+        previousClusterState = newState;
+    }
+
     private void writeManifest(AtomicClusterStateWriter writer, Manifest manifest) throws WriteStateException {
         if (manifest.equals(previousManifest) == false) {
             writer.writeManifestAndCleanup("changed", manifest);
@@ -369,9 +510,15 @@ public class GatewayMetaState implements ClusterStateApplier, CoordinationState.
 
     private Map<Index, Long> writeIndicesMetadata(AtomicClusterStateWriter writer, ClusterState newState, ClusterState previousState)
             throws WriteStateException {
-        Map<Index, Long> previouslyWrittenIndices = previousManifest.getIndexGenerations();
-        Set<Index> relevantIndices = getRelevantIndices(newState, previousState, previouslyWrittenIndices.keySet());
+        Set<Index> relevantIndices = getRelevantIndices(newState, previousState, previousManifest.getIndexGenerations().keySet());
+        return writeIndicesMetadata(writer, newState, previousState, relevantIndices);
+    }
 
+    private Map<Index, Long> writeIndicesMetadata(AtomicClusterStateWriter writer,
+                                                  ClusterState newState,
+                                                  ClusterState previousState,
+                                                  Set<Index> relevantIndices) throws WriteStateException {
+        Map<Index, Long> previouslyWrittenIndices = previousManifest.getIndexGenerations();
         Map<Index, Long> newIndices = new HashMap<>();
 
         Metadata previousMetadata = incrementalWrite ? previousState.metadata() : null;
@@ -258,6 +258,19 @@ public class MetaStateService {
         META_DATA_FORMAT.cleanupOldFiles(currentGeneration, nodeEnv.nodeDataPaths());
     }
 
+    /**
+     * Removes all manifest and global state files. Used once the metadata has been migrated to the
+     * {@link PersistedClusterStateService}, which makes these files obsolete.
+     */
+    void deleteManifestAndGlobalState() {
+        MANIFEST_FORMAT.cleanupOldFiles(Long.MAX_VALUE, nodeEnv.nodeDataPaths());
+        META_DATA_FORMAT.cleanupOldFiles(Long.MAX_VALUE, nodeEnv.nodeDataPaths());
+    }
+
+    NamedXContentRegistry namedXContentRegistry() {
+        return namedXContentRegistry;
+    }
+
     /**
      * Removes old state files in index directory.
      *
@@ -0,0 +1,472 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package org.elasticsearch.gateway;
+
+import io.crate.common.io.IOUtils;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.apache.lucene.analysis.core.KeywordAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.StoredField;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.SerialMergeScheduler;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.NIOFSDirectory;
+import org.apache.lucene.util.Bits;
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.ExceptionsHelper;
+import org.elasticsearch.cluster.ClusterState;
+import org.elasticsearch.cluster.metadata.IndexMetadata;
+import org.elasticsearch.cluster.metadata.Metadata;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.settings.Setting;
+import org.elasticsearch.common.settings.Setting.Property;
+import org.elasticsearch.common.xcontent.LoggingDeprecationHandler;
+import org.elasticsearch.common.xcontent.NamedXContentRegistry;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.common.xcontent.XContentFactory;
+import org.elasticsearch.common.xcontent.XContentParser;
+import org.elasticsearch.common.xcontent.XContentType;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Stores the cluster metadata of a master-eligible node in a single Lucene index per data path, located in the
+ * {@value MetadataStateFormat#STATE_DIR_NAME} folder.
+ *
+ * The index contains one document for the global {@link Metadata} and one document per {@link IndexMetadata},
+ * keyed by the index UUID. The current term and the version of the last accepted cluster state are kept in the
+ * user data of the Lucene commit, so updating them is a single atomic commit instead of a manifest file plus a
+ * state file per changed index.
+ *
+ * Incremental writes only update the documents of indices whose metadata version changed, which keeps the cost of
+ * publishing a cluster state proportional to the size of the change instead of the number of indices.
+ */
+public class PersistedClusterStateService implements Closeable {
+
+    private static final Logger LOGGER = LogManager.getLogger(PersistedClusterStateService.class);
+
+    public static final Setting<Boolean> LUCENE_METADATA_STORE_SETTING = Setting.boolSetting(
+        "gateway.lucene_metadata_store", false, Property.NodeScope);
+
+    static final String TYPE_FIELD = "type";
+    static final String GLOBAL_TYPE = "global";
+    static final String INDEX_TYPE = "index";
+    static final String INDEX_UUID_FIELD = "index_uuid";
+    static final String DATA_FIELD = "data";
+
+    static final String CURRENT_TERM_KEY = "current_term";
+    static final String LAST_ACCEPTED_TERM_KEY = "last_accepted_term";
+    static final String LAST_ACCEPTED_VERSION_KEY = "last_accepted_version";
+    static final String NODE_ID_KEY = "node_id";
+
+    private final Path[] dataPaths;
+    private final String nodeId;
+    private final NamedXContentRegistry namedXContentRegistry;
+    private final List<MetadataIndexWriter> writers = new ArrayList<>();
+
+    public PersistedClusterStateService(Path[] dataPaths, String nodeId, NamedXContentRegistry namedXContentRegistry) {
+        this.dataPaths = dataPaths;
+        this.nodeId = nodeId;
+        this.namedXContentRegistry = namedXContentRegistry;
+    }
+
+    /**
+     * @return true if any of the given data paths contains a Lucene based metadata store.
+     */
+    public static boolean hasPersistedState(Path[] dataPaths) throws IOException {
+        for (Path dataPath : dataPaths) {
+            Path stateLocation = dataPath.resolve(MetadataStateFormat.STATE_DIR_NAME);
+            if (Files.exists(stateLocation)) {
+                try (Directory directory = new NIOFSDirectory(stateLocation)) {
+                    if (DirectoryReader.indexExists(directory)) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Loads the state with the highest accepted term and version of all data paths.
+     *
+     * @return the on disk state; {@link OnDiskState#empty()} is true if there is no state yet.
+     */
+    public OnDiskState loadBestOnDiskState() throws IOException {
+        OnDiskState best = OnDiskState.NO_STATE;
+        long maxCurrentTerm = 0L;
+        for (Path dataPath : dataPaths) {
+            Path stateLocation = dataPath.resolve(MetadataStateFormat.STATE_DIR_NAME);
+            if (Files.exists(stateLocation) == false) {
+                continue;
+            }
+            try (Directory directory = new NIOFSDirectory(stateLocation)) {
+                if (DirectoryReader.indexExists(directory) == false) {
+                    continue;
+                }
+                OnDiskState state = loadOnDiskState(dataPath, directory);
+                maxCurrentTerm = Math.max(maxCurrentTerm, state.currentTerm);
+                if (best.empty() || state.isNewerThan(best)) {
+                    best = state;
+                }
+            }
+        }
+        if (best.empty()) {
+            return best;
+        }
+        // the current term may have been persisted on some paths only if a commit failed half-way
+        return new OnDiskState(best.dataPath, maxCurrentTerm, best.lastAcceptedTerm, best.lastAcceptedVersion, best.metadata);
+    }
+
+    private OnDiskState loadOnDiskState(Path dataPath, Directory directory) throws IOException {
+        try (DirectoryReader reader = DirectoryReader.open(directory)) {
+            Map<String, String> userData = reader.getIndexCommit().getUserData();
+            String storedNodeId = userData.get(NODE_ID_KEY);
+            if (nodeId.equals(storedNodeId) == false) {
+                throw new IllegalStateException("metadata in [" + dataPath + "] belongs to node [" + storedNodeId
+                                                + "] but this node is [" + nodeId + "]");
+            }
+            Metadata globalMetadata = null;
+            List<IndexMetadata> indices = new ArrayList<>();
+            for (LeafReaderContext leaf : reader.leaves()) {
+                Bits liveDocs = leaf.reader().getLiveDocs();
+                for (int docId = 0; docId < leaf.reader().maxDoc(); docId++) {
+                    if (liveDocs != null && liveDocs.get(docId) == false) {
+                        continue;
+                    }
+                    Document document = leaf.reader().document(docId);
+                    BytesRef data = document.getBinaryValue(DATA_FIELD);
+                    if (GLOBAL_TYPE.equals(document.get(TYPE_FIELD))) {
+                        if (globalMetadata != null) {
+                            throw new IllegalStateException("found duplicate global metadata in [" + dataPath + "]");
+                        }
+                        globalMetadata = read(data, Metadata.FORMAT);
+                    } else {
+                        indices.add(read(data, IndexMetadata.FORMAT));
+                    }
+                }
+            }
+            if (globalMetadata == null) {
+                throw new IllegalStateException("no global metadata found in [" + dataPath + "]");
+            }
+            Metadata.Builder builder = Metadata.builder(globalMetadata);
+            for (IndexMetadata indexMetadata : indices) {
+                builder.put(indexMetadata, false);
+            }
+            return new OnDiskState(
+                dataPath,
+                Long.parseLong(userData.get(CURRENT_TERM_KEY)),
+                Long.parseLong(userData.get(LAST_ACCEPTED_TERM_KEY)),
+                Long.parseLong(userData.get(LAST_ACCEPTED_VERSION_KEY)),
+                builder.build()
+            );
+        }
+    }
+
+    private <T> T read(BytesRef data, MetadataStateFormat<T> format) throws IOException {
+        try (XContentParser parser = XContentType.SMILE.xContent().createParser(
+            namedXContentRegistry, LoggingDeprecationHandler.INSTANCE, data.bytes, data.offset, data.length)) {
+            return format.fromXContent(parser);
+        }
+    }
+
+    /**
+     * Replaces the complete content of the store with the given state.
+     *
+     * @throws WriteStateException if writing fails. See also {@link WriteStateException#isDirty()}.
+     */
+    public void writeFullStateAndCommit(long currentTerm, ClusterState clusterState) throws WriteStateException {
+        Metadata metadata = clusterState.metadata();
+        prepare(writer -> {
+            writer.indexWriter.deleteAll();
+            writer.indexWriter.addDocument(globalDocument(metadata));
+            for (IndexMetadata indexMetadata : metadata) {
+                writer.indexWriter.addDocument(indexDocument(indexMetadata));
+            }
+        });
+        commit(currentTerm, clusterState);
+    }
+
+    /**
+     * Writes the difference between the previously written state and the given state.
+     *
+     * The store must contain {@code previousClusterState}, that is, it must have been the last state that was
+     * written by this service.
+     *
+     * @return the number of index documents that were written
+     * @throws WriteStateException if writing fails. See also {@link WriteStateException#isDirty()}.
+     */
+    public int writeIncrementalStateAndCommit(long currentTerm,
+                                              ClusterState previousClusterState,
+                                              ClusterState clusterState) throws WriteStateException {
+        Metadata previousMetadata = previousClusterState.metadata();
+        Metadata metadata = clusterState.metadata();
+        List<IndexMetadata> updatedIndices = new ArrayList<>();
+        Set<String> indexUUIDs = new HashSet<>();
+        for (IndexMetadata indexMetadata : metadata) {
+            indexUUIDs.add(indexMetadata.getIndexUUID());
+            IndexMetadata previousIndexMetadata = previousMetadata.index(indexMetadata.getIndex());
+            if (previousIndexMetadata == null || previousIndexMetadata.getVersion() != indexMetadata.getVersion()) {
+                updatedIndices.add(indexMetadata);
+            }
+        }
+        List<String> deletedIndices = new ArrayList<>();
+        for (IndexMetadata previousIndexMetadata : previousMetadata) {
+            if (indexUUIDs.contains(previousIndexMetadata.getIndexUUID()) == false) {
+                deletedIndices.add(previousIndexMetadata.getIndexUUID());
+            }
+        }
+        boolean globalStateChanged = Metadata.isGlobalStateEquals(previousMetadata, metadata) == false;
+        prepare(writer -> {
+            if (globalStateChanged) {
+                writer.indexWriter.updateDocument(new Term(TYPE_FIELD, GLOBAL_TYPE), globalDocument(metadata));
+            }
+            for (IndexMetadata indexMetadata : updatedIndices) {
+                writer.indexWriter.updateDocument(
+                    new Term(INDEX_UUID_FIELD, indexMetadata.getIndexUUID()), indexDocument(indexMetadata));
+            }
+            for (String indexUUID : deletedIndices) {
+                writer.indexWriter.deleteDocuments(new Term(INDEX_UUID_FIELD, indexUUID));
+            }
+        });
+        commit(currentTerm, clusterState);
+        return updatedIndices.size();
+    }
+
+    /**
+     * Commits all pending changes together with the given current term and the term and version of the last
+     * accepted state.
+     *
+     * @throws WriteStateException if the commit fails. A failed commit is always dirty because it is unknown which
+     *                             of the data paths have been committed.
+     */
+    public void commit(long currentTerm, ClusterState lastAcceptedState) throws WriteStateException {
+        Map<String, String> userData = new HashMap<>();
+        userData.put(CURRENT_TERM_KEY, Long.toString(currentTerm));
+        userData.put(LAST_ACCEPTED_TERM_KEY, Long.toString(lastAcceptedState.term()));
+        userData.put(LAST_ACCEPTED_VERSION_KEY, Long.toString(lastAcceptedState.version()));
+        userData.put(NODE_ID_KEY, nodeId);
+        try {
+            ensureOpen();
+            for (MetadataIndexWriter writer : writers) {
+                writer.indexWriter.setLiveCommitData(userData.entrySet());
+                writer.indexWriter.commit();
+            }
+        } catch (IOException | RuntimeException e) {
+            // some writers may have committed, others not; discard whatever is still pending so that the next
+            // write starts from the last commit of each data path
+            try {
+                reopenWriters();
+            } catch (IOException | RuntimeException reopenException) {
+                e.addSuppressed(reopenException);
+            }
+            throw new WriteStateException(true, "failed to commit cluster metadata", e);
+        }
+    }
+
+    private interface WriterAction {
+        void apply(MetadataIndexWriter writer) throws IOException;
+    }
+
+    /**
+     * Applies the given action on all writers. If it fails, all uncommitted changes are discarded so that a later
+     * commit cannot persist a partial state.
+     */
+    private void prepare(WriterAction action) throws WriteStateException {
+        try {
+            ensureOpen();
+            for (MetadataIndexWriter writer : writers) {
+                action.apply(writer);
+            }
+        } catch (IOException | RuntimeException e) {
+            try {
+                reopenWriters();
+            } catch (IOException | RuntimeException reopenException) {
+                e.addSuppressed(reopenException);
+            }
+            throw new WriteStateException(false, "failed to write cluster metadata", e);
+        }
+    }
+
+    private void ensureOpen() throws IOException {
+        if (writers.isEmpty()) {
+            openWriters();
+        }
+    }
+
+    private void openWriters() throws IOException {
+        boolean success = false;
+        try {
+            for (Path dataPath : dataPaths) {
+                Path stateLocation = dataPath.resolve(MetadataStateFormat.STATE_DIR_NAME);
+                Files.createDirectories(stateLocation);
+                writers.add(new MetadataIndexWriter(new NIOFSDirectory(stateLocation)));
+            }
+            success = true;
+        } finally {
+            if (success == false) {
+                IOUtils.closeWhileHandlingException(writers);
+                writers.clear();
+            }
+        }
+    }
+
+    private void reopenWriters() throws IOException {
+        LOGGER.debug("discarding uncommitted changes of the metadata store");
+        IOException rollbackException = null;
+        for (MetadataIndexWriter writer : writers) {
+            try {
+                writer.rollback();
+            } catch (IOException e) {
+                rollbackException = ExceptionsHelper.useOrSuppress(rollbackException, e);
+            }
+        }
+        writers.clear();
+        openWriters();
+        if (rollbackException != null) {
+            throw rollbackException;
+        }
+    }
+
+    private static Document globalDocument(Metadata metadata) throws IOException {
+        Document document = new Document();
+        document.add(new StringField(TYPE_FIELD, GLOBAL_TYPE, Field.Store.YES));
+        document.add(new StoredField(DATA_FIELD, toBytes(metadata, Metadata.FORMAT)));
+        return document;
+    }
+
+    private static Document indexDocument(IndexMetadata indexMetadata) throws IOException {
+        Document document = new Document();
+        document.add(new StringField(TYPE_FIELD, INDEX_TYPE, Field.Store.YES));
+        document.add(new StringField(INDEX_UUID_FIELD, indexMetadata.getIndexUUID(), Field.Store.YES));
+        document.add(new StoredField(DATA_FIELD, toBytes(indexMetadata, IndexMetadata.FORMAT)));
+        return document;
+    }
+
+    private static <T> BytesRef toBytes(T state, MetadataStateFormat<T> format) throws IOException {
+        try (XContentBuilder builder = XContentFactory.contentBuilder(XContentType.SMILE)) {
+            builder.startObject();
+            format.toXContent(builder, state);
+            builder.endObject();
+            return BytesReference.bytes(builder).toBytesRef();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        IOUtils.close(writers);
+        writers.clear();
+    }
+
+    private static final class MetadataIndexWriter implements Closeable {
+
+        private final Directory directory;
+        private final IndexWriter indexWriter;
+
+        MetadataIndexWriter(Directory directory) throws IOException {
+            this.directory = directory;
+            IndexWriterConfig config = new IndexWriterConfig(new KeywordAnalyzer());
+            // the index is tiny, merging in the calling thread keeps the commit latency predictable
+            config.setMergeScheduler(new SerialMergeScheduler());
+            config.setCommitOnClose(false);
+            config.setOpenMode(IndexWriterConfig.OpenMode.CREATE_OR_APPEND);
+            try {
+                this.indexWriter = new IndexWriter(directory, config);
+            } catch (IOException | RuntimeException e) {
+                IOUtils.closeWhileHandlingException(directory);
+                throw e;
+            }
+        }
+
+        void rollback() throws IOException {
+            try {
+                indexWriter.rollback();
+            } finally {
+                directory.close();
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            IOUtils.close(indexWriter, directory);
+        }
+    }
+
+    public static final class OnDiskState {
+
+        static final OnDiskState NO_STATE = new OnDiskState(null, 0L, 0L, 0L, Metadata.EMPTY_METADATA);
+
+        private final Path dataPath;
+        private final long currentTerm;
+        private final long lastAcceptedTerm;
+        private final long lastAcceptedVersion;
+        private final Metadata metadata;
+
+        OnDiskState(Path dataPath, long currentTerm, long lastAcceptedTerm, long lastAcceptedVersion, Metadata metadata) {
+            this.dataPath = dataPath;
+            this.currentTerm = currentTerm;
+            this.lastAcceptedTerm = lastAcceptedTerm;
+            this.lastAcceptedVersion = lastAcceptedVersion;
+            this.metadata = metadata;
+        }
+
+        public boolean empty() {
+            return this == NO_STATE;
+        }
+
+        public long currentTerm() {
+            return currentTerm;
+        }
+
+        public long lastAcceptedVersion() {
+            return lastAcceptedVersion;
+        }
+
+        public Metadata metadata() {
+            return metadata;
+        }
+
+        private boolean isNewerThan(OnDiskState other) {
+            if (lastAcceptedTerm != other.lastAcceptedTerm) {
+                return lastAcceptedTerm > other.lastAcceptedTerm;
+            }
+            return lastAcceptedVersion > other.lastAcceptedVersion;
+        }
+    }
+}
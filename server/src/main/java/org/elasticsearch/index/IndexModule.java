@@ -40,6 +40,7 @@ import org.elasticsearch.index.engine.EngineFactory;
 import org.elasticsearch.index.mapper.MapperService;
 import org.elasticsearch.index.shard.IndexEventListener;
 import org.elasticsearch.index.shard.IndexingOperationListener;
+import org.elasticsearch.index.shard.TranslogSyncTracker;
 import org.elasticsearch.index.store.FsDirectoryFactory;
 import org.elasticsearch.indices.IndicesQueryCache;
 import org.elasticsearch.indices.breaker.CircuitBreakerService;
@@ -330,7 +331,8 @@ public final class IndexModule {
             BigArrays bigArrays,
             ThreadPool threadPool,
             IndicesQueryCache indicesQueryCache,
-            MapperRegistry mapperRegistry) throws IOException {
+            MapperRegistry mapperRegistry,
+            TranslogSyncTracker translogSyncTracker) throws IOException {
 
         final IndexEventListener eventListener = freeze();
         Function<IndexService, CheckedFunction<DirectoryReader, DirectoryReader, IOException>> readerWrapperFactory =
@@ -364,7 +366,8 @@ public final class IndexModule {
             eventListener,
             readerWrapperFactory,
             mapperRegistry,
-            indexOperationListeners
+            indexOperationListeners,
+            translogSyncTracker
         );
     }
 
@@ -73,6 +73,7 @@ import org.elasticsearch.index.shard.IndexingOperationListener;
 import org.elasticsearch.index.shard.ShardId;
 import org.elasticsearch.index.shard.ShardNotFoundException;
 import org.elasticsearch.index.shard.ShardPath;
+import org.elasticsearch.index.shard.TranslogSyncTracker;
 import org.elasticsearch.index.store.Store;
 import org.elasticsearch.index.translog.Translog;
 import org.elasticsearch.indices.breaker.CircuitBreakerService;
@@ -114,6 +115,7 @@ public class IndexService extends AbstractIndexComponent implements IndicesClust
     private final ThreadPool threadPool;
     private final BigArrays bigArrays;
     private final CircuitBreakerService circuitBreakerService;
+    private final TranslogSyncTracker translogSyncTracker;
 
     public IndexService(
             IndexSettings indexSettings,
@@ -131,11 +133,13 @@ public class IndexService extends AbstractIndexComponent implements IndicesClust
             IndexEventListener eventListener,
             Function<IndexService, CheckedFunction<DirectoryReader, DirectoryReader, IOException>> wrapperFactory,
             MapperRegistry mapperRegistry,
-            List<IndexingOperationListener> indexingOperationListeners) throws IOException {
+            List<IndexingOperationListener> indexingOperationListeners,
+            TranslogSyncTracker translogSyncTracker) throws IOException {
         super(indexSettings);
         this.indexSettings = indexSettings;
         this.xContentRegistry = xContentRegistry;
         this.circuitBreakerService = circuitBreakerService;
+        this.translogSyncTracker = translogSyncTracker;
         if (indexSettings.getIndexMetadata().getState() == IndexMetadata.State.CLOSE &&
                 indexCreationContext == IndexCreationContext.CREATE_INDEX) { // metadata verification needs a mapper service
             this.mapperService = null;
@@ -363,7 +367,8 @@ public class IndexService extends AbstractIndexComponent implements IndicesClust
                 indexingOperationListeners,
                 () -> globalCheckpointSyncer.accept(shardId),
                 retentionLeaseSyncer,
-                circuitBreakerService
+                circuitBreakerService,
+                translogSyncTracker
             );
             eventListener.indexShardStateChanged(indexShard, null, indexShard.state(), "shard created");
             eventListener.afterIndexShardCreated(indexShard);
@@ -185,6 +185,15 @@ public final class IndexSettings {
     public static final Setting<Boolean> INDEX_SOFT_DELETES_SETTING =
         Setting.boolSetting("index.soft_deletes.enabled", false, Property.IndexScope, Property.Final);
 
+    /**
+     * The sort order of the documents within the segments of an index, see {@link IndexSortConfig}.
+     * The sort can't be changed after the index has been created.
+     */
+    public static final Setting<String> INDEX_SORT_BY_SETTING = new Setting<>("index.sort_by", "", s -> {
+        IndexSortConfig.parse(s);
+        return s;
+    }, Property.IndexScope, Property.Final);
+
     /**
      * Controls how many soft-deleted documents will be kept around before being merged away. Keeping more deleted
      * documents increases the chance of operation-based recoveries and allows querying a longer history of documents.
@@ -0,0 +1,228 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package org.elasticsearch.index;
+
+import io.crate.analyze.expressions.ExpressionToColumnIdentVisitor;
+import io.crate.expression.reference.doc.lucene.NullSentinelValues;
+import io.crate.sql.parser.ParsingException;
+import io.crate.sql.parser.SqlParser;
+import org.apache.lucene.search.Sort;
+import org.apache.lucene.search.SortField;
+import org.apache.lucene.search.SortedNumericSelector;
+import org.apache.lucene.search.SortedNumericSortField;
+import org.apache.lucene.search.SortedSetSelector;
+import org.apache.lucene.search.SortedSetSortField;
+import org.elasticsearch.index.fielddata.NullValueOrder;
+import org.elasticsearch.index.mapper.MappedFieldType;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Function;
+
+/**
+ * Builds the Lucene index sort of a table out of its {@code sort_by} parameter.
+ *
+ * The parameter is a comma separated list of {@code column [ASC | DESC] [NULLS FIRST | NULLS LAST]} items
+ * with the same defaults as {@code ORDER BY}. Columns follow the SQL identifier rules, so they are lower cased unless
+ * they are quoted and children of object columns are referenced with a subscript. The resulting {@link SortField}s are identical to the ones
+ * {@link io.crate.execution.engine.sort.SortSymbolVisitor} creates for the same {@code ORDER BY} clause,
+ * that is what allows the {@link org.apache.lucene.search.TopFieldCollector} to terminate the collection
+ * of a segment early once it collected enough documents.
+ */
+public final class IndexSortConfig {
+
+    private IndexSortConfig() {
+    }
+
+    static final class SortItem {
+
+        final String column;
+        final boolean reverse;
+        final boolean nullsFirst;
+
+        SortItem(String column, boolean reverse, boolean nullsFirst) {
+            this.column = column;
+            this.reverse = reverse;
+            this.nullsFirst = nullsFirst;
+        }
+    }
+
+    static List<SortItem> parse(String sortBy) {
+        ArrayList<SortItem> items = new ArrayList<>();
+        for (String item : split(sortBy, ',')) {
+            String trimmed = item.trim();
+            if (trimmed.isEmpty()) {
+                continue;
+            }
+            List<String> parts = split(trimmed, ' ');
+            parts.removeIf(String::isEmpty);
+            int idx = 1;
+            boolean reverse = false;
+            if (idx < parts.size() && isKeyword(parts.get(idx), "asc", "desc")) {
+                reverse = parts.get(idx).equalsIgnoreCase("desc");
+                idx++;
+            }
+            // Same default as ORDER BY: NULLS LAST for ASC and NULLS FIRST for DESC
+            boolean nullsFirst = reverse;
+            if (idx + 1 < parts.size()
+                && parts.get(idx).equalsIgnoreCase("nulls")
+                && isKeyword(parts.get(idx + 1), "first", "last")) {
+                nullsFirst = parts.get(idx + 1).equalsIgnoreCase("first");
+                idx += 2;
+            }
+            if (idx != parts.size()) {
+                throw new IllegalArgumentException(String.format(Locale.ENGLISH,
+                    "Invalid sort_by item '%s', must be: column [ASC | DESC] [NULLS FIRST | NULLS LAST]", trimmed));
+            }
+            items.add(new SortItem(columnName(parts.get(0)), reverse, nullsFirst));
+        }
+        return items;
+    }
+
+    /**
+     * Resolves a column reference like {@code "userName"} or {@code obj['ts']} with the identifier rules of SQL
+     * to the name of the column in the mapping.
+     */
+    private static String columnName(String column) {
+        try {
+            return ExpressionToColumnIdentVisitor.convert(SqlParser.createExpression(column)).fqn();
+        } catch (ParsingException | UnsupportedOperationException e) {
+            throw new IllegalArgumentException("Invalid column '" + column + "' in sort_by", e);
+        }
+    }
+
+    /**
+     * Splits on the separator (or any whitespace if the separator is a space) unless it is quoted or within a subscript.
+     */
+    private static List<String> split(String value, char separator) {
+        ArrayList<String> parts = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        char quote = 0;
+        int subscriptDepth = 0;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (quote != 0) {
+                // an escaped quote ('' or "") ends and re-opens the quoted part
+                if (c == quote) {
+                    quote = 0;
+                }
+            } else if (c == '\'' || c == '"') {
+                quote = c;
+            } else if (c == '[') {
+                subscriptDepth++;
+            } else if (c == ']') {
+                subscriptDepth--;
+            } else if (subscriptDepth == 0
+                       && (c == separator || (separator == ' ' && Character.isWhitespace(c)))) {
+                parts.add(current.toString());
+                current.setLength(0);
+                continue;
+            }
+            current.append(c);
+        }
+        parts.add(current.toString());
+        return parts;
+    }
+
+    private static boolean isKeyword(String part, String first, String second) {
+        return part.equalsIgnoreCase(first) || part.equalsIgnoreCase(second);
+    }
+
+    /**
+     * @param fieldTypeLookup resolves the mapped field type of a column by its fully qualified name.
+     * @return the index sort or null if {@code sortBy} is empty.
+     * @throws IllegalArgumentException if a column doesn't exist or can't be used in an index sort
+     */
+    @Nullable
+    public static Sort buildIndexSort(String sortBy, Function<String, MappedFieldType> fieldTypeLookup) {
+        List<SortItem> items = parse(sortBy);
+        if (items.isEmpty()) {
+            return null;
+        }
+        SortField[] sortFields = new SortField[items.size()];
+        for (int i = 0; i < items.size(); i++) {
+            SortItem item = items.get(i);
+            MappedFieldType fieldType = fieldTypeLookup.apply(item.column);
+            if (fieldType == null) {
+                throw new IllegalArgumentException(
+                    "Column '" + item.column + "' used in sort_by doesn't exist");
+            }
+            if (fieldType.hasDocValues() == false) {
+                throw new IllegalArgumentException(
+                    "Column '" + item.column + "' used in sort_by must have the column store enabled");
+            }
+            sortFields[i] = sortField(item, fieldType);
+        }
+        return new Sort(sortFields);
+    }
+
+    private static SortField sortField(SortItem item, MappedFieldType fieldType) {
+        NullValueOrder nullValueOrder = NullValueOrder.fromFlag(item.nullsFirst);
+        SortField.Type reducedType;
+        switch (fieldType.typeName()) {
+            case "keyword": {
+                SortField sortField = new SortedSetSortField(
+                    item.column,
+                    item.reverse,
+                    item.reverse ? SortedSetSelector.Type.MAX : SortedSetSelector.Type.MIN
+                );
+                sortField.setMissingValue(
+                    nullValueOrder == NullValueOrder.LAST ^ item.reverse
+                        ? SortedSetSortField.STRING_LAST
+                        : SortedSetSortField.STRING_FIRST
+                );
+                return sortField;
+            }
+            case "boolean":
+            case "byte":
+            case "short":
+            case "integer":
+            case "long":
+            case "date":
+                reducedType = SortField.Type.LONG;
+                break;
+
+            case "float":
+                reducedType = SortField.Type.FLOAT;
+                break;
+
+            case "double":
+                reducedType = SortField.Type.DOUBLE;
+                break;
+
+            default:
+                throw new IllegalArgumentException(
+                    "Column '" + item.column + "' of type '" + fieldType.typeName() + "' cannot be used in sort_by");
+        }
+        SortField sortField = new SortedNumericSortField(
+            item.column,
+            reducedType,
+            item.reverse,
+            item.reverse ? SortedNumericSelector.Type.MAX : SortedNumericSelector.Type.MIN
+        );
+        sortField.setMissingValue(NullSentinelValues.nullSentinelForReducedType(reducedType, nullValueOrder, item.reverse));
+        return sortField;
+    }
+}
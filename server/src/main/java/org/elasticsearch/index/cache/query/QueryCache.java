@@ -20,6 +20,7 @@
 package org.elasticsearch.index.cache.query;
 
 import org.elasticsearch.index.IndexComponent;
+import org.elasticsearch.index.shard.ShardId;
 
 import java.io.Closeable;
 
@@ -36,4 +37,9 @@ public interface QueryCache extends IndexComponent, Closeable, org.apache.lucene
     }
 
     void clear(String reason);
+
+    /**
+     * Usage statistics of the cache for the given shard
+     */
+    QueryCacheStats getStats(ShardId shardId);
 }
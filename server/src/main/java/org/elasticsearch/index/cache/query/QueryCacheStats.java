@@ -20,6 +20,7 @@
 package org.elasticsearch.index.cache.query;
 
 import org.apache.lucene.search.DocIdSet;
+import org.elasticsearch.Version;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.io.stream.Writeable;
@@ -33,16 +34,23 @@ public class QueryCacheStats implements Writeable {
     private long missCount;
     private long cacheCount;
     private long cacheSize;
+    private long evictionCount;
 
     public QueryCacheStats() {
     }
 
-    public QueryCacheStats(long ramBytesUsed, long hitCount, long missCount, long cacheCount, long cacheSize) {
+    public QueryCacheStats(long ramBytesUsed,
+                           long hitCount,
+                           long missCount,
+                           long cacheCount,
+                           long cacheSize,
+                           long evictionCount) {
         this.ramBytesUsed = ramBytesUsed;
         this.hitCount = hitCount;
         this.missCount = missCount;
         this.cacheCount = cacheCount;
         this.cacheSize = cacheSize;
+        this.evictionCount = evictionCount;
     }
 
     public QueryCacheStats(StreamInput in) throws IOException {
@@ -51,6 +59,11 @@ public class QueryCacheStats implements Writeable {
         missCount = in.readLong();
         cacheCount = in.readLong();
         cacheSize = in.readLong();
+        if (in.getVersion().onOrAfter(Version.V_4_3_0)) {
+            evictionCount = in.readLong();
+        } else {
+            evictionCount = cacheCount - cacheSize;
+        }
     }
 
     @Override
@@ -60,6 +73,9 @@ public class QueryCacheStats implements Writeable {
         out.writeLong(missCount);
         out.writeLong(cacheCount);
         out.writeLong(cacheSize);
+        if (out.getVersion().onOrAfter(Version.V_4_3_0)) {
+            out.writeLong(evictionCount);
+        }
     }
 
     public void add(QueryCacheStats stats) {
@@ -68,6 +84,32 @@ public class QueryCacheStats implements Writeable {
         missCount += stats.missCount;
         cacheCount += stats.cacheCount;
         cacheSize += stats.cacheSize;
+        evictionCount += stats.evictionCount;
+    }
+
+    public long getMemorySizeInBytes() {
+        return ramBytesUsed;
+    }
+
+    /**
+     * The number of times a cached {@link DocIdSet} was used.
+     */
+    public long getHitCount() {
+        return hitCount;
+    }
+
+    /**
+     * The number of times a filter was looked up in the cache without finding a {@link DocIdSet}.
+     */
+    public long getMissCount() {
+        return missCount;
+    }
+
+    /**
+     * The total number of {@link DocIdSet}s that have been added to the cache, including evicted ones.
+     */
+    public long getCacheCount() {
+        return cacheCount;
     }
 
     /**
@@ -76,4 +118,12 @@ public class QueryCacheStats implements Writeable {
     public long getCacheSize() {
         return cacheSize;
     }
+
+    /**
+     * The number of {@link DocIdSet}s that have been evicted from the cache because it was full.
+     * Entries which were dropped because their segment was merged away or closed are not included.
+     */
+    public long getEvictions() {
+        return evictionCount;
+    }
 }
@@ -25,6 +25,7 @@ import static org.elasticsearch.index.seqno.SequenceNumbers.UNASSIGNED_SEQ_NO;
 import java.io.Closeable;
 import java.io.IOException;
 import java.io.UncheckedIOException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Base64;
 import java.util.Comparator;
@@ -44,6 +45,7 @@ import java.util.stream.Stream;
 
 import javax.annotation.Nullable;
 
+import com.carrotsearch.hppc.IntArrayList;
 import org.apache.logging.log4j.Logger;
 import org.apache.logging.log4j.message.ParameterizedMessage;
 import org.apache.lucene.index.DirectoryReader;
@@ -60,6 +62,7 @@ import org.apache.lucene.search.QueryCachingPolicy;
 import org.apache.lucene.search.ReferenceManager;
 import org.apache.lucene.store.AlreadyClosedException;
 import org.apache.lucene.util.Accountables;
+import org.apache.lucene.util.BytesRef;
 import org.apache.lucene.util.SetOnce;
 import org.elasticsearch.ExceptionsHelper;
 import org.elasticsearch.common.CheckedRunnable;
@@ -510,26 +513,11 @@ public abstract class Engine implements Closeable {
         }
 
         if (docIdAndVersion != null) {
-            if (get.versionType().isVersionConflictForReads(docIdAndVersion.version, get.version())) {
-                Releasables.close(searcher);
-                throw new VersionConflictEngineException(
-                    shardId,
-                    get.id(),
-                    get.versionType().explainConflictForReads(docIdAndVersion.version, get.version())
-                );
-            }
-            if (get.getIfSeqNo() != SequenceNumbers.UNASSIGNED_SEQ_NO && (
-                get.getIfSeqNo() != docIdAndVersion.seqNo || get.getIfPrimaryTerm() != docIdAndVersion.primaryTerm)) {
-
+            try {
+                ensureNoReadConflict(get, docIdAndVersion);
+            } catch (VersionConflictEngineException e) {
                 Releasables.close(searcher);
-                throw new VersionConflictEngineException(
-                    shardId,
-                    get.id(),
-                    get.getIfSeqNo(),
-                    get.getIfPrimaryTerm(),
-                    docIdAndVersion.seqNo,
-                    docIdAndVersion.primaryTerm
-                );
+                throw e;
             }
         }
 
@@ -543,8 +531,93 @@ public abstract class Engine implements Closeable {
         }
     }
 
+    private void ensureNoReadConflict(Get get, DocIdAndVersion docIdAndVersion) {
+        if (get.versionType().isVersionConflictForReads(docIdAndVersion.version, get.version())) {
+            throw new VersionConflictEngineException(
+                shardId,
+                get.id(),
+                get.versionType().explainConflictForReads(docIdAndVersion.version, get.version())
+            );
+        }
+        if (get.getIfSeqNo() != SequenceNumbers.UNASSIGNED_SEQ_NO && (
+            get.getIfSeqNo() != docIdAndVersion.seqNo || get.getIfPrimaryTerm() != docIdAndVersion.primaryTerm)) {
+
+            throw new VersionConflictEngineException(
+                shardId,
+                get.id(),
+                get.getIfSeqNo(),
+                get.getIfPrimaryTerm(),
+                docIdAndVersion.seqNo,
+                docIdAndVersion.primaryTerm
+            );
+        }
+    }
+
+    /**
+     * Resolves the gets at the given positions with a single searcher and stores the found documents in
+     * {@code results} at the same positions, see {@link VersionsAndSeqNoResolver#loadDocIdsAndVersions}.
+     * The caller is responsible for releasing the searcher, also if this method throws.
+     */
+    protected final void getFromSearcher(List<Get> gets,
+                                         IntArrayList positions,
+                                         Searcher searcher,
+                                         DocIdAndVersion[] results) throws EngineException {
+        if (positions.isEmpty()) {
+            return;
+        }
+        List<BytesRef> uids = new ArrayList<>(positions.size());
+        for (int i = 0; i < positions.size(); i++) {
+            uids.add(gets.get(positions.get(i)).uid().bytes());
+        }
+        final DocIdAndVersion[] found;
+        try {
+            found = VersionsAndSeqNoResolver.loadDocIdsAndVersions(
+                searcher.getIndexReader(),
+                gets.get(positions.get(0)).uid().field(),
+                uids,
+                true
+            );
+        } catch (Exception e) {
+            throw new EngineException(shardId, "Couldn't resolve version", e);
+        }
+        for (int i = 0; i < found.length; i++) {
+            DocIdAndVersion docIdAndVersion = found[i];
+            if (docIdAndVersion != null) {
+                int position = positions.get(i);
+                ensureNoReadConflict(gets.get(position), docIdAndVersion);
+                results[position] = docIdAndVersion;
+            }
+        }
+    }
+
     public abstract GetResult get(Get get, BiFunction<String, SearcherScope, Searcher> searcherFactory) throws EngineException;
 
+    /**
+     * Executes multiple gets at once. Other than a sequence of {@link #get(Get, BiFunction)} calls, implementations
+     * can share a searcher and look up the ids in sorted order.
+     *
+     * The default implementation executes the gets one by one.
+     */
+    public MultiGetResult multiGet(List<Get> gets,
+                                   BiFunction<String, SearcherScope, Searcher> searcherFactory) throws EngineException {
+        DocIdAndVersion[] results = new DocIdAndVersion[gets.size()];
+        List<Releasable> releasables = new ArrayList<>(gets.size());
+        boolean success = false;
+        try {
+            for (int i = 0; i < gets.size(); i++) {
+                GetResult getResult = get(gets.get(i), searcherFactory);
+                releasables.add(getResult);
+                results[i] = getResult.docIdAndVersion();
+            }
+            success = true;
+            return new MultiGetResult(results, releasables);
+        } finally {
+            if (success == false) {
+                Releasables.closeWhileHandlingException(releasables);
+            }
+        }
+    }
+
 
     /**
      * Returns a new searcher instance. The consumer of this
@@ -1419,6 +1492,38 @@ public abstract class Engine implements Closeable {
         }
     }
 
+    /**
+     * The result of {@link #multiGet(List, BiFunction)}; the readers of the found documents are only valid until
+     * the result is closed.
+     */
+    public static class MultiGetResult implements Releasable {
+
+        private final DocIdAndVersion[] docIdAndVersions;
+        private final List<? extends Releasable> releasables;
+
+        public MultiGetResult(DocIdAndVersion[] docIdAndVersions, List<? extends Releasable> releasables) {
+            this.docIdAndVersions = docIdAndVersions;
+            this.releasables = releasables;
+        }
+
+        public int size() {
+            return docIdAndVersions.length;
+        }
+
+        /**
+         * @return the document of the get at the given position or null if it doesn't exist
+         */
+        @Nullable
+        public DocIdAndVersion docIdAndVersion(int position) {
+            return docIdAndVersions[position];
+        }
+
+        @Override
+        public void close() {
+            Releasables.close(releasables);
+        }
+    }
+
     /**
      * Method to close the engine while the write lock is held.
      * Must decrement the supplied when closing work is done and resources are
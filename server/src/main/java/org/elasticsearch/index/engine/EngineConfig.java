@@ -25,6 +25,7 @@ import org.apache.lucene.index.MergePolicy;
 import org.apache.lucene.search.QueryCache;
 import org.apache.lucene.search.QueryCachingPolicy;
 import org.apache.lucene.search.ReferenceManager;
+import org.apache.lucene.search.Sort;
 import javax.annotation.Nullable;
 import org.elasticsearch.common.settings.Setting;
 import org.elasticsearch.common.settings.Setting.Property;
@@ -73,6 +74,8 @@ public final class EngineConfig {
     @Nullable
     private final List<ReferenceManager.RefreshListener> internalRefreshListener;
     @Nullable
+    private final Sort indexSort;
+    @Nullable
     private final CircuitBreakerService circuitBreakerService;
     private final LongSupplier globalCheckpointSupplier;
     private final Supplier<RetentionLeases> retentionLeasesSupplier;
@@ -131,6 +134,7 @@ public final class EngineConfig {
                         TimeValue flushMergesAfter,
                         List<ReferenceManager.RefreshListener> externalRefreshListener,
                         List<ReferenceManager.RefreshListener> internalRefreshListener,
+                        @Nullable Sort indexSort,
                         CircuitBreakerService circuitBreakerService,
                         LongSupplier globalCheckpointSupplier,
                         Supplier<RetentionLeases> retentionLeasesSupplier,
@@ -166,6 +170,7 @@ public final class EngineConfig {
         this.flushMergesAfter = flushMergesAfter;
         this.externalRefreshListener = externalRefreshListener;
         this.internalRefreshListener = internalRefreshListener;
+        this.indexSort = indexSort;
         this.circuitBreakerService = circuitBreakerService;
         this.globalCheckpointSupplier = globalCheckpointSupplier;
         this.retentionLeasesSupplier = Objects.requireNonNull(retentionLeasesSupplier);
@@ -331,6 +336,14 @@ public final class EngineConfig {
         return internalRefreshListener;
     }
 
+    /**
+     * Return the sort order of this index, or null if the index has no sort.
+     */
+    @Nullable
+    public Sort getIndexSort() {
+        return indexSort;
+    }
+
     /**
      * Returns the circuit breaker service for this engine, or {@code null} if none is to be used.
      */
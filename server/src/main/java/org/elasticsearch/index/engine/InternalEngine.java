@@ -44,6 +44,7 @@ import java.util.stream.Stream;
 
 import javax.annotation.Nullable;
 
+import com.carrotsearch.hppc.IntArrayList;
 import org.apache.lucene.document.Field;
 import org.apache.lucene.document.LongPoint;
 import org.apache.lucene.document.NumericDocValuesField;
@@ -75,6 +76,7 @@ import org.apache.lucene.util.InfoStream;
 import org.elasticsearch.Assertions;
 import org.elasticsearch.ExceptionsHelper;
 import org.elasticsearch.common.lease.Releasable;
+import org.elasticsearch.common.lease.Releasables;
 import org.elasticsearch.common.lucene.LoggerInfoStream;
 import org.elasticsearch.common.lucene.Lucene;
 import org.elasticsearch.common.lucene.index.ElasticsearchDirectoryReader;
@@ -643,25 +645,7 @@ public class InternalEngine extends Engine {
             if (versionValue.isDelete()) {
                 return GetResult.NOT_EXISTS;
             }
-            if (get.versionType().isVersionConflictForReads(versionValue.version, get.version())) {
-                throw new VersionConflictEngineException(
-                    shardId,
-                    get.id(),
-                    get.versionType().explainConflictForReads(versionValue.version, get.version())
-                );
-            }
-            if (get.getIfSeqNo() != SequenceNumbers.UNASSIGNED_SEQ_NO && (
-                get.getIfSeqNo() != versionValue.seqNo || get.getIfPrimaryTerm() != versionValue.term)) {
-
-                throw new VersionConflictEngineException(
-                    shardId,
-                    get.id(),
-                    get.getIfSeqNo(),
-                    get.getIfPrimaryTerm(),
-                    versionValue.seqNo,
-                    versionValue.term
-                );
-            }
+            ensureNoReadConflict(get, versionValue);
             if (versionValue.getLocation() != null) {
                 try {
                     Translog.Operation operation = translog.readOperation(versionValue.getLocation());
@@ -703,6 +687,100 @@ public class InternalEngine extends Engine {
         }
     }
 
+    private void ensureNoReadConflict(Get get, VersionValue versionValue) {
+        if (get.versionType().isVersionConflictForReads(versionValue.version, get.version())) {
+            throw new VersionConflictEngineException(
+                shardId,
+                get.id(),
+                get.versionType().explainConflictForReads(versionValue.version, get.version())
+            );
+        }
+        if (get.getIfSeqNo() != SequenceNumbers.UNASSIGNED_SEQ_NO && (
+            get.getIfSeqNo() != versionValue.seqNo || get.getIfPrimaryTerm() != versionValue.term)) {
+
+            throw new VersionConflictEngineException(
+                shardId,
+                get.id(),
+                get.getIfSeqNo(),
+                get.getIfPrimaryTerm(),
+                versionValue.seqNo,
+                versionValue.term
+            );
+        }
+    }
+
+    /**
+     * Like {@link #get(Get, BiFunction)} for every get, but the version map is checked for all ids in one pass,
+     * a refresh that is necessary for any of the ids is done at most once and all ids which must be read from the
+     * index are looked up with a single searcher in sorted order.
+     */
+    @Override
+    public MultiGetResult multiGet(List<Get> gets,
+                                   BiFunction<String, SearcherScope, Engine.Searcher> searcherFactory) throws EngineException {
+        VersionsAndSeqNoResolver.DocIdAndVersion[] results = new VersionsAndSeqNoResolver.DocIdAndVersion[gets.size()];
+        IntArrayList fromSearcher = new IntArrayList();
+        boolean needsRefresh = false;
+        try (ReleasableLock ignored = readLock.acquire()) {
+            ensureOpen();
+            for (int i = 0; i < gets.size(); i++) {
+                Get get = gets.get(i);
+                assert Objects.equals(get.uid().field(), IdFieldMapper.NAME) : get.uid().field();
+                VersionValue versionValue;
+                try (Releasable ignore = versionMap.acquireLock(get.uid().bytes())) {
+                    versionValue = getVersionFromMap(get.uid().bytes());
+                }
+                if (versionValue == null) {
+                    fromSearcher.add(i);
+                    continue;
+                }
+                if (versionValue.isDelete()) {
+                    continue;
+                }
+                ensureNoReadConflict(get, versionValue);
+                if (versionValue.getLocation() != null) {
+                    try {
+                        Translog.Operation operation = translog.readOperation(versionValue.getLocation());
+                        if (operation == null) {
+                            needsRefresh = true;
+                            fromSearcher.add(i);
+                        } else {
+                            Translog.Index index = (Translog.Index) operation;
+                            results[i] = new VersionsAndSeqNoResolver.DocIdAndVersion(
+                                0,
+                                index.version(),
+                                index.seqNo(),
+                                index.primaryTerm(),
+                                new TranslogLeafReader(index),
+                                0
+                            );
+                        }
+                    } catch (IOException e) {
+                        maybeFailEngine("realtime_get", e); // lets check if the translog has failed with a tragic event
+                        throw new EngineException(shardId, "failed to read operation from translog", e);
+                    }
+                } else {
+                    trackTranslogLocation.set(true);
+                    needsRefresh = true;
+                    fromSearcher.add(i);
+                }
+            }
+            if (fromSearcher.isEmpty()) {
+                return new MultiGetResult(results, List.of());
+            }
+            if (needsRefresh) {
+                refresh("realtime_get", SearcherScope.INTERNAL, true);
+            }
+            Engine.Searcher searcher = searcherFactory.apply("get", SearcherScope.INTERNAL);
+            try {
+                getFromSearcher(gets, fromSearcher, searcher, results);
+            } catch (Exception e) {
+                Releasables.closeWhileHandlingException(searcher);
+                throw e;
+            }
+            return new MultiGetResult(results, List.of(searcher));
+        }
+    }
+
     /**
      * the status of the current doc version in lucene, compared to the version in an incoming
      * operation
@@ -2291,6 +2369,9 @@ public class InternalEngine extends Engine {
         iwc.setRAMBufferSizeMB(engineConfig.getIndexingBufferSize().getMbFrac());
         iwc.setCodec(engineConfig.getCodec());
         iwc.setUseCompoundFile(true); // always use compound on flush - reduces # of file-handles on refresh
+        if (engineConfig.getIndexSort() != null) {
+            iwc.setIndexSort(engineConfig.getIndexSort());
+        }
         return iwc;
     }
 
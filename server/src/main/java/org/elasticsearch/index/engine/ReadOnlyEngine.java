@@ -29,6 +29,7 @@ import java.util.function.BiFunction;
 import java.util.function.Function;
 import java.util.stream.Stream;
 
+import com.carrotsearch.hppc.IntArrayList;
 import org.apache.lucene.index.DirectoryReader;
 import org.apache.lucene.index.IndexCommit;
 import org.apache.lucene.index.IndexWriter;
@@ -39,8 +40,10 @@ import org.apache.lucene.search.ReferenceManager;
 import org.apache.lucene.store.Directory;
 import org.apache.lucene.store.Lock;
 import org.elasticsearch.Version;
+import org.elasticsearch.common.lease.Releasables;
 import org.elasticsearch.common.lucene.Lucene;
 import org.elasticsearch.common.lucene.index.ElasticsearchDirectoryReader;
+import org.elasticsearch.common.lucene.uid.VersionsAndSeqNoResolver;
 import org.elasticsearch.common.util.concurrent.ReleasableLock;
 import org.elasticsearch.index.mapper.MapperService;
 import org.elasticsearch.index.seqno.SeqNoStats;
@@ -242,6 +245,24 @@ public class ReadOnlyEngine extends Engine {
         return getFromSearcher(get, searcherFactory, SearcherScope.EXTERNAL);
     }
 
+    @Override
+    public MultiGetResult multiGet(List<Get> gets,
+                                   BiFunction<String, SearcherScope, Engine.Searcher> searcherFactory) throws EngineException {
+        IntArrayList positions = new IntArrayList(gets.size());
+        for (int i = 0; i < gets.size(); i++) {
+            positions.add(i);
+        }
+        VersionsAndSeqNoResolver.DocIdAndVersion[] results = new VersionsAndSeqNoResolver.DocIdAndVersion[gets.size()];
+        Engine.Searcher searcher = searcherFactory.apply("get", SearcherScope.EXTERNAL);
+        try {
+            getFromSearcher(gets, positions, searcher, results);
+        } catch (Exception e) {
+            Releasables.closeWhileHandlingException(searcher);
+            throw e;
+        }
+        return new MultiGetResult(results, List.of(searcher));
+    }
+
     @Override
     protected ReferenceManager<ElasticsearchDirectoryReader> getReferenceManager(SearcherScope scope) {
         return readerManager;
@@ -63,7 +63,7 @@ import org.apache.lucene.index.Term;
 import org.apache.lucene.search.Query;
 import org.apache.lucene.search.QueryCachingPolicy;
 import org.apache.lucene.search.ReferenceManager;
-import org.apache.lucene.search.UsageTrackingQueryCachingPolicy;
+import org.apache.lucene.search.Sort;
 import org.apache.lucene.store.AlreadyClosedException;
 import org.apache.lucene.util.SetOnce;
 import org.apache.lucene.util.ThreadInterruptedException;
@@ -101,8 +101,10 @@ import org.elasticsearch.index.IndexModule;
 import org.elasticsearch.index.IndexNotFoundException;
 import org.elasticsearch.index.IndexService;
 import org.elasticsearch.index.IndexSettings;
+import org.elasticsearch.index.IndexSortConfig;
 import org.elasticsearch.index.VersionType;
 import org.elasticsearch.index.cache.IndexCache;
+import org.elasticsearch.index.cache.query.QueryCacheStats;
 import org.elasticsearch.index.codec.CodecService;
 import org.elasticsearch.index.engine.CommitStats;
 import org.elasticsearch.index.engine.Engine;
@@ -154,6 +156,7 @@ import io.crate.common.CheckedFunction;
 import io.crate.common.collections.Tuple;
 import io.crate.common.io.IOUtils;
 import io.crate.common.unit.TimeValue;
+import io.crate.lucene.FunctionQueryCachingPolicy;
 
 public class IndexShard extends AbstractIndexShardComponent implements IndicesClusterStateService.Shard {
 
@@ -189,6 +192,7 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
     }
 
     private final RetentionLeaseSyncer retentionLeaseSyncer;
+    private final TranslogSyncTracker translogSyncTracker;
 
     @Nullable
     private RecoveryState recoveryState;
@@ -243,7 +247,8 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
             List<IndexingOperationListener> listeners,
             Runnable globalCheckpointSyncer,
             RetentionLeaseSyncer retentionLeaseSyncer,
-            CircuitBreakerService circuitBreakerService) throws IOException {
+            CircuitBreakerService circuitBreakerService,
+            TranslogSyncTracker translogSyncTracker) throws IOException {
         super(shardRouting.shardId(), indexSettings);
         assert shardRouting.initializing();
         this.shardRouting = shardRouting;
@@ -259,6 +264,7 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
         this.indexingOperationListeners = new IndexingOperationListener.CompositeListener(listeners, logger);
         this.globalCheckpointSyncer = globalCheckpointSyncer;
         this.retentionLeaseSyncer = retentionLeaseSyncer;
+        this.translogSyncTracker = translogSyncTracker;
         state = IndexShardState.CREATED;
         this.path = path;
         this.circuitBreakerService = circuitBreakerService;
@@ -303,7 +309,7 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
                 }
             };
         } else {
-            cachingPolicy = new UsageTrackingQueryCachingPolicy();
+            cachingPolicy = new FunctionQueryCachingPolicy();
         }
         indexShardOperationPermits = new IndexShardOperationPermits(shardId, logger, threadPool);
         readerWrapper = indexReaderWrapper;
@@ -324,6 +330,20 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
         return mapperService;
     }
 
+    /**
+     * Return the sort order of this index, or null if the index has no sort.
+     */
+    @Nullable
+    public Sort getIndexSort() {
+        if (mapperService == null) {
+            return null;
+        }
+        return IndexSortConfig.buildIndexSort(
+            indexSettings.getValue(IndexSettings.INDEX_SORT_BY_SETTING),
+            mapperService::fullName
+        );
+    }
+
     /**
      * USE THIS METHOD WITH CARE!
      * Returns the primary term the index shard is supposed to be on. In case of primary promotion or when a replica learns about
@@ -917,6 +937,14 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
         return getEngine().get(get, this::acquireSearcher);
     }
 
+    /**
+     * Executes the gets at once, see {@link Engine#multiGet(List, java.util.function.BiFunction)}
+     */
+    public Engine.MultiGetResult multiGet(List<Engine.Get> gets) {
+        readAllowed();
+        return getEngine().multiGet(gets, this::acquireSearcher);
+    }
+
     /**
      * Writes all indexing changes to disk and opens a new searcher reflecting all changes.  This can throw {@link AlreadyClosedException}.
      */
@@ -964,6 +992,13 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
         return getEngine().getTranslogStats();
     }
 
+    public QueryCacheStats queryCacheStats() {
+        if (indexCache == null) {
+            return new QueryCacheStats();
+        }
+        return indexCache.query().getStats(shardId);
+    }
+
     public StoreStats storeStats() {
         try {
             return store.stats();
@@ -2496,6 +2531,7 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
             IndexingMemoryController.SHARD_INACTIVE_TIME_SETTING.get(indexSettings.getSettings()),
             Collections.singletonList(refreshListeners),
             Collections.singletonList(new RefreshMetricUpdater(refreshMetric)),
+            getIndexSort(),
             circuitBreakerService,
             replicationTracker,
             replicationTracker::getRetentionLeases,
@@ -2784,7 +2820,9 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
         @Override
         protected void write(List<Tuple<Translog.Location, Consumer<Exception>>> candidates) throws IOException {
             try {
-                getEngine().ensureTranslogSynced(candidates.stream().map(Tuple::v1));
+                if (getEngine().ensureTranslogSynced(candidates.stream().map(Tuple::v1))) {
+                    translogSyncTracker.onFsync();
+                }
             } catch (AlreadyClosedException ex) {
                 // that's fine since we already synced everything on engine close - this also is conform with the methods
                 // documentation
@@ -2806,6 +2844,7 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
      */
     public final void sync(Translog.Location location, Consumer<Exception> syncListener) {
         verifyNotClosed();
+        translogSyncTracker.onRequest();
         translogSyncProcessor.put(location, syncListener);
     }
 
@@ -0,0 +1,73 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package org.elasticsearch.index.shard;
+
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.io.stream.Writeable;
+
+import java.io.IOException;
+
+public final class TranslogSyncStats implements Writeable {
+
+    private final long requests;
+    private final long fsyncs;
+
+    public TranslogSyncStats(long requests, long fsyncs) {
+        this.requests = requests;
+        this.fsyncs = fsyncs;
+    }
+
+    public TranslogSyncStats(StreamInput in) throws IOException {
+        this.requests = in.readVLong();
+        this.fsyncs = in.readVLong();
+    }
+
+    @Override
+    public void writeTo(StreamOutput out) throws IOException {
+        out.writeVLong(requests);
+        out.writeVLong(fsyncs);
+    }
+
+    /**
+     * @return number of translog sync requests of write operations
+     */
+    public long requests() {
+        return requests;
+    }
+
+    /**
+     * @return number of translog fsyncs executed to serve the sync requests
+     */
+    public long fsyncs() {
+        return fsyncs;
+    }
+
+    /**
+     * @return number of sync requests which didn't need a fsync of their own, because the location was
+     *         already synced by a fsync that served other requests as well
+     */
+    public long fsyncsSaved() {
+        return Math.max(0L, requests - fsyncs);
+    }
+}
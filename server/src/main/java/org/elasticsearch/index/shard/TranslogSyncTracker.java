@@ -0,0 +1,49 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package org.elasticsearch.index.shard;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Node level counters of the translog syncs requested by write operations, see {@link IndexShard#sync}.
+ *
+ * Each shard batches the pending sync requests of its translog, so concurrent requests of the same shard
+ * are usually served by a single fsync. The counters are shared by all shards of a node and outlive them.
+ */
+public final class TranslogSyncTracker {
+
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder fsyncs = new LongAdder();
+
+    void onRequest() {
+        requests.increment();
+    }
+
+    void onFsync() {
+        fsyncs.increment();
+    }
+
+    public TranslogSyncStats stats() {
+        return new TranslogSyncStats(requests.sum(), fsyncs.sum());
+    }
+}
@@ -109,7 +109,7 @@ public class IndicesQueryCache implements QueryCache, Closeable {
                 ? 1d / stats.size()
                 : ((double) shardStats.getCacheSize()) / totalSize;
         final long additionalRamBytesUsed = Math.round(weight * sharedRamBytesUsed);
-        shardStats.add(new QueryCacheStats(additionalRamBytesUsed, 0, 0, 0, 0));
+        shardStats.add(new QueryCacheStats(additionalRamBytesUsed, 0, 0, 0, 0, 0));
         return shardStats;
     }
 
@@ -199,9 +199,10 @@ public class IndicesQueryCache implements QueryCache, Closeable {
         volatile long missCount;
         volatile long cacheCount;
         volatile long cacheSize;
+        volatile long evictionCount;
 
         QueryCacheStats toQueryCacheStats() {
-            return new QueryCacheStats(ramBytesUsed, hitCount, missCount, cacheCount, cacheSize);
+            return new QueryCacheStats(ramBytesUsed, hitCount, missCount, cacheCount, cacheSize, evictionCount);
         }
     }
 
@@ -229,6 +230,10 @@ public class IndicesQueryCache implements QueryCache, Closeable {
 
     private class ElasticsearchLRUQueryCache extends LRUQueryCache {
 
+        // Set while all entries of a segment are dropped because the segment was closed,
+        // so that onDocIdSetEviction can tell those apart from evictions of the LRU policy
+        private final ThreadLocal<Boolean> clearingSegment = ThreadLocal.withInitial(() -> Boolean.FALSE);
+
         ElasticsearchLRUQueryCache(int maxSize, long maxRamBytesUsed, Predicate<LeafReaderContext> leavesToCache, float skipFactor) {
             super(maxSize, maxRamBytesUsed, leavesToCache, skipFactor);
         }
@@ -255,6 +260,16 @@ public class IndicesQueryCache implements QueryCache, Closeable {
             return stats;
         }
 
+        @Override
+        public void clearCoreCacheKey(Object coreKey) {
+            clearingSegment.set(Boolean.TRUE);
+            try {
+                super.clearCoreCacheKey(coreKey);
+            } finally {
+                clearingSegment.set(Boolean.FALSE);
+            }
+        }
+
         // It's ok to not protect these callbacks by a lock since it is
         // done in LRUQueryCache
         @Override
@@ -312,6 +327,9 @@ public class IndicesQueryCache implements QueryCache, Closeable {
                 final Stats shardStats = statsAndCount.stats;
                 shardStats.cacheSize -= numEntries;
                 shardStats.ramBytesUsed -= sumRamBytesUsed;
+                if (clearingSegment.get() == false) {
+                    shardStats.evictionCount += numEntries;
+                }
                 statsAndCount.count -= numEntries;
                 if (statsAndCount.count == 0) {
                     stats2.remove(readerCoreKey);
@@ -110,12 +110,17 @@ public class HierarchyCircuitBreakerService extends CircuitBreakerService {
     public static final CrateSetting<Double> OPERATIONS_LOG_CIRCUIT_BREAKER_OVERHEAD_SETTING = CrateSetting.of(Setting.doubleSetting(
         "stats.breaker.log.operations.overhead", 1.0d, 0.0d, Setting.Property.Dynamic, Setting.Property.NodeScope), DataTypes.DOUBLE);
 
+    public static final String AGGREGATION_CACHE = "aggregation_cache";
+    public static final Setting<ByteSizeValue> AGGREGATION_CACHE_CIRCUIT_BREAKER_LIMIT_SETTING = Setting.memorySizeSetting(
+        "indices.breaker.aggregation_cache.limit", "1%", Setting.Property.Dynamic, Setting.Property.NodeScope);
+
     public static final String BREAKING_EXCEPTION_MESSAGE =
         "[query] Data too large, data for [%s] would be larger than limit of [%d/%s]";
 
     private volatile BreakerSettings queryBreakerSettings;
     private volatile BreakerSettings logJobsBreakerSettings;
     private volatile BreakerSettings logOperationsBreakerSettings;
+    private volatile BreakerSettings aggregationCacheBreakerSettings;
 
     private volatile BreakerSettings parentSettings;
     private volatile BreakerSettings fielddataSettings;
@@ -171,6 +176,11 @@ public class HierarchyCircuitBreakerService extends CircuitBreakerService {
             OPERATIONS_LOG_CIRCUIT_BREAKER_OVERHEAD_SETTING.setting().get(settings),
             CircuitBreaker.Type.MEMORY);
 
+        aggregationCacheBreakerSettings = new BreakerSettings(AGGREGATION_CACHE,
+            AGGREGATION_CACHE_CIRCUIT_BREAKER_LIMIT_SETTING.get(settings).getBytes(),
+            1.0d,
+            CircuitBreaker.Type.MEMORY);
+
         if (LOGGER.isTraceEnabled()) {
             LOGGER.trace("parent circuit breaker with settings {}", this.parentSettings);
         }
@@ -182,6 +192,7 @@ public class HierarchyCircuitBreakerService extends CircuitBreakerService {
         registerBreaker(this.queryBreakerSettings);
         registerBreaker(this.logJobsBreakerSettings);
         registerBreaker(this.logOperationsBreakerSettings);
+        registerBreaker(this.aggregationCacheBreakerSettings);
 
         clusterSettings.addSettingsUpdateConsumer(TOTAL_CIRCUIT_BREAKER_LIMIT_SETTING, this::setTotalCircuitBreakerLimit, this::validateTotalCircuitBreakerLimit);
         clusterSettings.addSettingsUpdateConsumer(FIELDDATA_CIRCUIT_BREAKER_LIMIT_SETTING, FIELDDATA_CIRCUIT_BREAKER_OVERHEAD_SETTING, this::setFieldDataBreakerLimit);
@@ -197,6 +208,9 @@ public class HierarchyCircuitBreakerService extends CircuitBreakerService {
         clusterSettings.addSettingsUpdateConsumer(OPERATIONS_LOG_CIRCUIT_BREAKER_LIMIT_SETTING.setting(),
             (newLimit) ->
                 setBreakerLimit(logOperationsBreakerSettings, OPERATIONS_LOG, s -> this.logOperationsBreakerSettings = s, newLimit, null));
+        clusterSettings.addSettingsUpdateConsumer(AGGREGATION_CACHE_CIRCUIT_BREAKER_LIMIT_SETTING,
+            (newLimit) ->
+                setBreakerLimit(aggregationCacheBreakerSettings, AGGREGATION_CACHE, s -> this.aggregationCacheBreakerSettings = s, newLimit, null));
     }
 
     public static String breakingExceptionMessage(String label, long limit) {
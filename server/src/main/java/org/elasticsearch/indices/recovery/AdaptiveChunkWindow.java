@@ -0,0 +1,138 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package org.elasticsearch.indices.recovery;
+
+import org.apache.lucene.store.RateLimiter;
+
+import java.util.function.Supplier;
+
+/**
+ * Sizes the file chunks of a peer recovery and the number of chunks which are in flight based on the measured
+ * throughput and round trip time of the chunk requests.
+ *
+ * Chunks are acknowledged in rounds of {@link #concurrentChunks()} requests. After each round the window grows
+ * while the throughput keeps improving: first the number of concurrent chunks is doubled up to
+ * {@link #MAX_CONCURRENT_CHUNKS}, then the chunk size up to {@link #MAX_CHUNK_SIZE}. If the round trip time rises
+ * to more than twice the smallest round trip time seen without improving the throughput, the requests are only
+ * queueing up and the number of concurrent chunks is halved again.
+ *
+ * The window never grows while the recovery is throttled by the rate limiter, because more chunks in flight
+ * wouldn't increase the throughput.
+ */
+final class AdaptiveChunkWindow {
+
+    static final int MAX_CONCURRENT_CHUNKS = 32;
+
+    // keep the same 16 bytes of slack as the default chunk size, see RecoverySettings.DEFAULT_CHUNK_SIZE
+    static final int MAX_CHUNK_SIZE = 4 * 1024 * 1024 - 16;
+
+    private static final double MIN_THROUGHPUT_GAIN = 1.1;
+
+    private final int minConcurrentChunks;
+    private final Supplier<RateLimiter> rateLimiter;
+
+    private volatile int chunkSize;
+    private volatile int concurrentChunks;
+
+    private long roundStartNanos;
+    private long roundBytes;
+    private int roundAcks;
+    private long roundRttNanos;
+    private long minRttNanos = Long.MAX_VALUE;
+    private double lastBytesPerSec;
+
+    /**
+     * @param initialChunkSize chunk size to start with; the chunk size never drops below it
+     * @param minConcurrentChunks number of concurrent chunks to start with; the window never drops below it
+     * @param rateLimiter supplies the current recovery rate limiter, may supply null if recoveries are not throttled
+     */
+    AdaptiveChunkWindow(int initialChunkSize, int minConcurrentChunks, Supplier<RateLimiter> rateLimiter) {
+        this.chunkSize = Math.min(initialChunkSize, MAX_CHUNK_SIZE);
+        this.minConcurrentChunks = minConcurrentChunks;
+        this.concurrentChunks = minConcurrentChunks;
+        this.rateLimiter = rateLimiter;
+    }
+
+    int chunkSize() {
+        return chunkSize;
+    }
+
+    int concurrentChunks() {
+        return concurrentChunks;
+    }
+
+    /**
+     * Must be called once a chunk request has been acknowledged
+     *
+     * @param bytes size of the chunk
+     * @param sentAtNanos {@link System#nanoTime()} at the time the chunk was sent
+     * @param nowNanos current {@link System#nanoTime()}
+     */
+    synchronized void onChunkAcknowledged(int bytes, long sentAtNanos, long nowNanos) {
+        if (roundAcks == 0) {
+            roundStartNanos = sentAtNanos;
+        }
+        long rttNanos = Math.max(1L, nowNanos - sentAtNanos);
+        minRttNanos = Math.min(minRttNanos, rttNanos);
+        roundRttNanos += rttNanos;
+        roundBytes += bytes;
+        roundAcks++;
+        if (roundAcks < concurrentChunks) {
+            return;
+        }
+        double bytesPerSec = roundBytes * 1_000_000_000.0 / Math.max(1L, nowNanos - roundStartNanos);
+        long avgRttNanos = roundRttNanos / roundAcks;
+        if (isThrottled(bytesPerSec) == false) {
+            if (lastBytesPerSec == 0.0 || bytesPerSec > lastBytesPerSec * MIN_THROUGHPUT_GAIN) {
+                grow();
+            } else if (avgRttNanos > 2 * minRttNanos) {
+                concurrentChunks = Math.max(minConcurrentChunks, concurrentChunks / 2);
+            }
+        }
+        lastBytesPerSec = bytesPerSec;
+        roundAcks = 0;
+        roundBytes = 0;
+        roundRttNanos = 0;
+    }
+
+    private void grow() {
+        if (concurrentChunks < MAX_CONCURRENT_CHUNKS) {
+            concurrentChunks = Math.min(MAX_CONCURRENT_CHUNKS, concurrentChunks * 2);
+        } else if (chunkSize < MAX_CHUNK_SIZE) {
+            chunkSize = (int) Math.min(MAX_CHUNK_SIZE, chunkSize * 2L);
+        }
+    }
+
+    private boolean isThrottled(double bytesPerSec) {
+        RateLimiter limiter = rateLimiter.get();
+        if (limiter == null) {
+            return false;
+        }
+        return bytesPerSec >= 0.9 * limiter.getMBPerSec() * 1024 * 1024;
+    }
+
+    @Override
+    public String toString() {
+        return "AdaptiveChunkWindow{chunkSize=" + chunkSize + ", concurrentChunks=" + concurrentChunks + '}';
+    }
+}
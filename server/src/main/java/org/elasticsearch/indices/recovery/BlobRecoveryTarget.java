@@ -55,7 +55,11 @@ public class BlobRecoveryTarget {
     * actor SourceNode as s
     * actor TargetNode as t
     *
-    * group for every two char prefix
+    * s -> t:PrefixFingerprints
+    * t -> t:get digests and fingerprint for every prefix
+    * t --> s:fingerprints
+    *
+    * group for every two char prefix with a different fingerprint
     * s -> t:StartPrefixSync(prefix)
     * t -> t:getDigests for prefix
     * t --> s:found digests
@@ -86,6 +90,7 @@ public class BlobRecoveryTarget {
         public static final String DELETE_FILE = "internal:crate:blob/shard/recovery/delete_file";
         public static final String START_RECOVERY = "internal:crate:blob/shard/recovery/start";
         public static final String START_PREFIX = "internal:crate:blob/shard/recovery/start_prefix";
+        public static final String PREFIX_FINGERPRINTS = "internal:crate:blob/shard/recovery/prefix_fingerprints";
         public static final String TRANSFER_CHUNK = "internal:crate:blob/shard/recovery/transfer_chunk";
         public static final String START_TRANSFER = "internal:crate:blob/shard/recovery/start_transfer";
     }
@@ -99,6 +104,7 @@ public class BlobRecoveryTarget {
 
         transportService.registerRequestHandler(Actions.START_RECOVERY, BlobStartRecoveryRequest::new, ThreadPool.Names.GENERIC, new StartRecoveryRequestHandler());
         transportService.registerRequestHandler(Actions.START_PREFIX, BlobStartPrefixSyncRequest::new, ThreadPool.Names.GENERIC, new StartPrefixSyncRequestHandler());
+        transportService.registerRequestHandler(Actions.PREFIX_FINGERPRINTS, BlobPrefixFingerprintsRequest::new, ThreadPool.Names.GENERIC, new PrefixFingerprintsRequestHandler());
         transportService.registerRequestHandler(Actions.TRANSFER_CHUNK, BlobRecoveryChunkRequest::new, ThreadPool.Names.GENERIC, new TransferChunkRequestHandler());
         transportService.registerRequestHandler(Actions.START_TRANSFER, BlobRecoveryStartTransferRequest::new, ThreadPool.Names.GENERIC, new StartTransferRequestHandler());
         transportService.registerRequestHandler(Actions.DELETE_FILE, BlobRecoveryDeleteRequest::new, ThreadPool.Names.GENERIC, new DeleteFileRequestHandler());
@@ -185,6 +191,23 @@ public class BlobRecoveryTarget {
     }
 
 
+    private class PrefixFingerprintsRequestHandler implements TransportRequestHandler<BlobPrefixFingerprintsRequest> {
+        @Override
+        public void messageReceived(BlobPrefixFingerprintsRequest request, TransportChannel channel, Task task) throws Exception {
+            BlobRecoveryStatus status = onGoingBlobRecoveries.get(request.recoveryId());
+            if (status == null) {
+                throw new IllegalBlobRecoveryStateException(
+                    "could not retrieve BlobRecoveryStatus"
+                );
+            }
+            if (status.canceled()) {
+                throw new IndexShardClosedException(status.shardId());
+            }
+            channel.sendResponse(new BlobPrefixFingerprintsResponse(status.blobShard.currentFingerprints()));
+        }
+    }
+
+
     private class StartTransferRequestHandler implements TransportRequestHandler<BlobRecoveryStartTransferRequest> {
         @Override
         public void messageReceived(BlobRecoveryStartTransferRequest request, TransportChannel channel, Task task) throws Exception {
@@ -203,12 +203,17 @@ public class PeerRecoverySourceService implements IndexEventListener {
                 if (handler != null) {
                     return handler;
                 } else {
+                    final int maxConcurrentFileChunks = recoverySettings.getMaxConcurrentFileChunks();
+                    final AdaptiveChunkWindow adaptiveChunkWindow = recoverySettings.isAdaptiveFileChunks()
+                        ? new AdaptiveChunkWindow(recoveryChunkSizeInBytes, maxConcurrentFileChunks, recoverySettings::rateLimiter)
+                        : null;
                     return new RecoverySourceHandler(
                         shard,
                         recoveryTarget,
                         request,
                         recoveryChunkSizeInBytes,
-                        recoverySettings.getMaxConcurrentFileChunks());
+                        maxConcurrentFileChunks,
+                        adaptiveChunkWindow);
                 }
             }
         }
@@ -62,6 +62,7 @@ import org.elasticsearch.index.translog.Translog;
 import org.elasticsearch.threadpool.ThreadPool;
 import org.elasticsearch.transport.RemoteTransportException;
 
+import javax.annotation.Nullable;
 import java.io.Closeable;
 import java.io.IOException;
 import java.io.InputStream;
@@ -102,6 +103,8 @@ public class RecoverySourceHandler {
     private final int chunkSizeInBytes;
     private final RecoveryTargetHandler recoveryTarget;
     private final int maxConcurrentFileChunks;
+    @Nullable
+    private final AdaptiveChunkWindow adaptiveChunkWindow;
     protected final CancellableThreads cancellableThreads = new CancellableThreads();
 
     public RecoverySourceHandler(final IndexShard shard,
@@ -109,6 +112,20 @@ public class RecoverySourceHandler {
                                  final StartRecoveryRequest request,
                                  final int fileChunkSizeInBytes,
                                  final int maxConcurrentFileChunks) {
+        this(shard, recoveryTarget, request, fileChunkSizeInBytes, maxConcurrentFileChunks, null);
+    }
+
+    /**
+     * @param adaptiveChunkWindow if not null, the chunk size and the number of concurrent file chunks are adapted
+     *                            by the window, starting with {@code fileChunkSizeInBytes} and
+     *                            {@code maxConcurrentFileChunks}
+     */
+    public RecoverySourceHandler(final IndexShard shard,
+                                 RecoveryTargetHandler recoveryTarget,
+                                 final StartRecoveryRequest request,
+                                 final int fileChunkSizeInBytes,
+                                 final int maxConcurrentFileChunks,
+                                 @Nullable AdaptiveChunkWindow adaptiveChunkWindow) {
         this.shard = shard;
         this.recoveryTarget = recoveryTarget;
         this.request = request;
@@ -116,9 +133,9 @@ public class RecoverySourceHandler {
         this.logger = Loggers.getLogger(getClass(), request.shardId(), "recover to " + request.targetNode().getName());
         this.chunkSizeInBytes = fileChunkSizeInBytes;
         // if the target is on an old version, it won't be able to handle out-of-order file chunks.
-        this.maxConcurrentFileChunks =
-            request.targetNode().getVersion().onOrAfter(Version.V_4_0_0)
-            ? maxConcurrentFileChunks : 1;
+        boolean outOfOrderChunksSupported = request.targetNode().getVersion().onOrAfter(Version.V_4_0_0);
+        this.maxConcurrentFileChunks = outOfOrderChunksSupported ? maxConcurrentFileChunks : 1;
+        this.adaptiveChunkWindow = outOfOrderChunksSupported ? adaptiveChunkWindow : null;
     }
 
     public StartRecoveryRequest getRequest() {
@@ -765,7 +782,9 @@ public class RecoverySourceHandler {
         ArrayUtil.timSort(files, Comparator.comparingLong(StoreFileMetadata::length)); // send smallest first
         final LocalCheckpointTracker requestSeqIdTracker = new LocalCheckpointTracker(NO_OPS_PERFORMED, NO_OPS_PERFORMED);
         final AtomicReference<Tuple<StoreFileMetadata, Exception>> error = new AtomicReference<>();
-        final byte[] buffer = new byte[chunkSizeInBytes];
+        final AdaptiveChunkWindow window = adaptiveChunkWindow;
+        // the buffer can be re-used because the chunk requests are serialized before writeFileChunk returns
+        final byte[] buffer = new byte[window == null ? chunkSizeInBytes : AdaptiveChunkWindow.MAX_CHUNK_SIZE];
         for (final StoreFileMetadata md : files) {
             if (error.get() != null) {
                 break;
@@ -774,17 +793,19 @@ public class RecoverySourceHandler {
                  InputStream in = new InputStreamIndexInput(indexInput, md.length())) {
                 long position = 0;
                 int bytesRead;
-                while ((bytesRead = in.read(buffer, 0, buffer.length)) != -1) {
+                while ((bytesRead = in.read(buffer, 0, window == null ? buffer.length : window.chunkSize())) != -1) {
                     final BytesArray content = new BytesArray(buffer, 0, bytesRead);
                     final boolean lastChunk = position + content.length() == md.length();
                     final long requestSeqId = requestSeqIdTracker.generateSeqNo();
+                    final int concurrentChunks = window == null ? maxConcurrentFileChunks : window.concurrentChunks();
                     cancellableThreads
-                        .execute(() -> requestSeqIdTracker.waitForProcessedOpsToComplete(requestSeqId - maxConcurrentFileChunks));
+                        .execute(() -> requestSeqIdTracker.waitForProcessedOpsToComplete(requestSeqId - concurrentChunks));
                     cancellableThreads.checkForCancel();
                     if (error.get() != null) {
                         break;
                     }
                     final long requestFilePosition = position;
+                    final long sentAtNanos = System.nanoTime();
                     cancellableThreads.executeIO(() -> recoveryTarget.writeFileChunk(
                         md,
                         requestFilePosition,
@@ -792,7 +813,12 @@ public class RecoverySourceHandler {
                         lastChunk,
                         translogOps.get(),
                         ActionListener.wrap(
-                            r -> requestSeqIdTracker.markSeqNoAsProcessed(requestSeqId),
+                            r -> {
+                                if (window != null) {
+                                    window.onChunkAcknowledged(content.length(), sentAtNanos, System.nanoTime());
+                                }
+                                requestSeqIdTracker.markSeqNoAsProcessed(requestSeqId);
+                            },
                             e -> {
                                 error.compareAndSet(null, Tuple.tuple(md, e));
                                 requestSeqIdTracker.markSeqNoAsProcessed(requestSeqId);
@@ -779,6 +779,23 @@ public class RecoveryState implements ToXContentFragment, Writeable {
             return recovered;
         }
 
+        /**
+         * average number of bytes per second recovered for files that are not reused, 0 if nothing was recovered yet
+         */
+        public synchronized long recoveredBytesPerSec() {
+            long time = time();
+            if (time <= 0) {
+                return 0L;
+            }
+            long recovered = 0;
+            for (File file : fileDetails.values()) {
+                if (file.reused() == false) {
+                    recovered += file.recovered();
+                }
+            }
+            return recovered * 1000 / time;
+        }
+
         /**
          * percent of bytes recovered out of total files bytes *to be* recovered
          */
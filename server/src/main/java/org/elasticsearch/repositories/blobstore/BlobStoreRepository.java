@@ -207,6 +207,13 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
      */
     public static final Setting<Boolean> COMPRESS_SETTING = Setting.boolSetting("compress", true, Setting.Property.NodeScope);
 
+    /**
+     * Maximum number of files of a shard that are restored concurrently. The files are restored on the
+     * {@link ThreadPool.Names#SNAPSHOT} pool, whose size limits the number of concurrent file restores of a node.
+     */
+    public static final Setting<Integer> MAX_RESTORE_CONCURRENT_FILES_SETTING = Setting.intSetting(
+        "max_restore_concurrent_files", 4, 1, Setting.Property.NodeScope);
+
     private final Settings settings;
 
     private final boolean compress;
@@ -215,6 +222,8 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
 
     private final RateLimiter restoreRateLimiter;
 
+    private final int maxRestoreConcurrentFiles;
+
     private final CounterMetric snapshotRateLimitingTimeInNanos = new CounterMetric();
 
     private final CounterMetric restoreRateLimitingTimeInNanos = new CounterMetric();
@@ -256,6 +265,7 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
         this.compress = COMPRESS_SETTING.get(metadata.settings());
         snapshotRateLimiter = getRateLimiter(metadata.settings(), "max_snapshot_bytes_per_sec", new ByteSizeValue(40, ByteSizeUnit.MB));
         restoreRateLimiter = getRateLimiter(metadata.settings(), "max_restore_bytes_per_sec", new ByteSizeValue(40, ByteSizeUnit.MB));
+        maxRestoreConcurrentFiles = MAX_RESTORE_CONCURRENT_FILES_SETTING.get(metadata.settings());
         readOnly = metadata.settings().getAsBoolean("readonly", false);
         this.basePath = basePath;
 
@@ -1149,7 +1159,8 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
             final BlobContainer container = shardContainer(indexId, snapshotShardId);
             BlobStoreIndexShardSnapshot snapshot = loadShardSnapshot(container, snapshotId);
             SnapshotFiles snapshotFiles = new SnapshotFiles(snapshot.snapshot(), snapshot.indexFiles());
-            new FileRestoreContext(metadata.name(), shardId, snapshotId, recoveryState, BUFFER_SIZE) {
+            new FileRestoreContext(metadata.name(), shardId, snapshotId, recoveryState, BUFFER_SIZE,
+                                   threadPool.executor(ThreadPool.Names.SNAPSHOT), maxRestoreConcurrentFiles) {
                 @Override
                 protected InputStream fileInputStream(BlobStoreIndexShardSnapshot.FileInfo fileInfo) {
                     final InputStream dataBlobCompositeStream = new SlicedInputStream(fileInfo.numberOfParts()) {
@@ -28,6 +28,7 @@ import org.apache.lucene.index.IndexFormatTooOldException;
 import org.apache.lucene.store.IOContext;
 import org.apache.lucene.store.IndexOutput;
 import org.elasticsearch.common.lucene.Lucene;
+import org.elasticsearch.common.util.concurrent.EsRejectedExecutionException;
 import org.elasticsearch.common.util.iterable.Iterables;
 import org.elasticsearch.index.shard.ShardId;
 import org.elasticsearch.index.snapshots.IndexShardRestoreFailedException;
@@ -43,9 +44,14 @@ import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicReference;
 
 import static java.util.Collections.emptyMap;
 import static java.util.Collections.unmodifiableMap;
@@ -55,6 +61,10 @@ import static java.util.Collections.unmodifiableMap;
  * restore from some form of a snapshot. It will setup a new store, identify files that need to be copied
  * for the source, and perform the copies. Implementers must implement the functionality of opening the
  * underlying file streams for snapshotted lucene file.
+ * <p>
+ * If created with an executor and a concurrency greater than one, up to {@code maxConcurrentFiles} files are
+ * restored at the same time: the calling thread restores files itself and additionally forks workers to the executor.
+ * The number of concurrent restores on a node is therefore bounded by the size of the executor.
  */
 public abstract class FileRestoreContext {
 
@@ -65,9 +75,11 @@ public abstract class FileRestoreContext {
     protected final SnapshotId snapshotId;
     protected final ShardId shardId;
     protected final int bufferSize;
+    private final Executor executor;
+    private final int maxConcurrentFiles;
 
     /**
-     * Constructs new restore context
+     * Constructs new restore context which restores one file after the other
      *
      * @param shardId       shard id to restore into
      * @param snapshotId    snapshot id
@@ -76,11 +88,29 @@ public abstract class FileRestoreContext {
      */
     protected FileRestoreContext(String repositoryName, ShardId shardId, SnapshotId snapshotId, RecoveryState recoveryState,
                                  int bufferSize) {
+        this(repositoryName, shardId, snapshotId, recoveryState, bufferSize, Runnable::run, 1);
+    }
+
+    /**
+     * Constructs new restore context
+     *
+     * @param shardId            shard id to restore into
+     * @param snapshotId         snapshot id
+     * @param recoveryState      recovery state to report progress
+     * @param bufferSize         buffer size for restore
+     * @param executor           executor used to restore files concurrently
+     * @param maxConcurrentFiles maximum number of files of the shard that are restored at the same time
+     */
+    protected FileRestoreContext(String repositoryName, ShardId shardId, SnapshotId snapshotId, RecoveryState recoveryState,
+                                 int bufferSize, Executor executor, int maxConcurrentFiles) {
+        assert maxConcurrentFiles > 0 : "maxConcurrentFiles must be greater than 0";
         this.repositoryName = repositoryName;
         this.recoveryState = recoveryState;
         this.snapshotId = snapshotId;
         this.shardId = shardId;
         this.bufferSize = bufferSize;
+        this.executor = executor;
+        this.maxConcurrentFiles = maxConcurrentFiles;
     }
 
     /**
@@ -212,11 +242,82 @@ public abstract class FileRestoreContext {
     }
 
     protected void restoreFiles(List<BlobStoreIndexShardSnapshot.FileInfo> filesToRecover, Store store) throws IOException {
-        // restore the files from the snapshot to the Lucene store
-        for (final BlobStoreIndexShardSnapshot.FileInfo fileToRecover : filesToRecover) {
+        final int numWorkers = Math.min(maxConcurrentFiles, filesToRecover.size());
+        if (numWorkers <= 1) {
+            // restore the files from the snapshot to the Lucene store
+            for (final BlobStoreIndexShardSnapshot.FileInfo fileToRecover : filesToRecover) {
+                LOGGER.trace("[{}] [{}] restoring file [{}]", shardId, snapshotId, fileToRecover.name());
+                restoreFile(fileToRecover, store);
+            }
+            return;
+        }
+
+        // Start with the largest files so that a big file restored last doesn't leave the other workers idle
+        final ConcurrentLinkedQueue<BlobStoreIndexShardSnapshot.FileInfo> queue = new ConcurrentLinkedQueue<>();
+        filesToRecover.stream()
+            .sorted(Comparator.comparingLong(BlobStoreIndexShardSnapshot.FileInfo::length).reversed())
+            .forEach(queue::add);
+        final AtomicReference<Exception> failure = new AtomicReference<>();
+        final CountDownLatch forkedWorkersDone = new CountDownLatch(numWorkers - 1);
+        for (int i = 1; i < numWorkers; i++) {
+            try {
+                executor.execute(() -> {
+                    try {
+                        restoreFilesFromQueue(queue, store, failure);
+                    } finally {
+                        forkedWorkersDone.countDown();
+                    }
+                });
+            } catch (EsRejectedExecutionException e) {
+                // the calling thread will restore the remaining files
+                forkedWorkersDone.countDown();
+            }
+        }
+        restoreFilesFromQueue(queue, store, failure);
+        // The workers use the store, so wait for them even if interrupted; the failure stops them after their current file
+        boolean interrupted = false;
+        while (true) {
+            try {
+                forkedWorkersDone.await();
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+                failure.accumulateAndGet(e, FileRestoreContext::addSuppressed);
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        final Exception e = failure.get();
+        if (e instanceof IOException) {
+            throw (IOException) e;
+        } else if (e instanceof RuntimeException) {
+            throw (RuntimeException) e;
+        } else if (e != null) {
+            throw new IOException(e);
+        }
+    }
+
+    private void restoreFilesFromQueue(ConcurrentLinkedQueue<BlobStoreIndexShardSnapshot.FileInfo> queue,
+                                       Store store,
+                                       AtomicReference<Exception> failure) {
+        BlobStoreIndexShardSnapshot.FileInfo fileToRecover;
+        while (failure.get() == null && (fileToRecover = queue.poll()) != null) {
             LOGGER.trace("[{}] [{}] restoring file [{}]", shardId, snapshotId, fileToRecover.name());
-            restoreFile(fileToRecover, store);
+            try {
+                restoreFile(fileToRecover, store);
+            } catch (Exception e) {
+                failure.accumulateAndGet(e, FileRestoreContext::addSuppressed);
+            }
+        }
+    }
+
+    private static Exception addSuppressed(Exception first, Exception other) {
+        if (first == null) {
+            return other;
         }
+        first.addSuppressed(other);
+        return first;
     }
 
     protected abstract InputStream fileInputStream(BlobStoreIndexShardSnapshot.FileInfo fileInfo);
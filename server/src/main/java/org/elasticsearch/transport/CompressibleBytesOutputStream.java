@@ -21,11 +21,15 @@ package org.elasticsearch.transport;
 
 import io.crate.common.io.IOUtils;
 import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.compress.Compressor;
 import org.elasticsearch.common.compress.CompressorFactory;
 import org.elasticsearch.common.io.Streams;
 import org.elasticsearch.common.io.stream.BytesStream;
+import org.elasticsearch.common.io.stream.ReleasableBytesStreamOutput;
 import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.util.BigArrays;
 
+import javax.annotation.Nullable;
 import java.io.IOException;
 import java.util.zip.DeflaterOutputStream;
 
@@ -41,18 +45,48 @@ import java.util.zip.DeflaterOutputStream;
  *
  * {@link CompressibleBytesOutputStream#close()} should be called when the bytes are no longer needed and
  * can be safely released.
+ *
+ * With a {@code minCompressSize} the bytes are written uncompressed until the threshold is reached; only then are the
+ * bytes written so far copied into a compressed stream, so that small messages are sent without compression.
+ * {@link #isCompressed()} tells if the materialized bytes are compressed.
  */
 final class CompressibleBytesOutputStream extends StreamOutput {
 
-    private final StreamOutput stream;
     private final BytesStream bytesStreamOutput;
-    private final boolean shouldCompress;
+    @Nullable
+    private final Compressor compressor;
+    private final long minCompressSize;
+    @Nullable
+    private final BigArrays bigArrays;
+
+    private StreamOutput stream;
+    private boolean shouldCompress;
+    private long uncompressedBytes = 0;
+    @Nullable
+    private BytesStream compressedBytes;
 
     CompressibleBytesOutputStream(BytesStream bytesStreamOutput, boolean shouldCompress) throws IOException {
+        this(bytesStreamOutput, shouldCompress ? CompressorFactory.COMPRESSOR : null, 0, null);
+    }
+
+    /**
+     * @param compressor the compressor to use or null if the bytes should not be compressed
+     * @param minCompressSize the number of bytes from which on the bytes are compressed
+     * @param bigArrays used to allocate the buffer for the compressed bytes; only required if minCompressSize is > 0
+     */
+    CompressibleBytesOutputStream(BytesStream bytesStreamOutput,
+                                  @Nullable Compressor compressor,
+                                  long minCompressSize,
+                                  @Nullable BigArrays bigArrays) throws IOException {
+        assert minCompressSize <= 0 || compressor == null || bigArrays != null
+            : "bigArrays are required to compress only messages above a minimum size";
         this.bytesStreamOutput = bytesStreamOutput;
-        this.shouldCompress = shouldCompress;
+        this.compressor = compressor;
+        this.minCompressSize = minCompressSize;
+        this.bigArrays = bigArrays;
+        this.shouldCompress = compressor != null && minCompressSize <= 0;
         if (shouldCompress) {
-            this.stream = CompressorFactory.COMPRESSOR.streamOutput(Streams.flushOnCloseStream(bytesStreamOutput));
+            this.stream = compressor.streamOutput(Streams.flushOnCloseStream(bytesStreamOutput));
         } else {
             this.stream = bytesStreamOutput;
         }
@@ -71,20 +105,45 @@ final class CompressibleBytesOutputStream extends StreamOutput {
         if (shouldCompress) {
             stream.close();
         }
-
+        if (compressedBytes != null) {
+            return compressedBytes.bytes();
+        }
         return bytesStreamOutput.bytes();
     }
 
+    /**
+     * @return true if the bytes returned by {@link #materializeBytes()} are compressed
+     */
+    boolean isCompressed() {
+        return shouldCompress;
+    }
+
     @Override
     public void writeByte(byte b) throws IOException {
+        maybeStartCompression(1);
         stream.write(b);
     }
 
     @Override
     public void writeBytes(byte[] b, int offset, int length) throws IOException {
+        maybeStartCompression(length);
         stream.writeBytes(b, offset, length);
     }
 
+    private void maybeStartCompression(int length) throws IOException {
+        if (shouldCompress || compressor == null) {
+            return;
+        }
+        uncompressedBytes += length;
+        if (uncompressedBytes < minCompressSize) {
+            return;
+        }
+        compressedBytes = new ReleasableBytesStreamOutput(bigArrays);
+        stream = compressor.streamOutput(Streams.flushOnCloseStream(compressedBytes));
+        shouldCompress = true;
+        bytesStreamOutput.bytes().writeTo(stream);
+    }
+
     @Override
     public void flush() throws IOException {
         stream.flush();
@@ -97,7 +156,7 @@ final class CompressibleBytesOutputStream extends StreamOutput {
             IOUtils.close(stream);
         } else {
             assert shouldCompress : "If the streams are different we should be compressing";
-            IOUtils.close(stream, bytesStreamOutput);
+            IOUtils.close(stream, compressedBytes, bytesStreamOutput);
         }
     }
 
@@ -40,6 +40,7 @@ import org.elasticsearch.common.bytes.CompositeBytesReference;
 import io.crate.common.collections.MapBuilder;
 import org.elasticsearch.common.component.AbstractLifecycleComponent;
 import org.elasticsearch.common.component.Lifecycle;
+import org.elasticsearch.common.compress.CompressionScheme;
 import org.elasticsearch.common.compress.Compressor;
 import org.elasticsearch.common.compress.CompressorFactory;
 import org.elasticsearch.common.compress.NotCompressedException;
@@ -54,6 +55,7 @@ import org.elasticsearch.common.metrics.MeanMetric;
 import org.elasticsearch.common.network.NetworkAddress;
 import org.elasticsearch.common.network.NetworkService;
 import org.elasticsearch.common.network.NetworkUtils;
+import org.elasticsearch.common.regex.Regex;
 import org.elasticsearch.common.settings.Setting;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.transport.BoundTransportAddress;
@@ -152,6 +154,9 @@ public abstract class TcpTransport extends AbstractLifecycleComponent implements
     // connections while no connect operations is going on
     private final ReadWriteLock closeLock = new ReentrantReadWriteLock();
     protected final boolean compress;
+    private final CompressionScheme compressionScheme;
+    private final String[] compressActions;
+    private final long compressMinSize;
     protected final Settings settings;
     private final String nodeName;
     private volatile BoundTransportAddress boundAddress;
@@ -177,6 +182,9 @@ public abstract class TcpTransport extends AbstractLifecycleComponent implements
         this.circuitBreakerService = circuitBreakerService;
         this.namedWriteableRegistry = namedWriteableRegistry;
         this.compress = Transport.TRANSPORT_TCP_COMPRESS.get(settings);
+        this.compressionScheme = TransportSettings.TRANSPORT_COMPRESSION_SCHEME.get(settings);
+        this.compressActions = TransportSettings.TRANSPORT_COMPRESS_ACTIONS.get(settings).toArray(Strings.EMPTY_ARRAY);
+        this.compressMinSize = TransportSettings.TRANSPORT_COMPRESS_MIN_SIZE.get(settings).getBytes();
         this.networkService = networkService;
         this.transportName = transportName;
         this.nodeName = Node.NODE_NAME_SETTING.get(settings);
@@ -820,35 +828,50 @@ public abstract class TcpTransport extends AbstractLifecycleComponent implements
     protected void stopInternal() {
     }
 
-    public boolean canCompress(TransportRequest request) {
-        return compress && (!(request instanceof BytesTransportRequest));
+    public boolean canCompress(String action, TransportRequest request) {
+        return (compress || compressAction(action)) && (!(request instanceof BytesTransportRequest));
+    }
+
+    /**
+     * @return true if messages of the given action must be compressed because of `transport.compress.actions`
+     */
+    private boolean compressAction(String action) {
+        return compressActions.length > 0 && Regex.simpleMatch(compressActions, action);
+    }
+
+    /**
+     * Returns the compressor of the configured compression scheme, falling back to deflate if the
+     * receiving node is on a version that can't decompress it.
+     */
+    private Compressor compressor(Version receiverVersion) {
+        if (compressionScheme == CompressionScheme.LZ4 && receiverVersion.onOrAfter(Version.V_4_3_0)) {
+            return compressionScheme.compressor();
+        }
+        return CompressionScheme.DEFLATE.compressor();
     }
 
     private void sendRequestToChannel(final DiscoveryNode node, final TcpChannel channel, final long requestId, final String action,
                                       final TransportRequest request, TransportRequestOptions options, Version channelVersion,
                                       byte status) throws IOException, TransportException {
-        if (compress) {
+        if (compress || compressAction(action)) {
             options = TransportRequestOptions.builder(options).withCompress(true).build();
         }
 
         // only compress if asked and the request is not bytes. Otherwise only
         // the header part is compressed, and the "body" can't be extracted as compressed
-        final boolean compressMessage = options.compress() && canCompress(request);
+        final boolean compressMessage = options.compress() && canCompress(action, request);
+
+        // we pick the smallest of the 2, to support both backward and forward compatibility
+        // note, this is the only place we need to do this, since from here on, we use the serialized version
+        // as the version to use also when the node receiving this request will send the response with
+        Version version = Version.min(getCurrentVersion(), channelVersion);
 
         status = TransportStatus.setRequest(status);
         ReleasableBytesStreamOutput bStream = new ReleasableBytesStreamOutput(bigArrays);
-        final CompressibleBytesOutputStream stream = new CompressibleBytesOutputStream(bStream, compressMessage);
+        final CompressibleBytesOutputStream stream = new CompressibleBytesOutputStream(
+            bStream, compressMessage ? compressor(version) : null, compressMinSize, bigArrays);
         boolean addedReleaseListener = false;
         try {
-            if (compressMessage) {
-                status = TransportStatus.setCompress(status);
-            }
-
-            // we pick the smallest of the 2, to support both backward and forward compatibility
-            // note, this is the only place we need to do this, since from here on, we use the serialized version
-            // as the version to use also when the node receiving this request will send the response with
-            Version version = Version.min(getCurrentVersion(), channelVersion);
-
             stream.setVersion(version);
             ThreadContext.bwcWriteHeaders(stream);
             stream.writeStringArray(features);
@@ -941,17 +964,15 @@ public abstract class TcpTransport extends AbstractLifecycleComponent implements
             final String action,
             TransportResponseOptions options,
             byte status) throws IOException {
-        if (compress) {
+        if (compress || compressAction(action)) {
             options = TransportResponseOptions.builder(options).withCompress(true).build();
         }
         status = TransportStatus.setResponse(status); // TODO share some code with sendRequest
         ReleasableBytesStreamOutput bStream = new ReleasableBytesStreamOutput(bigArrays);
-        CompressibleBytesOutputStream stream = new CompressibleBytesOutputStream(bStream, options.compress());
+        CompressibleBytesOutputStream stream = new CompressibleBytesOutputStream(
+            bStream, options.compress() ? compressor(nodeVersion) : null, compressMinSize, bigArrays);
         boolean addedReleaseListener = false;
         try {
-            if (options.compress()) {
-                status = TransportStatus.setCompress(status);
-            }
             ThreadContext.bwcWriteHeaders(stream);
             stream.setVersion(nodeVersion);
             stream.setFeatures(features);
@@ -1011,6 +1032,10 @@ public abstract class TcpTransport extends AbstractLifecycleComponent implements
         // #validateRequest method. this might be a problem in deflate after all but it's important to write
         // the marker bytes.
         final BytesReference messageBody = stream.materializeBytes();
+        // messages below `transport.compress.min_size` stay uncompressed even if compression was requested
+        if (stream.isCompressed()) {
+            status = TransportStatus.setCompress(status);
+        }
         final BytesReference header = buildHeader(requestId, status, stream.getVersion(), messageBody.length() + zeroCopyBuffer.length());
         return new CompositeBytesReference(header, messageBody, zeroCopyBuffer);
     }
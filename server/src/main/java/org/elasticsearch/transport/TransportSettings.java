@@ -19,6 +19,7 @@
 
 package org.elasticsearch.transport;
 
+import org.elasticsearch.common.compress.CompressionScheme;
 import org.elasticsearch.common.network.NetworkService;
 import org.elasticsearch.common.settings.Setting;
 import org.elasticsearch.common.settings.Settings;
@@ -32,6 +33,7 @@ import java.util.function.Function;
 import static java.util.Collections.emptyList;
 import static org.elasticsearch.common.settings.Setting.affixKeySetting;
 import static org.elasticsearch.common.settings.Setting.boolSetting;
+import static org.elasticsearch.common.settings.Setting.byteSizeSetting;
 import static org.elasticsearch.common.settings.Setting.intSetting;
 import static org.elasticsearch.common.settings.Setting.listSetting;
 import static org.elasticsearch.common.settings.Setting.timeSetting;
@@ -68,6 +70,16 @@ public final class TransportSettings {
         boolSetting("transport.tcp.compress", false, Setting.Property.NodeScope);
     public static final Setting<Boolean> TRANSPORT_COMPRESS =
         boolSetting("transport.compress", OLD_TRANSPORT_COMPRESS, Setting.Property.NodeScope);
+    // compression scheme used for compressed messages; deflate is used as fallback for nodes which don't support lz4
+    public static final Setting<CompressionScheme> TRANSPORT_COMPRESSION_SCHEME =
+        new Setting<>("transport.compression_scheme", CompressionScheme.DEFLATE.toString(), CompressionScheme::parse,
+            Setting.Property.NodeScope);
+    // actions (wildcards supported) which are compressed even if compression is disabled for all messages
+    public static final Setting<List<String>> TRANSPORT_COMPRESS_ACTIONS =
+        listSetting("transport.compress.actions", emptyList(), Function.identity(), Setting.Property.NodeScope);
+    // messages smaller than this are sent uncompressed, as compressing them costs more than it saves
+    public static final Setting<ByteSizeValue> TRANSPORT_COMPRESS_MIN_SIZE =
+        byteSizeSetting("transport.compress.min_size", new ByteSizeValue(0), Setting.Property.NodeScope);
     // the scheduled internal ping interval setting, defaults to disabled (-1)
     public static final Setting<TimeValue> PING_SCHEDULE =
         timeSetting("transport.ping_schedule", TimeValue.timeValueSeconds(-1), Setting.Property.NodeScope);
@@ -596,6 +596,13 @@ public class CreateAlterTableStatementAnalyzerTest extends CrateDummyClusterServ
         analyze("alter table users set (foobar='2')");
     }
 
+    @Test
+    public void test_sort_by_can_only_be_set_when_the_table_is_created() {
+        expectedException.expect(IllegalArgumentException.class);
+        expectedException.expectMessage("Invalid property \"sort_by\" passed to [ALTER | CREATE] TABLE statement");
+        analyze("alter table users set (sort_by='id')");
+    }
+
     @Test
     public void testAlterSystemTable() {
         expectedException.expect(OperationOnInaccessibleRelationException.class);
@@ -55,8 +55,10 @@ import org.hamcrest.Matchers;
 import org.hamcrest.core.IsInstanceOf;
 import org.junit.Test;
 
+import io.crate.analyze.relations.AliasedAnalyzedRelation;
 import io.crate.analyze.relations.AnalyzedRelation;
 import io.crate.analyze.relations.DocTableRelation;
+import io.crate.analyze.relations.JoinPair;
 import io.crate.analyze.relations.TableFunctionRelation;
 import io.crate.analyze.relations.TableRelation;
 import io.crate.common.collections.Lists2;
@@ -96,6 +98,7 @@ import io.crate.metadata.RelationName;
 import io.crate.metadata.RowGranularity;
 import io.crate.metadata.doc.DocTableInfo;
 import io.crate.metadata.sys.SysNodesTableInfo;
+import io.crate.planner.node.dql.join.JoinType;
 import io.crate.sql.parser.ParsingException;
 import io.crate.test.integration.CrateDummyClusterServiceUnitTest;
 import io.crate.testing.SQLExecutor;
@@ -218,6 +221,7 @@ public class SelectStatementAnalyzerTest extends CrateDummyClusterServiceUnitTes
             "process",
             "rest_url",
             "thread_pools",
+            "translog_sync",
             "version"
         ));
         assertThat(relation.outputs().size(), is(outputNames.size()));
@@ -2280,22 +2284,22 @@ public class SelectStatementAnalyzerTest extends CrateDummyClusterServiceUnitTes
     }
 
     @Test
-    public void testSubSelectWithAccessToParentRelationThrowsUnsupportedFeature() throws Exception {
+    public void testCorrelatedSubSelectWithoutAggregateThrowsUnsupportedFeature() throws Exception {
         var executor = SQLExecutor.builder(clusterService)
             .addTable(T3.T1_DEFINITION)
             .build();
         expectedException.expect(UnsupportedOperationException.class);
-        expectedException.expectMessage("Cannot use relation \"doc.t1\" in this context. It is only accessible in the parent context");
+        expectedException.expectMessage("Cannot use correlated subquery");
         executor.analyze("select (select 1 from t1 as ti where ti.x = t1.x) from t1");
     }
 
     @Test
-    public void testSubSelectWithAccessToParentRelationAliasThrowsUnsupportedFeature() throws Exception {
+    public void testCorrelatedSubSelectOnParentRelationAliasWithoutAggregateThrowsUnsupportedFeature() throws Exception {
         var executor = SQLExecutor.builder(clusterService)
             .addTable(T3.T1_DEFINITION)
             .build();
         expectedException.expect(UnsupportedOperationException.class);
-        expectedException.expectMessage("Cannot use relation \"tparent\" in this context. It is only accessible in the parent context");
+        expectedException.expectMessage("Cannot use correlated subquery");
         executor.analyze("select (select 1 from t1 where t1.x = tparent.x) from t1 as tparent");
     }
 
@@ -2319,10 +2323,104 @@ public class SelectStatementAnalyzerTest extends CrateDummyClusterServiceUnitTes
             .addTable("create table foo.t1 (id bigint primary key, name text)")
             .build();
         expectedException.expect(UnsupportedOperationException.class);
-        expectedException.expectMessage("Cannot use relation \"foo.t1\" in this context. It is only accessible in the parent context");
+        expectedException.expectMessage("Cannot use correlated subquery");
         sqlExecutor2.analyze("select * from t1 where id = (select 1 from t1 as x where x.id = t1.id)");
     }
 
+    @Test
+    public void test_correlated_exists_is_rewritten_to_inner_join_on_distinct_keys() throws Exception {
+        var executor = SQLExecutor.builder(clusterService)
+            .addTable(T3.T1_DEFINITION)
+            .addTable(T3.T2_DEFINITION)
+            .build();
+        QueriedSelectRelation relation = executor.analyze(
+            "select a from t1 where exists (select 1 from t2 where t2.y = t1.x and t2.b = 'foo') and t1.i > 1");
+
+        assertThat(relation.where(), isSQL("(doc.t1.i > 1)"));
+        assertThat(relation.from().size(), is(2));
+        JoinPair joinPair = relation.joinPairs().get(0);
+        assertThat(joinPair.joinType(), is(JoinType.INNER));
+        assertThat(joinPair.right(), is(new RelationName(null, "_sq0")));
+        assertThat(joinPair.condition(), isSQL("(doc.t1.x = _sq0._key0)"));
+
+        QueriedSelectRelation derived = (QueriedSelectRelation) ((AliasedAnalyzedRelation) relation.from().get(1)).relation();
+        assertThat(derived.isDistinct(), is(true));
+        assertThat(derived.outputs(), isSQL("doc.t2.y AS _key0, true AS _exists"));
+        assertThat(derived.where(), isSQL("(doc.t2.b = 'foo')"));
+    }
+
+    @Test
+    public void test_correlated_not_exists_is_rewritten_to_left_join_with_null_check() throws Exception {
+        var executor = SQLExecutor.builder(clusterService)
+            .addTable(T3.T1_DEFINITION)
+            .addTable(T3.T2_DEFINITION)
+            .build();
+        QueriedSelectRelation relation = executor.analyze(
+            "select a from t1 where not exists (select 1 from t2 where t1.x = t2.y)");
+
+        assertThat(relation.where(), isSQL("(_sq0._exists IS NULL)"));
+        JoinPair joinPair = relation.joinPairs().get(0);
+        assertThat(joinPair.joinType(), is(JoinType.LEFT));
+        assertThat(joinPair.condition(), isSQL("(doc.t1.x = _sq0._key0)"));
+    }
+
+    @Test
+    public void test_correlated_in_subquery_is_rewritten_to_inner_join_on_keys_and_value() throws Exception {
+        var executor = SQLExecutor.builder(clusterService)
+            .addTable(T3.T1_DEFINITION)
+            .addTable(T3.T2_DEFINITION)
+            .build();
+        QueriedSelectRelation relation = executor.analyze(
+            "select a from t1 where t1.i in (select t2.i from t2 where t2.y = t1.x)");
+
+        assertThat(relation.where(), isLiteral(true));
+        JoinPair joinPair = relation.joinPairs().get(0);
+        assertThat(joinPair.joinType(), is(JoinType.INNER));
+        assertThat(joinPair.condition(), isSQL("((doc.t1.x = _sq0._key0) AND (doc.t1.i = _sq0._value))"));
+    }
+
+    @Test
+    public void test_correlated_scalar_count_subquery_is_rewritten_to_grouped_left_join() throws Exception {
+        var executor = SQLExecutor.builder(clusterService)
+            .addTable(T3.T1_DEFINITION)
+            .addTable(T3.T2_DEFINITION)
+            .build();
+        QueriedSelectRelation relation = executor.analyze(
+            "select a, (select count(*) from t2 where t2.y = t1.x) from t1");
+
+        assertThat(relation.outputs(), isSQL("doc.t1.a, coalesce(_sq0._value, 0::bigint) AS (SELECT count(*) FROM (doc.t2))"));
+        JoinPair joinPair = relation.joinPairs().get(0);
+        assertThat(joinPair.joinType(), is(JoinType.LEFT));
+
+        QueriedSelectRelation derived = (QueriedSelectRelation) ((AliasedAnalyzedRelation) relation.from().get(1)).relation();
+        assertThat(derived.groupBy(), isSQL("doc.t2.y"));
+        assertThat(derived.outputs(), isSQL("doc.t2.y AS _key0, count(*) AS _value"));
+    }
+
+    @Test
+    public void test_correlated_subquery_with_non_equality_condition_is_not_supported() throws Exception {
+        var executor = SQLExecutor.builder(clusterService)
+            .addTable(T3.T1_DEFINITION)
+            .addTable(T3.T2_DEFINITION)
+            .build();
+        expectedException.expect(UnsupportedOperationException.class);
+        expectedException.expectMessage("Cannot use correlated subquery");
+        executor.analyze("select a from t1 where exists (select 1 from t2 where t2.y > t1.x)");
+    }
+
+    @Test
+    public void test_correlated_subquery_referring_to_the_parent_in_a_join_condition_is_not_supported() throws Exception {
+        var executor = SQLExecutor.builder(clusterService)
+            .addTable(T3.T1_DEFINITION)
+            .addTable(T3.T2_DEFINITION)
+            .addTable(T3.T3_DEFINITION)
+            .build();
+        expectedException.expect(UnsupportedOperationException.class);
+        expectedException.expectMessage("Cannot use correlated subquery");
+        executor.analyze("select a from t1 where exists (" +
+                         "select 1 from t2 inner join t3 on t2.y = t3.z and t3.c = t1.a where t2.y = t1.x)");
+    }
+
     @Test
     public void testContextForExplicitJoinsPrecedesImplicitJoins() throws Exception {
         var executor = SQLExecutor.builder(clusterService)
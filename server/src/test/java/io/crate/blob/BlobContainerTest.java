@@ -34,6 +34,7 @@ import java.nio.file.FileVisitResult;
 import java.nio.file.Path;
 import java.nio.file.SimpleFileVisitor;
 import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.concurrent.atomic.AtomicInteger;
 
@@ -83,6 +84,29 @@ public class BlobContainerTest {
         assertThat(blobsCount.get(), is(3));
     }
 
+    @Test
+    public void testDigestsFingerprintIsIndependentOfOrder() throws Exception {
+        byte[] a = Blobs.digest("Content A");
+        byte[] b = Blobs.digest("Content B");
+        byte[] c = Blobs.digest("Content C");
+
+        byte[] fingerprint = BlobContainer.digestsFingerprint(new byte[][]{a, b, c});
+        assertThat(BlobContainer.digestsFingerprint(new byte[][]{c, a, b}), is(fingerprint));
+        assertThat(Arrays.equals(BlobContainer.digestsFingerprint(new byte[][]{a, b}), fingerprint), is(false));
+        assertThat(Arrays.equals(BlobContainer.digestsFingerprint(new byte[0][]), fingerprint), is(false));
+    }
+
+    @Test
+    public void testDigestsFingerprintOfContainerPrefix() throws Exception {
+        File blobsPath = temporaryFolder.newFolder();
+        BlobContainer blobContainer = new BlobContainer(blobsPath.toPath());
+        byte[] digest = Blobs.digest("Content A");
+        blobContainer.getFile(Hex.encodeHexString(digest)).createNewFile();
+
+        byte[][] digests = blobContainer.cleanAndReturnDigests(digest[0]);
+        assertThat(BlobContainer.digestsFingerprint(digests), is(BlobContainer.digestsFingerprint(new byte[][]{digest})));
+    }
+
     private static String digest(String content) {
         return Hex.encodeHexString(Blobs.digest(content));
     }
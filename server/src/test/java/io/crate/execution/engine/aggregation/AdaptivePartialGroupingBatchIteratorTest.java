@@ -0,0 +1,218 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.execution.engine.aggregation;
+
+import io.crate.breaker.ConcurrentRamAccounting;
+import io.crate.breaker.RamAccounting;
+import io.crate.data.BatchIterator;
+import io.crate.data.Row;
+import io.crate.data.RowN;
+import io.crate.testing.TestingBatchIterators;
+import io.crate.testing.TestingRowConsumer;
+import org.elasticsearch.test.ESTestCase;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+import java.util.function.BinaryOperator;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import static org.hamcrest.Matchers.is;
+
+public class AdaptivePartialGroupingBatchIteratorTest extends ESTestCase {
+
+    /**
+     * The bytes accounted to the breaker by the groups and by other operators
+     */
+    private final AtomicLong breakerBytes = new AtomicLong();
+    private final RamAccounting operationRamAccounting = new ConcurrentRamAccounting(
+        breakerBytes::addAndGet,
+        bytes -> breakerBytes.addAndGet(-bytes)
+    );
+    private final RamAccounting ramAccounting = new ConcurrentRamAccounting(
+        operationRamAccounting::addBytes,
+        bytes -> operationRamAccounting.addBytes(-bytes)
+    );
+
+    /**
+     * Groups by the first column and counts the rows per group
+     */
+    private class CountingCollector implements FlushableGroupingCollector<Map<Object, Long>> {
+
+        @Override
+        public Supplier<Map<Object, Long>> supplier() {
+            return LinkedHashMap::new;
+        }
+
+        @Override
+        public BiConsumer<Map<Object, Long>, Row> accumulator() {
+            return (counts, row) -> {
+                Long count = counts.get(row.get(0));
+                if (count == null) {
+                    ramAccounting.addBytes(16);
+                    counts.put(row.get(0), 1L);
+                } else {
+                    counts.put(row.get(0), count + 1);
+                }
+            };
+        }
+
+        @Override
+        public BinaryOperator<Map<Object, Long>> combiner() {
+            return (a, b) -> {
+                throw new UnsupportedOperationException("combine not supported");
+            };
+        }
+
+        @Override
+        public Function<Map<Object, Long>, Iterable<Row>> finisher() {
+            return counts -> {
+                List<Row> rows = new ArrayList<>(counts.size());
+                for (Map.Entry<Object, Long> entry : counts.entrySet()) {
+                    rows.add(new RowN(entry.getKey(), entry.getValue()));
+                }
+                return rows;
+            };
+        }
+
+        @Override
+        public Set<Characteristics> characteristics() {
+            return Collections.emptySet();
+        }
+
+        @Override
+        public int numGroups(Map<Object, Long> counts) {
+            return counts.size();
+        }
+
+        @Override
+        public void clear(Map<Object, Long> counts) {
+            counts.clear();
+        }
+    }
+
+    private BatchIterator<Row> iterator(List<Integer> values, int maxGroups) {
+        return new AdaptivePartialGroupingBatchIterator<>(
+            TestingBatchIterators.ofValues(values),
+            new CountingCollector(),
+            ramAccounting,
+            maxGroups
+        );
+    }
+
+    private List<Object[]> consume(List<Integer> values, int maxGroups) throws Exception {
+        BatchIterator<Row> it = iterator(values, maxGroups);
+        TestingRowConsumer consumer = new TestingRowConsumer();
+        consumer.accept(it, null);
+        return consumer.getResult();
+    }
+
+    private static Map<Object, Long> mergeCounts(List<Object[]> rows) {
+        Map<Object, Long> counts = new HashMap<>();
+        for (Object[] row : rows) {
+            counts.merge(row[0], (Long) row[1], Long::sum);
+        }
+        return counts;
+    }
+
+    @Test
+    public void test_groups_are_emitted_once_if_they_fit_into_the_table() throws Exception {
+        List<Integer> values = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            values.add(i % 3);
+        }
+        List<Object[]> rows = consume(values, 4);
+        assertThat(rows.size(), is(3));
+        assertThat(mergeCounts(rows), is(Map.of(0, 100L, 1, 100L, 2, 100L)));
+        assertThat(ramAccounting.totalBytes(), is(0L));
+        assertThat(breakerBytes.get(), is(0L));
+    }
+
+    @Test
+    public void test_groups_are_flushed_if_the_table_is_full_and_grouping_continues() throws Exception {
+        List<Integer> values = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            values.add(i % 3);
+        }
+        values.add(3);
+        for (int i = 0; i < 30; i++) {
+            values.add(i % 3);
+        }
+        List<Object[]> rows = consume(values, 4);
+        // 4 groups on the first flush, 3 at the end
+        assertThat(rows.size(), is(7));
+        assertThat(mergeCounts(rows), is(Map.of(0, 20L, 1, 20L, 2, 20L, 3, 1L)));
+        assertThat(ramAccounting.totalBytes(), is(0L));
+        assertThat(breakerBytes.get(), is(0L));
+    }
+
+    @Test
+    public void test_rows_are_passed_through_if_grouping_does_not_reduce_them() throws Exception {
+        List<Integer> values = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            values.add(i);
+        }
+        values.add(0);
+        values.add(0);
+        List<Object[]> rows = consume(values, 10);
+        // no grouping after the first flush, so the last two rows are emitted individually
+        assertThat(rows.size(), is(102));
+        Map<Object, Long> counts = mergeCounts(rows);
+        assertThat(counts.size(), is(100));
+        assertThat(counts.get(0), is(3L));
+        assertThat(ramAccounting.totalBytes(), is(0L));
+        assertThat(breakerBytes.get(), is(0L));
+    }
+
+    @Test
+    public void test_breaker_returns_to_zero_after_a_flush_and_after_close() throws Exception {
+        BatchIterator<Row> it = iterator(List.of(0, 0, 0, 1, 1, 1, 2, 0, 0), 3);
+
+        // 3 groups, flushed once the table is full
+        assertThat(it.moveNext(), is(true));
+        assertThat(breakerBytes.get(), is(3 * 16L));
+
+        // bytes accounted by the consumer of the flushed rows aren't released by the flush
+        operationRamAccounting.addBytes(100);
+        assertThat(it.moveNext(), is(true));
+        assertThat(it.moveNext(), is(true));
+
+        // the groups of the first flush are released, the group of the remaining rows is flushed
+        assertThat(it.moveNext(), is(true));
+        assertThat(breakerBytes.get(), is(100L + 16L));
+
+        it.close();
+        assertThat(breakerBytes.get(), is(100L));
+        operationRamAccounting.addBytes(-100);
+        assertThat(breakerBytes.get(), is(0L));
+        assertThat(ramAccounting.totalBytes(), is(0L));
+    }
+}
@@ -103,6 +103,12 @@ public class CountAggregationTest extends AggregationTest {
         assertThat(executeAggregation(DataTypes.STRING, new Object[][]{{"Youri"}, {"Ruben"}}), is(2L));
     }
 
+    @Test
+    public void test_count_does_not_count_null_values() throws Exception {
+        assertThat(executeAggregation(DataTypes.LONG, new Object[][]{{1L}, {null}, {3L}}), is(2L));
+        assertThat(executeAggregation(DataTypes.STRING, new Object[][]{{"Youri"}, {null}}), is(1L));
+    }
+
     @Test
     public void test_count_with_ip_argument() throws Exception {
         assertThat(executeAggregation(DataTypes.IP, new Object[][]{{"127.0.0.1"}}), is(1L));
@@ -21,15 +21,33 @@
 
 package io.crate.execution.engine.aggregation.impl;
 
+import io.crate.breaker.RamAccounting;
+import io.crate.execution.engine.aggregation.AggregationFunction;
+import io.crate.execution.engine.aggregation.DocValueAggregator;
+import io.crate.expression.symbol.InputColumn;
+import io.crate.metadata.SearchPath;
 import io.crate.metadata.functions.Signature;
 import io.crate.operation.aggregation.AggregationTest;
 import io.crate.types.DataType;
 import io.crate.types.DataTypes;
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.DoublePoint;
+import org.apache.lucene.document.SortedNumericDocValuesField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.LeafReader;
+import org.apache.lucene.store.ByteBuffersDirectory;
+import org.apache.lucene.util.NumericUtils;
+import org.elasticsearch.index.mapper.MappedFieldType;
 import org.junit.Test;
 
 import java.util.List;
 
 import static org.hamcrest.CoreMatchers.is;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
 
 public class MaximumAggregationTest extends AggregationTest {
 
@@ -105,4 +123,38 @@ public class MaximumAggregationTest extends AggregationTest {
                                         " no overload found for matching argument types: (object).");
         executeAggregation(DataTypes.UNTYPED_OBJECT, new Object[][]{{new Object()}});
     }
+
+    @Test
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public void test_segment_with_nan_is_not_answered_from_its_max_point_value() throws Exception {
+        IndexWriter iw = new IndexWriter(new ByteBuffersDirectory(), new IndexWriterConfig(new StandardAnalyzer()));
+        for (double value : new double[] { Double.NaN, 5.0, 1.0 }) {
+            Document doc = new Document();
+            doc.add(new DoublePoint("x", value));
+            doc.add(new SortedNumericDocValuesField("x", NumericUtils.doubleToSortableLong(value)));
+            iw.addDocument(doc);
+        }
+        iw.commit();
+        DirectoryReader directoryReader = DirectoryReader.open(iw);
+        LeafReader reader = directoryReader.leaves().get(0).reader();
+
+        var max = (AggregationFunction<?, ?>) nodeCtx.functions().get(
+            null,
+            "max",
+            InputColumn.mapToInputColumns(List.of(DataTypes.DOUBLE)),
+            SearchPath.pathWithPGCatalogAndDoc()
+        );
+        MappedFieldType fieldType = mock(MappedFieldType.class);
+        when(fieldType.name()).thenReturn("x");
+        DocValueAggregator aggregator = max.getDocValueAggregator(List.of(DataTypes.DOUBLE), List.of(fieldType));
+        Object state = aggregator.initialState(RamAccounting.NO_ACCOUNTING);
+
+        assertThat(aggregator.applyFromMetadata(reader, state), is(false));
+        aggregator.loadDocValues(reader);
+        for (int doc = 0; doc < reader.maxDoc(); doc++) {
+            aggregator.apply(RamAccounting.NO_ACCOUNTING, doc, state);
+        }
+        assertThat(aggregator.partialResult(RamAccounting.NO_ACCOUNTING, state), is(5.0));
+        directoryReader.close();
+    }
 }
@@ -91,6 +91,15 @@ public class MinimumAggregationTest extends AggregationTest {
         assertThat(executeAggregation(DataTypes.BYTE, new Object[][]{{(byte) 1}, {(byte) 0}}), is((byte) 0));
     }
 
+    @Test
+    public void test_min_with_timestamp_argument_type() throws Exception {
+        Object result = executeAggregation(
+            DataTypes.TIMESTAMPZ,
+            new Object[][]{{1600000000000L}, {1500000000000L}, {null}, {1700000000000L}});
+
+        assertThat(result, is(1500000000000L));
+    }
+
     @Test
     public void testString() throws Exception {
         Object result = executeAggregation(DataTypes.STRING, new Object[][]{{"Youri"}, {"Ruben"}});
@@ -22,8 +22,10 @@
 
 package io.crate.execution.engine.collect;
 
+import io.crate.breaker.ConcurrentRamAccounting;
 import io.crate.breaker.RamAccounting;
 import io.crate.data.BatchIterator;
+import io.crate.data.BatchIterators;
 import io.crate.data.Row;
 import io.crate.execution.engine.aggregation.AggregationContext;
 import io.crate.execution.engine.aggregation.impl.CountAggregation;
@@ -35,19 +37,27 @@ import io.crate.memory.OnHeapMemoryManager;
 import io.crate.metadata.NodeContext;
 import io.crate.test.integration.CrateDummyClusterServiceUnitTest;
 import io.crate.testing.BatchIteratorTester;
+import io.crate.types.DataType;
+import io.crate.types.DataTypes;
 import org.apache.lucene.analysis.standard.StandardAnalyzer;
 import org.apache.lucene.document.Document;
 import org.apache.lucene.document.Field;
+import org.apache.lucene.document.SortedNumericDocValuesField;
 import org.apache.lucene.document.SortedSetDocValuesField;
 import org.apache.lucene.index.DirectoryReader;
 import org.apache.lucene.index.IndexWriter;
 import org.apache.lucene.index.IndexWriterConfig;
 import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.NoMergePolicy;
 import org.apache.lucene.search.IndexSearcher;
 import org.apache.lucene.search.MatchAllDocsQuery;
 import org.apache.lucene.store.ByteBuffersDirectory;
 import org.apache.lucene.util.BytesRef;
 import org.elasticsearch.Version;
+import org.elasticsearch.common.breaker.CircuitBreaker;
+import org.elasticsearch.common.breaker.MemoryCircuitBreaker;
+import org.elasticsearch.common.breaker.NoopCircuitBreaker;
+import org.elasticsearch.common.unit.ByteSizeValue;
 import org.elasticsearch.common.util.BigArrays;
 import org.elasticsearch.index.engine.Engine;
 import org.elasticsearch.index.mapper.KeywordFieldMapper;
@@ -56,14 +66,20 @@ import org.junit.Test;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Consumer;
+import java.util.stream.Collectors;
 
 import static io.crate.testing.TestingHelpers.createNodeContext;
+import static io.crate.testing.TestingHelpers.printRows;
+import static org.hamcrest.Matchers.greaterThan;
 import static org.hamcrest.Matchers.instanceOf;
 import static org.hamcrest.Matchers.is;
 
@@ -103,6 +119,7 @@ public class GroupByOptimizedIteratorTest extends CrateDummyClusterServiceUnitTe
     private BatchIterator<Row> createBatchIterator(Runnable onNextReader) {
         return GroupByOptimizedIterator.getIterator(
             BigArrays.NON_RECYCLING_INSTANCE,
+            new GlobalOrdinals(new NoopCircuitBreaker(CircuitBreaker.FIELDDATA)),
             indexSearcher,
             columnName,
             aggregationContexts,
@@ -205,6 +222,115 @@ public class GroupByOptimizedIteratorTest extends CrateDummyClusterServiceUnitTe
         assertThat(expectedException, instanceOf(IllegalStateException.class));
     }
 
+    @Test
+    public void test_group_by_string_key_merges_the_groups_of_all_segments() throws Exception {
+        IndexWriter iw = new IndexWriter(
+            new ByteBuffersDirectory(),
+            new IndexWriterConfig(new StandardAnalyzer()).setMergePolicy(NoMergePolicy.INSTANCE));
+        List<String> values = List.of("a", "b", "c");
+        for (int segment = 0; segment < values.size(); segment++) {
+            for (String value : values.subList(0, segment + 1)) {
+                Document doc = new Document();
+                doc.add(new SortedSetDocValuesField(columnName, new BytesRef(value)));
+                iw.addDocument(doc);
+            }
+            iw.commit();
+        }
+        iw.addDocument(new Document());
+        iw.commit();
+        DirectoryReader reader = DirectoryReader.open(iw);
+        assertThat(reader.leaves().size(), is(4));
+
+        AtomicLong usedBytes = new AtomicLong();
+        CircuitBreaker fieldDataBreaker = new MemoryCircuitBreaker(new ByteSizeValue(1024 * 1024), 1.0, logger);
+        GlobalOrdinals globalOrdinals = new GlobalOrdinals(fieldDataBreaker);
+        BatchIterator<Row> it = GroupByOptimizedIterator.getIterator(
+            BigArrays.NON_RECYCLING_INSTANCE,
+            globalOrdinals,
+            new IndexSearcher(reader),
+            columnName,
+            aggregationContexts,
+            List.of(),
+            Collections.singletonList(inExpr),
+            new ConcurrentRamAccounting(usedBytes::addAndGet, bytes -> usedBytes.addAndGet(-bytes)),
+            new OnHeapMemoryManager(usedBytes -> {}),
+            Version.CURRENT,
+            new InputRow(Collections.singletonList(inExpr)),
+            new MatchAllDocsQuery(),
+            new CollectorContext(),
+            AggregateMode.ITER_FINAL
+        );
+        assertThat(
+            printRows(collectSorted(it)),
+            is("a| 3\n" +
+               "b| 2\n" +
+               "c| 1\n" +
+               "NULL| 1\n")
+        );
+        // the groups and their keys are accounted to the query, the cached ordinal map to the breaker
+        assertThat(usedBytes.get(), greaterThan(0L));
+        assertThat(globalOrdinals.numCachedReaders(), is(1));
+        assertThat(fieldDataBreaker.getUsed(), greaterThan(0L));
+
+        reader.close();
+        assertThat(globalOrdinals.numCachedReaders(), is(0));
+        assertThat(fieldDataBreaker.getUsed(), is(0L));
+    }
+
+    @Test
+    public void test_group_by_string_and_long_key_on_multiple_segments() throws Exception {
+        IndexWriter iw = new IndexWriter(
+            new ByteBuffersDirectory(),
+            new IndexWriterConfig(new StandardAnalyzer()).setMergePolicy(NoMergePolicy.INSTANCE));
+        Object[][] segments = new Object[][] {
+            new Object[] { "a", 1L, "a", 1L, "b", 2L },
+            new Object[] { "a", 1L, "b", null, "b", 2L }
+        };
+        for (Object[] keys : segments) {
+            for (int i = 0; i < keys.length; i += 2) {
+                Document doc = new Document();
+                doc.add(new SortedSetDocValuesField("x", new BytesRef((String) keys[i])));
+                if (keys[i + 1] != null) {
+                    doc.add(new SortedNumericDocValuesField("y", (Long) keys[i + 1]));
+                }
+                iw.addDocument(doc);
+            }
+            iw.commit();
+        }
+        DirectoryReader reader = DirectoryReader.open(iw);
+
+        BatchIterator<Row> it = GroupByOptimizedIterator.getMultiKeyIterator(
+            new GlobalOrdinals(new NoopCircuitBreaker(CircuitBreaker.FIELDDATA)),
+            new IndexSearcher(reader),
+            List.of("x", "y"),
+            List.<DataType<?>>of(DataTypes.STRING, DataTypes.LONG),
+            aggregationContexts,
+            List.of(),
+            Collections.singletonList(inExpr),
+            RamAccounting.NO_ACCOUNTING,
+            new OnHeapMemoryManager(usedBytes -> {}),
+            Version.CURRENT,
+            new InputRow(Collections.singletonList(inExpr)),
+            new MatchAllDocsQuery(),
+            new CollectorContext(),
+            AggregateMode.ITER_FINAL
+        );
+        assertThat(
+            printRows(collectSorted(it)),
+            is("a| 1| 3\n" +
+               "b| 2| 2\n" +
+               "b| NULL| 1\n")
+        );
+        reader.close();
+    }
+
+    private static List<Object[]> collectSorted(BatchIterator<Row> it) throws Exception {
+        List<Object[]> rows = BatchIterators.collect(it, Collectors.mapping(Row::materialize, Collectors.toList()))
+            .get(5, TimeUnit.SECONDS);
+        rows.sort(Comparator.comparing(Arrays::toString));
+        return rows;
+    }
+
     private Throwable stopOnInterrupting(Consumer<BatchIterator<Row>> interrupt) throws Exception {
         CountDownLatch waitForLoadNextBatch = new CountDownLatch(1);
         CountDownLatch pauseOnDocumentCollecting = new CountDownLatch(1);
@@ -0,0 +1,226 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.execution.engine.collect;
+
+import io.crate.Streamer;
+import io.crate.analyze.WhereClause;
+import io.crate.breaker.ConcurrentRamAccounting;
+import io.crate.breaker.RamAccounting;
+import io.crate.data.Row1;
+import io.crate.execution.dsl.phases.RoutedCollectPhase;
+import io.crate.execution.dsl.projection.AggregationProjection;
+import io.crate.execution.dsl.projection.EvalProjection;
+import io.crate.execution.dsl.projection.Projection;
+import io.crate.execution.engine.aggregation.impl.CountAggregation;
+import io.crate.execution.engine.distribution.StreamBucket;
+import io.crate.expression.symbol.AggregateMode;
+import io.crate.expression.symbol.Aggregation;
+import io.crate.expression.symbol.InputColumn;
+import io.crate.expression.symbol.Literal;
+import io.crate.expression.symbol.Symbol;
+import io.crate.metadata.Routing;
+import io.crate.metadata.RowGranularity;
+import io.crate.planner.distribution.DistributionInfo;
+import io.crate.testing.SqlExpressions;
+import io.crate.testing.TestingBatchIterators;
+import io.crate.testing.TestingRowConsumer;
+import io.crate.types.DataTypes;
+import org.elasticsearch.common.breaker.CircuitBreaker;
+import org.elasticsearch.common.breaker.MemoryCircuitBreaker;
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.test.ESTestCase;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+
+public class ShardAggregationCacheTest extends ESTestCase {
+
+    private static final ShardId SHARD_ID = new ShardId("t1", "_na_", 0);
+
+    private static StreamBucket rows(int numRows) {
+        StreamBucket.Builder builder = new StreamBucket.Builder(
+            new Streamer[] { DataTypes.LONG.streamer() }, RamAccounting.NO_ACCOUNTING);
+        for (int i = 0; i < numRows; i++) {
+            builder.add(new Row1((long) i));
+        }
+        return builder.build();
+    }
+
+    private static ShardAggregationCache.Key key(Object readerKey, String fingerprint) {
+        return new ShardAggregationCache.Key(SHARD_ID, readerKey, new BytesArray(fingerprint));
+    }
+
+    private static RoutedCollectPhase collectPhase(Symbol where, List<Projection> projections) {
+        return new RoutedCollectPhase(
+            UUID.randomUUID(),
+            1,
+            "collect",
+            new Routing(Map.of()),
+            RowGranularity.DOC,
+            List.of(new InputColumn(0, DataTypes.LONG)),
+            projections,
+            where,
+            DistributionInfo.DEFAULT_BROADCAST
+        );
+    }
+
+    private static AggregationProjection countProjection() {
+        return new AggregationProjection(
+            List.of(new Aggregation(
+                CountAggregation.COUNT_STAR_SIGNATURE,
+                DataTypes.LONG,
+                Collections.emptyList()
+            )),
+            RowGranularity.SHARD,
+            AggregateMode.ITER_PARTIAL
+        );
+    }
+
+    @Test
+    public void test_entry_is_returned_for_same_reader_and_fingerprint() {
+        CircuitBreaker breaker = new MemoryCircuitBreaker(new ByteSizeValue(1024 * 1024), 1.0, logger);
+        ShardAggregationCache cache = new ShardAggregationCache(breaker);
+        Object reader = new Object();
+        StreamBucket rows = rows(10);
+        cache.put(key(reader, "select count(*)"), rows, null);
+
+        assertThat(cache.get(key(reader, "select count(*)")), is(rows));
+        assertThat(cache.get(key(reader, "select sum(x)")), nullValue());
+        assertThat(cache.get(key(new Object(), "select count(*)")), nullValue());
+        assertThat(breaker.getUsed() > rows.bytesLength(), is(true));
+    }
+
+    @Test
+    public void test_least_recently_used_entries_are_evicted_if_breaker_limit_is_exceeded() {
+        StreamBucket rows = rows(100);
+        long entrySize = key(null, "q0").ramBytesUsed() + rows.bytesLength();
+        CircuitBreaker breaker = new MemoryCircuitBreaker(new ByteSizeValue(entrySize * 2), 1.0, logger);
+        ShardAggregationCache cache = new ShardAggregationCache(breaker);
+        Object reader = new Object();
+
+        cache.put(key(reader, "q0"), rows, null);
+        cache.put(key(reader, "q1"), rows, null);
+        // access q0 so that q1 becomes the least recently used entry
+        assertThat(cache.get(key(reader, "q0")), notNullValue());
+        cache.put(key(reader, "q2"), rows, null);
+
+        assertThat(cache.size(), is(2));
+        assertThat(cache.get(key(reader, "q1")), nullValue());
+        assertThat(cache.get(key(reader, "q0")), notNullValue());
+        assertThat(cache.get(key(reader, "q2")), notNullValue());
+        assertThat(breaker.getUsed(), is(entrySize * 2));
+    }
+
+    @Test
+    public void test_entry_larger_than_limit_is_not_cached() {
+        CircuitBreaker breaker = new MemoryCircuitBreaker(new ByteSizeValue(64), 1.0, logger);
+        ShardAggregationCache cache = new ShardAggregationCache(breaker);
+        cache.put(key(new Object(), "q0"), rows(100), null);
+
+        assertThat(cache.size(), is(0));
+        assertThat(breaker.getUsed(), is(0L));
+    }
+
+    @Test
+    public void test_entries_of_closed_reader_and_shard_are_removed() {
+        CircuitBreaker breaker = new MemoryCircuitBreaker(new ByteSizeValue(1024 * 1024), 1.0, logger);
+        ShardAggregationCache cache = new ShardAggregationCache(breaker);
+        Object reader1 = new Object();
+        Object reader2 = new Object();
+        cache.put(key(reader1, "q0"), rows(10), null);
+        cache.put(key(reader2, "q0"), rows(10), null);
+
+        cache.invalidate(reader1);
+        assertThat(cache.size(), is(1));
+        assertThat(cache.get(key(reader2, "q0")), notNullValue());
+
+        cache.clear(SHARD_ID);
+        assertThat(cache.size(), is(0));
+        assertThat(breaker.getUsed(), is(0L));
+    }
+
+    @Test
+    public void test_recorded_rows_are_accounted_to_the_query() throws Exception {
+        RamAccounting queryRamAccounting = new ConcurrentRamAccounting(bytes -> { }, bytes -> { });
+        AtomicReference<StreamBucket> recorded = new AtomicReference<>();
+        var it = new ShardAggregationCache.RecordingBatchIterator(
+            TestingBatchIterators.range(0L, 10L),
+            new Streamer[] { DataTypes.LONG.streamer() },
+            queryRamAccounting,
+            1024 * 1024,
+            recorded::set
+        );
+        TestingRowConsumer consumer = new TestingRowConsumer();
+        consumer.accept(it, null);
+
+        assertThat(consumer.getResult().size(), is(10));
+        assertThat(recorded.get(), notNullValue());
+        assertThat(recorded.get().size(), is(10));
+        assertThat(queryRamAccounting.totalBytes() > 0L, is(true));
+    }
+
+    @Test
+    public void test_recording_stops_once_the_rows_exceed_the_entry_limit() throws Exception {
+        RamAccounting queryRamAccounting = new ConcurrentRamAccounting(bytes -> { }, bytes -> { });
+        AtomicReference<StreamBucket> recorded = new AtomicReference<>();
+        var it = new ShardAggregationCache.RecordingBatchIterator(
+            TestingBatchIterators.range(0L, 1000L),
+            new Streamer[] { DataTypes.LONG.streamer() },
+            queryRamAccounting,
+            2048,
+            recorded::set
+        );
+        TestingRowConsumer consumer = new TestingRowConsumer();
+        consumer.accept(it, null);
+
+        // all rows are still emitted, but none are recorded for the cache
+        assertThat(consumer.getResult().size(), is(1000));
+        assertThat(recorded.get(), nullValue());
+        assertThat(queryRamAccounting.totalBytes() <= 2048 + 1024L, is(true));
+    }
+
+    @Test
+    public void test_only_deterministic_phases_ending_in_an_aggregation_are_cacheable() {
+        SqlExpressions expressions = new SqlExpressions(Collections.emptyMap());
+        Symbol matchAll = WhereClause.MATCH_ALL.queryOrFallback();
+
+        assertThat(ShardAggregationCache.isCacheable(collectPhase(matchAll, List.of())), is(false));
+        assertThat(ShardAggregationCache.isCacheable(
+            collectPhase(matchAll, List.of(new EvalProjection(List.of(new InputColumn(0, DataTypes.LONG)))))), is(false));
+        assertThat(ShardAggregationCache.isCacheable(collectPhase(matchAll, List.of(countProjection()))), is(true));
+        assertThat(ShardAggregationCache.isCacheable(
+            collectPhase(expressions.asSymbol("random() > 0.5"), List.of(countProjection()))), is(false));
+        assertThat(ShardAggregationCache.isCacheable(
+            collectPhase(Literal.BOOLEAN_TRUE, List.of(countProjection()))), is(true));
+    }
+}
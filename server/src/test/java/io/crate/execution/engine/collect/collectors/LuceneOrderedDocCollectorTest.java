@@ -26,6 +26,7 @@ import com.carrotsearch.randomizedtesting.RandomizedTest;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Iterables;
 import io.crate.analyze.OrderBy;
+import io.crate.breaker.ConcurrentRamAccounting;
 import io.crate.breaker.RamAccounting;
 import io.crate.data.Row;
 import io.crate.execution.engine.distribution.merge.KeyIterable;
@@ -61,9 +62,11 @@ import org.apache.lucene.store.ByteBuffersDirectory;
 import org.apache.lucene.store.Directory;
 import org.apache.lucene.store.FSDirectory;
 import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.RamUsageEstimator;
 import org.elasticsearch.common.UUIDs;
 import org.elasticsearch.common.lucene.search.Queries;
 import org.elasticsearch.common.unit.Fuzziness;
+import org.elasticsearch.index.IndexSortConfig;
 import org.elasticsearch.index.mapper.KeywordFieldMapper;
 import org.elasticsearch.index.mapper.NumberFieldMapper;
 import org.elasticsearch.index.query.QueryShardContext;
@@ -373,6 +376,65 @@ public class LuceneOrderedDocCollectorTest extends RandomizedTest {
         assertThat(values.next().get(0), Matchers.is(1.0F));
     }
 
+    @Test
+    public void testCanEarlyTerminateIfSortIsPrefixOfIndexSort() throws Exception {
+        Sort indexSort = IndexSortConfig.buildIndexSort("value DESC", name -> valueFieldType);
+        IndexWriterConfig cfg = new IndexWriterConfig(new KeywordAnalyzer()).setIndexSort(indexSort);
+        IndexWriter w = new IndexWriter(new ByteBuffersDirectory(), cfg);
+        for (long i = 0; i < 4; i++) {
+            addDocToLucene(w, i);
+            w.commit();
+        }
+        addDocToLucene(w, null);
+        w.commit();
+        IndexSearcher searcher = new IndexSearcher(DirectoryReader.open(w, true, true));
+
+        assertThat(LuceneOrderedDocCollector.canEarlyTerminate(indexSort, searcher), is(true));
+        Sort ascending = IndexSortConfig.buildIndexSort("value ASC", name -> valueFieldType);
+        assertThat(LuceneOrderedDocCollector.canEarlyTerminate(ascending, searcher), is(false));
+        Sort nullsLast = IndexSortConfig.buildIndexSort("value DESC NULLS LAST", name -> valueFieldType);
+        assertThat(LuceneOrderedDocCollector.canEarlyTerminate(nullsLast, searcher), is(false));
+
+        IndexSearcher unsortedSearcher = new IndexSearcher(DirectoryReader.open(createLuceneIndex()));
+        assertThat(LuceneOrderedDocCollector.canEarlyTerminate(indexSort, unsortedSearcher), is(false));
+    }
+
+    @Test
+    public void test_batch_size_is_capped_if_count_is_skipped_for_early_termination() throws Exception {
+        Sort indexSort = IndexSortConfig.buildIndexSort("value DESC", name -> valueFieldType);
+        IndexWriterConfig cfg = new IndexWriterConfig(new KeywordAnalyzer()).setIndexSort(indexSort);
+        IndexWriter w = new IndexWriter(new ByteBuffersDirectory(), cfg);
+        int numDocs = 3000;
+        for (long i = 0; i < numDocs; i++) {
+            addDocToLucene(w, i);
+        }
+        w.commit();
+        IndexSearcher searcher = new IndexSearcher(DirectoryReader.open(w, true, true));
+        assertThat(LuceneOrderedDocCollector.canEarlyTerminate(indexSort, searcher), is(true));
+
+        RamAccounting ramAccounting = new ConcurrentRamAccounting(bytes -> { }, bytes -> { });
+        LuceneOrderedDocCollector collector = new LuceneOrderedDocCollector(
+            new ShardId("dummy", UUIDs.base64UUID(), 0),
+            searcher,
+            new MatchAllDocsQuery(),
+            null,
+            false,
+            Integer.MAX_VALUE,
+            ramAccounting,
+            new CollectorContext(),
+            f -> null,
+            indexSort,
+            Collections.emptyList(),
+            Collections.emptyList()
+        );
+        int numRows = 0;
+        for (Row ignored : collector.collect()) {
+            numRows++;
+        }
+        assertThat(numRows, is(1000));
+        assertThat(ramAccounting.totalBytes(), is(1000 * RamUsageEstimator.shallowSizeOfInstance(FieldDoc.class)));
+    }
+
     private static void addDoc(IndexWriter w, KeywordFieldMapper.KeywordFieldType fieldType, String value) throws IOException {
         Document doc = new Document();
         Field field = new Field(fieldType.name(), value, fieldType);
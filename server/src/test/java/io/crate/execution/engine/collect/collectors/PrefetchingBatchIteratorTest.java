@@ -0,0 +1,121 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.execution.engine.collect.collectors;
+
+import io.crate.breaker.ConcurrentRamAccounting;
+import io.crate.breaker.RamAccounting;
+import io.crate.breaker.RowAccountingWithEstimators;
+import io.crate.data.BatchIterator;
+import io.crate.data.Row;
+import io.crate.data.Row1;
+import io.crate.testing.BatchIteratorTester;
+import io.crate.testing.BatchSimulatingIterator;
+import io.crate.testing.TestingBatchIterators;
+import io.crate.testing.TestingRowConsumer;
+import io.crate.types.DataTypes;
+import org.elasticsearch.test.ESTestCase;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+
+public class PrefetchingBatchIteratorTest extends ESTestCase {
+
+    private static final List<Object[]> EXPECTED_RESULT = IntStream.range(0, 10)
+        .mapToObj(i -> new Object[]{i})
+        .collect(Collectors.toList());
+
+    private static BatchIterator<Row> prefetching(BatchIterator<Row> source, RamAccounting ramAccounting) {
+        return new PrefetchingBatchIterator(
+            source,
+            new RowAccountingWithEstimators(List.of(DataTypes.INTEGER), ramAccounting),
+            1,
+            3
+        );
+    }
+
+    @Test
+    public void testPrefetchingBatchIterator() throws Exception {
+        BatchIteratorTester tester = new BatchIteratorTester(
+            () -> prefetching(TestingBatchIterators.range(0, 10), RamAccounting.NO_ACCOUNTING));
+        tester.verifyResultAndEdgeCaseBehaviour(EXPECTED_RESULT);
+    }
+
+    @Test
+    public void testPrefetchingBatchIteratorWithBatchedSource() throws Exception {
+        BatchIteratorTester tester = new BatchIteratorTester(
+            () -> prefetching(
+                new BatchSimulatingIterator<>(TestingBatchIterators.range(0, 10), 4, 3, null),
+                RamAccounting.NO_ACCOUNTING));
+        tester.verifyResultAndEdgeCaseBehaviour(EXPECTED_RESULT);
+    }
+
+    @Test
+    public void testOnlyCurrentBatchIsAccountedFor() throws Exception {
+        AtomicLong maxUsedBytes = new AtomicLong();
+        AtomicLong usedBytes = new AtomicLong();
+        RamAccounting ramAccounting = new RamAccounting() {
+
+            private long bytes = 0;
+
+            @Override
+            public void addBytes(long bytes) {
+                this.bytes += bytes;
+                maxUsedBytes.accumulateAndGet(usedBytes.addAndGet(bytes), Math::max);
+            }
+
+            @Override
+            public long totalBytes() {
+                return bytes;
+            }
+
+            @Override
+            public void release() {
+                usedBytes.addAndGet(-bytes);
+                bytes = 0;
+            }
+
+            @Override
+            public void close() {
+                release();
+            }
+        };
+        BatchIterator<Row> it = prefetching(TestingBatchIterators.range(0, 10), ramAccounting);
+        TestingRowConsumer consumer = new TestingRowConsumer();
+        consumer.accept(it, null);
+        assertThat(consumer.getResult().size(), is(10));
+
+        ConcurrentRamAccounting singleRow = new ConcurrentRamAccounting(bytes -> { }, bytes -> { });
+        new RowAccountingWithEstimators(List.of(DataTypes.INTEGER), singleRow).accountForAndMaybeBreak(new Row1(1));
+        assertThat(singleRow.totalBytes(), greaterThan(0L));
+
+        // batchSize is 3
+        assertThat(maxUsedBytes.get(), is(3 * singleRow.totalBytes()));
+        assertThat(usedBytes.get(), is(0L));
+    }
+}
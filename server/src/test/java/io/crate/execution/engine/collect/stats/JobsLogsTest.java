@@ -106,7 +106,7 @@ public class JobsLogsTest extends CrateDummyClusterServiceUnitTest {
         assertThat(stats.jobsLogExpiration, is(JobsLogService.STATS_JOBS_LOG_EXPIRATION_SETTING.getDefault()));
         assertThat(stats.operationsLogExpiration, is(JobsLogService.STATS_OPERATIONS_LOG_EXPIRATION_SETTING.getDefault()));
         assertThat(stats.get().jobsLog(), Matchers.instanceOf(FilteredLogSink.class));
-        assertThat(stats.get().operationsLog(), Matchers.instanceOf(QueueSink.class));
+        assertThat(stats.get().operationsLog(), Matchers.instanceOf(RingBufferSink.class));
     }
 
     @Test
@@ -176,7 +176,7 @@ public class JobsLogsTest extends CrateDummyClusterServiceUnitTest {
         assertThat(stats.jobsLogSize, is(100));
         assertThat(stats.get().jobsLog(), Matchers.instanceOf(FilteredLogSink.class));
         assertThat(stats.operationsLogSize, is(100));
-        assertThat(stats.get().operationsLog(), Matchers.instanceOf(QueueSink.class));
+        assertThat(stats.get().operationsLog(), Matchers.instanceOf(RingBufferSink.class));
     }
 
     @Test
@@ -191,14 +191,10 @@ public class JobsLogsTest extends CrateDummyClusterServiceUnitTest {
         Supplier<LogSink<JobContextLog>> jobsLogSink = () -> (LogSink<JobContextLog>) stats.get().jobsLog();
         Supplier<LogSink<OperationContextLog>> operationsLogSink = () -> (LogSink<OperationContextLog>) stats.get().operationsLog();
 
-        // sinks are still of type QueueSink
+        // size based sinks are ring buffers
         assertThat(jobsLogSink.get(), Matchers.instanceOf(FilteredLogSink.class));
-        assertThat(operationsLogSink.get(), Matchers.instanceOf(QueueSink.class));
-
-        assertThat(inspectRamAccountingQueue((QueueSink) ((FilteredLogSink) jobsLogSink.get()).delegate),
-            Matchers.instanceOf(BlockingEvictingQueue.class));
-        assertThat(inspectRamAccountingQueue((QueueSink) operationsLogSink.get()),
-            Matchers.instanceOf(BlockingEvictingQueue.class));
+        assertThat(((FilteredLogSink) jobsLogSink.get()).delegate, Matchers.instanceOf(RingBufferSink.class));
+        assertThat(operationsLogSink.get(), Matchers.instanceOf(RingBufferSink.class));
 
         clusterSettings.applySettings(Settings.builder()
             .put(JobsLogService.STATS_JOBS_LOG_EXPIRATION_SETTING.getKey(), "10s")
@@ -227,11 +223,9 @@ public class JobsLogsTest extends CrateDummyClusterServiceUnitTest {
             .put(JobsLogService.STATS_ENABLED_SETTING.getKey(), true)
             .build());
         assertThat(jobsLogSink.get(), Matchers.instanceOf(FilteredLogSink.class));
-        assertThat(inspectRamAccountingQueue((QueueSink) ((FilteredLogSink<JobContextLog>) jobsLogSink.get()).delegate),
-            Matchers.instanceOf(BlockingEvictingQueue.class));
-        assertThat(operationsLogSink.get(), Matchers.instanceOf(QueueSink.class));
-        assertThat(inspectRamAccountingQueue((QueueSink) operationsLogSink.get()),
-            Matchers.instanceOf(BlockingEvictingQueue.class));
+        assertThat(((FilteredLogSink<JobContextLog>) jobsLogSink.get()).delegate,
+            Matchers.instanceOf(RingBufferSink.class));
+        assertThat(operationsLogSink.get(), Matchers.instanceOf(RingBufferSink.class));
 
         // disable stats
         clusterSettings.applySettings(Settings.builder()
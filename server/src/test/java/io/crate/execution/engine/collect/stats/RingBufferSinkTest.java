@@ -0,0 +1,123 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.execution.engine.collect.stats;
+
+import io.crate.breaker.SizeEstimator;
+import org.apache.logging.log4j.LogManager;
+import org.elasticsearch.common.breaker.MemoryCircuitBreaker;
+import org.elasticsearch.common.unit.ByteSizeUnit;
+import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.test.ESTestCase;
+import org.junit.Test;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.emptyIterable;
+import static org.hamcrest.Matchers.is;
+
+public class RingBufferSinkTest extends ESTestCase {
+
+    private static final SizeEstimator<Integer> ESTIMATOR = new SizeEstimator<>() {
+        @Override
+        public long estimateSize(@Nullable Integer value) {
+            return 16L;
+        }
+    };
+
+    private static MemoryCircuitBreaker breaker(long limitInBytes) {
+        return new MemoryCircuitBreaker(
+            new ByteSizeValue(limitInBytes, ByteSizeUnit.BYTES),
+            1.0,
+            LogManager.getLogger(RingBufferSinkTest.class));
+    }
+
+    @Test
+    public void testRetainsMostRecentItemsInInsertionOrder() {
+        MemoryCircuitBreaker breaker = breaker(1024);
+        RingBufferSink<Integer> sink = new RingBufferSink<>(3, breaker, ESTIMATOR);
+        assertThat(sink, emptyIterable());
+
+        sink.add(1);
+        sink.add(2);
+        assertThat(sink, contains(1, 2));
+
+        sink.addAll(List.of(3, 4, 5));
+        assertThat(sink, contains(3, 4, 5));
+        assertThat(breaker.getUsed(), is(3 * 16L));
+
+        sink.close();
+        assertThat(sink, emptyIterable());
+        assertThat(breaker.getUsed(), is(0L));
+    }
+
+    @Test
+    public void testItemsAreDroppedIfBreakerLimitIsReached() {
+        MemoryCircuitBreaker breaker = breaker(40);
+        RingBufferSink<Integer> sink = new RingBufferSink<>(10, breaker, ESTIMATOR);
+        sink.add(1);
+        sink.add(2);
+        assertThat(sink, contains(1, 2));
+
+        sink.add(3);
+        assertThat(sink, emptyIterable());
+        assertThat(breaker.getUsed(), is(0L));
+
+        sink.add(4);
+        assertThat(sink, contains(4));
+    }
+
+    @Test
+    public void testConcurrentAddsRetainCapacityItems() throws Exception {
+        MemoryCircuitBreaker breaker = breaker(Long.MAX_VALUE);
+        RingBufferSink<Integer> sink = new RingBufferSink<>(15_000, breaker, ESTIMATOR);
+
+        int numThreads = 50;
+        CountDownLatch latch = new CountDownLatch(numThreads);
+        List<Thread> threads = new ArrayList<>(numThreads);
+        for (int i = 0; i < numThreads; i++) {
+            Thread t = new Thread(() -> {
+                for (int j = 0; j < 1000; j++) {
+                    sink.add(j);
+                }
+                latch.countDown();
+            });
+            t.start();
+            threads.add(t);
+        }
+        latch.await();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        int size = 0;
+        for (Integer ignored : sink) {
+            size++;
+        }
+        assertThat(size, is(15_000));
+        assertThat(breaker.getUsed(), is(15_000 * 16L));
+        sink.close();
+    }
+}
@@ -0,0 +1,72 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.execution.engine.distribution;
+
+import org.elasticsearch.test.ESTestCase;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.Matchers.is;
+
+public class AdaptivePageSizeTest extends ESTestCase {
+
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(10);
+    private static final long SLOW = AdaptivePageSize.TARGET_ROUND_TRIP_NANOS * 3;
+
+    @Test
+    public void test_page_is_full_if_row_limit_is_reached() {
+        AdaptivePageSize pageSize = new AdaptivePageSize(10, 1024 * 1024 * 1024);
+        assertThat(pageSize.isFull(9, 100), is(false));
+        assertThat(pageSize.isFull(10, 100), is(true));
+    }
+
+    @Test
+    public void test_byte_budget_grows_on_fast_round_trips_up_to_max_bytes() {
+        long maxBytes = AdaptivePageSize.INITIAL_PAGE_BYTES * 4;
+        AdaptivePageSize pageSize = new AdaptivePageSize(Integer.MAX_VALUE, maxBytes);
+        assertThat(pageSize.isFull(1, AdaptivePageSize.INITIAL_PAGE_BYTES), is(true));
+
+        for (int i = 0; i < 5; i++) {
+            pageSize.onPageAcknowledged(pageSize.pageBytes(), FAST);
+        }
+        assertThat(pageSize.pageBytes(), is(maxBytes));
+        assertThat(pageSize.isFull(1, AdaptivePageSize.INITIAL_PAGE_BYTES), is(false));
+    }
+
+    @Test
+    public void test_byte_budget_does_not_grow_if_pages_are_limited_by_rows() {
+        AdaptivePageSize pageSize = new AdaptivePageSize(10, 1024 * 1024 * 1024);
+        pageSize.onPageAcknowledged(1024, FAST);
+        assertThat(pageSize.pageBytes(), is(AdaptivePageSize.INITIAL_PAGE_BYTES));
+    }
+
+    @Test
+    public void test_byte_budget_shrinks_on_slow_round_trips_down_to_min_bytes() {
+        AdaptivePageSize pageSize = new AdaptivePageSize(Integer.MAX_VALUE, 1024 * 1024 * 1024);
+        for (int i = 0; i < 10; i++) {
+            pageSize.onPageAcknowledged(pageSize.pageBytes(), SLOW);
+        }
+        assertThat(pageSize.pageBytes(), is(AdaptivePageSize.MIN_PAGE_BYTES));
+    }
+}
@@ -23,6 +23,7 @@
 package io.crate.execution.engine.distribution;
 
 import io.crate.Streamer;
+import io.crate.breaker.BlockBasedRamAccounting;
 import io.crate.breaker.RamAccounting;
 import io.crate.data.CollectionBucket;
 import io.crate.data.Row;
@@ -47,6 +48,7 @@ import org.junit.Before;
 import org.junit.Test;
 import org.mockito.invocation.InvocationOnMock;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.UUID;
@@ -166,6 +168,44 @@ public class DistributingConsumerTest extends ESTestCase {
         collectingConsumer.getResult();
     }
 
+    @Test
+    public void test_rows_per_page_stay_the_same_if_the_page_size_is_bounded_by_bytes() throws Exception {
+        Streamer<?>[] streamers = { DataTypes.LONG.streamer() };
+        RamAccounting ramAccounting = new BlockBasedRamAccounting(bytes -> { }, 1024);
+        List<Integer> rowsPerPage = Collections.synchronizedList(new ArrayList<>());
+        TransportDistributedResultAction distributedResultAction = mock(TransportDistributedResultAction.class);
+        doAnswer((InvocationOnMock invocationOnMock) -> {
+            Object[] args = invocationOnMock.getArguments();
+            DistributedResultRequest resultRequest = (DistributedResultRequest) args[1];
+            ActionListener<DistributedResultResponse> listener = (ActionListener<DistributedResultResponse>) args[2];
+            rowsPerPage.add(resultRequest.readRows(streamers).size());
+            listener.onResponse(new DistributedResultResponse(!resultRequest.isLast()));
+            return null;
+        }).when(distributedResultAction).pushResult(anyString(), any(), any());
+        DistributingConsumer distributingConsumer = new DistributingConsumer(
+            logger,
+            executorService,
+            UUID.randomUUID(),
+            new ModuloBucketBuilder(streamers, 1, 0, ramAccounting),
+            1,
+            (byte) 0,
+            0,
+            Collections.singletonList("n1"),
+            distributedResultAction,
+            new AdaptivePageSize(100_000, 4096)
+        );
+
+        distributingConsumer.accept(TestingBatchIterators.range(0L, 20_000L), null);
+        distributingConsumer.completionFuture().get(5, TimeUnit.SECONDS);
+
+        assertThat(rowsPerPage.size(), Matchers.greaterThan(10));
+        int rowsOfFirstPage = rowsPerPage.get(0);
+        assertThat(rowsOfFirstPage, Matchers.greaterThan(1));
+        for (int rows : rowsPerPage.subList(0, rowsPerPage.size() - 1)) {
+            assertThat(rows, is(rowsOfFirstPage));
+        }
+    }
+
     private DistributingConsumer createDistributingConsumer(Streamer<?>[] streamers, TransportDistributedResultAction distributedResultAction) {
         return new DistributingConsumer(
             logger,
@@ -0,0 +1,192 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.execution.engine.distribution;
+
+import io.crate.Streamer;
+import io.crate.breaker.ConcurrentRamAccounting;
+import io.crate.breaker.RamAccounting;
+import io.crate.breaker.StringSizeEstimator;
+import io.crate.data.Row;
+import io.crate.data.RowN;
+import io.crate.types.DataTypes;
+import org.elasticsearch.Version;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.test.ESTestCase;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static io.crate.testing.TestingHelpers.isRow;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+
+public class StreamBucketTest extends ESTestCase {
+
+    private static final Streamer<?>[] STREAMERS = new Streamer[] {
+        DataTypes.INTEGER.streamer(),
+        DataTypes.LONG.streamer(),
+        DataTypes.DOUBLE.streamer(),
+        DataTypes.FLOAT.streamer(),
+        DataTypes.SHORT.streamer(),
+        DataTypes.BYTE.streamer(),
+        DataTypes.BOOLEAN.streamer(),
+        DataTypes.STRING.streamer()
+    };
+
+    private static StreamBucket buildBucket(Streamer<?>[] streamers) {
+        StreamBucket.Builder builder = new StreamBucket.Builder(streamers, RamAccounting.NO_ACCOUNTING);
+        builder.add(new RowN(1, 10L, 1.5d, 2.5f, (short) 3, (byte) 4, true, "foo"));
+        builder.add(new RowN(null, null, null, null, null, null, null, null));
+        builder.add(new RowN(2, 20L, 3.5d, 4.5f, (short) 5, (byte) 6, false, "foo"));
+        return builder.build();
+    }
+
+    private static List<Object[]> materialize(Iterable<Row> rows) {
+        List<Object[]> result = new ArrayList<>();
+        for (Row row : rows) {
+            result.add(row.materialize());
+        }
+        return result;
+    }
+
+    @Test
+    public void test_columnar_bucket_streaming() throws Exception {
+        assertThat(ColumnarPage.supports(STREAMERS), is(true));
+        StreamBucket bucket = buildBucket(STREAMERS);
+
+        BytesStreamOutput out = new BytesStreamOutput();
+        bucket.writeTo(out);
+        StreamBucket streamed = new StreamBucket(out.bytes().streamInput(), STREAMERS);
+
+        assertThat(streamed.size(), is(3));
+        List<Object[]> rows = materialize(streamed);
+        assertThat(rows.get(0), is(new Object[] {1, 10L, 1.5d, 2.5f, (short) 3, (byte) 4, true, "foo"}));
+        assertThat(rows.get(1), is(new Object[8]));
+        assertThat(rows.get(2), is(new Object[] {2, 20L, 3.5d, 4.5f, (short) 5, (byte) 6, false, "foo"}));
+    }
+
+    @Test
+    public void test_columnar_bucket_is_sent_in_row_format_to_older_nodes() throws Exception {
+        StreamBucket bucket = buildBucket(STREAMERS);
+
+        BytesStreamOutput out = new BytesStreamOutput();
+        out.setVersion(Version.V_4_2_0);
+        bucket.writeTo(out);
+        StreamInput in = out.bytes().streamInput();
+        in.setVersion(Version.V_4_2_0);
+        StreamBucket streamed = new StreamBucket(in, STREAMERS);
+
+        List<Object[]> expected = materialize(bucket);
+        List<Object[]> rows = materialize(streamed);
+        assertThat(rows.size(), is(expected.size()));
+        for (int i = 0; i < rows.size(); i++) {
+            assertThat(rows.get(i), is(expected.get(i)));
+        }
+    }
+
+    @Test
+    public void test_columnar_bucket_can_be_iterated_multiple_times() throws Exception {
+        StreamBucket bucket = buildBucket(STREAMERS);
+        BytesStreamOutput out = new BytesStreamOutput();
+        bucket.writeTo(out);
+        StreamBucket streamed = new StreamBucket(out.bytes().streamInput(), STREAMERS);
+
+        List<Object[]> firstIteration = materialize(streamed);
+        List<Object[]> secondIteration = materialize(streamed);
+        assertThat(secondIteration.size(), is(firstIteration.size()));
+        for (int i = 0; i < firstIteration.size(); i++) {
+            assertThat(secondIteration.get(i), is(firstIteration.get(i)));
+        }
+    }
+
+    @Test
+    public void test_copy_shares_the_serialized_rows_and_decodes_them_on_its_own() throws Exception {
+        StreamBucket bucket = buildBucket(STREAMERS);
+        List<Object[]> expected = materialize(bucket);
+
+        StreamBucket copy = bucket.copy();
+        assertThat(copy.size(), is(bucket.size()));
+        assertThat(copy.bytesLength(), is(bucket.bytesLength()));
+        List<Object[]> rows = materialize(copy);
+        assertThat(rows.size(), is(expected.size()));
+        for (int i = 0; i < rows.size(); i++) {
+            assertThat(rows.get(i), is(expected.get(i)));
+        }
+    }
+
+    @Test
+    public void test_columnar_builder_accounts_the_allocated_column_arrays() throws Exception {
+        Streamer<?>[] streamers = new Streamer[] { DataTypes.LONG.streamer(), DataTypes.STRING.streamer() };
+        RamAccounting ramAccounting = new ConcurrentRamAccounting(bytes -> { }, bytes -> { });
+        StreamBucket.Builder builder = new StreamBucket.Builder(streamers, ramAccounting);
+        for (int i = 0; i < 65; i++) {
+            builder.add(new RowN((long) i, "foo"));
+        }
+        // 65 rows exceed the initial capacity of 64, so both columns grew to 128 values and 2 null bitmap words
+        long arrays = 2 * (128 * Long.BYTES + 2 * Long.BYTES);
+        long dictionary = StringSizeEstimator.estimate("foo") + 32;
+        assertThat(ramAccounting.totalBytes(), is(arrays + dictionary));
+
+        // the arrays are re-used and stay accounted, the dictionary of the previous page is released
+        builder.build();
+        builder.reset();
+        assertThat(ramAccounting.totalBytes(), is(arrays));
+        builder.add(new RowN(1L, "foo"));
+        assertThat(ramAccounting.totalBytes(), is(arrays + dictionary));
+        builder.reset();
+        builder.add(new RowN(1L, "bar"));
+        assertThat(ramAccounting.totalBytes(), is(arrays + StringSizeEstimator.estimate("bar") + 32));
+    }
+
+    @Test
+    public void test_bucket_with_unsupported_column_uses_row_format() throws Exception {
+        Streamer<?>[] streamers = new Streamer[] {
+            DataTypes.INTEGER.streamer(),
+            DataTypes.UNTYPED_OBJECT.streamer()
+        };
+        assertThat(ColumnarPage.supports(streamers), is(false));
+
+        StreamBucket.Builder builder = new StreamBucket.Builder(streamers, RamAccounting.NO_ACCOUNTING);
+        builder.add(new RowN(1, null));
+        BytesStreamOutput out = new BytesStreamOutput();
+        builder.build().writeTo(out);
+        StreamBucket streamed = new StreamBucket(out.bytes().streamInput(), streamers);
+
+        assertThat(streamed, contains(isRow(1, null)));
+    }
+
+    @Test
+    public void test_builder_can_be_reused_after_reset() throws Exception {
+        Streamer<?>[] streamers = new Streamer[] { DataTypes.STRING.streamer() };
+        StreamBucket.Builder builder = new StreamBucket.Builder(streamers, RamAccounting.NO_ACCOUNTING);
+        builder.add(new RowN("a"));
+        builder.build();
+        builder.reset();
+        builder.add(new RowN((Object) null));
+        builder.add(new RowN("b"));
+
+        assertThat(builder.build(), contains(isRow((Object) null), isRow("b")));
+    }
+}
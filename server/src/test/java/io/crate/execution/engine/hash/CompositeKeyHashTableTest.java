@@ -0,0 +1,134 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.execution.engine.hash;
+
+import io.crate.data.Input;
+import io.crate.expression.symbol.Literal;
+import io.crate.types.DataType;
+import io.crate.types.DataTypes;
+import org.elasticsearch.test.ESTestCase;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.Matchers.arrayContaining;
+import static org.hamcrest.Matchers.is;
+
+public class CompositeKeyHashTableTest extends ESTestCase {
+
+    private static final List<DataType<?>> KEY_TYPES = List.of(
+        DataTypes.INTEGER,
+        DataTypes.STRING,
+        DataTypes.DOUBLE,
+        DataTypes.BOOLEAN
+    );
+
+    private static List<Input<?>> key(Object... values) {
+        return List.of(
+            Literal.of(DataTypes.INTEGER, (Integer) values[0]),
+            Literal.of(DataTypes.STRING, (String) values[1]),
+            Literal.of(DataTypes.DOUBLE, (Double) values[2]),
+            Literal.of(DataTypes.BOOLEAN, (Boolean) values[3])
+        );
+    }
+
+    @Test
+    public void test_keys_get_dense_ids_and_can_be_found_again() {
+        CompositeKeyHashTable table = new CompositeKeyHashTable(KEY_TYPES);
+        table.setProbe(key(1, "foo", 1.5, true));
+        assertThat(table.find(), is(-1));
+        assertThat(table.add(), is(0));
+
+        table.setProbe(key(1, "foo", 1.5, false));
+        assertThat(table.add(), is(1));
+
+        table.setProbe(key(null, null, null, null));
+        assertThat(table.add(), is(2));
+
+        table.setProbe(key(1, "foo", 1.5, true));
+        assertThat(table.find(), is(0));
+        assertThat(table.add(), is(-1));
+
+        table.setProbe(key(null, null, null, null));
+        assertThat(table.find(), is(2));
+        assertThat(table.size(), is(3));
+
+        table.clear();
+        assertThat(table.size(), is(0));
+        table.setProbe(key(1, "foo", 1.5, true));
+        assertThat(table.find(), is(-1));
+    }
+
+    @Test
+    public void test_get_key_returns_the_values_of_the_key_columns() {
+        CompositeKeyHashTable table = new CompositeKeyHashTable(KEY_TYPES);
+        table.setProbe(key(10, "ärger", -0.0, false));
+        table.add();
+        table.setProbe(key(null, "", Double.NaN, null));
+        table.add();
+
+        Object[] cells = new Object[5];
+        table.getKey(0, cells, 1);
+        assertThat(cells, arrayContaining(null, 10, "ärger", -0.0, false));
+        table.getKey(1, cells, 1);
+        assertThat(cells, arrayContaining(null, null, "", Double.NaN, null));
+    }
+
+    @Test
+    public void test_table_grows_and_matches_equals_of_the_values() {
+        CompositeKeyHashTable table = new CompositeKeyHashTable(KEY_TYPES);
+        Map<List<Object>, Integer> idByKey = new HashMap<>();
+        for (int i = 0; i < 10_000; i++) {
+            int x = randomIntBetween(0, 100);
+            String s = randomBoolean() ? null : randomAlphaOfLength(randomIntBetween(0, 3));
+            double d = randomIntBetween(0, 3);
+            boolean b = randomBoolean();
+            table.setProbe(key(x, s, d, b));
+            int id = table.add();
+            List<Object> key = Arrays.asList(x, s, d, b);
+            Integer expectedId = idByKey.get(key);
+            if (expectedId == null) {
+                assertThat(id, is(idByKey.size()));
+                idByKey.put(key, id);
+            } else {
+                assertThat(id, is(-expectedId - 1));
+            }
+        }
+        assertThat(table.size(), is(idByKey.size()));
+        Object[] cells = new Object[4];
+        for (Map.Entry<List<Object>, Integer> entry : idByKey.entrySet()) {
+            table.getKey(entry.getValue(), cells, 0);
+            assertThat(Arrays.asList(cells), is(entry.getKey()));
+        }
+    }
+
+    @Test
+    public void test_supports_fixed_width_and_string_types_only() {
+        assertThat(CompositeKeyHashTable.supports(KEY_TYPES), is(true));
+        assertThat(CompositeKeyHashTable.supports(List.of(DataTypes.LONG, DataTypes.GEO_POINT)), is(false));
+        assertThat(CompositeKeyHashTable.supports(List.of(DataTypes.INTEGER, DataTypes.UNTYPED_OBJECT)), is(false));
+    }
+}
@@ -22,21 +22,33 @@
 
 package io.crate.execution.engine.join;
 
+import io.crate.breaker.BlockBasedRamAccounting;
+import io.crate.breaker.ConcurrentRamAccounting;
+import io.crate.breaker.RamAccounting;
 import io.crate.breaker.RowAccounting;
+import io.crate.breaker.RowCellsAccountingWithEstimators;
 import io.crate.data.BatchIterator;
 import io.crate.data.Row;
 import io.crate.data.join.CombinedRow;
 import io.crate.testing.BatchSimulatingIterator;
 import io.crate.testing.TestingBatchIterators;
 import io.crate.testing.TestingRowConsumer;
+import io.crate.types.DataTypes;
 import org.elasticsearch.common.breaker.CircuitBreaker;
 import org.junit.Test;
 import org.mockito.Mockito;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Predicate;
 import java.util.function.ToIntFunction;
 
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.everyItem;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -88,4 +100,69 @@ public class HashInnerJoinBatchIteratorMemoryTest {
         verify(rowAccounting, times(8)).release();
         verify(rowAccounting, times(12)).accountForAndMaybeBreak(Mockito.any(Object[].class));
     }
+
+    @Test
+    public void test_join_keys_and_row_chains_are_accounted_and_released_on_close() throws Exception {
+        AtomicLong usedBytes = new AtomicLong();
+        AtomicLong peakBytes = new AtomicLong();
+        RamAccounting ramAccounting = new ConcurrentRamAccounting(
+            bytes -> peakBytes.accumulateAndGet(usedBytes.addAndGet(bytes), Math::max),
+            bytes -> usedBytes.addAndGet(-bytes)
+        );
+        BatchIterator<Row> it = new HashInnerJoinBatchIterator(
+            TestingBatchIterators.range(0, 1000),
+            TestingBatchIterators.range(0, 10),
+            mock(RowAccounting.class),
+            new CombinedRow(1, 1),
+            getCol0EqCol1JoinCondition(),
+            JoinKeys.ofHashes(getHashForLeft(), getHashForRight()),
+            ramAccounting,
+            () -> 1000
+        );
+        TestingRowConsumer consumer = new TestingRowConsumer();
+        consumer.accept(it, null);
+        assertThat(consumer.getResult().size(), is(10));
+
+        // 3 int arrays with an entry per row and the keys and values of the hash map
+        assertThat(peakBytes.get(), greaterThan(3 * 1000 * 4L));
+        assertThat(ramAccounting.totalBytes(), is(0L));
+        assertThat(usedBytes.get(), is(0L));
+    }
+
+    @Test
+    public void test_join_keys_and_row_chains_stay_accounted_when_the_rows_of_a_block_are_released() throws Exception {
+        // wired like the hash join in JobSetup: the rows of a block are released from the operation's accounting,
+        // the structures of the join are kept across blocks and accounted separately
+        AtomicLong usedBytes = new AtomicLong();
+        RamAccounting ramAccounting = new ConcurrentRamAccounting(usedBytes::addAndGet, bytes -> usedBytes.addAndGet(-bytes));
+        RamAccounting ramAccountingOfOperation = new BlockBasedRamAccounting(ramAccounting::addBytes, 1024);
+        RamAccounting joinRamAccounting = new ConcurrentRamAccounting(
+            ramAccounting::addBytes,
+            bytes -> ramAccounting.addBytes(-bytes)
+        );
+        List<Long> joinBytesOnNewBlock = new ArrayList<>();
+        BatchIterator<Row> it = new HashInnerJoinBatchIterator(
+            TestingBatchIterators.range(0, 1000),
+            TestingBatchIterators.range(0, 10),
+            new RowCellsAccountingWithEstimators(List.of(DataTypes.INTEGER), ramAccountingOfOperation, 0),
+            new CombinedRow(1, 1),
+            getCol0EqCol1JoinCondition(),
+            JoinKeys.ofHashes(getHashForLeft(), getHashForRight()),
+            joinRamAccounting,
+            () -> {
+                joinBytesOnNewBlock.add(joinRamAccounting.totalBytes());
+                return 100;
+            }
+        );
+        TestingRowConsumer consumer = new TestingRowConsumer();
+        consumer.accept(it, null);
+        assertThat(consumer.getResult().size(), is(10));
+
+        // the first entry is the initial block
+        assertThat(joinBytesOnNewBlock.size(), greaterThan(5));
+        assertThat(joinBytesOnNewBlock.subList(1, joinBytesOnNewBlock.size()), everyItem(greaterThan(3 * 100 * 4L)));
+        assertThat(joinRamAccounting.totalBytes(), is(0L));
+        ramAccountingOfOperation.release();
+        assertThat(usedBytes.get(), is(0L));
+    }
 }
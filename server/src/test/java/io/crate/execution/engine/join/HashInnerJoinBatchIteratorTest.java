@@ -26,13 +26,17 @@ import com.carrotsearch.randomizedtesting.RandomizedRunner;
 import com.carrotsearch.randomizedtesting.annotations.Name;
 import com.carrotsearch.randomizedtesting.annotations.ParametersFactory;
 import com.carrotsearch.randomizedtesting.annotations.ThreadLeakScope;
+import io.crate.breaker.RamAccounting;
 import io.crate.breaker.RowAccounting;
 import io.crate.data.BatchIterator;
+import io.crate.data.Input;
 import io.crate.data.Row;
 import io.crate.data.join.CombinedRow;
+import io.crate.execution.engine.hash.CompositeKeyHashTable;
 import io.crate.testing.BatchIteratorTester;
 import io.crate.testing.BatchSimulatingIterator;
 import io.crate.testing.TestingBatchIterators;
+import io.crate.types.DataTypes;
 import org.elasticsearch.common.breaker.CircuitBreaker;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -40,6 +44,7 @@ import org.junit.runner.RunWith;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Objects;
+import java.util.function.Consumer;
 import java.util.function.Predicate;
 import java.util.function.Supplier;
 import java.util.function.ToIntFunction;
@@ -188,4 +193,24 @@ public class HashInnerJoinBatchIteratorTest {
         BatchIteratorTester tester = new BatchIteratorTester(batchIteratorSupplier);
         tester.verifyResultAndEdgeCaseBehaviour(expectedResult);
     }
+
+    @Test
+    public void testInnerHashJoinWithCompositeKeyHashTable() throws Exception {
+        Supplier<BatchIterator<Row>> batchIteratorSupplier = () -> {
+            CompositeKeyHashTable table = new CompositeKeyHashTable(List.of(DataTypes.INTEGER));
+            Consumer<Row> setProbe = row -> table.setProbe(List.<Input<?>>of(() -> row.get(0)));
+            return new HashInnerJoinBatchIterator(
+                leftIterator.get(),
+                rightIterator.get(),
+                mock(RowAccounting.class),
+                new CombinedRow(1, 1),
+                getCol0EqCol1JoinCondition(),
+                JoinKeys.ofTable(table, setProbe, setProbe),
+                RamAccounting.NO_ACCOUNTING,
+                () -> 3
+            );
+        };
+        BatchIteratorTester tester = new BatchIteratorTester(batchIteratorSupplier);
+        tester.verifyResultAndEdgeCaseBehaviour(expectedResult);
+    }
 }
@@ -23,21 +23,33 @@
 package io.crate.execution.engine.pipeline;
 
 import io.crate.breaker.RamAccounting;
+import io.crate.data.BatchIterator;
+import io.crate.data.InMemoryBatchIterator;
+import io.crate.data.Row;
+import io.crate.data.Row1;
 import io.crate.execution.TransportActionProvider;
 import io.crate.execution.dsl.projection.FilterProjection;
 import io.crate.execution.dsl.projection.GroupProjection;
+import io.crate.execution.dsl.projection.TopNProjection;
 import io.crate.execution.engine.aggregation.GroupingProjector;
 import io.crate.execution.jobs.NodeJobsCounter;
 import io.crate.expression.InputFactory;
 import io.crate.expression.eval.EvaluatingNormalizer;
+import io.crate.expression.operator.GtOperator;
+import io.crate.expression.operator.Operator;
+import io.crate.expression.scalar.arithmetic.ArithmeticFunctions;
 import io.crate.expression.symbol.AggregateMode;
+import io.crate.expression.symbol.Function;
 import io.crate.expression.symbol.InputColumn;
 import io.crate.expression.symbol.Literal;
 import io.crate.memory.OnHeapMemoryManager;
 import io.crate.metadata.CoordinatorTxnCtx;
 import io.crate.metadata.NodeContext;
 import io.crate.metadata.RowGranularity;
+import io.crate.metadata.functions.Signature;
 import io.crate.test.integration.CrateDummyClusterServiceUnitTest;
+import io.crate.testing.TestingRowConsumer;
+import io.crate.types.DataTypes;
 import org.elasticsearch.Version;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.index.shard.ShardId;
@@ -48,11 +60,15 @@ import org.mockito.Answers;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.List;
 import java.util.UUID;
 
+import static io.crate.data.SentinelRow.SENTINEL;
 import static io.crate.testing.TestingHelpers.createNodeContext;
+import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.instanceOf;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
 import static org.mockito.Mockito.mock;
 
 public class ProjectorsTest extends CrateDummyClusterServiceUnitTest {
@@ -106,4 +122,49 @@ public class ProjectorsTest extends CrateDummyClusterServiceUnitTest {
         assertThat(projectors.projectors.get(0), instanceOf(GroupingProjector.class));
     }
 
+    @Test
+    public void test_projections_in_front_of_a_limit_are_not_vectorized() throws Exception {
+        // 10 / col0 > 1, fails for col0 = 0 if evaluated
+        Function predicate = new Function(
+            Signature.scalar(
+                GtOperator.NAME,
+                DataTypes.INTEGER.getTypeSignature(),
+                DataTypes.INTEGER.getTypeSignature(),
+                Operator.RETURN_TYPE.getTypeSignature()
+            ),
+            List.of(
+                new Function(
+                    Signature.scalar(
+                        ArithmeticFunctions.Names.DIVIDE,
+                        DataTypes.INTEGER.getTypeSignature(),
+                        DataTypes.INTEGER.getTypeSignature(),
+                        DataTypes.INTEGER.getTypeSignature()
+                    ),
+                    List.of(Literal.of(10), new InputColumn(0, DataTypes.INTEGER)),
+                    DataTypes.INTEGER
+                ),
+                Literal.of(1)
+            ),
+            DataTypes.BOOLEAN
+        );
+        FilterProjection filterProjection = new FilterProjection(predicate, List.of(new InputColumn(0, DataTypes.INTEGER)));
+        TopNProjection topNProjection = new TopNProjection(1, 0, List.of(DataTypes.INTEGER));
+        Projectors projectors = new Projectors(
+            List.of(filterProjection, topNProjection),
+            UUID.randomUUID(),
+            CoordinatorTxnCtx.systemTransactionContext(),
+            RamAccounting.NO_ACCOUNTING,
+            memoryManager,
+            projectorFactory
+        );
+        BatchIterator<Row> source = InMemoryBatchIterator.of(List.of(new Row1(5), new Row1(0)), SENTINEL, false);
+        assertThat(projectors.projectors.get(0).apply(source), not(instanceOf(VectorizedBatchIterator.class)));
+
+        source = InMemoryBatchIterator.of(List.of(new Row1(5), new Row1(0)), SENTINEL, false);
+        BatchIterator<Row> iterator = projectors.wrap(source);
+
+        TestingRowConsumer consumer = new TestingRowConsumer();
+        consumer.accept(iterator, null);
+        assertThat(consumer.getResult(), contains(new Object[] {5}));
+    }
 }
@@ -0,0 +1,184 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.execution.engine.pipeline;
+
+import io.crate.data.BatchIterator;
+import io.crate.data.InMemoryBatchIterator;
+import io.crate.data.Input;
+import io.crate.data.LimitingBatchIterator;
+import io.crate.data.Projector;
+import io.crate.data.Row;
+import io.crate.data.Row1;
+import io.crate.execution.engine.collect.CollectExpression;
+import io.crate.expression.InputFactory;
+import io.crate.expression.RowFilter;
+import io.crate.expression.operator.EqOperator;
+import io.crate.expression.operator.GtOperator;
+import io.crate.expression.operator.Operator;
+import io.crate.expression.scalar.arithmetic.ArithmeticFunctions;
+import io.crate.expression.symbol.Function;
+import io.crate.expression.symbol.InputColumn;
+import io.crate.expression.symbol.Literal;
+import io.crate.expression.symbol.Symbol;
+import io.crate.metadata.CoordinatorTxnCtx;
+import io.crate.metadata.Scalar;
+import io.crate.metadata.TransactionContext;
+import io.crate.metadata.functions.Signature;
+import io.crate.testing.BatchIteratorTester;
+import io.crate.testing.BatchSimulatingIterator;
+import io.crate.testing.TestingBatchIterators;
+import io.crate.testing.TestingRowConsumer;
+import io.crate.types.DataTypes;
+import org.elasticsearch.test.ESTestCase;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static io.crate.data.SentinelRow.SENTINEL;
+import static io.crate.testing.TestingHelpers.createNodeContext;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+
+public class VectorizedBatchIteratorTest extends ESTestCase {
+
+    private final TransactionContext txnCtx = CoordinatorTxnCtx.systemTransactionContext();
+    private final InputFactory inputFactory = new InputFactory(createNodeContext());
+
+    private static Function integerArithmetic(String name, Symbol left, Symbol right) {
+        return new Function(
+            Signature.scalar(
+                name,
+                DataTypes.INTEGER.getTypeSignature(),
+                DataTypes.INTEGER.getTypeSignature(),
+                DataTypes.INTEGER.getTypeSignature()
+            ).withFeatures(Scalar.DETERMINISTIC_ONLY),
+            List.of(left, right),
+            DataTypes.INTEGER
+        );
+    }
+
+    /**
+     * 10 / col0 > 1, fails for col0 = 0
+     */
+    private static Function tenDividedByCol0GreaterThanOne() {
+        return new Function(
+            Signature.scalar(
+                GtOperator.NAME,
+                DataTypes.INTEGER.getTypeSignature(),
+                DataTypes.INTEGER.getTypeSignature(),
+                Operator.RETURN_TYPE.getTypeSignature()
+            ),
+            List.of(
+                integerArithmetic(ArithmeticFunctions.Names.DIVIDE, Literal.of(10), new InputColumn(0, DataTypes.INTEGER)),
+                Literal.of(1)
+            ),
+            DataTypes.BOOLEAN
+        );
+    }
+
+    /**
+     * More rows than fit into a single buffer and upstream batches which don't line up with the buffer
+     */
+    private static BatchIterator<Row> source() {
+        return new BatchSimulatingIterator<>(TestingBatchIterators.range(0, 3000), 700, 5, null);
+    }
+
+    @Test
+    public void test_filter_projector_evaluates_compiled_predicate_per_batch() throws Exception {
+        // col0 % 3 = 0
+        Function predicate = new Function(
+            EqOperator.SIGNATURE,
+            List.of(
+                integerArithmetic(ArithmeticFunctions.Names.MODULUS, new InputColumn(0, DataTypes.INTEGER), Literal.of(3)),
+                Literal.of(0)
+            ),
+            DataTypes.BOOLEAN
+        );
+        Projector projector = new FilterProjector(RowFilter.create(txnCtx, inputFactory, predicate));
+        assertThat(projector.apply(source()), instanceOf(VectorizedBatchIterator.class));
+
+        List<Object[]> expectedResult = IntStream.range(0, 3000)
+            .filter(x -> x % 3 == 0)
+            .mapToObj(x -> new Object[] {x})
+            .collect(Collectors.toList());
+        BatchIteratorTester tester = new BatchIteratorTester(() -> projector.apply(source()));
+        tester.verifyResultAndEdgeCaseBehaviour(expectedResult);
+    }
+
+    @Test
+    public void test_input_row_projector_evaluates_compiled_inputs_per_batch() throws Exception {
+        InputFactory.Context<CollectExpression<Row, ?>> ctx = inputFactory.ctxForInputColumns(txnCtx);
+        InputColumn col0 = new InputColumn(0, DataTypes.INTEGER);
+        List<Input<?>> inputs = List.of(
+            ctx.add(col0),
+            ctx.add(integerArithmetic(ArithmeticFunctions.Names.ADD, col0, Literal.of(2)))
+        );
+        Projector projector = new InputRowProjector(inputs, ctx.expressions());
+        assertThat(projector.apply(source()), instanceOf(VectorizedBatchIterator.class));
+
+        List<Object[]> expectedResult = IntStream.range(0, 3000)
+            .mapToObj(x -> new Object[] {x, x + 2})
+            .collect(Collectors.toList());
+        BatchIteratorTester tester = new BatchIteratorTester(() -> projector.apply(source()));
+        tester.verifyResultAndEdgeCaseBehaviour(expectedResult);
+    }
+
+    @Test
+    public void test_failure_of_a_row_is_only_raised_once_the_row_is_reached() throws Exception {
+        Projector projector = new FilterProjector(RowFilter.create(txnCtx, inputFactory, tenDividedByCol0GreaterThanOne()));
+        BatchIterator<Row> source = InMemoryBatchIterator.of(List.of(new Row1(5), new Row1(0)), SENTINEL, false);
+        BatchIterator<Row> iterator = projector.apply(source);
+        assertThat(iterator, instanceOf(VectorizedBatchIterator.class));
+
+        assertThat(iterator.moveNext(), is(true));
+        assertThat(iterator.currentElement().get(0), is(5));
+        IllegalArgumentException e = expectThrows(IllegalArgumentException.class, iterator::moveNext);
+        assertThat(e.getMessage(), is("/ by zero"));
+    }
+
+    @Test
+    public void test_failure_to_load_a_row_is_only_raised_once_the_row_is_reached() throws Exception {
+        Projector projector = new FilterProjector(RowFilter.create(txnCtx, inputFactory, tenDividedByCol0GreaterThanOne()));
+        // the value of the second row can't be loaded as integer
+        BatchIterator<Row> source = InMemoryBatchIterator.of(List.of(new Row1(5), new Row1("x")), SENTINEL, false);
+        BatchIterator<Row> iterator = projector.apply(source);
+        assertThat(iterator, instanceOf(VectorizedBatchIterator.class));
+
+        assertThat(iterator.moveNext(), is(true));
+        assertThat(iterator.currentElement().get(0), is(5));
+        expectThrows(ClassCastException.class, iterator::moveNext);
+    }
+
+    @Test
+    public void test_limit_does_not_fail_on_rows_after_the_limit() throws Exception {
+        Projector projector = new FilterProjector(RowFilter.create(txnCtx, inputFactory, tenDividedByCol0GreaterThanOne()));
+        BatchIterator<Row> source = InMemoryBatchIterator.of(List.of(new Row1(5), new Row1(0)), SENTINEL, false);
+        TestingRowConsumer consumer = new TestingRowConsumer();
+        consumer.accept(LimitingBatchIterator.newInstance(projector.apply(source), 1), null);
+
+        assertThat(consumer.getResult(), contains(new Object[] {5}));
+    }
+}
@@ -41,12 +41,14 @@ import io.crate.testing.TestingHelpers;
 import io.crate.testing.TestingRowConsumer;
 import org.junit.Test;
 
+import java.util.ArrayDeque;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.Iterator;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicReference;
 
@@ -54,7 +56,9 @@ import static org.hamcrest.Matchers.arrayContainingInAnyOrder;
 import static org.hamcrest.Matchers.instanceOf;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.notNullValue;
+import static org.mockito.Matchers.anyBoolean;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 
@@ -63,11 +67,18 @@ public class DistResultRXTaskTest extends ESTestCase {
     private DistResultRXTask getPageDownstreamContext(TestingRowConsumer batchConsumer,
                                                       PagingIterator<Integer, Row> pagingIterator,
                                                       int numBuckets) {
+        return getPageDownstreamContext(batchConsumer, pagingIterator, numBuckets, MoreExecutors.directExecutor());
+    }
+
+    private DistResultRXTask getPageDownstreamContext(TestingRowConsumer batchConsumer,
+                                                      PagingIterator<Integer, Row> pagingIterator,
+                                                      int numBuckets,
+                                                      Executor executor) {
 
         PageBucketReceiver pageBucketReceiver = new CumulativePageBucketReceiver(
             "n1",
             1,
-            MoreExecutors.directExecutor(),
+            executor,
             new Streamer[1],
             batchConsumer,
             pagingIterator,
@@ -83,7 +94,7 @@ public class DistResultRXTaskTest extends ESTestCase {
     }
 
     @Test
-    public void testCantSetSameBucketTwiceWithoutReceivingFullPage() throws Throwable {
+    public void test_cant_set_more_pages_of_a_bucket_than_granted_without_receiving_full_page() throws Throwable {
         TestingRowConsumer batchConsumer = new TestingRowConsumer();
 
         DistResultRXTask ctx = getPageDownstreamContext(batchConsumer, PassThroughPagingIterator.oneShot(), 3);
@@ -92,11 +103,13 @@ public class DistResultRXTaskTest extends ESTestCase {
         Bucket bucket = new CollectionBucket(Collections.singletonList(new Object[] { "foo" }));
         PageBucketReceiver bucketReceiver = ctx.getBucketReceiver((byte) 0);
         assertThat(bucketReceiver, notNullValue());
-        bucketReceiver.setBucket(1, bucket, false, pageResultListener);
-        bucketReceiver.setBucket(1, bucket, false, pageResultListener);
+        for (int i = 0; i <= CumulativePageBucketReceiver.PAGE_CREDITS; i++) {
+            bucketReceiver.setBucket(1, bucket, false, pageResultListener);
+        }
 
         expectedException.expect(IllegalStateException.class);
-        expectedException.expectMessage("Same bucket of a page set more than once. node=n1 method=setBucket phaseId=1 bucket=1");
+        expectedException.expectMessage(
+            "Received more pages of a bucket than granted. node=n1 method=setBucket phaseId=1 bucket=1");
         batchConsumer.getResult();
     }
 
@@ -275,6 +288,70 @@ public class DistResultRXTaskTest extends ESTestCase {
         batchConsumer.getResult();
     }
 
+    @Test
+    public void test_upstream_is_granted_credit_for_the_next_page_before_the_consumer_needs_it() throws Exception {
+        TestingRowConsumer batchConsumer = new TestingRowConsumer();
+        DistResultRXTask ctx = getPageDownstreamContext(batchConsumer, PassThroughPagingIterator.oneShot(), 2);
+        PageBucketReceiver bucketReceiver = ctx.getBucketReceiver((byte) 0);
+        assertThat(bucketReceiver, notNullValue());
+
+        PageResultListener firstPageListener = mock(PageResultListener.class);
+        bucketReceiver.setBucket(0, new CollectionBucket(List.<Object[]>of(new Object[] { 1 })), false, firstPageListener);
+        // acknowledged although the page of the other upstream is still missing
+        verify(firstPageListener, times(1)).needMore(true);
+
+        PageResultListener secondPageListener = mock(PageResultListener.class);
+        bucketReceiver.setBucket(0, new CollectionBucket(List.<Object[]>of(new Object[] { 2 })), false, secondPageListener);
+        // no credits left, the upstream has to wait until the consumer needs the next page
+        verify(secondPageListener, never()).needMore(anyBoolean());
+
+        bucketReceiver.setBucket(1, new CollectionBucket(List.<Object[]>of(new Object[] { 3 })), true, mock(PageResultListener.class));
+        verify(secondPageListener, times(1)).needMore(true);
+
+        bucketReceiver.setBucket(0, new CollectionBucket(List.<Object[]>of(new Object[] { 4 })), true, mock(PageResultListener.class));
+        List<Object[]> result = batchConsumer.getResult();
+        assertThat(result.toArray(), arrayContainingInAnyOrder(
+            new Object[] { 1 },
+            new Object[] { 2 },
+            new Object[] { 3 },
+            new Object[] { 4 }
+        ));
+    }
+
+    @Test
+    public void test_page_received_on_credit_before_the_consumer_fetches_more_is_part_of_the_next_page() throws Exception {
+        TestingRowConsumer batchConsumer = new TestingRowConsumer();
+        ArrayDeque<Runnable> tasks = new ArrayDeque<>();
+        DistResultRXTask ctx = getPageDownstreamContext(batchConsumer, PassThroughPagingIterator.oneShot(), 1, tasks::add);
+        PageBucketReceiver bucketReceiver = ctx.getBucketReceiver((byte) 0);
+        assertThat(bucketReceiver, notNullValue());
+
+        PageResultListener firstPageListener = mock(PageResultListener.class);
+        bucketReceiver.setBucket(0, new CollectionBucket(List.<Object[]>of(new Object[] { 1 })), false, firstPageListener);
+        verify(firstPageListener, times(1)).needMore(true);
+
+        // the first page was handed to the consumer, which didn't run yet and so didn't fetch more
+        PageResultListener secondPageListener = mock(PageResultListener.class);
+        bucketReceiver.setBucket(0, new CollectionBucket(List.<Object[]>of(new Object[] { 2 })), false, secondPageListener);
+        verify(secondPageListener, never()).needMore(anyBoolean());
+
+        Runnable task;
+        while ((task = tasks.poll()) != null) {
+            task.run();
+        }
+        verify(secondPageListener, times(1)).needMore(true);
+
+        bucketReceiver.setBucket(0, new CollectionBucket(List.<Object[]>of(new Object[] { 3 })), true, mock(PageResultListener.class));
+        while ((task = tasks.poll()) != null) {
+            task.run();
+        }
+        List<Object[]> result = batchConsumer.getResult();
+        assertThat(TestingHelpers.printedTable(new CollectionBucket(result)),
+            is("1\n" +
+               "2\n" +
+               "3\n"));
+    }
+
     private static class CheckPageResultListener implements PageResultListener {
 
         private boolean needMoreResult;
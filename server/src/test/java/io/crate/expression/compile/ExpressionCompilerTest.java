@@ -0,0 +1,243 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.expression.compile;
+
+import io.crate.analyze.relations.DocTableRelation;
+import io.crate.data.Input;
+import io.crate.expression.FunctionExpression;
+import io.crate.expression.InputFactory;
+import io.crate.expression.symbol.Function;
+import io.crate.expression.symbol.Literal;
+import io.crate.expression.symbol.Symbol;
+import io.crate.metadata.CoordinatorTxnCtx;
+import io.crate.metadata.Reference;
+import io.crate.metadata.RelationName;
+import io.crate.metadata.Scalar;
+import io.crate.metadata.TransactionContext;
+import io.crate.metadata.doc.DocSchemaInfo;
+import io.crate.metadata.doc.DocTableInfo;
+import io.crate.test.integration.CrateDummyClusterServiceUnitTest;
+import io.crate.testing.SQLExecutor;
+import io.crate.testing.SqlExpressions;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+
+public class ExpressionCompilerTest extends CrateDummyClusterServiceUnitTest {
+
+    private final TransactionContext txnCtx = CoordinatorTxnCtx.systemTransactionContext();
+    private final Map<String, Object> values = new HashMap<>();
+    private SqlExpressions sqlExpressions;
+    private InputFactory inputFactory;
+
+    @Before
+    public void prepare() {
+        DocTableInfo tableInfo = SQLExecutor.tableInfo(
+            new RelationName(DocSchemaInfo.NAME, "t"),
+            "create table doc.t (i int, l bigint, f real, d double precision, b boolean, s text)",
+            clusterService);
+        DocTableRelation relation = new DocTableRelation(tableInfo);
+        sqlExpressions = new SqlExpressions(Map.of(tableInfo.ident(), relation));
+        inputFactory = new InputFactory(sqlExpressions.nodeCtx);
+    }
+
+    private Symbol symbol(String expression) {
+        return sqlExpressions.normalize(sqlExpressions.asSymbol(expression));
+    }
+
+    private Input<?> compile(Symbol symbol) {
+        InputFactory.Context<Input<?>> ctx = inputFactory.ctxForRefs(
+            txnCtx,
+            ref -> () -> values.get(ref.column().fqn())
+        );
+        return ctx.add(symbol);
+    }
+
+    /**
+     * Evaluates the symbol with the scalar implementations, without the compiler
+     */
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    private Object interpret(Symbol symbol) {
+        if (symbol instanceof Literal) {
+            return ((Literal<?>) symbol).value();
+        }
+        if (symbol instanceof Reference) {
+            return values.get(((Reference) symbol).column().fqn());
+        }
+        Function function = (Function) symbol;
+        Scalar scalar = (Scalar) sqlExpressions.nodeCtx.functions().getQualified(
+            function,
+            txnCtx.sessionSettings().searchPath()
+        );
+        Input[] args = function.arguments().stream()
+            .map(arg -> (Input<?>) () -> interpret(arg))
+            .toArray(Input[]::new);
+        return scalar.compile(function.arguments()).evaluate(txnCtx, sqlExpressions.nodeCtx, args);
+    }
+
+    private static Object valueOrException(java.util.function.Supplier<?> supplier) {
+        try {
+            return supplier.get();
+        } catch (RuntimeException e) {
+            return e.getClass().getSimpleName() + ": " + e.getMessage();
+        }
+    }
+
+    /**
+     * Compares the row by row and the batch evaluation of the compiled input with the interpreter.
+     * If any row of a batch fails, the evaluation of the batch must fail as well.
+     */
+    private void assertSameResultsAsInterpreter(String expression, Class<?> expectedClass) {
+        Symbol symbol = symbol(expression);
+        Input<?> compiled = compile(symbol);
+        assertThat(compiled, instanceOf(expectedClass));
+        VectorizedInputs vectorizedInputs = VectorizedInputs.of(List.of(compiled));
+        assertThat(vectorizedInputs, notNullValue());
+        for (int batch = 0; batch < 20; batch++) {
+            int batchSize = randomIntBetween(1, 10);
+            List<Object> expectedResults = new ArrayList<>(batchSize);
+            List<String> rows = new ArrayList<>(batchSize);
+            for (int i = 0; i < batchSize; i++) {
+                values.put("i", randomFrom(Arrays.asList(null, 0, -1, 3, 10, Integer.MAX_VALUE, Integer.MIN_VALUE, randomInt())));
+                values.put("l", randomFrom(Arrays.asList(null, 0L, 5L, Long.MAX_VALUE, Long.MIN_VALUE, randomLong())));
+                values.put("f", randomFrom(Arrays.asList(null, 0.1f, -0.0f, Float.NaN, Float.MAX_VALUE, randomFloat())));
+                values.put("d", randomFrom(Arrays.asList(null, 0.5d, -0.0d, 0.0d, Double.NaN, 1e300, randomDouble())));
+                values.put("b", randomFrom(Arrays.asList(null, true, false)));
+                values.put("s", randomFrom(Arrays.asList(null, "foo")));
+                Object expected = valueOrException(() -> interpret(symbol));
+                assertThat(
+                    "Result of " + expression + " with " + values,
+                    valueOrException(compiled::value),
+                    is(expected)
+                );
+                expectedResults.add(expected);
+                rows.add(values.toString());
+                vectorizedInputs.load(i);
+            }
+            Object batchResult = valueOrException(() -> {
+                vectorizedInputs.evaluate(batchSize);
+                return null;
+            });
+            if (expectedResults.stream().anyMatch(result -> result instanceof String)) {
+                assertThat("Batch result of " + expression + " with " + rows, batchResult, instanceOf(String.class));
+                continue;
+            }
+            assertThat(batchResult, nullValue());
+            for (int i = 0; i < batchSize; i++) {
+                vectorizedInputs.position(i);
+                assertThat(
+                    "Batch result of " + expression + " with " + rows.get(i),
+                    vectorizedInputs.outputs().get(0).value(),
+                    is(expectedResults.get(i))
+                );
+            }
+        }
+    }
+
+    @Test
+    public void test_integer_arithmetic_is_compiled() {
+        assertSameResultsAsInterpreter("i + 1", LongExpression.class);
+        assertSameResultsAsInterpreter("i * i - 3", LongExpression.class);
+        assertSameResultsAsInterpreter("i / i", LongExpression.class);
+        assertSameResultsAsInterpreter("i % 3", LongExpression.class);
+    }
+
+    @Test
+    public void test_bigint_arithmetic_and_widening_casts_are_compiled() {
+        assertSameResultsAsInterpreter("l + i", LongExpression.class);
+        assertSameResultsAsInterpreter("(l * 2) / (i - 3)", LongExpression.class);
+        assertSameResultsAsInterpreter("mod(l, 5)", LongExpression.class);
+    }
+
+    @Test
+    public void test_floating_point_arithmetic_is_compiled() {
+        assertSameResultsAsInterpreter("f * f + f", DoubleExpression.class);
+        assertSameResultsAsInterpreter("f / 3.0", DoubleExpression.class);
+        assertSameResultsAsInterpreter("d - f", DoubleExpression.class);
+        assertSameResultsAsInterpreter("d % l", DoubleExpression.class);
+        assertSameResultsAsInterpreter("power(d, i)", DoubleExpression.class);
+    }
+
+    @Test
+    public void test_comparisons_and_logical_operators_are_compiled() {
+        assertSameResultsAsInterpreter("i > 3", BooleanExpression.class);
+        assertSameResultsAsInterpreter("l <= i", BooleanExpression.class);
+        assertSameResultsAsInterpreter("d = d", BooleanExpression.class);
+        assertSameResultsAsInterpreter("f >= 0.0", BooleanExpression.class);
+        assertSameResultsAsInterpreter("i > 3 and not (d < 0.5)", BooleanExpression.class);
+        assertSameResultsAsInterpreter("b or l = i", BooleanExpression.class);
+        assertSameResultsAsInterpreter("not b and f < d", BooleanExpression.class);
+    }
+
+    @Test
+    public void test_is_null_is_compiled_for_compiled_and_other_arguments() {
+        assertSameResultsAsInterpreter("(i + 1) is null", BooleanExpression.class);
+        assertSameResultsAsInterpreter("s is null or l > 5", BooleanExpression.class);
+        assertSameResultsAsInterpreter("not (d / f) is null and b", BooleanExpression.class);
+    }
+
+    @Test
+    public void test_select_returns_the_positions_of_the_rows_matching_a_predicate() {
+        VectorizedInputs vectorizedInputs = VectorizedInputs.of(List.of(compile(symbol("i > 3 or b"))));
+        assertThat(vectorizedInputs.isPredicate(0), is(true));
+        Object[][] rows = new Object[][] {
+            new Object[] {1, true},
+            new Object[] {5, null},
+            new Object[] {null, null},
+            new Object[] {2, false},
+            new Object[] {null, true},
+        };
+        for (int i = 0; i < rows.length; i++) {
+            values.put("i", rows[i][0]);
+            values.put("b", rows[i][1]);
+            vectorizedInputs.load(i);
+        }
+        vectorizedInputs.evaluate(rows.length);
+        int[] selection = new int[rows.length];
+        int selected = vectorizedInputs.select(0, rows.length, selection);
+        assertThat(selected, is(3));
+        assertThat(Arrays.copyOf(selection, selected), is(new int[] {0, 1, 4}));
+    }
+
+    @Test
+    public void test_unsupported_functions_fall_back_to_the_interpreter() {
+        Input<?> input = compile(symbol("substr(s, i)"));
+        assertThat(input, instanceOf(FunctionExpression.class));
+
+        values.put("s", "foo");
+        values.put("i", 1);
+        input = compile(symbol("length(substr(s, i)) > i"));
+        assertThat(input, instanceOf(BooleanExpression.class));
+        assertThat(input.value(), is(true));
+    }
+}
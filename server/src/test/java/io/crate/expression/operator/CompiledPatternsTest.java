@@ -0,0 +1,117 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.expression.operator;
+
+import org.elasticsearch.test.ESTestCase;
+import org.junit.Test;
+
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+
+public class CompiledPatternsTest extends ESTestCase {
+
+    @Test
+    public void test_like_patterns_without_single_char_wildcards_are_matched_without_regex() {
+        assertThat(CompiledPatterns.compileLike("foo", false), instanceOf(CompiledPatterns.LiteralSegments.class));
+        assertThat(CompiledPatterns.compileLike("foo%", false), instanceOf(CompiledPatterns.LiteralSegments.class));
+        assertThat(CompiledPatterns.compileLike("%foo", true), instanceOf(CompiledPatterns.LiteralSegments.class));
+        assertThat(CompiledPatterns.compileLike("%fo\\_o%", false), instanceOf(CompiledPatterns.LiteralSegments.class));
+        assertThat(CompiledPatterns.compileLike("f_o", false), not(instanceOf(CompiledPatterns.LiteralSegments.class)));
+        assertThat(CompiledPatterns.LiteralSegments.parse("foo\\", LikeOperators.DEFAULT_ESCAPE, false), nullValue());
+    }
+
+    @Test
+    public void test_literal_segments_match_prefix_suffix_and_infix() {
+        Predicate<String> prefix = CompiledPatterns.compileLike("foo%", false);
+        assertThat(prefix.test("foobar"), is(true));
+        assertThat(prefix.test("foo"), is(true));
+        assertThat(prefix.test("fo"), is(false));
+        assertThat(prefix.test("Foobar"), is(false));
+
+        Predicate<String> suffix = CompiledPatterns.compileLike("%bar", true);
+        assertThat(suffix.test("fooBAR"), is(true));
+        assertThat(suffix.test("ba"), is(false));
+
+        Predicate<String> infix = CompiledPatterns.compileLike("%o%o%", false);
+        assertThat(infix.test("foo"), is(true));
+        assertThat(infix.test("fo"), is(false));
+
+        Predicate<String> exact = CompiledPatterns.compileLike("a\\%b", false);
+        assertThat(exact.test("a%b"), is(true));
+        assertThat(exact.test("axb"), is(false));
+
+        assertThat(CompiledPatterns.compileLike("%", false).test(""), is(true));
+        assertThat(CompiledPatterns.compileLike("a?%", false).test("a?"), is(true));
+        assertThat(CompiledPatterns.compileLike("a?%", false).test("b"), is(false));
+    }
+
+    @Test
+    public void test_literal_segments_match_the_same_values_as_the_regex() {
+        String alphabet = "aAbB%_\\?.éÉ";
+        for (int i = 0; i < 10_000; i++) {
+            String pattern = randomString(alphabet, 6);
+            String value = randomString(alphabet, 8);
+            boolean ignoreCase = randomBoolean();
+            CompiledPatterns.LiteralSegments segments =
+                CompiledPatterns.LiteralSegments.parse(pattern, LikeOperators.DEFAULT_ESCAPE, ignoreCase);
+            if (segments == null) {
+                continue;
+            }
+            int flags = ignoreCase ? Pattern.DOTALL | Pattern.CASE_INSENSITIVE : Pattern.DOTALL;
+            boolean expected = Pattern.compile(LikeOperators.patternToRegex(pattern), flags).matcher(value).matches();
+            assertThat("pattern=" + pattern + " value=" + value + " ignoreCase=" + ignoreCase,
+                segments.test(value), is(expected));
+        }
+    }
+
+    @Test
+    public void test_patterns_are_cached() {
+        Predicate<String> like = CompiledPatterns.like("foo%", false);
+        assertThat(like, notNullValue());
+        assertThat(CompiledPatterns.like("foo%", false), sameInstance(like));
+        assertThat(CompiledPatterns.like("foo%", true), not(sameInstance(like)));
+        assertThat(CompiledPatterns.regexpIgnoreCase("a.c"), sameInstance(CompiledPatterns.regexpIgnoreCase("a.c")));
+    }
+
+    @Test
+    public void test_invalid_regexp_is_not_wrapped_by_cache() {
+        expectThrows(PatternSyntaxException.class, () -> CompiledPatterns.regexpIgnoreCase("a("));
+    }
+
+    private static String randomString(String alphabet, int maxLength) {
+        int length = randomIntBetween(0, maxLength);
+        StringBuilder sb = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            sb.append(alphabet.charAt(randomIntBetween(0, alphabet.length() - 1)));
+        }
+        return sb.toString();
+    }
+}
@@ -50,6 +50,7 @@ import org.elasticsearch.cluster.routing.UnassignedInfo;
 import org.elasticsearch.common.UUIDs;
 import org.elasticsearch.index.Index;
 import org.elasticsearch.index.IndexService;
+import org.elasticsearch.index.cache.query.QueryCacheStats;
 import org.elasticsearch.index.shard.DocsStats;
 import org.elasticsearch.index.shard.IllegalIndexShardStateException;
 import org.elasticsearch.index.shard.IndexShard;
@@ -141,11 +142,14 @@ public class SysShardsExpressionsTest extends CrateDummyClusterServiceUnitTest {
         when(recoveryStateIndex.totalBytes()).thenReturn(2048L);
         when(recoveryStateIndex.reusedBytes()).thenReturn(1024L);
         when(recoveryStateIndex.recoveredBytes()).thenReturn(1024L);
+        when(recoveryStateIndex.recoveredBytesPerSec()).thenReturn(512L);
         when(recoveryStateIndex.totalFileCount()).thenReturn(2);
         when(recoveryStateIndex.reusedFileCount()).thenReturn(1);
         when(recoveryStateIndex.recoveredFileCount()).thenReturn(1);
         when(recoveryStateTimer.time()).thenReturn(10000L);
 
+        when(indexShard.queryCacheStats()).thenReturn(new QueryCacheStats(4096L, 30L, 10L, 5L, 3L, 1L));
+
         return indexShard;
     }
 
@@ -325,10 +329,26 @@ public class SysShardsExpressionsTest extends CrateDummyClusterServiceUnitTest {
             put("reused", 1_024L);
             put("recovered", 1_024L);
             put("percent", 0.0f);
+            put("bytes_per_sec", 512L);
         }};
         assertEquals(expectedBytes, recovery.get("size"));
     }
 
+    @Test
+    public void test_query_cache_field() throws Exception {
+        Reference refInfo = refInfo("sys.shards.query_cache", DataTypes.UNTYPED_OBJECT, RowGranularity.SHARD);
+        NestableInput<Map<String, Object>> ref = (NestableInput<Map<String,Object>>) resolver.getImplementation(refInfo);
+
+        Map<String, Object> expected = Map.of(
+            "hits", 30L,
+            "misses", 10L,
+            "entries", 3L,
+            "evictions", 1L,
+            "size", 4096L
+        );
+        assertEquals(expected, ref.value());
+    }
+
     @Test
     public void test_recovery_type_is_null_if_recovery_state_is_null(){
         when(indexShard.recoveryState()).thenReturn(null);
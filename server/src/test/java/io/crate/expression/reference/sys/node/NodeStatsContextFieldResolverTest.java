@@ -32,6 +32,7 @@ import io.crate.protocols.ConnectionStats;
 import org.elasticsearch.cluster.node.DiscoveryNode;
 import org.elasticsearch.common.transport.TransportAddress;
 import org.elasticsearch.http.HttpStats;
+import org.elasticsearch.index.shard.TranslogSyncStats;
 import org.elasticsearch.monitor.MonitorService;
 import org.elasticsearch.monitor.os.OsService;
 import org.elasticsearch.monitor.os.OsStats;
@@ -81,7 +82,8 @@ public class NodeStatsContextFieldResolverTest {
             () -> new ConnectionStats(2L, 4L),
             () -> postgresAddress,
             () -> 12L,
-            () -> 1L
+            () -> 1L,
+            () -> new TranslogSyncStats(10L, 3L)
         );
     }
 
@@ -143,6 +145,19 @@ public class NodeStatsContextFieldResolverTest {
         assertThat(open.value(), is(12L));
     }
 
+    @Test
+    public void test_translog_sync_stats_can_be_retrieved() {
+        NodeStatsContext statsContext = resolver.forTopColumnIdents(
+            Collections.singletonList(SysNodesTableInfo.Columns.TRANSLOG_SYNC));
+        RowCollectExpressionFactory<NodeStatsContext> expressionFactory =
+            SysNodesTableInfo.create().expressions().get(SysNodesTableInfo.Columns.TRANSLOG_SYNC);
+        NestableCollectExpression<NodeStatsContext, ?> expression = expressionFactory.create();
+
+        NestableCollectExpression fsyncsSaved = (NestableCollectExpression) expression.getChild("fsyncs_saved");
+        fsyncsSaved.setNextRow(statsContext);
+        assertThat(fsyncsSaved.value(), is(7L));
+    }
+
     @Test
     public void testColumnIdentsResolution() {
         NodeStatsContext context = resolver.forTopColumnIdents(ImmutableSet.of(
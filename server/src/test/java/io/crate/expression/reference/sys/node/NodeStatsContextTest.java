@@ -30,6 +30,7 @@ import org.elasticsearch.common.io.stream.BytesStreamOutput;
 import org.elasticsearch.common.io.stream.InputStreamStreamInput;
 import org.elasticsearch.common.io.stream.OutputStreamStreamOutput;
 import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.index.shard.TranslogSyncStats;
 import org.elasticsearch.monitor.jvm.JvmStats;
 import org.elasticsearch.monitor.os.DummyOsInfo;
 import org.elasticsearch.monitor.os.OsProbe;
@@ -85,6 +86,7 @@ public class NodeStatsContextTest extends ESTestCase {
         ctx1.extendedOsStats(extendedNodeInfo.osStats());
         ctx1.threadPools(threadPool.stats());
         ctx1.clusterStateVersion(10L);
+        ctx1.translogSyncStats(new TranslogSyncStats(10L, 4L));
 
         ByteArrayOutputStream outBuffer = new ByteArrayOutputStream();
         StreamOutput out = new OutputStreamStreamOutput(outBuffer);
@@ -111,6 +113,8 @@ public class NodeStatsContextTest extends ESTestCase {
         assertThat(ctx1.extendedOsStats().uptime(), is(ctx2.extendedOsStats().uptime()));
         assertThat(ctx1.threadPools().iterator().next().getActive(), is(ctx2.threadPools().iterator().next().getActive()));
         assertThat(ctx1.clusterStateVersion(), is(ctx2.clusterStateVersion()));
+        assertThat(ctx2.translogSyncStats().requests(), is(10L));
+        assertThat(ctx2.translogSyncStats().fsyncs(), is(4L));
     }
 
     @Test
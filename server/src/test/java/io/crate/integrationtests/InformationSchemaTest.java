@@ -521,7 +521,7 @@ public class InformationSchemaTest extends SQLTransportIntegrationTest {
     @Test
     public void testDefaultColumns() {
         execute("select * from information_schema.columns order by table_schema, table_name");
-        assertEquals(817, response.rowCount());
+        assertEquals(824, response.rowCount());
     }
 
     @Test
@@ -739,6 +739,42 @@ public class InsertIntoIntegrationTest extends SQLTransportIntegrationTest {
         );
     }
 
+    @Test
+    public void test_insert_on_conflict_do_update_with_same_key_multiple_times_in_one_statement() {
+        execute("create table counters (id integer primary key, cnt integer) clustered into 1 shards");
+        execute("insert into counters (id, cnt) values (1, 1), (1, 1), (2, 1), (1, 1) " +
+                "on conflict (id) do update set cnt = cnt + excluded.cnt");
+        assertThat(response.rowCount(), is(4L));
+        refresh();
+        execute("select id, cnt from counters order by id");
+        assertThat(printedTable(response.rows()), is(
+            "1| 3\n" +
+            "2| 1\n")
+        );
+
+        execute("insert into counters (id, cnt) values (2, 5), (1, 1), (2, 5) " +
+                "on conflict (id) do update set cnt = cnt + excluded.cnt");
+        assertThat(response.rowCount(), is(3L));
+        refresh();
+        execute("select id, cnt from counters order by id");
+        assertThat(printedTable(response.rows()), is(
+            "1| 4\n" +
+            "2| 11\n")
+        );
+    }
+
+    @Test
+    public void test_failed_update_of_an_object_column_within_one_statement_leaves_the_document_unchanged() {
+        execute("create table t (id integer primary key, o object as (a integer), " +
+                "constraint check_a check (o['a'] < 10)) clustered into 1 shards");
+        execute("insert into t (id, o) values (1, {a=5}), (1, {a=6}) " +
+                "on conflict (id) do update set o['a'] = o['a'] + excluded.o['a']");
+        assertThat(response.rowCount(), is(1L));
+        refresh();
+        execute("select id, o['a'] from t");
+        assertThat(printedTable(response.rows()), is("1| 5\n"));
+    }
+
     @Test
     public void testInsertFromQueryOnDuplicateKey() throws Exception {
         setup.setUpCharacters();
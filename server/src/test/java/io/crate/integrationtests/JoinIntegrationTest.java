@@ -21,6 +21,8 @@
 
 package io.crate.integrationtests;
 
+import io.crate.action.sql.Option;
+import io.crate.action.sql.Session;
 import io.crate.data.CollectionBucket;
 import io.crate.execution.engine.join.RamBlockSizeCalculator;
 import io.crate.execution.engine.sort.OrderingByPosition;
@@ -1108,4 +1110,30 @@ public class JoinIntegrationTest extends SQLTransportIntegrationTest {
         execute(stmt);
         assertThat(response.rowCount(), is(0L));
     }
+
+    @Test
+    public void test_hash_join_with_runtime_filter_returns_the_same_rows_as_without() throws Exception {
+        execute("create table fact (id int, dim_id int) clustered into 2 shards");
+        execute("create table dim (id int, name text) clustered into 1 shards");
+        Object[][] factRows = new Object[500][];
+        for (int i = 0; i < factRows.length; i++) {
+            factRows[i] = new Object[] {i, i % 50};
+        }
+        execute("insert into fact (id, dim_id) values (?, ?)", factRows);
+        execute("insert into dim (id, name) values (1, 'a'), (2, 'b'), (3, 'a'), (70, 'a')");
+        execute("refresh table fact, dim");
+        execute("analyze");
+
+        String stmt = "select f.id, d.id from fact f join dim d on f.dim_id = d.id where d.name = 'a' order by 1";
+        try (Session session = createSession(sqlExecutor.getCurrentSchema(), Option.NONE)) {
+            execute("set enable_hashjoin = true", null, session);
+            String withRuntimeFilter = printedTable(execute(stmt, null, session).rows());
+
+            execute("set optimizer_add_runtime_filter_to_hash_join = false", null, session);
+            String withoutRuntimeFilter = printedTable(execute(stmt, null, session).rows());
+
+            assertThat(withRuntimeFilter, is(withoutRuntimeFilter));
+            assertThat(response.rowCount(), is(20L));
+        }
+    }
 }
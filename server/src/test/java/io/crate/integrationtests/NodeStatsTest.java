@@ -354,4 +354,25 @@ public class NodeStatsTest extends SQLTransportIntegrationTest {
         assertThat((String) response.rows()[0][0], is("node_s0"));
         assertThat((String) response.rows()[1][0], is("node_s1"));
     }
+
+    @Test
+    public void test_translog_sync_stats_count_the_syncs_of_write_requests() throws Exception {
+        execute("create table t (x int) clustered into 1 shards with (number_of_replicas = 0, \"translog.durability\" = 'REQUEST')");
+        ensureYellow();
+        execute("select sum(translog_sync['requests']) from sys.nodes");
+        long requestsBefore = ((Number) response.rows()[0][0]).longValue();
+
+        for (int i = 0; i < 5; i++) {
+            execute("insert into t (x) values (?)", new Object[] { i });
+        }
+
+        execute("select sum(translog_sync['requests']), sum(translog_sync['fsyncs']), " +
+                "sum(translog_sync['fsyncs_saved']) from sys.nodes");
+        long requests = ((Number) response.rows()[0][0]).longValue();
+        long fsyncs = ((Number) response.rows()[0][1]).longValue();
+        long fsyncsSaved = ((Number) response.rows()[0][2]).longValue();
+        assertThat(requests - requestsBefore, greaterThanOrEqualTo(5L));
+        assertThat(fsyncs, lessThanOrEqualTo(requests));
+        assertThat(fsyncsSaved, is(requests - fsyncs));
+    }
 }
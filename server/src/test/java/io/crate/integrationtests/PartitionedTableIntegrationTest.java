@@ -1782,6 +1782,19 @@ public class PartitionedTableIntegrationTest extends SQLTransportIntegrationTest
                          4002));
     }
 
+    @Test
+    public void test_sort_by_of_a_partitioned_table_is_validated_on_create_table() {
+        assertThrows(() -> execute("create table doc.tbl (p int, name text) " +
+                                   "partitioned by (p) with (sort_by = 'ordinal')"),
+                     isSQLError(is("Column 'ordinal' used in sort_by doesn't exist"),
+                         INTERNAL_ERROR,
+                         BAD_REQUEST,
+                         4000));
+        execute("create table doc.tbl (p int, \"Name\" text) partitioned by (p) with (sort_by = '\"Name\" desc')");
+        execute("insert into doc.tbl (p, \"Name\") values (1, 'Arthur')");
+        assertThat(response.rowCount(), is(1L));
+    }
+
     @Test
     public void testAlterNumberOfShards() {
         execute("create table quotes (" +
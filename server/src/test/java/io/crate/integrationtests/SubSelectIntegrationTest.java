@@ -756,4 +756,45 @@ public class SubSelectIntegrationTest extends SQLTransportIntegrationTest {
         assertThat(printedTable(response.rows()), is("3\n" +
                                                      "2\n"));
     }
+
+    private void setUpCorrelationTables() {
+        execute("create table t1 (id int, x int)");
+        execute("create table t2 (y int, v int)");
+        execute("insert into t1 (id, x) values (1, 1), (2, 2), (3, null), (4, 4)");
+        execute("insert into t2 (y, v) values (1, 10), (1, 11), (2, null), (null, 30)");
+        execute("refresh table t1, t2");
+    }
+
+    @Test
+    public void test_correlated_exists_and_not_exists_with_nulls() {
+        setUpCorrelationTables();
+
+        execute("select id from t1 where exists (select 1 from t2 where t2.y = t1.x) order by id");
+        assertThat(printedTable(response.rows()), is("1\n" +
+                                                     "2\n"));
+
+        // A parent row with a null key has no matches
+        execute("select id from t1 where not exists (select 1 from t2 where t2.y = t1.x) order by id");
+        assertThat(printedTable(response.rows()), is("3\n" +
+                                                     "4\n"));
+    }
+
+    @Test
+    public void test_correlated_in_subquery() {
+        setUpCorrelationTables();
+
+        execute("select id from t1 where t1.id + 9 in (select v from t2 where t2.y = t1.x) order by id");
+        assertThat(printedTable(response.rows()), is("1\n"));
+    }
+
+    @Test
+    public void test_correlated_count_subquery_returns_zero_for_parent_rows_without_matches() {
+        setUpCorrelationTables();
+
+        execute("select id, (select count(*) from t2 where t2.y = t1.x) from t1 order by id");
+        assertThat(printedTable(response.rows()), is("1| 2\n" +
+                                                     "2| 1\n" +
+                                                     "3| 0\n" +
+                                                     "4| 0\n"));
+    }
 }
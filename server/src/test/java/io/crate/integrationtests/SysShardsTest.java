@@ -168,7 +168,7 @@ public class SysShardsTest extends SQLTransportIntegrationTest {
     public void testSelectStarAllTables() throws Exception {
         SQLResponse response = execute("select * from sys.shards");
         assertEquals(26L, response.rowCount());
-        assertEquals(19, response.cols().length);
+        assertEquals(20, response.cols().length);
         assertThat(response.cols(), arrayContaining(
             "blob_path",
             "id",
@@ -179,6 +179,7 @@ public class SysShardsTest extends SQLTransportIntegrationTest {
             "partition_ident",
             "path",
             "primary",
+            "query_cache",
             "recovery",
             "relocating_node",
             "retention_leases",
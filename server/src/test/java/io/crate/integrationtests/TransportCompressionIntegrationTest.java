@@ -0,0 +1,72 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.integrationtests;
+
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.test.ESIntegTestCase;
+import org.elasticsearch.transport.TransportSettings;
+import org.junit.Test;
+
+import static io.crate.testing.TestingHelpers.printedTable;
+import static org.hamcrest.Matchers.is;
+
+@ESIntegTestCase.ClusterScope(numDataNodes = 2, numClientNodes = 0)
+public class TransportCompressionIntegrationTest extends SQLTransportIntegrationTest {
+
+    @Override
+    protected Settings nodeSettings(int nodeOrdinal) {
+        return Settings.builder()
+            .put(super.nodeSettings(nodeOrdinal))
+            .put(TransportSettings.TRANSPORT_COMPRESS.getKey(), true)
+            .put(TransportSettings.TRANSPORT_COMPRESSION_SCHEME.getKey(), "lz4")
+            // pages of the distributed result are larger than this, the other messages are mostly smaller
+            .put(TransportSettings.TRANSPORT_COMPRESS_MIN_SIZE.getKey(), "2kb")
+            .build();
+    }
+
+    @Test
+    public void test_compressed_and_uncompressed_messages_between_nodes() throws Exception {
+        execute("create table t (id int, name text) clustered into 4 shards with (number_of_replicas = 0)");
+        ensureYellow();
+        Object[][] rows = new Object[2000][];
+        for (int i = 0; i < rows.length; i++) {
+            rows[i] = new Object[] { i, "name-" + (i % 10) };
+        }
+        execute("insert into t (id, name) values (?, ?)", rows);
+        refresh();
+
+        execute("select count(*) from t");
+        assertThat(printedTable(response.rows()), is("2000\n"));
+
+        execute("select name, count(*), sum(id) from t group by name order by name limit 3");
+        assertThat(printedTable(response.rows()), is(
+            "name-0| 200| 199000\n" +
+            "name-1| 200| 199200\n" +
+            "name-2| 200| 199400\n"));
+
+        execute("select id, name from t order by id");
+        assertThat(response.rowCount(), is(2000L));
+        assertThat(response.rows()[1999][0], is(1999));
+        assertThat(response.rows()[1999][1], is("name-9"));
+    }
+}
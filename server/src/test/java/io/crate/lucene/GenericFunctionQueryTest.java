@@ -24,11 +24,13 @@ package io.crate.lucene;
 
 import io.crate.test.integration.CrateDummyClusterServiceUnitTest;
 import io.crate.testing.QueryTester;
+import org.apache.lucene.search.IndexOrDocValuesQuery;
 import org.apache.lucene.search.ScoreMode;
 import org.elasticsearch.Version;
 import org.junit.Test;
 
 import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.instanceOf;
 import static org.hamcrest.Matchers.is;
 
 
@@ -70,4 +72,45 @@ public class GenericFunctionQueryTest extends CrateDummyClusterServiceUnitTest {
             assertThat(tester.runQuery("x", "abs(x) = 1"), contains(1));
         }
     }
+
+    @Test
+    public void test_generic_function_query_is_cached_after_second_use() throws Exception {
+        QueryTester.Builder builder = new QueryTester.Builder(
+            createTempDir(),
+            THREAD_POOL,
+            clusterService,
+            Version.CURRENT,
+            "create table t (x int)"
+        );
+        builder.indexValues("x", 1, 2, 3);
+        try (QueryTester tester = builder.build()) {
+            var query = tester.toQuery("abs(x) = 1");
+            var policy = new FunctionQueryCachingPolicy();
+            policy.onUse(query);
+            assertThat(policy.shouldCache(query), is(false));
+            policy.onUse(query);
+            assertThat(policy.shouldCache(query), is(true));
+        }
+    }
+
+    @Test
+    public void test_range_query_of_column_with_doc_values_is_cached_after_second_use() throws Exception {
+        QueryTester.Builder builder = new QueryTester.Builder(
+            createTempDir(),
+            THREAD_POOL,
+            clusterService,
+            Version.CURRENT,
+            "create table t (x int)"
+        );
+        builder.indexValues("x", 1, 2, 3);
+        try (QueryTester tester = builder.build()) {
+            var query = tester.toQuery("x > 1");
+            assertThat(query, instanceOf(IndexOrDocValuesQuery.class));
+            var policy = new FunctionQueryCachingPolicy();
+            policy.onUse(query);
+            assertThat(policy.shouldCache(query), is(false));
+            policy.onUse(query);
+            assertThat(policy.shouldCache(query), is(true));
+        }
+    }
 }
@@ -0,0 +1,118 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package io.crate.lucene;
+
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.LongPoint;
+import org.apache.lucene.document.SortedNumericDocValuesField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.NoMergePolicy;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.IndexOrDocValuesQuery;
+import org.apache.lucene.search.MatchNoDocsQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.store.ByteBuffersDirectory;
+import org.elasticsearch.test.ESTestCase;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.sameInstance;
+
+public class PointRangePruningTest extends ESTestCase {
+
+    private IndexReader reader;
+
+    @Before
+    public void prepareReader() throws Exception {
+        IndexWriterConfig config = new IndexWriterConfig(new StandardAnalyzer())
+            .setMergePolicy(NoMergePolicy.INSTANCE);
+        IndexWriter iw = new IndexWriter(new ByteBuffersDirectory(), config);
+        // two segments: [0, 9] and [100, 109]
+        for (long base : new long[] { 0L, 100L }) {
+            for (long i = base; i < base + 10; i++) {
+                Document doc = new Document();
+                doc.add(new LongPoint("x", i));
+                doc.add(new SortedNumericDocValuesField("x", i));
+                iw.addDocument(doc);
+            }
+            iw.commit();
+        }
+        reader = DirectoryReader.open(iw);
+        iw.close();
+    }
+
+    @After
+    public void closeReader() throws Exception {
+        reader.close();
+    }
+
+    private static Query range(String field, long lower, long upper) {
+        return new IndexOrDocValuesQuery(
+            LongPoint.newRangeQuery(field, lower, upper),
+            SortedNumericDocValuesField.newSlowRangeQuery(field, lower, upper)
+        );
+    }
+
+    @Test
+    public void test_range_overlapping_a_segment_is_kept() {
+        Query query = range("x", 5L, 50L);
+        assertThat(PointRangePruning.prune(reader, query), sameInstance(query));
+        Query gap = range("x", 9L, 100L);
+        assertThat(PointRangePruning.prune(reader, gap), sameInstance(gap));
+    }
+
+    @Test
+    public void test_range_between_the_segments_prunes_the_shard() {
+        assertThat(PointRangePruning.prune(reader, range("x", 20L, 90L)), instanceOf(MatchNoDocsQuery.class));
+        assertThat(PointRangePruning.prune(reader, LongPoint.newExactQuery("x", 200L)), instanceOf(MatchNoDocsQuery.class));
+    }
+
+    @Test
+    public void test_range_on_a_field_without_values_prunes_the_shard() {
+        assertThat(PointRangePruning.prune(reader, range("y", 0L, 10L)), instanceOf(MatchNoDocsQuery.class));
+    }
+
+    @Test
+    public void test_conjunction_is_pruned_by_a_required_clause_but_not_by_an_optional_one() {
+        Query conjunction = new BooleanQuery.Builder()
+            .add(new TermQuery(new Term("name", "foo")), BooleanClause.Occur.MUST)
+            .add(range("x", 20L, 90L), BooleanClause.Occur.FILTER)
+            .build();
+        assertThat(PointRangePruning.prune(reader, conjunction), instanceOf(MatchNoDocsQuery.class));
+
+        Query disjunction = new BooleanQuery.Builder()
+            .add(new TermQuery(new Term("name", "foo")), BooleanClause.Occur.SHOULD)
+            .add(range("x", 20L, 90L), BooleanClause.Occur.SHOULD)
+            .build();
+        assertThat(PointRangePruning.prune(reader, disjunction), sameInstance(disjunction));
+    }
+}
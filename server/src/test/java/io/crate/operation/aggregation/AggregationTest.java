@@ -98,6 +98,7 @@ import org.elasticsearch.index.seqno.SequenceNumbers;
 import org.elasticsearch.index.shard.IndexShard;
 import org.elasticsearch.index.shard.ShardId;
 import org.elasticsearch.index.shard.ShardPath;
+import org.elasticsearch.index.shard.TranslogSyncTracker;
 import org.elasticsearch.index.store.Store;
 import org.elasticsearch.indices.IndicesModule;
 import org.elasticsearch.indices.IndicesService;
@@ -494,7 +495,8 @@ public abstract class AggregationTest extends ESTestCase {
                 List.of(),
                 () -> { },
                 RetentionLeaseSyncer.EMPTY,
-                new NoneCircuitBreakerService()
+                new NoneCircuitBreakerService(),
+                new TranslogSyncTracker()
             );
         } catch (IOException e) {
             IOUtils.close(store);
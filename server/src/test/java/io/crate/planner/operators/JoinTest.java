@@ -58,6 +58,7 @@ import static io.crate.analyze.TableDefinitions.TEST_DOC_LOCATIONS_TABLE_DEFINIT
 import static io.crate.analyze.TableDefinitions.USER_TABLE_DEFINITION;
 import static io.crate.analyze.TableDefinitions.USER_TABLE_IDENT;
 import static io.crate.planner.operators.LogicalPlannerTest.isPlan;
+import static io.crate.testing.SymbolMatchers.isFunction;
 import static io.crate.testing.SymbolMatchers.isInputColumn;
 import static io.crate.testing.SymbolMatchers.isReference;
 import static io.crate.testing.TestingHelpers.isSQL;
@@ -501,4 +502,78 @@ public class JoinTest extends CrateDummyClusterServiceUnitTest {
             "    └ Collect[doc.t1 | [a] | true]";
         assertThat(logicalPlan, is(isPlan(expectedPlan)));
     }
+
+    private static HashJoin findHashJoin(LogicalPlan plan) {
+        if (plan instanceof HashJoin) {
+            return (HashJoin) plan;
+        }
+        for (LogicalPlan source : plan.sources()) {
+            HashJoin join = findHashJoin(source);
+            if (join != null) {
+                return join;
+            }
+        }
+        return null;
+    }
+
+    @Test
+    public void test_hash_join_probe_side_is_filtered_by_the_join_keys_of_a_small_build_side() throws Exception {
+        TableStats tableStats = new TableStats();
+        tableStats.updateTableStats(Map.of(
+            T3.T1, new Stats(100_000, 64, Map.of()),
+            T3.T2, new Stats(100, 64, Map.of())
+        ));
+        resetClusterService();
+        e = SQLExecutor.builder(clusterService)
+            .addTable(T3.T1_DEFINITION)
+            .addTable(T3.T2_DEFINITION)
+            .setTableStats(tableStats)
+            .build();
+
+        LogicalPlan plan = e.logicalPlan("select t1.a, t2.b from t1 join t2 on t1.x = t2.y");
+        HashJoin join = findHashJoin(plan);
+        assertThat(join, notNullValue());
+        assertThat(join.hasRuntimeFilter(), is(true));
+        assertThat(join.lhs(), instanceOf(MultiPhase.class));
+        assertThat(join.lhs().dependencies().size(), is(1));
+        LogicalPlan keysPlan = join.lhs().dependencies().keySet().iterator().next();
+        assertThat(keysPlan, instanceOf(RootRelationBoundary.class));
+        assertThat(((RootRelationBoundary) keysPlan).source(), instanceOf(Limit.class));
+
+        var probe = (io.crate.planner.operators.Collect) ((MultiPhase) join.lhs()).source();
+        assertThat(probe.relation().relationName(), is(T3.T1));
+        // The filter is dropped if the keys reach the limit
+        assertThat(probe.where().queryOrFallback(), isFunction("op_or", isFunction("op_>"), isFunction("any_=")));
+        assertThat(join.rhs(), instanceOf(io.crate.planner.operators.Collect.class));
+    }
+
+    @Test
+    public void test_hash_join_has_no_runtime_filter_if_the_build_side_scans_a_large_table() throws Exception {
+        TableStats tableStats = new TableStats();
+        tableStats.updateTableStats(Map.of(
+            T3.T1, new Stats(100_000, 64, Map.of()),
+            T3.T2, new Stats(50_000, 64, Map.of())
+        ));
+        resetClusterService();
+        e = SQLExecutor.builder(clusterService)
+            .addTable(T3.T1_DEFINITION)
+            .addTable(T3.T2_DEFINITION)
+            .setTableStats(tableStats)
+            .build();
+
+        // Few build rows are expected, but executing the build side twice reads t2 twice
+        LogicalPlan plan = e.logicalPlan("select t1.a, t2.b from t1 join t2 on t1.x = t2.y where t2.b = 'x'");
+        HashJoin join = findHashJoin(plan);
+        assertThat(join, notNullValue());
+        assertThat(join.hasRuntimeFilter(), is(false));
+    }
+
+    @Test
+    public void test_hash_join_without_table_stats_has_no_runtime_filter() {
+        LogicalPlan plan = e.logicalPlan("select t1.a, t2.b from t1 join t2 on t1.x = t2.y");
+        HashJoin join = findHashJoin(plan);
+        assertThat(join, notNullValue());
+        assertThat(join.hasRuntimeFilter(), is(false));
+        assertThat(join.dependencies().isEmpty(), is(true));
+    }
 }
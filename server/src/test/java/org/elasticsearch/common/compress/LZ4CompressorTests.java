@@ -0,0 +1,120 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package org.elasticsearch.common.compress;
+
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.test.ESTestCase;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.Matchers.sameInstance;
+
+public class LZ4CompressorTests extends ESTestCase {
+
+    private final Compressor compressor = CompressorFactory.LZ4;
+
+    public void testRoundTripOfRandomBytes() throws IOException {
+        byte[] data = randomByteArrayOfLength(randomIntBetween(0, 3 * LZ4Compressor.BLOCK_SIZE));
+        assertThat(roundTrip(data), is(data));
+    }
+
+    public void testRoundTripOfRepetitiveBytesCompresses() throws IOException {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 10_000; i++) {
+            sb.append("row-").append(i % 50).append(",foo,bar;");
+        }
+        byte[] data = sb.toString().getBytes(StandardCharsets.UTF_8);
+        BytesReference compressed = compress(data);
+        assertThat(compressed.length(), lessThan(data.length / 4));
+        assertThat(decompress(compressed), is(data));
+    }
+
+    public void testRoundTripOfOverlappingMatches() throws IOException {
+        byte[] data = new byte[randomIntBetween(13, 1000)];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) (i % 3);
+        }
+        assertThat(roundTrip(data), is(data));
+    }
+
+    public void testCompressedBytesAreDetectedByFactory() throws IOException {
+        BytesReference compressed = compress(randomByteArrayOfLength(20));
+        assertThat(CompressorFactory.compressor(compressed), sameInstance(compressor));
+    }
+
+    public void testRoundTripOfShortInputs() throws IOException {
+        for (int length = 1; length < 32; length++) {
+            byte[] data = new byte[length];
+            for (int i = 0; i < length; i++) {
+                data[i] = (byte) (randomBoolean() ? 'a' : 'b');
+            }
+            assertThat(roundTrip(data), is(data));
+        }
+    }
+
+    public void testCorruptedBlockIsRejected() throws IOException {
+        byte[] data = new byte[1024];
+        BytesReference compressed = compress(data);
+        byte[] corrupted = BytesReference.toBytes(compressed);
+        // lowest byte of the compressed length of the first block, which follows the header and the uncompressed length
+        int compressedLengthOffset = 4 + 4 + 3;
+        corrupted[compressedLengthOffset] = (byte) (corrupted[compressedLengthOffset] + 1);
+        expectThrows(IOException.class, () -> decompress(new BytesArray(corrupted)));
+    }
+
+    private byte[] roundTrip(byte[] data) throws IOException {
+        return decompress(compress(data));
+    }
+
+    private BytesReference compress(byte[] data) throws IOException {
+        BytesStreamOutput bytesOut = new BytesStreamOutput();
+        try (StreamOutput out = compressor.streamOutput(bytesOut)) {
+            int offset = 0;
+            while (offset < data.length) {
+                int length = Math.min(data.length - offset, randomIntBetween(1, 10_000));
+                out.writeBytes(data, offset, length);
+                offset += length;
+            }
+        }
+        return bytesOut.bytes();
+    }
+
+    private byte[] decompress(BytesReference compressed) throws IOException {
+        try (StreamInput in = compressor.streamInput(compressed.streamInput())) {
+            byte[] buffer = new byte[randomIntBetween(1, 8192)];
+            BytesStreamOutput out = new BytesStreamOutput();
+            int read;
+            while ((read = in.read(buffer, 0, buffer.length)) != -1) {
+                out.writeBytes(buffer, 0, read);
+            }
+            return BytesReference.toBytes(out.bytes());
+        }
+    }
+}
@@ -0,0 +1,160 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package org.elasticsearch.gateway;
+
+import org.elasticsearch.Version;
+import org.elasticsearch.cluster.ClusterName;
+import org.elasticsearch.cluster.ClusterState;
+import org.elasticsearch.cluster.coordination.CoordinationMetadata;
+import org.elasticsearch.cluster.metadata.IndexMetadata;
+import org.elasticsearch.cluster.metadata.Metadata;
+import org.elasticsearch.common.UUIDs;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.env.NodeEnvironment;
+import org.elasticsearch.test.ESTestCase;
+import org.junit.Test;
+
+import java.io.IOException;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+
+public class PersistedClusterStateServiceTests extends ESTestCase {
+
+    private static IndexMetadata indexMetadata(String name, long version) {
+        return IndexMetadata.builder(name)
+            .settings(settings(Version.CURRENT).put(IndexMetadata.SETTING_INDEX_UUID, UUIDs.randomBase64UUID()))
+            .numberOfShards(1)
+            .numberOfReplicas(0)
+            .version(version)
+            .build();
+    }
+
+    private static ClusterState clusterState(long term, long version, Metadata.Builder metadata) {
+        metadata.coordinationMetadata(CoordinationMetadata.builder().term(term).build());
+        return ClusterState.builder(ClusterName.DEFAULT)
+            .version(version)
+            .metadata(metadata)
+            .build();
+    }
+
+    private PersistedClusterStateService newService(NodeEnvironment nodeEnvironment) {
+        return new PersistedClusterStateService(
+            nodeEnvironment.nodeDataPaths(), nodeEnvironment.nodeId(), xContentRegistry());
+    }
+
+    @Test
+    public void testEmptyStoreHasNoState() throws IOException {
+        try (NodeEnvironment nodeEnvironment = newNodeEnvironment();
+             PersistedClusterStateService service = newService(nodeEnvironment)) {
+            assertThat(PersistedClusterStateService.hasPersistedState(nodeEnvironment.nodeDataPaths()), is(false));
+            assertThat(service.loadBestOnDiskState().empty(), is(true));
+        }
+    }
+
+    @Test
+    public void testFullStateIsLoadedAfterRestart() throws IOException {
+        IndexMetadata index = indexMetadata("t1", 1L);
+        try (NodeEnvironment nodeEnvironment = newNodeEnvironment()) {
+            ClusterState state = clusterState(2L, 10L, Metadata.builder()
+                .persistentSettings(Settings.builder().put("stats.enabled", false).build())
+                .put(index, false));
+            try (PersistedClusterStateService service = newService(nodeEnvironment)) {
+                service.writeFullStateAndCommit(3L, state);
+            }
+            assertThat(PersistedClusterStateService.hasPersistedState(nodeEnvironment.nodeDataPaths()), is(true));
+
+            try (PersistedClusterStateService service = newService(nodeEnvironment)) {
+                PersistedClusterStateService.OnDiskState onDiskState = service.loadBestOnDiskState();
+                assertThat(onDiskState.empty(), is(false));
+                assertThat(onDiskState.currentTerm(), is(3L));
+                assertThat(onDiskState.lastAcceptedVersion(), is(10L));
+                Metadata metadata = onDiskState.metadata();
+                assertThat(metadata.coordinationMetadata().term(), is(2L));
+                assertThat(metadata.persistentSettings().get("stats.enabled"), is("false"));
+                assertThat(metadata.index(index.getIndex()), is(index));
+            }
+        }
+    }
+
+    @Test
+    public void testIncrementalWriteOnlyUpdatesChangedIndices() throws IOException {
+        IndexMetadata unchanged = indexMetadata("unchanged", 1L);
+        IndexMetadata changed = indexMetadata("changed", 1L);
+        IndexMetadata deleted = indexMetadata("deleted", 1L);
+        IndexMetadata added = indexMetadata("added", 1L);
+        try (NodeEnvironment nodeEnvironment = newNodeEnvironment();
+             PersistedClusterStateService service = newService(nodeEnvironment)) {
+            ClusterState previousState = clusterState(1L, 1L, Metadata.builder()
+                .put(unchanged, false)
+                .put(changed, false)
+                .put(deleted, false));
+            service.writeFullStateAndCommit(1L, previousState);
+
+            IndexMetadata changedV2 = IndexMetadata.builder(changed).version(2L).build();
+            ClusterState newState = clusterState(1L, 2L, Metadata.builder()
+                .put(unchanged, false)
+                .put(changedV2, false)
+                .put(added, false));
+            int writtenIndices = service.writeIncrementalStateAndCommit(1L, previousState, newState);
+            assertThat(writtenIndices, is(2));
+
+            Metadata metadata = service.loadBestOnDiskState().metadata();
+            assertThat(metadata.indices().size(), is(3));
+            assertThat(metadata.index(unchanged.getIndex()), notNullValue());
+            assertThat(metadata.index(changed.getIndex()).getVersion(), is(2L));
+            assertThat(metadata.index(added.getIndex()), notNullValue());
+            assertThat(metadata.index(deleted.getIndex()), nullValue());
+        }
+    }
+
+    @Test
+    public void testCommitUpdatesCurrentTermOnly() throws IOException {
+        IndexMetadata index = indexMetadata("t1", 1L);
+        try (NodeEnvironment nodeEnvironment = newNodeEnvironment();
+             PersistedClusterStateService service = newService(nodeEnvironment)) {
+            ClusterState state = clusterState(1L, 5L, Metadata.builder().put(index, false));
+            service.writeFullStateAndCommit(1L, state);
+            service.commit(4L, state);
+
+            PersistedClusterStateService.OnDiskState onDiskState = service.loadBestOnDiskState();
+            assertThat(onDiskState.currentTerm(), is(4L));
+            assertThat(onDiskState.lastAcceptedVersion(), is(5L));
+            assertThat(onDiskState.metadata().index(index.getIndex()), is(index));
+        }
+    }
+
+    @Test
+    public void testLoadingStateOfOtherNodeFails() throws IOException {
+        try (NodeEnvironment nodeEnvironment = newNodeEnvironment()) {
+            try (PersistedClusterStateService service = newService(nodeEnvironment)) {
+                service.writeFullStateAndCommit(1L, clusterState(1L, 1L, Metadata.builder()));
+            }
+            try (PersistedClusterStateService service = new PersistedClusterStateService(
+                     nodeEnvironment.nodeDataPaths(), "other-node", xContentRegistry())) {
+                expectThrows(IllegalStateException.class, service::loadBestOnDiskState);
+            }
+        }
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package org.elasticsearch.index;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+
+import java.util.Map;
+
+import org.apache.lucene.search.Sort;
+import org.apache.lucene.search.SortField;
+import org.apache.lucene.search.SortedNumericSelector;
+import org.apache.lucene.search.SortedNumericSortField;
+import org.apache.lucene.search.SortedSetSelector;
+import org.apache.lucene.search.SortedSetSortField;
+import org.elasticsearch.index.mapper.KeywordFieldMapper;
+import org.elasticsearch.index.mapper.MappedFieldType;
+import org.elasticsearch.index.mapper.NumberFieldMapper;
+import org.elasticsearch.test.ESTestCase;
+import org.junit.Test;
+
+public class IndexSortConfigTests extends ESTestCase {
+
+    private static final Map<String, MappedFieldType> FIELD_TYPES = Map.of(
+        "ts", new NumberFieldMapper.NumberFieldType(NumberFieldMapper.NumberType.LONG),
+        "x", new NumberFieldMapper.NumberFieldType(NumberFieldMapper.NumberType.DOUBLE),
+        "name", keywordFieldType(),
+        "userName", keywordFieldType(),
+        "o.ts", new NumberFieldMapper.NumberFieldType(NumberFieldMapper.NumberType.LONG)
+    );
+
+    private static MappedFieldType keywordFieldType() {
+        KeywordFieldMapper.KeywordFieldType fieldType = new KeywordFieldMapper.KeywordFieldType();
+        fieldType.setHasDocValues(true);
+        return fieldType;
+    }
+
+    private static Sort buildIndexSort(String sortBy) {
+        return IndexSortConfig.buildIndexSort(sortBy, FIELD_TYPES::get);
+    }
+
+    @Test
+    public void testEmptySortByHasNoIndexSort() {
+        assertThat(buildIndexSort(""), nullValue());
+    }
+
+    @Test
+    public void testDescendingSortPutsNullsFirstByDefault() {
+        SortedNumericSortField expected = new SortedNumericSortField(
+            "ts", SortField.Type.LONG, true, SortedNumericSelector.Type.MAX);
+        expected.setMissingValue(Long.MAX_VALUE);
+        assertThat(buildIndexSort("ts DESC"), is(new Sort(expected)));
+    }
+
+    @Test
+    public void testMultipleSortItemsWithExplicitNullOrdering() {
+        SortedSetSortField name = new SortedSetSortField("name", false, SortedSetSelector.Type.MIN);
+        name.setMissingValue(SortedSetSortField.STRING_FIRST);
+        SortedNumericSortField x = new SortedNumericSortField(
+            "x", SortField.Type.DOUBLE, false, SortedNumericSelector.Type.MIN);
+        x.setMissingValue(Double.POSITIVE_INFINITY);
+        assertThat(buildIndexSort("name asc nulls first, x"), is(new Sort(name, x)));
+    }
+
+    @Test
+    public void testUnknownColumnIsRejected() {
+        IllegalArgumentException e = expectThrows(IllegalArgumentException.class, () -> buildIndexSort("y"));
+        assertThat(e.getMessage(), is("Column 'y' used in sort_by doesn't exist"));
+    }
+
+    @Test
+    public void testInvalidSortItemIsRejected() {
+        IllegalArgumentException e = expectThrows(IllegalArgumentException.class, () -> IndexSortConfig.parse("ts DOWN"));
+        assertThat(e.getMessage(), containsString("Invalid sort_by item 'ts DOWN'"));
+    }
+
+    @Test
+    public void testColumnNamesFollowTheSqlIdentifierRules() {
+        assertThat(IndexSortConfig.parse("\"userName\" DESC").get(0).column, is("userName"));
+        assertThat(IndexSortConfig.parse("TS").get(0).column, is("ts"));
+        assertThat(IndexSortConfig.parse("o['ts'] nulls first").get(0).column, is("o.ts"));
+
+        SortedSetSortField userName = new SortedSetSortField("userName", false, SortedSetSelector.Type.MIN);
+        userName.setMissingValue(SortedSetSortField.STRING_LAST);
+        assertThat(buildIndexSort("\"userName\", o['ts']").getSort()[0], is(userName));
+    }
+
+    @Test
+    public void testQuotedColumnNameMayContainSeparators() {
+        assertThat(IndexSortConfig.parse("\"a, b\" desc, x").get(0).column, is("a, b"));
+    }
+
+    @Test
+    public void testExpressionIsRejectedAsColumn() {
+        IllegalArgumentException e = expectThrows(IllegalArgumentException.class, () -> IndexSortConfig.parse("ts+1"));
+        assertThat(e.getMessage(), is("Invalid column 'ts+1' in sort_by"));
+    }
+}
@@ -225,6 +225,7 @@ public abstract class EngineTestCase extends ESTestCase {
             config.getFlushMergesAfter(),
             config.getExternalRefreshListener(),
             Collections.emptyList(),
+            config.getIndexSort(),
             config.getCircuitBreakerService(),
             globalCheckpointSupplier,
             config.retentionLeasesSupplier(),
@@ -250,6 +251,7 @@ public abstract class EngineTestCase extends ESTestCase {
             config.getFlushMergesAfter(),
             config.getExternalRefreshListener(),
             Collections.emptyList(),
+            config.getIndexSort(),
             config.getCircuitBreakerService(),
             config.getGlobalCheckpointSupplier(),
             config.retentionLeasesSupplier(),
@@ -274,6 +276,7 @@ public abstract class EngineTestCase extends ESTestCase {
             config.getFlushMergesAfter(),
             config.getExternalRefreshListener(),
             Collections.emptyList(),
+            config.getIndexSort(),
             config.getCircuitBreakerService(),
             config.getGlobalCheckpointSupplier(),
             config.retentionLeasesSupplier(),
@@ -701,6 +704,7 @@ public abstract class EngineTestCase extends ESTestCase {
             TimeValue.timeValueMinutes(5),
             extRefreshListenerList,
             intRefreshListenerList,
+            null,
             new NoneCircuitBreakerService(),
             globalCheckpointSupplier,
             retentionLeasesSupplier,
@@ -737,6 +741,7 @@ public abstract class EngineTestCase extends ESTestCase {
             config.getFlushMergesAfter(),
             config.getExternalRefreshListener(),
             config.getInternalRefreshListener(),
+            config.getIndexSort(),
             config.getCircuitBreakerService(),
             config.getGlobalCheckpointSupplier(),
             config.retentionLeasesSupplier(),
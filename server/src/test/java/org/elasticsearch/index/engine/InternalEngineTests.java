@@ -1352,6 +1352,64 @@ public class InternalEngineTests extends EngineTestCase {
         }
     }
 
+    @Test
+    public void testMultiGetReturnsTheSameDocumentsAsGet() throws IOException {
+        final BiFunction<String, Engine.SearcherScope, Searcher> searcherFactory = engine::acquireSearcher;
+        int numDocs = randomIntBetween(10, 50);
+        for (int i = 0; i < numDocs; i++) {
+            ParsedDocument doc = testParsedDocument(Integer.toString(i), null, testDocument(), B_1, null);
+            engine.index(indexForDoc(doc));
+            if (rarely()) {
+                engine.refresh("test");
+            }
+            if (rarely()) {
+                // enables the translog location tracking of the version map
+                engine.get(new Engine.Get(doc.id(), newUid(doc)), searcherFactory).close();
+            }
+        }
+        for (int i = 0; i < 3; i++) {
+            String id = Integer.toString(randomIntBetween(0, numDocs - 1));
+            engine.delete(new Engine.Delete(id, newUid(id), primaryTerm.get()));
+        }
+        List<Engine.Get> gets = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            String id = Integer.toString(randomIntBetween(0, numDocs + 5));
+            gets.add(new Engine.Get(id, newUid(id)));
+        }
+        try (Engine.MultiGetResult multiGetResult = engine.multiGet(gets, searcherFactory)) {
+            assertThat(multiGetResult.size(), equalTo(gets.size()));
+            for (int i = 0; i < gets.size(); i++) {
+                try (Engine.GetResult getResult = engine.get(gets.get(i), searcherFactory)) {
+                    VersionsAndSeqNoResolver.DocIdAndVersion expected = getResult.docIdAndVersion();
+                    VersionsAndSeqNoResolver.DocIdAndVersion actual = multiGetResult.docIdAndVersion(i);
+                    if (expected == null) {
+                        assertThat(actual, nullValue());
+                    } else {
+                        assertThat(actual, notNullValue());
+                        assertThat(actual.version, equalTo(expected.version));
+                        assertThat(actual.seqNo, equalTo(expected.seqNo));
+                        assertThat(actual.primaryTerm, equalTo(expected.primaryTerm));
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testMultiGetFailsOnVersionConflict() throws IOException {
+        final BiFunction<String, Engine.SearcherScope, Searcher> searcherFactory = engine::acquireSearcher;
+        ParsedDocument doc = testParsedDocument("1", null, testDocument(), B_1, null);
+        engine.index(indexForDoc(doc));
+        if (randomBoolean()) {
+            engine.refresh("test");
+        }
+        List<Engine.Get> gets = List.of(
+            new Engine.Get("2", newUid("2")),
+            new Engine.Get("1", newUid(doc)).version(2).versionType(VersionType.INTERNAL)
+        );
+        expectThrows(VersionConflictEngineException.class, () -> engine.multiGet(gets, searcherFactory));
+    }
+
     /**
      * simulates what an upsert / update API does
      */
@@ -2940,6 +2998,7 @@ public class InternalEngineTests extends EngineTestCase {
             TimeValue.timeValueMinutes(5),
             config.getExternalRefreshListener(),
             config.getInternalRefreshListener(),
+            config.getIndexSort(),
             new NoneCircuitBreakerService(),
             () -> UNASSIGNED_SEQ_NO,
             () -> RetentionLeases.EMPTY,
@@ -462,7 +462,8 @@ public abstract class IndexShardTestCase extends ESTestCase {
                 Arrays.asList(listeners),
                 globalCheckpointSyncer,
                 RetentionLeaseSyncer.EMPTY,
-                breakerService
+                breakerService,
+                new TranslogSyncTracker()
             );
             indexShard.addShardFailureCallback(DEFAULT_SHARD_FAILURE_HANDLER);
             success = true;
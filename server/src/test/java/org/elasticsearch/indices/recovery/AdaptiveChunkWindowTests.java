@@ -0,0 +1,80 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package org.elasticsearch.indices.recovery;
+
+import org.apache.lucene.store.RateLimiter;
+import org.elasticsearch.test.ESTestCase;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.Matchers.is;
+
+public class AdaptiveChunkWindowTests extends ESTestCase {
+
+    private static final long RTT = TimeUnit.MILLISECONDS.toNanos(10);
+
+    private static long ackRound(AdaptiveChunkWindow window, long startNanos, long rttNanos) {
+        int chunks = window.concurrentChunks();
+        for (int i = 0; i < chunks; i++) {
+            window.onChunkAcknowledged(window.chunkSize(), startNanos, startNanos + rttNanos);
+        }
+        return startNanos + rttNanos;
+    }
+
+    @Test
+    public void testWindowGrowsWhileThroughputImproves() {
+        AdaptiveChunkWindow window = new AdaptiveChunkWindow(512 * 1024, 2, () -> null);
+        long now = 0;
+        while (window.concurrentChunks() < AdaptiveChunkWindow.MAX_CONCURRENT_CHUNKS) {
+            now = ackRound(window, now, RTT);
+        }
+        assertThat(window.chunkSize(), is(512 * 1024));
+        while (window.chunkSize() < AdaptiveChunkWindow.MAX_CHUNK_SIZE) {
+            now = ackRound(window, now, RTT);
+        }
+        assertThat(window.concurrentChunks(), is(AdaptiveChunkWindow.MAX_CONCURRENT_CHUNKS));
+    }
+
+    @Test
+    public void testWindowShrinksIfRoundTripTimeRisesWithoutGain() {
+        AdaptiveChunkWindow window = new AdaptiveChunkWindow(512 * 1024, 2, () -> null);
+        long now = ackRound(window, 0, RTT);
+        assertThat(window.concurrentChunks(), is(4));
+        // twice the chunks with more than twice the round trip time doesn't improve the throughput
+        now = ackRound(window, now, RTT * 3);
+        assertThat(window.concurrentChunks(), is(2));
+        // never drops below the configured number of concurrent chunks
+        now = ackRound(window, now, RTT * 6);
+        assertThat(window.concurrentChunks(), is(2));
+    }
+
+    @Test
+    public void testWindowDoesNotGrowIfThrottled() {
+        RateLimiter limiter = new RateLimiter.SimpleRateLimiter(1);
+        AdaptiveChunkWindow window = new AdaptiveChunkWindow(512 * 1024, 2, () -> limiter);
+        ackRound(window, 0, RTT);
+        assertThat(window.concurrentChunks(), is(2));
+        assertThat(window.chunkSize(), is(512 * 1024));
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package org.elasticsearch.repositories.blobstore;
+
+import org.apache.lucene.store.IOContext;
+import org.apache.lucene.store.IndexInput;
+import org.elasticsearch.index.shard.IndexShard;
+import org.elasticsearch.index.shard.IndexShardTestCase;
+import org.elasticsearch.index.snapshots.blobstore.BlobStoreIndexShardSnapshot;
+import org.elasticsearch.index.snapshots.blobstore.SnapshotFiles;
+import org.elasticsearch.index.store.Store;
+import org.elasticsearch.index.store.StoreFileMetadata;
+import org.elasticsearch.indices.recovery.RecoveryState;
+import org.elasticsearch.snapshots.SnapshotId;
+import org.elasticsearch.threadpool.ThreadPool;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.hamcrest.Matchers.is;
+
+public class FileRestoreContextTests extends IndexShardTestCase {
+
+    @Test
+    public void testFilesAreRestoredConcurrently() throws Exception {
+        IndexShard source = newStartedShard(true);
+        IndexShard target = newShard(true);
+        try {
+            for (int i = 0; i < 10; i++) {
+                indexDoc(source, Integer.toString(i));
+                flushShard(source, true);
+            }
+            Store.MetadataSnapshot sourceMetadata = source.snapshotStoreMetadata();
+            List<BlobStoreIndexShardSnapshot.FileInfo> files = new ArrayList<>();
+            for (StoreFileMetadata md : sourceMetadata) {
+                files.add(new BlobStoreIndexShardSnapshot.FileInfo("__" + md.name(), md, null));
+            }
+            assertThat(files.size() > 2, is(true));
+
+            SnapshotId snapshotId = new SnapshotId("snap", "uuid");
+            RecoveryState recoveryState = new RecoveryState(
+                target.routingEntry(), getFakeDiscoNode(target.routingEntry().currentNodeId()), null);
+            CountDownLatch concurrentReads = new CountDownLatch(2);
+            AtomicBoolean readConcurrently = new AtomicBoolean(false);
+            FileRestoreContext restoreContext = new FileRestoreContext(
+                "repo", target.shardId(), snapshotId, recoveryState, 4096, threadPool.executor(ThreadPool.Names.SNAPSHOT), 3) {
+
+                @Override
+                protected InputStream fileInputStream(BlobStoreIndexShardSnapshot.FileInfo fileInfo) {
+                    concurrentReads.countDown();
+                    try {
+                        if (concurrentReads.await(10, TimeUnit.SECONDS)) {
+                            readConcurrently.set(true);
+                        }
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    byte[] bytes = new byte[Math.toIntExact(fileInfo.length())];
+                    try (IndexInput in = source.store().directory().openInput(fileInfo.physicalName(), IOContext.READONCE)) {
+                        in.readBytes(bytes, 0, bytes.length);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                    return new ByteArrayInputStream(bytes);
+                }
+            };
+            restoreContext.restore(new SnapshotFiles("snap", files), target.store());
+
+            assertThat(readConcurrently.get(), is(true));
+            Store.MetadataSnapshot restoredMetadata = target.store().getMetadata(null, true);
+            Store.RecoveryDiff diff = sourceMetadata.recoveryDiff(restoredMetadata);
+            assertThat(diff.identical.size(), is(sourceMetadata.size()));
+        } finally {
+            closeShards(source, target);
+        }
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * Licensed to Crate under one or more contributor license agreements.
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.  Crate licenses this file
+ * to you under the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.  You may
+ * obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ * However, if you have executed another commercial license agreement
+ * with Crate these terms will supersede the license and you may use the
+ * software solely pursuant to the terms of the relevant commercial
+ * agreement.
+ */
+
+package org.elasticsearch.transport;
+
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.compress.CompressorFactory;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.util.BigArrays;
+import org.elasticsearch.test.ESTestCase;
+
+import java.io.IOException;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.sameInstance;
+
+public class CompressibleBytesOutputStreamTests extends ESTestCase {
+
+    public void testMessageBelowMinSizeIsNotCompressed() throws IOException {
+        byte[] data = randomByteArrayOfLength(randomIntBetween(0, 1023));
+        try (CompressibleBytesOutputStream stream = newStream(1024)) {
+            stream.writeBytes(data);
+            BytesReference bytes = stream.materializeBytes();
+
+            assertThat(stream.isCompressed(), is(false));
+            assertThat(CompressorFactory.LZ4.isCompressed(bytes), is(false));
+            assertThat(BytesReference.toBytes(bytes), is(data));
+        }
+    }
+
+    public void testMessageReachingMinSizeIsCompressed() throws IOException {
+        byte[] data = new byte[randomIntBetween(1024, 100_000)];
+        try (CompressibleBytesOutputStream stream = newStream(1024)) {
+            // single bytes and chunks, so that the threshold is reached within a write and at a write boundary
+            int offset = 0;
+            while (offset < data.length) {
+                if (randomBoolean()) {
+                    stream.writeByte(data[offset]);
+                    offset++;
+                } else {
+                    int length = Math.min(data.length - offset, randomIntBetween(1, 2048));
+                    stream.writeBytes(data, offset, length);
+                    offset += length;
+                }
+            }
+            BytesReference bytes = stream.materializeBytes();
+
+            assertThat(stream.isCompressed(), is(true));
+            assertThat(CompressorFactory.compressor(bytes), sameInstance(CompressorFactory.LZ4));
+            assertThat(decompress(bytes), is(data));
+        }
+    }
+
+    public void testWithoutMinSizeAllMessagesAreCompressed() throws IOException {
+        byte[] data = randomByteArrayOfLength(randomIntBetween(1, 100));
+        try (CompressibleBytesOutputStream stream = newStream(0)) {
+            stream.writeBytes(data);
+            BytesReference bytes = stream.materializeBytes();
+
+            assertThat(stream.isCompressed(), is(true));
+            assertThat(CompressorFactory.compressor(bytes), notNullValue());
+            assertThat(decompress(bytes), is(data));
+        }
+    }
+
+    private static CompressibleBytesOutputStream newStream(long minCompressSize) throws IOException {
+        return new CompressibleBytesOutputStream(
+            new BytesStreamOutput(), CompressorFactory.LZ4, minCompressSize, BigArrays.NON_RECYCLING_INSTANCE);
+    }
+
+    private static byte[] decompress(BytesReference bytes) throws IOException {
+        try (StreamInput in = CompressorFactory.compressor(bytes).streamInput(bytes.streamInput())) {
+            BytesStreamOutput out = new BytesStreamOutput();
+            byte[] buffer = new byte[4096];
+            int read;
+            while ((read = in.read(buffer, 0, buffer.length)) != -1) {
+                out.writeBytes(buffer, 0, read);
+            }
+            return BytesReference.toBytes(out.bytes());
+        }
+    }
+}